@@ -9,6 +9,8 @@ import com.google.firebase.FirebaseApp
 import com.google.firebase.crashlytics.FirebaseCrashlytics
 import dagger.hilt.android.HiltAndroidApp
 import org.intelehealth.app.ui.user.observer.AppUsesStatisticsObserver
+import org.intelehealth.common.metrics.network.NetworkTelemetry
+import java.io.IOException
 import javax.inject.Inject
 
 /**
@@ -62,6 +64,21 @@ class IHApplication : Application(), Configuration.Provider {
         ProcessLifecycleOwner.get().lifecycle.addObserver(appUsesStatisticsObserver)
     }
 
+    /**
+     * In debug builds the network timings are exported to the cache directory each
+     * time the app leaves the screen, see [NetworkTelemetry.exportTo].
+     */
+    override fun onTrimMemory(level: Int) {
+        super.onTrimMemory(level)
+        if (BuildConfig.DEBUG.not() || level != TRIM_MEMORY_UI_HIDDEN) return
+        try {
+            val file = NetworkTelemetry.default.exportTo(cacheDir)
+            Timber.d { "Network telemetry exported to ${file.path}" }
+        } catch (e: IOException) {
+            Timber.e(e) { "Network telemetry export failed" }
+        }
+    }
+
     /**
      * Provides the configuration for WorkManager.
      *
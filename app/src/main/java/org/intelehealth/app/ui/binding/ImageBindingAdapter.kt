@@ -5,6 +5,7 @@ import androidx.annotation.DrawableRes
 import androidx.core.content.ContextCompat
 import androidx.databinding.BindingAdapter
 import com.bumptech.glide.Glide
+import com.bumptech.glide.Priority
 import com.bumptech.glide.load.engine.DiskCacheStrategy
 import com.bumptech.glide.load.model.GlideUrl
 import com.bumptech.glide.load.model.LazyHeaders
@@ -12,6 +13,8 @@ import com.bumptech.glide.signature.ObjectKey
 import com.github.ajalt.timberkt.Timber
 import org.intelehealth.app.model.IntroContent
 import org.intelehealth.app.utility.PERSON_IMAGE_BASE_PATH
+import org.intelehealth.common.helper.BandwidthProfile
+import org.intelehealth.common.helper.BandwidthProfiler
 import org.intelehealth.common.helper.PreferenceHelper
 import org.intelehealth.common.utility.PreferenceUtils
 import java.io.File
@@ -127,11 +130,16 @@ fun bindImageResource(imageView: ImageView?, @DrawableRes resourceId: Int?) {
  * and provides a thumbnail for faster loading. The image is scaled and cropped
  * to fit the ImageView.
  *
+ * The download timeout and priority follow the current [BandwidthProfile]: Glide's
+ * default of 2.5 seconds fails most photos on a 2G connection, while on a fast
+ * network a stalled request should give way to the placeholder quickly.
+ *
  * @param imageView The ImageView into which the image should be loaded.
  * @param url The URL of the image to load.
  * @param profileVersion A version identifier for the profile image, used for cache invalidation.
  */
 fun loadImageWithAuth(imageView: ImageView, url: String, profileVersion: Long) {
+    val profile = BandwidthProfiler.getInstance(imageView.context).current()
     PreferenceUtils(PreferenceHelper(imageView.context.applicationContext)).apply {
         val glideUrl = GlideUrl(url, LazyHeaders.Builder().addHeader("Authorization", basicToken).build())
 
@@ -146,6 +154,14 @@ fun loadImageWithAuth(imageView: ImageView, url: String, profileVersion: Long) {
             .error(org.intelehealth.resource.R.drawable.avatar1)
             .diskCacheStrategy(DiskCacheStrategy.DATA)
             .signature(ObjectKey(profileVersion))
+            .timeout(profile.imageTimeoutMillis())
+            .priority(if (profile == BandwidthProfile.LOW) Priority.LOW else Priority.NORMAL)
             .into(imageView)
     }
 }
+
+private fun BandwidthProfile.imageTimeoutMillis(): Int = when (this) {
+    BandwidthProfile.LOW -> 30_000
+    BandwidthProfile.MEDIUM -> 10_000
+    BandwidthProfile.HIGH -> 5_000
+}
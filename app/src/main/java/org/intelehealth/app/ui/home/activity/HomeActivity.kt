@@ -9,7 +9,6 @@ import androidx.navigation.ui.AppBarConfiguration
 import androidx.navigation.ui.setupWithNavController
 import com.github.ajalt.timberkt.Timber
 import com.google.android.material.navigation.NavigationView
-import com.google.gson.Gson
 import dagger.hilt.android.AndroidEntryPoint
 import org.intelehealth.app.R
 import org.intelehealth.app.databinding.ActivityHomeBinding
@@ -23,9 +22,8 @@ import org.intelehealth.common.model.DialogParams
 import org.intelehealth.common.ui.activity.BaseStatusBarActivity
 import org.intelehealth.common.utility.ImageSpanGravity
 import org.intelehealth.common.utility.LocalUtils
-import org.intelehealth.common.utility.PreferenceUtils
 import org.intelehealth.config.presenter.feature.viewmodel.ActiveFeatureStatusViewModel
-import org.intelehealth.data.network.model.SetupLocation
+import org.intelehealth.data.provider.session.SessionContext
 import java.util.Locale
 import javax.inject.Inject
 import org.intelehealth.resource.R as ResourceR
@@ -44,9 +42,9 @@ import org.intelehealth.resource.R as ResourceR
  */
 @AndroidEntryPoint
 class HomeActivity : BaseStatusBarActivity(), NavigationView.OnNavigationItemSelectedListener {
-    // Inject preference utils
+    // Inject session context
     @Inject
-    lateinit var preferenceUtils: PreferenceUtils
+    lateinit var sessionContext: SessionContext
 
     private val userViewModel: UserViewModel by viewModels()
     private val afsViewModel: ActiveFeatureStatusViewModel by viewModels()
@@ -120,14 +118,12 @@ class HomeActivity : BaseStatusBarActivity(), NavigationView.OnNavigationItemSel
     /**
      * Displays the home screen title, including the user's location and last sync time.
      *
-     * This method retrieves the user's location from preferences and displays it as
+     * This method retrieves the user's location from the [SessionContext] and displays it as
      * the toolbar title, along with an icon. It also calls [showLastSyncTime] to
      * display the last data synchronization time as the toolbar subtitle.
      */
     private fun displayHomeTitle() {
-        preferenceUtils.location.let {
-            Gson().fromJson(it, SetupLocation::class.java).display
-        }?.apply {
+        sessionContext.current.location?.display?.apply {
             showLastSyncTime()
             supportActionBar?.title = this.imageSpan(
                 this@HomeActivity, ResourceR.drawable.ic_location_pin, ImageSpanGravity.START
@@ -1,6 +1,8 @@
 package org.intelehealth.app.ui.location.viewmodel
 
+import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.asLiveData
+import androidx.lifecycle.switchMap
 import dagger.hilt.android.lifecycle.HiltViewModel
 import org.intelehealth.common.helper.NetworkHelper
 import org.intelehealth.common.ui.viewmodel.BaseViewModel
@@ -37,13 +39,26 @@ class LocationViewModel @Inject constructor(
      */
     var selectedLocation: SetupLocation? = null
 
+    private val locationRequests = MutableLiveData(Unit)
+
     /**
-     * Retrieves the user's current location.
-     *
-     * @return A LiveData object containing the user's location as a
-     * [SetupLocation] object, or null if no location is set.
+     * The available locations, fetched again on every [reloadLocation].
+     */
+    val locations = locationRequests.switchMap { locationRepository.getLocation().asLiveData() }
+
+    /**
+     * Fetches the available locations again, e.g. after the request failed.
+     */
+    fun reloadLocation() = locationRequests.postValue(Unit)
+
+    /**
+     * Reloads the locations when they could not be fetched while offline, so the
+     * setup screen recovers without the user tapping retry.
      */
-    fun getLocation() = locationRepository.getLocation().asLiveData()
+    override fun onConnectionRestored() {
+        super.onConnectionRestored()
+        if (locations.value?.isSuccess() != true) reloadLocation()
+    }
 
     /**
      * Saves the currently selected location.
@@ -76,7 +76,7 @@ class SetupFragment : AuthenticationFragment(R.layout.fragment_setup) {
      * selection changes.
      */
     private fun fetchLocation() {
-        locationViewModel.getLocation().observe(viewLifecycleOwner) {
+        locationViewModel.locations.observe(viewLifecycleOwner) {
             it ?: return@observe
             locationViewModel.handleResponse(it) { result ->
                 Timber.d { Gson().toJson(result) }
@@ -118,7 +118,7 @@ class SetupFragment : AuthenticationFragment(R.layout.fragment_setup) {
 
     override fun retryOnNetworkLost() {
         super.retryOnNetworkLost()
-        fetchLocation()
+        locationViewModel.reloadLocation()
     }
 
 }
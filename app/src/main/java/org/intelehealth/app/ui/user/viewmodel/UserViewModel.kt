@@ -309,14 +309,23 @@ class UserViewModel @Inject constructor(
      * @param editableDetails A [UserProfileEditableDetails] object containing the
      *   attributes to be updated.  If a field in this object is null, it will be
      *   skipped and not updated.
+     * Without network the changes are queued in the outbox instead, see
+     * [queueUserProfile], and [onResult] is invoked with null.
+     *
      * @param onResult A callback function that is invoked with the updated
      *   [PersonAttributes] if the update is successful.
      */
     fun updateUserProfile(
         user: User,
         editableDetails: UserProfileEditableDetails,
-        onResult: (PersonAttributes) -> Unit
+        onResult: (PersonAttributes?) -> Unit
     ) = viewModelScope.launch {
+        if (isInternetAvailable().not()) {
+            withContext(Dispatchers.IO) { queueUserProfile(user, editableDetails) }
+            onResult(null)
+            return@launch
+        }
+
         val callQueue = ArrayList<suspend () -> Response<PersonAttributes>>()
         // Update profile picture if provided
         withContext(Dispatchers.IO) {
@@ -382,24 +391,54 @@ class UserViewModel @Inject constructor(
         type: PersonAttributeType,
         networkCall: suspend (Response<PersonAttributes>) -> Unit
     ) {
+        // Invoke the appropriate network call based on whether the attribute is editable or new
+        when (isNewAttribute(user, value, type)) {
+            false -> networkCall(getUpdateAttributeCall(value, type.value, user.providerId))
+            true -> networkCall(getCreateAttributeCall(value, type.value, user.providerId))
+            null -> Timber.d { "${type.name} unchanged" }
+        }
+    }
 
-        // Check if the attribute is editable (exists and the new value is different)
-        val isEditable = when (type) {
-            PersonAttributeType.EMAIL -> !user.emailId.isNullOrEmpty() && value != user.emailId
-            PersonAttributeType.PHONE_NUMBER -> !user.phoneNumber.isNullOrEmpty() && value != user.phoneNumber
-            PersonAttributeType.COUNTRY_CODE -> !user.countryCode.isNullOrEmpty() && value != user.countryCode
+    /**
+     * Whether [value] creates the attribute [type] of [user] or updates it.
+     *
+     * @return true when the attribute doesn't exist yet, false when it exists with a
+     *   different value, null when there is nothing to change.
+     */
+    private fun isNewAttribute(user: User, value: String, type: PersonAttributeType): Boolean? {
+        val current = when (type) {
+            PersonAttributeType.EMAIL -> user.emailId
+            PersonAttributeType.PHONE_NUMBER -> user.phoneNumber
+            PersonAttributeType.COUNTRY_CODE -> user.countryCode
         }
 
-        // Check if the attribute is new (doesn't exist)
-        val isNew = when (type) {
-            PersonAttributeType.EMAIL -> !isEditable && user.emailId.isNullOrEmpty()
-            PersonAttributeType.PHONE_NUMBER -> !isEditable && user.phoneNumber.isNullOrEmpty()
-            PersonAttributeType.COUNTRY_CODE -> !isEditable && user.countryCode.isNullOrEmpty()
+        return when {
+            // The attribute is new (doesn't exist)
+            current.isNullOrEmpty() -> true
+            // The attribute is editable (exists and the new value is different)
+            value != current -> false
+            else -> null
         }
+    }
 
-        // Invoke the appropriate network call based on whether the attribute is editable or new
-        if (isEditable) networkCall(getUpdateAttributeCall(value, type.value, user.providerId))
-        else if (isNew) networkCall(getCreateAttributeCall(value, type.value, user.providerId))
+    /**
+     * Queues the profile changes in the outbox; they are sent in order once the
+     * device is online, and repeated edits of one attribute are sent only once.
+     *
+     * @param user The [User] whose profile is being updated.
+     * @param editableDetails The changed profile fields; null fields are skipped.
+     */
+    private suspend fun queueUserProfile(user: User, editableDetails: UserProfileEditableDetails) {
+        editableDetails.profilePicture?.let { userRepository.queueUserProfilePicture(user.personId, it) }
+        listOf(
+            PersonAttributeType.EMAIL to editableDetails.email,
+            PersonAttributeType.PHONE_NUMBER to editableDetails.phoneNumber,
+            PersonAttributeType.COUNTRY_CODE to editableDetails.countryCode
+        ).forEach { (type, value) ->
+            value ?: return@forEach
+            val isNew = isNewAttribute(user, value, type) ?: return@forEach
+            userRepository.queueUserProfileAttribute(user.providerId, type.value, value, isNew)
+        }
     }
 
     /**
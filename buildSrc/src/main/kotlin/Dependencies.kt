@@ -86,6 +86,7 @@ object Deps {
             private const val version = "2.10.0"
             const val runtime = "androidx.work:work-runtime:$version"
             const val runtimeKtx = "androidx.work:work-runtime-ktx:$version"
+            const val testing = "androidx.work:work-testing:$version"
         }
 
         object Room {
@@ -93,6 +94,7 @@ object Deps {
             const val runtime = "androidx.room:room-runtime:$version"
             const val ktx = "androidx.room:room-ktx:$version"
             const val compiler = "androidx.room:room-compiler:$version"
+            const val testing = "androidx.room:room-testing:$version"
         }
 
         object Preference {
@@ -246,11 +248,12 @@ object TestDeps {
         const val junit = "junit:junit:$version"
     }
 
-    //    object MockWebServer {
-//        private const val version = "4.11.0"
-//        const val mockwebserver = "com.squareup.okhttp3:mockwebserver:$version"
+    object MockWebServer {
+        private const val version = "4.12.0"
+        const val mockwebserver = "com.squareup.okhttp3:mockwebserver:$version"
 //        const val okhttpIdlingResource = "com.jakewharton.espresso:okhttp3-idling-resource:1.0.0"
-//    }
+    }
+
 //
 //    object MockK {
 //        const val mockK = "io.mockk:mockk:1.13.7"
@@ -263,10 +266,10 @@ object TestDeps {
 //        const val android = "org.mockito:mockito-android:$version"
 //    }
 //
-//    object RoboElectric {
-//        private const val version = "4.10.3"
-//        const val robolectric = "org.robolectric:robolectric:$version"
-//    }
+    object RoboElectric {
+        private const val version = "4.14.1"
+        const val robolectric = "org.robolectric:robolectric:$version"
+    }
 //
 //    object Turbine {
 //        private const val version = "1.0.0"
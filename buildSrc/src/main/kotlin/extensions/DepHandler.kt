@@ -254,6 +254,7 @@ fun DependencyHandler.commonModuleDeps() {
     api(Deps.AndroidX.Fragment.fragmentKtx)
     api(Deps.AndroidX.Activity.activityKtx)
     api(Deps.AndroidX.Preference.preferenceKtx)
+    implementation(Deps.AndroidX.Lifecycle.process)
 
     // Coroutines
     api(Deps.Coroutines.core)
@@ -563,8 +564,8 @@ fun DependencyHandler.unitTestDeps() {
 //    // Coroutines Test
 //    testImplementation(TestDeps.Coroutines.coroutines)
 //
-//    // MockWebServer
-//    testImplementation(TestDeps.MockWebServer.mockwebserver)
+    // MockWebServer
+    testImplementation(TestDeps.MockWebServer.mockwebserver)
 //
 //    // MocKK
 //    testImplementation(TestDeps.MockK.mockK)
@@ -573,6 +574,40 @@ fun DependencyHandler.unitTestDeps() {
 //    testImplementation(TestDeps.truth)
 }
 
+/**
+ * Configures the dependencies for JVM tests that need an Android runtime.
+ *
+ * Adds Robolectric and AndroidX Test Core on top of [unitTestDeps], so that
+ * Room databases, SharedPreferences and the connectivity service can be used
+ * from local unit tests and benchmarks running on a CI machine.
+ */
+fun DependencyHandler.robolectricTestDeps() {
+    testImplementation(TestDeps.RoboElectric.robolectric)
+    testImplementation(TestDeps.AndroidX.coreKtx)
+}
+
+/**
+ * Configures the dependencies for Room migration tests.
+ *
+ * Adds Room's `MigrationTestHelper` on top of [robolectricTestDeps], which opens
+ * databases from the schemas exported under the module's `schemas` directory.
+ */
+fun DependencyHandler.roomMigrationTestDeps() {
+    robolectricTestDeps()
+    testImplementation(Deps.AndroidX.Room.testing)
+}
+
+/**
+ * Configures the dependencies for WorkManager tests.
+ *
+ * Adds `WorkManagerTestInitHelper` on top of [robolectricTestDeps], so code that
+ * schedules workers can run in local unit tests.
+ */
+fun DependencyHandler.workManagerTestDeps() {
+    robolectricTestDeps()
+    testImplementation(Deps.AndroidX.Work.testing)
+}
+
 /**
  * Configures the dependencies for Android instrumentation tests.
  *
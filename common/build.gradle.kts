@@ -1,5 +1,6 @@
 import extensions.androidTestDeps
 import extensions.commonModuleDeps
+import extensions.robolectricTestDeps
 import extensions.unitTestDeps
 import io.gitlab.arturbosch.detekt.Detekt
 
@@ -58,5 +59,6 @@ android {
 dependencies {
     commonModuleDeps()
     unitTestDeps()
+    robolectricTestDeps()
     androidTestDeps()
 }
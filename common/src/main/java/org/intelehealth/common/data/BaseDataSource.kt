@@ -3,6 +3,7 @@ package org.intelehealth.common.data
 import com.github.ajalt.timberkt.Timber
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.catch
 import kotlinx.coroutines.flow.flow
 import kotlinx.coroutines.flow.flowOn
@@ -10,6 +11,7 @@ import kotlinx.coroutines.flow.onStart
 import org.intelehealth.common.helper.NetworkHelper
 import org.intelehealth.common.utility.NO_NETWORK
 import retrofit2.Response
+import java.io.IOException
 import org.intelehealth.common.state.Result
 import org.intelehealth.common.utility.API_ERROR
 
@@ -34,6 +36,17 @@ abstract class BaseDataSource(
     companion object {
         const val NOT_FOUND_404 = 404
         const val BAD_REQUEST_400 = 400
+
+        /**
+         * Reuse window for results of endpoints fetched by several screens in a row.
+         */
+        const val SHORT_TTL_MILLIS = 30_000L
+
+        /**
+         * Shared by every data source, so that instances injected into different
+         * screens still coalesce their calls.
+         */
+        private val singleFlight = SingleFlight()
     }
 
     /**
@@ -56,41 +69,83 @@ abstract class BaseDataSource(
      *   [Dispatchers.IO]).
      *
      * @param T The type of the expected response body.
+     * @param cached The endpoint has an HTTP cache policy, so the call is made even
+     *   without network and [Result.Fail] is only emitted when nothing is cached.
      * @param call A suspend function representing the API call, which should
      *   return a [retrofit2.Response] of type [T].
      * @return A [kotlinx.coroutines.flow.Flow] emitting [Result] objects
      *   representing the different states of the API call (Loading, Success,
      *   Error, Fail).
      */
-    protected fun <T> getResult(call: suspend () -> Response<T>) = flow {
-        if (isInternetAvailable()) {
-            val response = call()
-            if (response.isSuccessful) {
-                println("API SUCCESS")
-                val result = Result.Success(
-                    response.body(), response.message()
-                )
-                emit(result)
-            } else {
-                println("API ERROR ${response.message()}")
-                emit(Result.Error(response.message()))
-            }
-        } else {
+    protected fun <T> getResult(cached: Boolean = false, call: suspend () -> Response<T>) = flow {
+        emit(fetch(cached, call))
+    }.asResultFlow()
+
+    /**
+     * Same as [getResult], but concurrent collectors passing the same [key] share one
+     * in-flight call and its [Result]. A successful result is additionally reused for
+     * [ttlMillis]. Meant for idempotent GETs that several screens trigger at once;
+     * the response body must be a decoded model, not a raw stream.
+     *
+     * @param key Identity of the request, including its arguments. It is scoped to the
+     *   data source class.
+     * @param ttlMillis How long a successful result is reused; 0 shares only the
+     *   in-flight call.
+     */
+    protected fun <T> getSharedResult(
+        key: String,
+        ttlMillis: Long = 0,
+        cached: Boolean = false,
+        call: suspend () -> Response<T>
+    ) = flow {
+        emit(singleFlight.execute(scoped(key), ttlMillis, { it.isSuccess() }) { fetch(cached, call) })
+    }.asResultFlow()
+
+    /**
+     * Drops a result kept by [getSharedResult], e.g. after a mutation.
+     */
+    protected fun invalidateShared(key: String) = singleFlight.invalidate(scoped(key))
+
+    private fun scoped(key: String) = "${javaClass.name}#$key"
+
+    private suspend fun <T> fetch(cached: Boolean, call: suspend () -> Response<T>): Result<T> = when {
+        isInternetAvailable() -> execute(call)
+        cached -> try {
+            execute(call)
+        } catch (e: IOException) {
+            Timber.d { "$NO_NETWORK, not cached: ${e.message}" }
+            Result.Fail(NO_NETWORK)
+        }
+
+        else -> {
             Timber.d { NO_NETWORK }
-            emit(Result.Fail(NO_NETWORK))
+            Result.Fail(NO_NETWORK)
         }
-    }.onStart {
+    }
+
+    private fun <T> Flow<Result<T>>.asResultFlow() = onStart {
         emit(Result.Loading("Please wait..."))
     }.catch { e ->
         Timber.e(e) // Log the error
         emit(Result.Error(e.message ?: API_ERROR))
     }.flowOn(dispatcher)
 
+    private suspend fun <T> execute(call: suspend () -> Response<T>): Result<T> {
+        val response = call()
+        return if (response.isSuccessful) {
+            println("API SUCCESS")
+            Result.Success(response.body(), response.message())
+        } else {
+            println("API ERROR ${response.message()}")
+            Result.Error(response.message())
+        }
+    }
+
     /**
      * Checks if the internet connection is available.
      *
-     * This function uses the provided [NetworkHelper] (if available) to check
-     * for network connectivity.
+     * This function reads the connectivity state cached by the provided
+     * [NetworkHelper] (if available), without a call to the system.
      *
      * @return `true` if the internet connection is available, `false` otherwise.
      *   Returns `false` if no [NetworkHelper] is provided.
@@ -0,0 +1,80 @@
+package org.intelehealth.common.data
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+
+/**
+ * Coalesces concurrent executions of the same call.
+ *
+ * Callers passing the same key while a call is in flight await that call instead of
+ * starting another, and all of them receive its value or its exception. A value can
+ * additionally be kept for a short time-to-live, during which the key is answered
+ * without running the block at all.
+ *
+ * The call runs in [scope] rather than in the first caller, so a caller that is
+ * cancelled stops waiting without cancelling the call for the others.
+ *
+ * @param scope Runs the shared calls.
+ * @param clock Monotonic time in nanoseconds, used for the time-to-live.
+ */
+class SingleFlight(
+    private val scope: CoroutineScope = CoroutineScope(SupervisorJob() + Dispatchers.IO),
+    private val clock: () -> Long = System::nanoTime
+) {
+    private val inFlight = ConcurrentHashMap<String, Deferred<Any?>>()
+    private val results = ConcurrentHashMap<String, Stored>()
+
+    /**
+     * Returns the value of [block] for [key], sharing a call that is already running
+     * or a value stored less than [ttlMillis] ago.
+     *
+     * @param key Identity of the request, e.g. the endpoint and its arguments.
+     * @param ttlMillis How long the value is reused after the call; 0 reuses it only
+     * for the callers that joined the running call.
+     * @param storeIf Decides whether a value is kept for [ttlMillis], e.g. successes only.
+     * @param block The call.
+     */
+    @Suppress("UNCHECKED_CAST")
+    suspend fun <T> execute(
+        key: String,
+        ttlMillis: Long = 0,
+        storeIf: (T) -> Boolean = { true },
+        block: suspend () -> T
+    ): T {
+        results[key]?.let { stored ->
+            if (stored.expiresAt - clock() > 0) return stored.value as T
+            results.remove(key, stored)
+        }
+
+        val call = inFlight.computeIfAbsent(key) {
+            scope.async(start = CoroutineStart.LAZY) {
+                try {
+                    block().also { value ->
+                        if (ttlMillis > 0 && storeIf(value)) {
+                            results[key] = Stored(value, clock() + TimeUnit.MILLISECONDS.toNanos(ttlMillis))
+                        }
+                    }
+                } finally {
+                    inFlight.remove(key)
+                }
+            }
+        }
+        call.start()
+        return call.await() as T
+    }
+
+    /**
+     * Drops the stored value of [key], or of every key when [key] is null.
+     */
+    fun invalidate(key: String? = null) {
+        if (key == null) results.clear() else results.remove(key)
+    }
+
+    private class Stored(val value: Any?, val expiresAt: Long)
+}
@@ -0,0 +1,38 @@
+package org.intelehealth.common.helper
+
+/**
+ * Coarse class of the current network, see [BandwidthProfiler]. Network-heavy paths
+ * pick their payload sizes and parallelism from it instead of using one setting for
+ * 2G, 4G and Wi-Fi alike.
+ *
+ * @property payloadScale Factor applied to the default size of pages and batches.
+ * @property concurrency Transfers a path may keep in flight or buffered at once.
+ */
+enum class BandwidthProfile(val payloadScale: Float, val concurrency: Int) {
+    LOW(payloadScale = 0.5f, concurrency = 1),
+    MEDIUM(payloadScale = 1f, concurrency = 1),
+    HIGH(payloadScale = 2f, concurrency = 2);
+
+    /**
+     * Scales [size] by [payloadScale], never below [min].
+     */
+    fun scale(size: Int, min: Int = 1): Int = (size * payloadScale).toInt().coerceAtLeast(min)
+
+    companion object {
+        /**
+         * Below this, e.g. 2G/EDGE or a congested cell, payloads shrink.
+         */
+        const val LOW_MAX_KBPS = 256L
+
+        /**
+         * From this on, e.g. good 4G or Wi-Fi, payloads grow.
+         */
+        const val HIGH_MIN_KBPS = 2_000L
+
+        fun of(kbps: Long): BandwidthProfile = when {
+            kbps < LOW_MAX_KBPS -> LOW
+            kbps < HIGH_MIN_KBPS -> MEDIUM
+            else -> HIGH
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.intelehealth.common.helper
+
+import android.content.Context
+import org.intelehealth.common.metrics.network.NetworkTelemetry
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Derives the [BandwidthProfile] from the throughput the app actually measured and,
+ * without recent measurements, from the [ConnectivityState] of the default network.
+ *
+ * Measured throughput comes from the response bodies recorded by [NetworkTelemetry]
+ * in the last [SAMPLE_WINDOW_MILLIS]. The system's estimate is the link speed, which
+ * says little about the uplink behind a Wi-Fi router, so it is only the fallback; when
+ * neither is known, Wi-Fi and ethernet count as [BandwidthProfile.HIGH] and cellular
+ * as [BandwidthProfile.MEDIUM]. Without a network the profile is [BandwidthProfile.LOW].
+ *
+ * The result is reused for [CACHE_MILLIS] while the connectivity state doesn't change,
+ * so adapters binding many rows can ask for it per row.
+ *
+ * @param connectivity The current connectivity state.
+ * @param telemetry The source of measured throughput.
+ * @param clock Wall time in milliseconds.
+ */
+@Singleton
+class BandwidthProfiler(
+    private val connectivity: () -> ConnectivityState,
+    private val telemetry: NetworkTelemetry = NetworkTelemetry.default,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    @Inject
+    constructor(networkHelper: NetworkHelper, telemetry: NetworkTelemetry) :
+        this({ networkHelper.connectivity.value }, telemetry)
+
+    private class Cached(val state: ConnectivityState, val profile: BandwidthProfile, val at: Long)
+
+    @Volatile
+    private var cached: Cached? = null
+
+    fun current(): BandwidthProfile {
+        val state = connectivity()
+        val now = clock()
+        cached?.takeIf { it.state == state && now - it.at < CACHE_MILLIS }?.let { return it.profile }
+        return profileOf(state, now).also { cached = Cached(state, it, now) }
+    }
+
+    private fun profileOf(state: ConnectivityState, now: Long): BandwidthProfile {
+        if (state.isConnected.not()) return BandwidthProfile.LOW
+        val kbps = telemetry.throughputKbps(since = now - SAMPLE_WINDOW_MILLIS)
+            ?: state.downstreamKbps.toLong().takeIf { it > 0 }
+        return when {
+            kbps != null -> BandwidthProfile.of(kbps)
+            state.transport == ConnectivityState.Transport.CELLULAR -> BandwidthProfile.MEDIUM
+            else -> BandwidthProfile.HIGH
+        }
+    }
+
+    companion object {
+        const val SAMPLE_WINDOW_MILLIS = 5 * 60_000L
+        const val CACHE_MILLIS = 5_000L
+
+        @Volatile
+        private var instance: BandwidthProfiler? = null
+
+        /**
+         * The process-wide profiler of the modules that are built without Hilt.
+         */
+        @JvmStatic
+        fun getInstance(context: Context): BandwidthProfiler = instance ?: synchronized(this) {
+            instance ?: ConnectivityMonitor.getInstance(context).let { monitor ->
+                BandwidthProfiler({ monitor.connectivity.value })
+            }.also { instance = it }
+        }
+    }
+}
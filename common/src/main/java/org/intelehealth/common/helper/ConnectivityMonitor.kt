@@ -0,0 +1,78 @@
+package org.intelehealth.common.helper
+
+import android.content.Context
+import android.net.ConnectivityManager
+import android.net.Network
+import android.net.NetworkCapabilities
+import com.github.ajalt.timberkt.Timber
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.withTimeoutOrNull
+
+/**
+ * Keeps the [ConnectivityState] of the default network up to date from a
+ * [ConnectivityManager.NetworkCallback], so that reading it is a field access
+ * instead of a binder call to the system per request.
+ *
+ * The callback is registered once per process and never unregistered; use
+ * [getInstance] to share it.
+ */
+class ConnectivityMonitor internal constructor(context: Context) {
+    private val connectivityManager = context.getSystemService(ConnectivityManager::class.java)
+
+    private val state = MutableStateFlow(currentState())
+
+    /**
+     * The state of the default network; new values on every change of transport,
+     * validation, metering or bandwidth estimate.
+     */
+    val connectivity: StateFlow<ConnectivityState> = state.asStateFlow()
+
+    private val callback = object : ConnectivityManager.NetworkCallback() {
+        override fun onCapabilitiesChanged(network: Network, capabilities: NetworkCapabilities) {
+            update(ConnectivityState.from(capabilities))
+        }
+
+        override fun onLost(network: Network) {
+            update(ConnectivityState.DISCONNECTED)
+        }
+    }
+
+    init {
+        connectivityManager.registerDefaultNetworkCallback(callback)
+    }
+
+    /**
+     * Suspends until a network is connected, at most [timeoutMillis].
+     *
+     * @return true when connected, false on timeout.
+     */
+    suspend fun awaitConnected(timeoutMillis: Long): Boolean = withTimeoutOrNull(timeoutMillis) {
+        connectivity.first { it.isConnected }
+    } != null
+
+    private fun currentState(): ConnectivityState = connectivityManager.activeNetwork
+        ?.let { connectivityManager.getNetworkCapabilities(it) }
+        ?.let { ConnectivityState.from(it) }
+        ?: ConnectivityState.DISCONNECTED
+
+    private fun update(next: ConnectivityState) {
+        val previous = state.value
+        state.value = next
+        if (previous.isConnected != next.isConnected || previous.transport != next.transport) {
+            Timber.d { "Connectivity ${previous.transport} -> ${next.transport}, validated ${next.isValidated}" }
+        }
+    }
+
+    companion object {
+        @Volatile
+        private var instance: ConnectivityMonitor? = null
+
+        @JvmStatic
+        fun getInstance(context: Context): ConnectivityMonitor = instance ?: synchronized(this) {
+            instance ?: ConnectivityMonitor(context.applicationContext).also { instance = it }
+        }
+    }
+}
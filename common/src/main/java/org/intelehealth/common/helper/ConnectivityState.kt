@@ -0,0 +1,48 @@
+package org.intelehealth.common.helper
+
+import android.net.NetworkCapabilities
+
+/**
+ * Snapshot of the default network as reported by [ConnectivityMonitor].
+ *
+ * @property isConnected A Wi-Fi, cellular or ethernet network is the default one.
+ * @property isValidated The system reached the internet through it; false behind a
+ *   captive portal or on a LAN without uplink.
+ * @property isMetered The network may cost the user money.
+ * @property transport The transport of the default network.
+ * @property downstreamKbps The estimated downlink bandwidth, 0 when unknown.
+ * @property upstreamKbps The estimated uplink bandwidth, 0 when unknown.
+ */
+data class ConnectivityState(
+    val isConnected: Boolean,
+    val isValidated: Boolean = false,
+    val isMetered: Boolean = true,
+    val transport: Transport = Transport.NONE,
+    val downstreamKbps: Int = 0,
+    val upstreamKbps: Int = 0
+) {
+    enum class Transport { NONE, WIFI, CELLULAR, ETHERNET, OTHER }
+
+    companion object {
+        @JvmField
+        val DISCONNECTED = ConnectivityState(isConnected = false)
+
+        fun from(capabilities: NetworkCapabilities): ConnectivityState {
+            val transport = when {
+                capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI) -> Transport.WIFI
+                capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR) -> Transport.CELLULAR
+                capabilities.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET) -> Transport.ETHERNET
+                else -> Transport.OTHER
+            }
+            return ConnectivityState(
+                isConnected = transport != Transport.OTHER,
+                isValidated = capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED) &&
+                    capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_CAPTIVE_PORTAL).not(),
+                isMetered = capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED).not(),
+                transport = transport,
+                downstreamKbps = capabilities.linkDownstreamBandwidthKbps,
+                upstreamKbps = capabilities.linkUpstreamBandwidthKbps
+            )
+        }
+    }
+}
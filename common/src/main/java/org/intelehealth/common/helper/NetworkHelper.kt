@@ -1,36 +1,28 @@
 package org.intelehealth.common.helper
 
-import android.annotation.SuppressLint
 import android.content.Context
-import android.net.ConnectivityManager
-import android.net.NetworkCapabilities
-import android.os.Build
 import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.flow.StateFlow
 import javax.inject.Inject
 import javax.inject.Singleton
 
+/**
+ * Connectivity checks of the data sources and view models, backed by the shared
+ * [ConnectivityMonitor].
+ */
 @Singleton
-class NetworkHelper @Inject constructor(@ApplicationContext private val context: Context) {
+class NetworkHelper @Inject constructor(@ApplicationContext context: Context) {
+    private val monitor = ConnectivityMonitor.getInstance(context)
 
-    @SuppressLint("ObsoleteSdkInt")
-    fun isNetworkConnected(): Boolean {
-        val connectivityManager = context.getSystemService(Context.CONNECTIVITY_SERVICE) as ConnectivityManager
+    /**
+     * See [ConnectivityMonitor.connectivity].
+     */
+    val connectivity: StateFlow<ConnectivityState> = monitor.connectivity
 
-        return if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-            connectivityManager.activeNetwork?.let {
-                connectivityManager.getNetworkCapabilities(it)?.let { netCapabilities ->
-                    hasActiveNetwork(netCapabilities)
-                } ?: false
-            } ?: false
-        } else {
-            @Suppress("DEPRECATION")
-            connectivityManager.activeNetworkInfo?.isConnectedOrConnecting == true
-        }
-    }
+    fun isNetworkConnected(): Boolean = connectivity.value.isConnected
 
-    private fun hasActiveNetwork(networkCapabilities: NetworkCapabilities): Boolean {
-        return networkCapabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI) || networkCapabilities.hasTransport(
-            NetworkCapabilities.TRANSPORT_CELLULAR
-        ) || networkCapabilities.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET)
-    }
+    /**
+     * See [ConnectivityMonitor.awaitConnected].
+     */
+    suspend fun awaitConnected(timeoutMillis: Long): Boolean = monitor.awaitConnected(timeoutMillis)
 }
@@ -1,15 +1,19 @@
 package org.intelehealth.common.helper
 
 import android.content.Context
-import android.content.SharedPreferences
-import androidx.preference.PreferenceManager
 import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.flow.Flow
 import javax.inject.Inject
 import javax.inject.Singleton
 
+/**
+ * Reads and writes the app preferences through the process wide [PreferenceStore],
+ * so reads never touch the disk and writes are persisted in the background. Creating
+ * several helpers is cheap; they all share the same snapshot.
+ */
 @Singleton
 class PreferenceHelper @Inject constructor(@ApplicationContext private val context: Context) {
-    private val sharedPreferences = PreferenceManager.getDefaultSharedPreferences(context)
+    private val store = PreferenceStore.getInstance(context)
 
     companion object {
         const val JWT_AUTH_TOKEN: String = "AUTH_TOKEN"
@@ -30,49 +34,52 @@ class PreferenceHelper @Inject constructor(@ApplicationContext private val conte
         const val KEY_BLACKOUT_PERIOD_ACTIVE_STATUS = "blackout_period_active_status"
         const val KEY_FINGERPRINT_APP_LOCK = "fingerprint_app_lock"
         const val BEARER_TOKEN: String = "bearer_token"
+
+        /**
+         * Session keys committed before the write returns, see [PreferenceStore].
+         */
+        val DURABLE_KEYS = setOf(AUTH_BASIC_TOKEN, JWT_AUTH_TOKEN, BEARER_TOKEN, USER_LOGGED_IN_STATUS)
     }
 
     fun save(key: String?, value: Any?) {
-        val editor = getEditor()
-        if (value is Boolean) {
-            editor.putBoolean(key, (value as Boolean?)!!)
-        } else if (value is Int) {
-            editor.putInt(key, (value as Int?)!!)
-        } else if (value is Float) {
-            editor.putFloat(key, (value as Float?)!!)
-        } else if (value is Long) {
-            editor.putLong(key, (value as Long?)!!)
-        } else if (value is String) {
-            editor.putString(key, value as String?)
-        } else if (value is Enum<*>) {
-            editor.putString(key, value.toString())
-        } else if (value != null) {
-            throw UnsupportedOperationException("Attempting to save non-supported preference")
+        if (key == null || value == null) return
+        when (value) {
+            is Boolean, is Int, is Float, is Long, is String -> store.put(key, value)
+            is Enum<*> -> store.put(key, value.toString())
+            else -> throw UnsupportedOperationException("Attempting to save non-supported preference")
         }
-        editor.commit()
     }
 
     fun getString(key: String): String? {
-        return sharedPreferences.getString(key, null)
+        return store.getOrNull(key) as? String
     }
 
     @Suppress("UNCHECKED_CAST")
     fun <T> get(key: String?): T {
-        return sharedPreferences.all[key] as T
+        return key?.let { store.getOrNull(it) } as T
     }
 
-    @Suppress("UNCHECKED_CAST")
     fun <T> get(key: String?, defValue: T): T {
-        return (sharedPreferences.all[key] ?: defValue) as T
+        return key?.let { store.get(it, defValue) } ?: defValue
+    }
+
+    /**
+     * Emits the value of [key] now and after every change.
+     */
+    fun <T> observe(key: String, defValue: T): Flow<T> = store.observe(key, defValue)
+
+    /**
+     * Registers a listener notified right after any preference changes.
+     */
+    fun registerChangeListener(listener: PreferenceStore.OnChangeListener) {
+        store.addListener(listener)
     }
 
-    private fun getEditor(): SharedPreferences.Editor {
-        return sharedPreferences.edit()
+    fun unregisterChangeListener(listener: PreferenceStore.OnChangeListener) {
+        store.removeListener(listener)
     }
 
     fun clear(key: String) {
-        sharedPreferences.edit().run {
-            remove(key)
-        }.apply()
+        store.remove(key)
     }
 }
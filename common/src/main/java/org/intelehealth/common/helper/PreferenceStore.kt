@@ -0,0 +1,202 @@
+package org.intelehealth.common.helper
+
+import android.content.Context
+import android.content.SharedPreferences
+import android.os.Handler
+import android.os.Looper
+import androidx.lifecycle.DefaultLifecycleObserver
+import androidx.lifecycle.LifecycleOwner
+import androidx.lifecycle.ProcessLifecycleOwner
+import androidx.preference.PreferenceManager
+import kotlinx.coroutines.channels.BufferOverflow
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.SharedFlow
+import kotlinx.coroutines.flow.asSharedFlow
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.filter
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.onStart
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArraySet
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * In-memory snapshot of a [SharedPreferences] file with write-behind persistence.
+ *
+ * The file is read once; afterwards reads are a map lookup and writes update the
+ * snapshot, notify listeners and queue the value for a background writer. Writes
+ * queued while the writer is busy are coalesced per key and committed together in
+ * one editor, so a burst of saves costs a single disk write. Queued writes are also
+ * handed to the writer when the app goes to the background, without blocking the main
+ * thread. Only [durableKeys] are committed before [put] returns, so a session change is
+ * on disk even if the process dies right after.
+ *
+ * Every write must go through the store, otherwise the snapshot goes stale. Use
+ * [getInstance] so that all [PreferenceHelper]s of the process share one store.
+ *
+ * @param sharedPreferences The file backing the store.
+ * @param durableKeys Keys written through to disk on the calling thread.
+ * @param writer Runs the persistence of queued writes, one at a time.
+ */
+class PreferenceStore(
+    private val sharedPreferences: SharedPreferences,
+    private val durableKeys: Set<String> = emptySet(),
+    private val writer: ExecutorService = Executors.newSingleThreadExecutor { task ->
+        Thread(task, WRITER_THREAD).apply { isDaemon = true }
+    }
+) {
+    // guards snapshot and pending together, persistLock orders the disk writes
+    private val lock = Any()
+    private val persistLock = Any()
+    private val snapshot = ConcurrentHashMap<String, Any>(sharedPreferences.all.filterNullValues())
+    private val pending = HashMap<String, Any>()
+    private val flushScheduled = AtomicBoolean(false)
+    private val listeners = CopyOnWriteArraySet<OnChangeListener>()
+    private val changeEvents = MutableSharedFlow<String>(
+        extraBufferCapacity = CHANGE_BUFFER,
+        onBufferOverflow = BufferOverflow.DROP_OLDEST
+    )
+
+    /**
+     * Notified on the writing thread right after a value changed in the snapshot.
+     */
+    fun interface OnChangeListener {
+        fun onChanged(key: String)
+    }
+
+    /**
+     * Keys of the changed preferences.
+     */
+    val changes: SharedFlow<String> = changeEvents.asSharedFlow()
+
+    fun contains(key: String): Boolean = snapshot.containsKey(key)
+
+    @Suppress("UNCHECKED_CAST")
+    fun <T> get(key: String, defValue: T): T = (snapshot[key] as T?) ?: defValue
+
+    fun getOrNull(key: String): Any? = snapshot[key]
+
+    /**
+     * Stores [value], a [Boolean], [Int], [Long], [Float], [String] or [Set] of strings.
+     */
+    fun put(key: String, value: Any) {
+        val supported = value is Boolean || value is Int || value is Long || value is Float ||
+                value is String || value is Set<*>
+        require(supported) { "Attempting to save non-supported preference" }
+        synchronized(lock) {
+            if (snapshot.put(key, value) == value) return
+            pending[key] = value
+        }
+        onChanged(key)
+    }
+
+    fun remove(key: String) {
+        synchronized(lock) {
+            if (snapshot.remove(key) == null) return
+            pending[key] = REMOVED
+        }
+        onChanged(key)
+    }
+
+    /**
+     * Emits the value of [key] now and after every change.
+     */
+    fun <T> observe(key: String, defValue: T): Flow<T> = changes
+        .filter { it == key }
+        .map { get(key, defValue) }
+        .onStart { emit(get(key, defValue)) }
+        .distinctUntilChanged()
+
+    fun addListener(listener: OnChangeListener) {
+        listeners.add(listener)
+    }
+
+    fun removeListener(listener: OnChangeListener) {
+        listeners.remove(listener)
+    }
+
+    /**
+     * Blocks until every write queued so far is on disk.
+     */
+    fun flush() {
+        writer.submit { persist() }.get()
+    }
+
+    /**
+     * Queues every write made so far for the writer and returns without waiting for it.
+     */
+    fun flushInBackground() {
+        if (flushScheduled.compareAndSet(false, true)) writer.execute {
+            flushScheduled.set(false)
+            persist()
+        }
+    }
+
+    private fun onChanged(key: String) {
+        listeners.forEach { it.onChanged(key) }
+        changeEvents.tryEmit(key)
+        if (key in durableKeys) persist() else flushInBackground()
+    }
+
+    private fun persist() {
+        synchronized(persistLock) {
+            val batch = synchronized(lock) { HashMap(pending) }
+            if (batch.isEmpty()) return
+            val editor = sharedPreferences.edit()
+            batch.forEach { (key, value) -> editor.write(key, value) }
+            editor.commit()
+            // a newer value written meanwhile stays queued for the next flush
+            synchronized(lock) { batch.forEach { (key, value) -> pending.remove(key, value) } }
+        }
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun SharedPreferences.Editor.write(key: String, value: Any) {
+        when (value) {
+            REMOVED -> remove(key)
+            is Boolean -> putBoolean(key, value)
+            is Int -> putInt(key, value)
+            is Long -> putLong(key, value)
+            is Float -> putFloat(key, value)
+            is String -> putString(key, value)
+            is Set<*> -> putStringSet(key, value as Set<String>)
+        }
+    }
+
+    private fun Map<String, Any?>.filterNullValues(): Map<String, Any> =
+        mapNotNull { (key, value) -> value?.let { key to it } }.toMap()
+
+    companion object {
+        private const val WRITER_THREAD = "preference-writer"
+        private const val CHANGE_BUFFER = 64
+        private val REMOVED = Any()
+
+        @Volatile
+        private var instance: PreferenceStore? = null
+
+        /**
+         * Returns the process wide store of the default preferences file, flushed in
+         * the background whenever the app goes to the background.
+         */
+        fun getInstance(context: Context): PreferenceStore = instance ?: synchronized(this) {
+            instance ?: PreferenceStore(
+                PreferenceManager.getDefaultSharedPreferences(context.applicationContext),
+                PreferenceHelper.DURABLE_KEYS
+            ).also {
+                instance = it
+                it.flushOnStop()
+            }
+        }
+
+        private fun PreferenceStore.flushOnStop() {
+            Handler(Looper.getMainLooper()).post {
+                ProcessLifecycleOwner.get().lifecycle.addObserver(object : DefaultLifecycleObserver {
+                    override fun onStop(owner: LifecycleOwner) = flushInBackground()
+                })
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.intelehealth.common.metrics
+
+/**
+ * One measured phase of one page of a sync run.
+ *
+ * @property pageNo The page the sample belongs to, or [NO_PAGE] for unpaged syncs.
+ */
+data class SyncMetricSample(
+    val pageNo: Int,
+    val phase: SyncPhase,
+    val nanos: Long,
+    val bytes: Long = 0,
+    val rows: Int = 0
+) {
+    companion object {
+        const val NO_PAGE = -1
+    }
+}
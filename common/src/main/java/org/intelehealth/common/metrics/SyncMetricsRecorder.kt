@@ -0,0 +1,68 @@
+package org.intelehealth.common.metrics
+
+import androidx.work.Data
+import java.util.UUID
+import java.util.concurrent.TimeUnit
+
+/**
+ * Collects per-page, per-phase timings, byte counts and row counts for a single
+ * sync run. Samples are kept in memory and written by a [SyncMetricsStore] when the
+ * run ends; [toWorkData] exposes the running totals as WorkManager progress.
+ *
+ * @param syncType Which sync this run belongs to, e.g. [TYPE_PULL].
+ */
+class SyncMetricsRecorder(val syncType: String) {
+    val runId: String = UUID.randomUUID().toString()
+    val startedAt: Long = System.currentTimeMillis()
+
+    private val samples = mutableListOf<SyncMetricSample>()
+
+    @Synchronized
+    fun record(sample: SyncMetricSample) {
+        samples.add(sample)
+    }
+
+    fun record(pageNo: Int, phase: SyncPhase, nanos: Long, bytes: Long = 0, rows: Int = 0) =
+        record(SyncMetricSample(pageNo, phase, nanos, bytes, rows))
+
+    /**
+     * Runs [block] and records its duration against [phase].
+     */
+    inline fun <T> measure(phase: SyncPhase, pageNo: Int = SyncMetricSample.NO_PAGE, block: () -> T): T {
+        val start = System.nanoTime()
+        return try {
+            block()
+        } finally {
+            record(pageNo, phase, System.nanoTime() - start)
+        }
+    }
+
+    @Synchronized
+    fun samples(): List<SyncMetricSample> = samples.toList()
+
+    /**
+     * Totals per phase as progress or output [Data], keyed `metric_<phase>_ms`,
+     * `metric_<phase>_bytes` and `metric_<phase>_rows`.
+     */
+    fun toWorkData(): Data {
+        val builder = Data.Builder().putString(KEY_RUN_ID, runId)
+        samples().groupBy { it.phase }.forEach { (phase, list) ->
+            builder.putLong(keyOf(phase, SUFFIX_MS), TimeUnit.NANOSECONDS.toMillis(list.sumOf { it.nanos }))
+            builder.putLong(keyOf(phase, SUFFIX_BYTES), list.sumOf { it.bytes })
+            builder.putInt(keyOf(phase, SUFFIX_ROWS), list.sumOf { it.rows })
+        }
+        return builder.build()
+    }
+
+    companion object {
+        const val TYPE_PULL = "pull"
+        const val TYPE_PUSH = "push"
+        const val TYPE_CONFIG = "config"
+        const val KEY_RUN_ID = "metric_run_id"
+        const val SUFFIX_MS = "ms"
+        const val SUFFIX_BYTES = "bytes"
+        const val SUFFIX_ROWS = "rows"
+
+        fun keyOf(phase: SyncPhase, suffix: String) = "metric_${phase.key}_$suffix"
+    }
+}
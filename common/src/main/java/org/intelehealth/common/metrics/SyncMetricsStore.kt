@@ -0,0 +1,9 @@
+package org.intelehealth.common.metrics
+
+/**
+ * Persists the samples of finished sync runs. Implemented next to the local
+ * database so that workers in modules without access to it can still record.
+ */
+interface SyncMetricsStore {
+    suspend fun save(recorder: SyncMetricsRecorder)
+}
@@ -0,0 +1,20 @@
+package org.intelehealth.common.metrics
+
+/**
+ * The steps sync time is split into.
+ *
+ * @property key Stable name used in the metrics table and in WorkManager progress data.
+ */
+enum class SyncPhase(val key: String) {
+    /** Waiting for the server and downloading the response body. */
+    NETWORK("network"),
+
+    /** Parsing JSON into entities. */
+    DECODE("decode"),
+
+    /** Inserting into Room, including the transaction commit. */
+    DB_WRITE("db_write"),
+
+    /** Building the request payload from the database. */
+    PREPARE("prepare")
+}
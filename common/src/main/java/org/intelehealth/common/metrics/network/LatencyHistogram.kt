@@ -0,0 +1,68 @@
+package org.intelehealth.common.metrics.network
+
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+
+/**
+ * Lock-free histogram of durations in milliseconds over fixed buckets. Percentiles
+ * are answered with the upper bound of the bucket they fall in, which is precise
+ * enough to tell a 200 ms handshake from a 2 s one and costs nothing to record.
+ */
+class LatencyHistogram(private val bounds: LongArray = DEFAULT_BOUNDS) {
+    private val counts = AtomicLongArray(bounds.size + 1)
+    private val total = AtomicLong()
+    private val sum = AtomicLong()
+    private val max = AtomicLong()
+
+    /**
+     * @property count Recorded values.
+     * @property meanMillis Arithmetic mean.
+     * @property p50Millis Median, as a bucket upper bound.
+     * @property p90Millis 90th percentile, as a bucket upper bound.
+     * @property p99Millis 99th percentile, as a bucket upper bound.
+     * @property maxMillis Largest recorded value.
+     */
+    data class Summary(
+        val count: Long,
+        val meanMillis: Long,
+        val p50Millis: Long,
+        val p90Millis: Long,
+        val p99Millis: Long,
+        val maxMillis: Long
+    )
+
+    fun record(millis: Long) {
+        val value = millis.coerceAtLeast(0)
+        val index = bounds.indexOfFirst { value <= it }.let { if (it < 0) bounds.size else it }
+        counts.incrementAndGet(index)
+        total.incrementAndGet()
+        sum.addAndGet(value)
+        max.accumulateAndGet(value, ::maxOf)
+    }
+
+    fun summary(): Summary {
+        val count = total.get()
+        if (count == 0L) return Summary(0, 0, 0, 0, 0, 0)
+        return Summary(count, sum.get() / count, percentile(P50), percentile(P90), percentile(P99), max.get())
+    }
+
+    private fun percentile(fraction: Double): Long {
+        val rank = kotlin.math.ceil(total.get() * fraction).toLong().coerceAtLeast(1)
+        var seen = 0L
+        for (index in 0 until counts.length()) {
+            seen += counts.get(index)
+            if (seen >= rank) return if (index < bounds.size) minOf(bounds[index], max.get()) else max.get()
+        }
+        return max.get()
+    }
+
+    companion object {
+        private const val P50 = 0.5
+        private const val P90 = 0.9
+        private const val P99 = 0.99
+
+        val DEFAULT_BOUNDS = longArrayOf(
+            5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000
+        )
+    }
+}
@@ -0,0 +1,36 @@
+package org.intelehealth.common.metrics.network
+
+/**
+ * Timings and sizes of one finished HTTP call. Phases that did not happen, e.g. DNS
+ * and connect on a reused connection, are 0. Calls that followed redirects or retries
+ * add up the time of every attempt.
+ *
+ * @property client Name of the OkHttp client, see [NetworkTelemetry.eventListenerFactory].
+ * @property method HTTP method.
+ * @property host Host of the request URL.
+ * @property path Encoded path of the request URL; the query is left out as it may carry ids.
+ * @property startedAt Epoch millis the call started.
+ * @property phaseMillis Duration per [NetworkPhase].
+ * @property requestBytes Request body bytes sent.
+ * @property responseBytes Response body bytes read, as transferred (compressed).
+ * @property code HTTP status, or 0 when no response was received.
+ * @property connectionReused Whether the call ran on a pooled connection.
+ * @property cacheHit Whether the response came from the HTTP cache without network.
+ * @property error Exception class name of a failed call.
+ */
+data class NetworkCallTiming(
+    val client: String,
+    val method: String,
+    val host: String,
+    val path: String,
+    val startedAt: Long,
+    val phaseMillis: Map<NetworkPhase, Long>,
+    val requestBytes: Long,
+    val responseBytes: Long,
+    val code: Int,
+    val connectionReused: Boolean,
+    val cacheHit: Boolean,
+    val error: String? = null
+) {
+    fun millis(phase: NetworkPhase): Long = phaseMillis[phase] ?: 0
+}
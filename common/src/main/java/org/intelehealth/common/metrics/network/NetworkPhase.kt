@@ -0,0 +1,29 @@
+package org.intelehealth.common.metrics.network
+
+/**
+ * The parts an HTTP call's time is split into by [TelemetryEventListener].
+ *
+ * @property key Stable name used in exports.
+ */
+enum class NetworkPhase(val key: String) {
+    /** Resolving the host name. */
+    DNS("dns"),
+
+    /** Opening the TCP connection, TLS excluded. */
+    CONNECT("connect"),
+
+    /** The TLS handshake. */
+    TLS("tls"),
+
+    /** Writing the request headers and body. */
+    REQUEST("request"),
+
+    /** From the end of the request to the first response byte: the server's time. */
+    TTFB("ttfb"),
+
+    /** Reading the response body. */
+    RESPONSE("response"),
+
+    /** The whole call, from start to end or failure. */
+    TOTAL("total")
+}
@@ -0,0 +1,147 @@
+package org.intelehealth.common.metrics.network
+
+import com.google.gson.GsonBuilder
+import okhttp3.EventListener
+import java.io.File
+
+/**
+ * Per-call network timings of the app's OkHttp clients, to tell whether a slow login
+ * or pull is spent in DNS, TLS, the server or the transfer.
+ *
+ * Every client registers [eventListenerFactory] under its own name. Finished calls are
+ * kept in a ring buffer of the last [capacity] calls, and every phase is added to a
+ * [LatencyHistogram] per client that lives as long as the process. Nothing is written
+ * to disk; [exportJson] produces a snapshot for bug reports.
+ *
+ * @param capacity Number of recent calls kept.
+ * @param nanoClock Monotonic time source of the listeners.
+ */
+class NetworkTelemetry(
+    private val capacity: Int = DEFAULT_CAPACITY,
+    private val nanoClock: () -> Long = System::nanoTime
+) {
+    private val calls = arrayOfNulls<NetworkCallTiming>(capacity)
+    private var next = 0
+    private var size = 0
+    private val histograms = HashMap<String, Map<NetworkPhase, LatencyHistogram>>()
+    private val callCounts = HashMap<String, LongArray>()
+
+    /**
+     * Totals of one client.
+     *
+     * @property calls Calls recorded since the process started.
+     * @property failures Calls that ended with an exception.
+     * @property phases Latency summary per phase.
+     */
+    data class ClientSummary(
+        val calls: Long,
+        val failures: Long,
+        val phases: Map<NetworkPhase, LatencyHistogram.Summary>
+    )
+
+    /**
+     * Creates the listener factory of the client named [client], e.g. `api` or `chat`.
+     */
+    fun eventListenerFactory(client: String) = EventListener.Factory {
+        TelemetryEventListener(this, client, nanoClock)
+    }
+
+    internal fun record(timing: NetworkCallTiming) {
+        val phases = synchronized(this) {
+            calls[next] = timing
+            next = (next + 1) % capacity
+            size = minOf(size + 1, capacity)
+            callCounts.getOrPut(timing.client) { LongArray(2) }.apply {
+                this[0]++
+                if (timing.error != null) this[1]++
+            }
+            histograms.getOrPut(timing.client) { NetworkPhase.entries.associateWith { LatencyHistogram() } }
+        }
+        timing.phaseMillis.forEach { (phase, millis) ->
+            if (timing.hadPhase(phase)) phases[phase]?.record(millis)
+        }
+    }
+
+    /**
+     * Phases that did not run, like the handshake on a pooled connection, are left out
+     * of the histograms so they don't pull the percentiles towards 0.
+     */
+    private fun NetworkCallTiming.hadPhase(phase: NetworkPhase) = when (phase) {
+        NetworkPhase.TOTAL -> true
+        NetworkPhase.DNS, NetworkPhase.CONNECT, NetworkPhase.TLS -> cacheHit.not() && connectionReused.not()
+        else -> cacheHit.not()
+    }
+
+    /**
+     * The recent calls, oldest first, optionally of one [client] only.
+     */
+    @Synchronized
+    fun recentCalls(client: String? = null): List<NetworkCallTiming> {
+        val start = if (size < capacity) 0 else next
+        return (0 until size).mapNotNull { calls[(start + it) % capacity] }
+            .filter { client == null || it.client == client }
+    }
+
+    /**
+     * Download throughput in kbit/s of the recent successful calls that started at or
+     * after [since] and read at least [minBytes]. Only the body transfer is timed, so a
+     * slow server doesn't pass for a slow network; null when no call qualifies.
+     */
+    fun throughputKbps(since: Long, minBytes: Long = MIN_THROUGHPUT_BYTES): Long? {
+        val samples = recentCalls().filter {
+            it.startedAt >= since && it.cacheHit.not() && it.error == null &&
+                it.responseBytes >= minBytes && it.millis(NetworkPhase.RESPONSE) > 0
+        }
+        if (samples.isEmpty()) return null
+        // bits per millisecond are kbit/s
+        return samples.sumOf { it.responseBytes } * BITS_PER_BYTE / samples.sumOf { it.millis(NetworkPhase.RESPONSE) }
+    }
+
+    /**
+     * Histogram summaries per client since the process started.
+     */
+    fun summary(): Map<String, ClientSummary> {
+        val snapshot = synchronized(this) {
+            histograms.mapValues { (client, phases) -> callCounts.getValue(client).copyOf() to phases }
+        }
+        return snapshot.mapValues { (_, value) ->
+            val (counts, phases) = value
+            ClientSummary(counts[0], counts[1], phases.mapValues { it.value.summary() })
+        }
+    }
+
+    /**
+     * The [summary] and the [recentCalls] as pretty-printed JSON.
+     */
+    fun exportJson(): String = GsonBuilder().setPrettyPrinting().create()
+        .toJson(mapOf(KEY_SUMMARY to summary(), KEY_CALLS to recentCalls()))
+
+    /**
+     * Writes [exportJson] to [EXPORT_FILE_NAME] in [directory], replacing the previous
+     * export, e.g. for `adb shell run-as <package> cat cache/network_telemetry.json`.
+     */
+    fun exportTo(directory: File): File = File(directory, EXPORT_FILE_NAME).apply { writeText(exportJson()) }
+
+    companion object {
+        const val EXPORT_FILE_NAME = "network_telemetry.json"
+        const val DEFAULT_CAPACITY = 200
+        const val CLIENT_API = "api"
+        const val CLIENT_CHAT = "chat"
+        const val CLIENT_VIDEO = "video"
+
+        /**
+         * Smaller bodies arrive in a few packets and say nothing about throughput.
+         */
+        const val MIN_THROUGHPUT_BYTES = 32L * 1024
+        private const val BITS_PER_BYTE = 8
+        private const val KEY_SUMMARY = "summary"
+        private const val KEY_CALLS = "calls"
+
+        /**
+         * Shared by every client of the app, including those of the on-demand modules
+         * that are built without Hilt.
+         */
+        @JvmStatic
+        val default: NetworkTelemetry by lazy { NetworkTelemetry() }
+    }
+}
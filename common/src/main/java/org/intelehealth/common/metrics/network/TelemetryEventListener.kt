@@ -0,0 +1,163 @@
+package org.intelehealth.common.metrics.network
+
+import okhttp3.Call
+import okhttp3.Connection
+import okhttp3.EventListener
+import okhttp3.Handshake
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import java.io.IOException
+import java.net.InetAddress
+import java.net.InetSocketAddress
+import java.net.Proxy
+import java.util.concurrent.TimeUnit
+
+/**
+ * Times the phases of a single call and hands the result to [NetworkTelemetry] when
+ * the call ends or fails. One instance is created per call by
+ * [NetworkTelemetry.eventListenerFactory].
+ *
+ * OkHttp reports the events of a call one after the other, so plain fields suffice.
+ */
+internal class TelemetryEventListener(
+    private val telemetry: NetworkTelemetry,
+    private val client: String,
+    private val nanoClock: () -> Long
+) : EventListener() {
+    private val phaseNanos = LongArray(NetworkPhase.entries.size)
+    private var callStart = 0L
+    private var startedAt = 0L
+    private var dnsStart = 0L
+    private var connectStart = 0L
+    private var secureConnectStart = 0L
+    private var tlsNanos = 0L
+    private var requestStart = 0L
+    private var requestEnd = 0L
+    private var responseStart = 0L
+    private var requestBytes = 0L
+    private var responseBytes = 0L
+    private var code = 0
+    private var connected = false
+    private var acquired = false
+    private var cacheHit = false
+
+    override fun callStart(call: Call) {
+        callStart = nanoClock()
+        startedAt = System.currentTimeMillis()
+    }
+
+    override fun dnsStart(call: Call, domainName: String) {
+        dnsStart = nanoClock()
+    }
+
+    override fun dnsEnd(call: Call, domainName: String, inetAddressList: List<InetAddress>) {
+        add(NetworkPhase.DNS, dnsStart)
+    }
+
+    override fun connectStart(call: Call, inetSocketAddress: InetSocketAddress, proxy: Proxy) {
+        connectStart = nanoClock()
+        tlsNanos = 0
+        connected = true
+    }
+
+    override fun secureConnectStart(call: Call) {
+        secureConnectStart = nanoClock()
+    }
+
+    override fun secureConnectEnd(call: Call, handshake: Handshake?) {
+        tlsNanos = nanoClock() - secureConnectStart
+        phaseNanos[NetworkPhase.TLS.ordinal] += tlsNanos
+    }
+
+    override fun connectEnd(call: Call, inetSocketAddress: InetSocketAddress, proxy: Proxy, protocol: Protocol?) =
+        endConnect()
+
+    override fun connectFailed(
+        call: Call,
+        inetSocketAddress: InetSocketAddress,
+        proxy: Proxy,
+        protocol: Protocol?,
+        ioe: IOException
+    ) = endConnect()
+
+    override fun connectionAcquired(call: Call, connection: Connection) {
+        acquired = true
+    }
+
+    override fun requestHeadersStart(call: Call) {
+        requestStart = nanoClock()
+        requestEnd = 0
+    }
+
+    override fun requestHeadersEnd(call: Call, request: Request) {
+        requestEnd = nanoClock()
+    }
+
+    override fun requestBodyEnd(call: Call, byteCount: Long) {
+        requestBytes += byteCount
+        requestEnd = nanoClock()
+    }
+
+    /**
+     * The request of this attempt is complete once the response starts, so both the
+     * send time and the server's time are taken here.
+     */
+    override fun responseHeadersStart(call: Call) {
+        responseStart = nanoClock()
+        if (requestEnd > 0) {
+            phaseNanos[NetworkPhase.REQUEST.ordinal] += requestEnd - requestStart
+            phaseNanos[NetworkPhase.TTFB.ordinal] += responseStart - requestEnd
+        }
+    }
+
+    override fun responseHeadersEnd(call: Call, response: Response) {
+        code = response.code
+    }
+
+    override fun responseBodyEnd(call: Call, byteCount: Long) {
+        responseBytes += byteCount
+        if (responseStart > 0) add(NetworkPhase.RESPONSE, responseStart)
+    }
+
+    override fun cacheHit(call: Call, response: Response) {
+        cacheHit = true
+        code = response.code
+    }
+
+    override fun callEnd(call: Call) = finish(call, null)
+
+    override fun callFailed(call: Call, ioe: IOException) = finish(call, ioe)
+
+    private fun endConnect() {
+        val total = nanoClock() - connectStart
+        phaseNanos[NetworkPhase.CONNECT.ordinal] += (total - tlsNanos).coerceAtLeast(0)
+    }
+
+    private fun add(phase: NetworkPhase, start: Long) {
+        phaseNanos[phase.ordinal] += (nanoClock() - start).coerceAtLeast(0)
+    }
+
+    private fun finish(call: Call, error: IOException?) {
+        phaseNanos[NetworkPhase.TOTAL.ordinal] = nanoClock() - callStart
+        val url = call.request().url
+        telemetry.record(
+            NetworkCallTiming(
+                client = client,
+                method = call.request().method,
+                host = url.host,
+                path = url.encodedPath,
+                startedAt = startedAt,
+                phaseMillis = NetworkPhase.entries.associateWith {
+                    TimeUnit.NANOSECONDS.toMillis(phaseNanos[it.ordinal])
+                },
+                requestBytes = requestBytes,
+                responseBytes = responseBytes,
+                code = code,
+                connectionReused = acquired && connected.not(),
+                cacheHit = cacheHit,
+                error = error?.javaClass?.simpleName
+            )
+        )
+    }
+}
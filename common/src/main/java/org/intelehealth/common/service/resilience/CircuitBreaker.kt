@@ -0,0 +1,82 @@
+package org.intelehealth.common.service.resilience
+
+import java.io.IOException
+
+/**
+ * Consecutive-failure circuit breaker of one [EndpointGroup].
+ *
+ * Closed, it lets every request through and counts failed attempts in a row. Once
+ * [CircuitBreakerPolicy.failureThreshold] is reached it opens and rejects requests for
+ * [CircuitBreakerPolicy.openMillis]. Then a single probe is let through (half-open):
+ * its success closes the circuit, its failure opens it again.
+ *
+ * @param clock Wall time in milliseconds.
+ */
+class CircuitBreaker(
+    private val policy: CircuitBreakerPolicy,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+    enum class State { CLOSED, OPEN, HALF_OPEN }
+
+    private var state = State.CLOSED
+    private var failures = 0
+    private var openedAt = 0L
+
+    @Synchronized
+    fun state(): State {
+        if (state == State.OPEN && clock() - openedAt >= policy.openMillis) state = State.HALF_OPEN
+        return state
+    }
+
+    /**
+     * Whether a request may go out now. In half-open state only the first caller gets
+     * through; the circuit stays open for the others until the probe completes.
+     */
+    @Synchronized
+    fun tryAcquire(): Boolean = when (state()) {
+        State.CLOSED -> true
+        State.OPEN -> false
+        State.HALF_OPEN -> {
+            state = State.OPEN
+            openedAt = clock() - policy.openMillis + PROBE_TIMEOUT_MILLIS
+            true
+        }
+    }
+
+    @Synchronized
+    fun onSuccess() {
+        state = State.CLOSED
+        failures = 0
+    }
+
+    /**
+     * @return true when this failure opened the circuit.
+     */
+    @Synchronized
+    fun onFailure(): Boolean {
+        failures++
+        val probeFailed = state == State.OPEN
+        if (probeFailed.not() && failures < policy.failureThreshold) return false
+        state = State.OPEN
+        openedAt = clock()
+        return true
+    }
+
+    @Synchronized
+    fun remainingOpenMillis(): Long = if (state() == State.OPEN) {
+        (policy.openMillis - (clock() - openedAt)).coerceAtLeast(0)
+    } else 0
+
+    companion object {
+        /**
+         * A probe that never reports back frees the circuit for the next one after this.
+         */
+        private const val PROBE_TIMEOUT_MILLIS = 30_000L
+    }
+}
+
+/**
+ * Thrown instead of sending a request while the circuit of its [EndpointGroup] is open.
+ */
+class CircuitOpenException(group: String, retryInMillis: Long) :
+    IOException("Service unavailable ($group), retry in ${retryInMillis / 1000}s")
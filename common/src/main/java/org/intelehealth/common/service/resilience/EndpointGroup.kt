@@ -0,0 +1,69 @@
+package org.intelehealth.common.service.resilience
+
+import okhttp3.Request
+
+/**
+ * Endpoints sharing a [RetryPolicy] and one circuit breaker. A request belongs to the
+ * first group of a [ResilienceInterceptor] whose [paths] occur in its URL path; a group
+ * without paths takes every request.
+ *
+ * @param name Identifies the group in logs and [ResilienceMetrics].
+ * @param paths URL path fragments of the group.
+ */
+data class EndpointGroup(
+    val name: String,
+    val paths: Set<String> = emptySet(),
+    val retry: RetryPolicy = RetryPolicy(),
+    val circuit: CircuitBreakerPolicy = CircuitBreakerPolicy()
+) {
+    fun matches(request: Request): Boolean {
+        if (paths.isEmpty()) return true
+        val path = request.url.encodedPath
+        return paths.any { path.contains(it) }
+    }
+
+    companion object {
+        /**
+         * Pull and push. A single attempt: a failed pull resumes from its checkpoint
+         * and unsent rows stay pending for the next sync run, so retrying here as well
+         * would only stack waits on top of the worker's. The circuit still spares an
+         * overloaded middleware.
+         */
+        val SYNC = EndpointGroup(
+            name = "sync",
+            paths = setOf("/EMR-Middleware/webapi/"),
+            retry = RetryPolicy(maxAttempts = 1),
+            circuit = CircuitBreakerPolicy(failureThreshold = 5, openMillis = 60_000)
+        )
+
+        /**
+         * Login, session, tokens, OTP and passwords; the user is waiting on the screen.
+         */
+        val AUTH = EndpointGroup(
+            name = "auth",
+            paths = setOf("/ws/rest/v1/session", "/ws/rest/v1/password", "/auth/"),
+            retry = RetryPolicy(maxAttempts = 2, baseDelayMillis = 500, maxDelayMillis = 2_000),
+            circuit = CircuitBreakerPolicy(failureThreshold = 3, openMillis = 15_000)
+        )
+
+        val CONFIG = EndpointGroup(
+            name = "config",
+            paths = setOf("/api/config/"),
+            retry = RetryPolicy(maxAttempts = 3, baseDelayMillis = 500, maxDelayMillis = 10_000),
+            circuit = CircuitBreakerPolicy(failureThreshold = 5, openMillis = 60_000)
+        )
+
+        val CHAT = EndpointGroup(
+            name = "chat",
+            paths = setOf("/api/messages/"),
+            retry = RetryPolicy(maxAttempts = 3, baseDelayMillis = 300, maxDelayMillis = 5_000),
+            circuit = CircuitBreakerPolicy(failureThreshold = 5, openMillis = 30_000)
+        )
+
+        val DEFAULT = EndpointGroup(
+            name = "default",
+            retry = RetryPolicy(maxAttempts = 2),
+            circuit = CircuitBreakerPolicy(failureThreshold = 10, openMillis = 30_000)
+        )
+    }
+}
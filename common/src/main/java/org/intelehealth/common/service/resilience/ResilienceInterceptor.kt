@@ -0,0 +1,169 @@
+package org.intelehealth.common.service.resilience
+
+import com.github.ajalt.timberkt.Timber
+import okhttp3.Interceptor
+import okhttp3.Request
+import okhttp3.Response
+import java.io.IOException
+import java.io.InterruptedIOException
+import java.util.concurrent.ConcurrentHashMap
+import kotlin.random.Random
+
+/**
+ * Retries failed requests with exponential backoff and jitter, and stops sending
+ * requests to an [EndpointGroup] whose circuit is open.
+ *
+ * An attempt fails when it throws an [IOException] or answers with one of the
+ * [RetryPolicy.retryableCodes]. Such attempts are retried up to
+ * [RetryPolicy.maxAttempts]: POST and PATCH only when the group allows it, one-shot
+ * bodies never. Every failed attempt counts towards the group's [CircuitBreaker]; while
+ * it is open, requests fail at once with [CircuitOpenException], so a degraded
+ * middleware is not hammered by every device retrying. Requests that only ask the
+ * cache (`only-if-cached`) are passed through untouched.
+ *
+ * A request that fails while the device has no network is neither retried nor
+ * counted against the circuit, and every circuit is closed again once the network
+ * comes back, so a spell offline doesn't keep the servers blocked afterwards.
+ *
+ * The last response of a call is returned as is, also when its status is retryable,
+ * so callers keep seeing the real error.
+ *
+ * @param groups Endpoint groups in matching order; requests matching none are not handled.
+ * @param metrics Receives the counters of every group.
+ * @param sleeper Waits between attempts.
+ * @param random Source of the jitter.
+ * @param clock Wall time in milliseconds, for the circuit breakers.
+ * @param isOnline Whether the device has a network, normally `NetworkHelper::isNetworkConnected`.
+ */
+class ResilienceInterceptor(
+    private val groups: List<EndpointGroup>,
+    val metrics: ResilienceMetrics = ResilienceMetrics(),
+    private val sleeper: Sleeper = Sleeper { Thread.sleep(it) },
+    private val random: Random = Random.Default,
+    private val clock: () -> Long = System::currentTimeMillis,
+    private val isOnline: () -> Boolean = { true }
+) : Interceptor {
+    private val breakers = ConcurrentHashMap<String, CircuitBreaker>()
+
+    @Volatile
+    private var wasOnline = true
+
+    fun interface Sleeper {
+        @Throws(InterruptedException::class)
+        fun sleep(millis: Long)
+    }
+
+    fun circuitState(group: String): CircuitBreaker.State? = breakers[group]?.state()
+
+    @Throws(IOException::class)
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        val group = groups.firstOrNull { it.matches(request) }
+        if (group == null || request.cacheControl.onlyIfCached) return chain.proceed(request)
+
+        val breaker = breakers.getOrPut(group.name) { CircuitBreaker(group.circuit, clock) }
+        val counters = metrics.of(group.name)
+        counters.calls.incrementAndGet()
+        val maxAttempts = if (request.isRetryable(group.retry)) group.retry.maxAttempts else 1
+
+        var attempt = 1
+        while (true) {
+            checkConnectivity()
+            if (breaker.tryAcquire().not()) {
+                counters.shortCircuited.incrementAndGet()
+                throw CircuitOpenException(group.name, breaker.remainingOpenMillis())
+            }
+            counters.attempts.incrementAndGet()
+            if (attempt > 1) counters.retries.incrementAndGet()
+
+            val response = try {
+                chain.proceed(request)
+            } catch (e: IOException) {
+                if (checkConnectivity().not()) {
+                    counters.offline.incrementAndGet()
+                    throw e
+                }
+                onFailedAttempt(group, breaker, counters)
+                if (attempt >= maxAttempts || chain.call().isCanceled()) {
+                    counters.failures.incrementAndGet()
+                    throw e
+                }
+                Timber.w { "${group.name} attempt $attempt of ${request.url.encodedPath} failed: ${e.message}" }
+                null
+            }
+
+            if (response != null) {
+                if (response.code !in group.retry.retryableCodes) {
+                    breaker.onSuccess()
+                    counters.circuitState = breaker.state()
+                    return response
+                }
+                onFailedAttempt(group, breaker, counters)
+                if (attempt >= maxAttempts) {
+                    counters.failures.incrementAndGet()
+                    return response
+                }
+                Timber.w { "${group.name} attempt $attempt of ${request.url.encodedPath} got ${response.code}" }
+            }
+
+            val delay = response?.retryAfterMillis(group.retry) ?: group.retry.backoffMillis(attempt, random)
+            response?.close()
+            pause(chain, delay)
+            attempt++
+        }
+    }
+
+    /**
+     * @return whether the device is online; closes every circuit when it just came back.
+     */
+    private fun checkConnectivity(): Boolean {
+        val online = isOnline()
+        if (online && wasOnline.not()) {
+            Timber.d { "Network is back, closing ${breakers.size} circuits" }
+            breakers.values.forEach { it.onSuccess() }
+        }
+        wasOnline = online
+        return online
+    }
+
+    private fun onFailedAttempt(group: EndpointGroup, breaker: CircuitBreaker, counters: ResilienceMetrics.Counters) {
+        if (breaker.onFailure()) {
+            counters.circuitOpened.incrementAndGet()
+            Timber.w { "${group.name} circuit open for ${group.circuit.openMillis} ms" }
+        }
+        counters.circuitState = breaker.state()
+    }
+
+    private fun pause(chain: Interceptor.Chain, millis: Long) {
+        try {
+            if (millis > 0) sleeper.sleep(millis)
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+            throw InterruptedIOException("Retry interrupted")
+        }
+        if (chain.call().isCanceled()) throw IOException("Canceled")
+    }
+
+    private fun Request.isRetryable(policy: RetryPolicy): Boolean {
+        if (body?.isOneShot() == true) return false
+        return policy.retryNonIdempotent || method in IDEMPOTENT_METHODS
+    }
+
+    /**
+     * `Retry-After` in seconds, capped at [RetryPolicy.maxDelayMillis]; HTTP dates are
+     * not used by our servers and fall back to the backoff.
+     */
+    private fun Response.retryAfterMillis(policy: RetryPolicy): Long? = header(HEADER_RETRY_AFTER)?.trim()
+        ?.toLongOrNull()?.let { (it * MILLIS_PER_SECOND).coerceIn(0, policy.maxDelayMillis) }
+
+    companion object {
+        private const val HEADER_RETRY_AFTER = "Retry-After"
+        private const val MILLIS_PER_SECOND = 1000L
+        private val IDEMPOTENT_METHODS = setOf("GET", "HEAD", "PUT", "DELETE", "OPTIONS")
+
+        /**
+         * Groups of the main API client.
+         */
+        val API_GROUPS = listOf(EndpointGroup.SYNC, EndpointGroup.AUTH, EndpointGroup.CONFIG, EndpointGroup.DEFAULT)
+    }
+}
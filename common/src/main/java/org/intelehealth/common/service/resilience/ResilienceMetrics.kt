@@ -0,0 +1,56 @@
+package org.intelehealth.common.service.resilience
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Counters of [ResilienceInterceptor] per [EndpointGroup] name.
+ */
+class ResilienceMetrics {
+    private val groups = ConcurrentHashMap<String, Counters>()
+
+    /**
+     * @property calls Requests handed to the interceptor.
+     * @property attempts Requests sent to the network, retries included.
+     * @property retries Attempts after the first one.
+     * @property failures Calls that ended in an exception or a retryable status.
+     * @property circuitOpened Times the circuit opened.
+     * @property shortCircuited Calls rejected without a network attempt.
+     * @property offline Calls that failed while the device had no network.
+     */
+    data class Snapshot(
+        val calls: Long,
+        val attempts: Long,
+        val retries: Long,
+        val failures: Long,
+        val circuitOpened: Long,
+        val shortCircuited: Long,
+        val offline: Long,
+        val circuitState: CircuitBreaker.State
+    )
+
+    internal class Counters {
+        val calls = AtomicLong()
+        val attempts = AtomicLong()
+        val retries = AtomicLong()
+        val failures = AtomicLong()
+        val circuitOpened = AtomicLong()
+        val shortCircuited = AtomicLong()
+        val offline = AtomicLong()
+
+        @Volatile
+        var circuitState = CircuitBreaker.State.CLOSED
+    }
+
+    internal fun of(group: String): Counters = groups.getOrPut(group) { Counters() }
+
+    fun snapshot(): Map<String, Snapshot> = groups.mapValues { (_, counters) ->
+        Snapshot(
+            counters.calls.get(), counters.attempts.get(), counters.retries.get(), counters.failures.get(),
+            counters.circuitOpened.get(), counters.shortCircuited.get(), counters.offline.get(),
+            counters.circuitState
+        )
+    }
+
+    fun snapshot(group: String): Snapshot? = snapshot()[group]
+}
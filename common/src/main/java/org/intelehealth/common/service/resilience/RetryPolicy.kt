@@ -0,0 +1,59 @@
+package org.intelehealth.common.service.resilience
+
+import java.net.HttpURLConnection.HTTP_BAD_GATEWAY
+import java.net.HttpURLConnection.HTTP_CLIENT_TIMEOUT
+import java.net.HttpURLConnection.HTTP_GATEWAY_TIMEOUT
+import java.net.HttpURLConnection.HTTP_INTERNAL_ERROR
+import java.net.HttpURLConnection.HTTP_UNAVAILABLE
+import kotlin.random.Random
+
+/**
+ * How often and how patiently [ResilienceInterceptor] retries a failed request.
+ *
+ * The delay before retry `n` (1-based) is drawn uniformly from
+ * `0..min(maxDelayMillis, baseDelayMillis * 2^(n-1))` ("full jitter"), so devices that
+ * failed together don't come back together. A `Retry-After` header on the response
+ * takes precedence, capped at [maxDelayMillis].
+ *
+ * @param maxAttempts Total attempts including the first one; 1 disables retries.
+ * @param baseDelayMillis Upper bound of the first delay.
+ * @param maxDelayMillis Upper bound of every delay.
+ * @param retryableCodes HTTP status codes that are retried.
+ * @param retryNonIdempotent Retries POST and PATCH too; only for endpoints that are
+ * idempotent on the server, e.g. upserts keyed by uuid.
+ */
+data class RetryPolicy(
+    val maxAttempts: Int = 3,
+    val baseDelayMillis: Long = 500,
+    val maxDelayMillis: Long = 10_000,
+    val retryableCodes: Set<Int> = DEFAULT_RETRYABLE_CODES,
+    val retryNonIdempotent: Boolean = false
+) {
+    fun backoffMillis(retry: Int, random: Random): Long {
+        val exponential = baseDelayMillis shl (retry - 1).coerceIn(0, MAX_SHIFT)
+        val ceiling = exponential.coerceAtMost(maxDelayMillis)
+        return if (ceiling > 0) random.nextLong(ceiling + 1) else 0
+    }
+
+    companion object {
+        private const val MAX_SHIFT = 20
+        const val HTTP_TOO_MANY_REQUESTS = 429
+
+        val DEFAULT_RETRYABLE_CODES = setOf(
+            HTTP_CLIENT_TIMEOUT, HTTP_TOO_MANY_REQUESTS, HTTP_INTERNAL_ERROR,
+            HTTP_BAD_GATEWAY, HTTP_UNAVAILABLE, HTTP_GATEWAY_TIMEOUT
+        )
+    }
+}
+
+/**
+ * When the circuit of an [EndpointGroup] opens and for how long.
+ *
+ * @param failureThreshold Consecutive failed attempts that open the circuit.
+ * @param openMillis How long an open circuit rejects requests before letting one
+ * probe through.
+ */
+data class CircuitBreakerPolicy(
+    val failureThreshold: Int = 5,
+    val openMillis: Long = 30_000
+)
@@ -4,7 +4,6 @@ import android.content.Context
 import androidx.work.CoroutineWorker
 import androidx.work.WorkerParameters
 import androidx.work.workDataOf
-import com.google.gson.Gson
 import org.intelehealth.common.state.Result.State
 import org.intelehealth.common.utility.API_ERROR
 import org.intelehealth.common.utility.NO_DATA_FOUND
@@ -24,10 +23,7 @@ abstract class StateWorker(ctx: Context, params: WorkerParameters) : CoroutineWo
 
             State.ERROR -> setErrorResult()
 
-            State.SUCCESS -> state.data?.let { data ->
-                println("data ${Gson().toJson(data)}")
-                callback(data)
-            } ?: setFailResult()
+            State.SUCCESS -> state.data?.let { data -> callback(data) } ?: setFailResult()
 
             State.LOADING -> {
                 // Do nothing
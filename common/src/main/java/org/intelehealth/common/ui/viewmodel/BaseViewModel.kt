@@ -3,13 +3,19 @@ package org.intelehealth.common.ui.viewmodel
 import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.ViewModel
+import androidx.lifecycle.viewModelScope
 import com.github.ajalt.timberkt.Timber
 import com.google.gson.Gson
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.drop
+import kotlinx.coroutines.flow.filter
 import kotlinx.coroutines.flow.flow
 import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.flow.onStart
+import kotlinx.coroutines.launch
 import org.intelehealth.common.helper.NetworkHelper
 import retrofit2.Response
 import org.intelehealth.common.state.Result
@@ -39,6 +45,24 @@ open class BaseViewModel(
 
     var dataConnectionStatus = MutableLiveData(true)
 
+    init {
+        networkHelper?.let { helper ->
+            viewModelScope.launch {
+                helper.connectivity.map { it.isConnected }.distinctUntilChanged().drop(1).filter { it }.collect {
+                    dataConnectionStatus.postValue(true)
+                    onConnectionRestored()
+                }
+            }
+        }
+    }
+
+    /**
+     * Called when the default network comes back after it was lost while this
+     * view model was alive. Screens that gave up on a call can retry it here.
+     */
+    protected open fun onConnectionRestored() {
+        Timber.d { "Connection restored" }
+    }
 
     fun <L> executeLocalQuery(
         queryCall: suspend () -> L?
@@ -0,0 +1,92 @@
+package org.intelehealth.common.data
+
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.yield
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Sharing and caching of calls made through [SingleFlight].
+ */
+class SingleFlightTest {
+    private var now = 0L
+    private val singleFlight = SingleFlight(clock = { now })
+    private val calls = AtomicInteger()
+
+    @Test
+    fun concurrentCallersShareOneCall() = runBlocking {
+        val gate = CompletableDeferred<Unit>()
+        val callers = (1..10).map {
+            async {
+                singleFlight.execute(KEY) {
+                    calls.incrementAndGet()
+                    gate.await()
+                    "locations"
+                }
+            }
+        }
+        while (calls.get() == 0) yield()
+        gate.complete(Unit)
+
+        assertTrue(callers.awaitAll().all { it == "locations" })
+        assertEquals(1, calls.get())
+    }
+
+    @Test
+    fun sequentialCallsRunAgainWithoutTtl() = runBlocking {
+        repeat(3) { singleFlight.execute(KEY) { calls.incrementAndGet() } }
+
+        assertEquals(3, calls.get())
+    }
+
+    @Test
+    fun valueIsReusedUntilTtlExpires() = runBlocking {
+        repeat(3) { singleFlight.execute(KEY, ttlMillis = TTL) { calls.incrementAndGet() } }
+        assertEquals(1, calls.get())
+
+        now += TimeUnit.MILLISECONDS.toNanos(TTL)
+        singleFlight.execute(KEY, ttlMillis = TTL) { calls.incrementAndGet() }
+        assertEquals(2, calls.get())
+    }
+
+    @Test
+    fun rejectedValueIsNotStored() = runBlocking {
+        repeat(2) { singleFlight.execute(KEY, ttlMillis = TTL, storeIf = { false }) { calls.incrementAndGet() } }
+
+        assertEquals(2, calls.get())
+    }
+
+    @Test
+    fun failureReachesEveryCallerAndIsNotStored() = runBlocking {
+        val gate = CompletableDeferred<Unit>()
+        val callers = (1..3).map {
+            async {
+                runCatching {
+                    singleFlight.execute<String>(KEY, ttlMillis = TTL) {
+                        calls.incrementAndGet()
+                        gate.await()
+                        throw IOException("timeout")
+                    }
+                }
+            }
+        }
+        while (calls.get() == 0) yield()
+        gate.complete(Unit)
+
+        assertTrue(callers.awaitAll().all { it.exceptionOrNull() is IOException })
+        assertEquals("ok", singleFlight.execute(KEY, ttlMillis = TTL) { "ok" })
+        assertEquals(1, calls.get())
+    }
+
+    companion object {
+        private const val KEY = "locations"
+        private const val TTL = 30_000L
+    }
+}
@@ -0,0 +1,94 @@
+package org.intelehealth.common.helper
+
+import org.intelehealth.common.metrics.network.NetworkCallTiming
+import org.intelehealth.common.metrics.network.NetworkPhase
+import org.intelehealth.common.metrics.network.NetworkTelemetry
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+/**
+ * Profile selection of [BandwidthProfiler] from estimates and measured samples.
+ */
+class BandwidthProfilerTest {
+    private val telemetry = NetworkTelemetry()
+    private var now = START
+    private var state = ConnectivityState(isConnected = true, transport = ConnectivityState.Transport.WIFI)
+    private val profiler = BandwidthProfiler({ state }, telemetry, { now })
+
+    @Test
+    fun fallsBackToTransportWithoutEstimates() {
+        assertEquals(BandwidthProfile.HIGH, profiler.current())
+
+        state = state.copy(transport = ConnectivityState.Transport.CELLULAR)
+        assertEquals(BandwidthProfile.MEDIUM, profiler.current())
+
+        state = ConnectivityState.DISCONNECTED
+        assertEquals(BandwidthProfile.LOW, profiler.current())
+    }
+
+    @Test
+    fun usesSystemEstimateWithoutMeasurements() {
+        state = state.copy(transport = ConnectivityState.Transport.CELLULAR, downstreamKbps = 120)
+
+        assertEquals(BandwidthProfile.LOW, profiler.current())
+    }
+
+    @Test
+    fun prefersMeasuredThroughput() {
+        state = state.copy(downstreamKbps = 72_000)
+        // 64 KB in 2 s is 262 kbit/s
+        record(bytes = 64L * 1024, responseMillis = 2_000)
+        record(bytes = 1_024, responseMillis = 10_000)
+
+        assertEquals(262L, telemetry.throughputKbps(since = START))
+        assertEquals(BandwidthProfile.MEDIUM, profiler.current())
+    }
+
+    @Test
+    fun ignoresOldAndSmallSamples() {
+        record(bytes = 64L * 1024, responseMillis = 60_000)
+        now += BandwidthProfiler.SAMPLE_WINDOW_MILLIS + 1
+        record(bytes = 1_024, responseMillis = 10_000)
+
+        assertNull(telemetry.throughputKbps(since = now - BandwidthProfiler.SAMPLE_WINDOW_MILLIS))
+        assertEquals(BandwidthProfile.HIGH, profiler.current())
+    }
+
+    @Test
+    fun reusesProfileWhileStateIsUnchanged() {
+        assertEquals(BandwidthProfile.HIGH, profiler.current())
+        record(bytes = 64L * 1024, responseMillis = 60_000)
+        assertEquals(BandwidthProfile.HIGH, profiler.current())
+
+        now += BandwidthProfiler.CACHE_MILLIS
+        assertEquals(BandwidthProfile.LOW, profiler.current())
+    }
+
+    @Test
+    fun scalesPayloads() {
+        assertEquals(25, BandwidthProfile.LOW.scale(50))
+        assertEquals(100, BandwidthProfile.HIGH.scale(50))
+        assertEquals(10, BandwidthProfile.LOW.scale(10, min = 10))
+    }
+
+    private fun record(bytes: Long, responseMillis: Long) = telemetry.record(
+        NetworkCallTiming(
+            client = NetworkTelemetry.CLIENT_API,
+            method = "GET",
+            host = "example.org",
+            path = "/sync/pull",
+            startedAt = now,
+            phaseMillis = mapOf(NetworkPhase.RESPONSE to responseMillis, NetworkPhase.TOTAL to responseMillis),
+            requestBytes = 0,
+            responseBytes = bytes,
+            code = 200,
+            connectionReused = true,
+            cacheHit = false
+        )
+    )
+
+    companion object {
+        private const val START = 1_000_000L
+    }
+}
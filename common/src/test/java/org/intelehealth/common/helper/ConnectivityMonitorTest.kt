@@ -0,0 +1,102 @@
+package org.intelehealth.common.helper
+
+import android.content.Context
+import android.net.ConnectivityManager
+import android.net.NetworkCapabilities
+import androidx.test.core.app.ApplicationProvider
+import kotlinx.coroutines.async
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.yield
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.annotation.Config
+import org.robolectric.shadows.ShadowNetwork
+import org.robolectric.shadows.ShadowNetworkCapabilities
+
+/**
+ * Follows the default network of [ConnectivityMonitor] through shadowed callbacks.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+class ConnectivityMonitorTest {
+    private lateinit var connectivityManager: ConnectivityManager
+    private lateinit var monitor: ConnectivityMonitor
+
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        connectivityManager = context.getSystemService(ConnectivityManager::class.java)
+        monitor = ConnectivityMonitor(context)
+    }
+
+    @Test
+    fun followsCapabilitiesOfDefaultNetwork() {
+        onCapabilitiesChanged(
+            capabilities(
+                NetworkCapabilities.TRANSPORT_WIFI,
+                NetworkCapabilities.NET_CAPABILITY_VALIDATED,
+                NetworkCapabilities.NET_CAPABILITY_NOT_METERED
+            )
+        )
+
+        val state = monitor.connectivity.value
+        assertTrue(state.isConnected)
+        assertTrue(state.isValidated)
+        assertFalse(state.isMetered)
+        assertEquals(ConnectivityState.Transport.WIFI, state.transport)
+    }
+
+    @Test
+    fun captivePortalIsNotValidated() {
+        onCapabilitiesChanged(
+            capabilities(
+                NetworkCapabilities.TRANSPORT_CELLULAR,
+                NetworkCapabilities.NET_CAPABILITY_VALIDATED,
+                NetworkCapabilities.NET_CAPABILITY_CAPTIVE_PORTAL
+            )
+        )
+
+        val state = monitor.connectivity.value
+        assertTrue(state.isConnected)
+        assertFalse(state.isValidated)
+        assertTrue(state.isMetered)
+        assertEquals(ConnectivityState.Transport.CELLULAR, state.transport)
+    }
+
+    @Test
+    fun awaitsReconnection() = runBlocking {
+        callbacks().forEach { it.onLost(ShadowNetwork.newInstance(NET_ID)) }
+        assertEquals(ConnectivityState.DISCONNECTED, monitor.connectivity.value)
+        assertFalse(monitor.awaitConnected(SHORT_WAIT_MILLIS))
+
+        val reconnected = async { monitor.awaitConnected(LONG_WAIT_MILLIS) }
+        yield()
+        onCapabilitiesChanged(capabilities(NetworkCapabilities.TRANSPORT_ETHERNET))
+
+        assertTrue(reconnected.await())
+    }
+
+    private fun callbacks() = shadowOf(connectivityManager).networkCallbacks.toList()
+
+    private fun onCapabilitiesChanged(capabilities: NetworkCapabilities) {
+        callbacks().forEach { it.onCapabilitiesChanged(ShadowNetwork.newInstance(NET_ID), capabilities) }
+    }
+
+    private fun capabilities(transport: Int, vararg capabilities: Int): NetworkCapabilities =
+        ShadowNetworkCapabilities.newInstance().also { instance ->
+            shadowOf(instance).addTransportType(transport)
+            capabilities.forEach { shadowOf(instance).addCapability(it) }
+        }
+
+    companion object {
+        private const val NET_ID = 100
+        private const val SHORT_WAIT_MILLIS = 50L
+        private const val LONG_WAIT_MILLIS = 5_000L
+    }
+}
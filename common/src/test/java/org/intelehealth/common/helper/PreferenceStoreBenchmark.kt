@@ -0,0 +1,155 @@
+package org.intelehealth.common.helper
+
+import android.content.Context
+import android.content.SharedPreferences
+import androidx.test.core.app.ApplicationProvider
+import kotlinx.coroutines.async
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.yield
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import java.util.Locale
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+
+/**
+ * Compares [PreferenceStore] with the way [PreferenceHelper] used to access
+ * [SharedPreferences]: a copy of `all` per read and a `commit()` per write.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+class PreferenceStoreBenchmark {
+    private lateinit var preferences: SharedPreferences
+    private lateinit var store: PreferenceStore
+
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        preferences = context.getSharedPreferences(FILE, Context.MODE_PRIVATE)
+        preferences.edit().clear().commit()
+        // a realistic file: the keys of PreferenceHelper plus some feature flags
+        preferences.edit().apply {
+            repeat(KEYS) { putString("key_$it", "value_$it".repeat(VALUE_REPEAT)) }
+        }.commit()
+        store = PreferenceStore(preferences)
+    }
+
+    @Test
+    fun readsFromSnapshot() {
+        val legacy = measure { i -> preferences.all["key_${i % KEYS}"] }
+        val snapshot = measure { i -> store.get("key_${i % KEYS}", "") }
+        report("read", legacy, snapshot)
+        assertTrue("snapshot reads should beat copying all", snapshot < legacy)
+    }
+
+    @Test
+    fun writesBehind() {
+        val legacy = measure(WRITES) { i -> preferences.edit().putString(KEY_TOKEN, "token_$i").commit() }
+        val writeBehind = measure(WRITES) { i -> store.put(KEY_TOKEN, "token_$i") }
+        report("write", legacy, writeBehind)
+        store.flush()
+        assertEquals("token_${WRITES - 1}", preferences.getString(KEY_TOKEN, null))
+        assertTrue("queued writes should beat commit per write", writeBehind < legacy)
+    }
+
+    @Test
+    fun persistsRemovalAndNotifiesChanges() = runBlocking {
+        val changes = mutableListOf<String>()
+        store.addListener { changes += it }
+        assertEquals("", store.observe(KEY_TOKEN, "").first())
+        val observed = async { store.observe(KEY_TOKEN, "").first { it == "second" } }
+        yield()
+
+        store.put(KEY_TOKEN, "first")
+        store.put(KEY_TOKEN, "first")
+        store.put(KEY_TOKEN, "second")
+        assertEquals("second", observed.await())
+        store.remove("key_0")
+        store.flush()
+
+        assertEquals(listOf(KEY_TOKEN, KEY_TOKEN, "key_0"), changes)
+        assertEquals("second", preferences.getString(KEY_TOKEN, null))
+        assertTrue(preferences.contains("key_0").not())
+        assertEquals("second", PreferenceStore(preferences).get(KEY_TOKEN, ""))
+    }
+
+    @Test
+    fun commitsDurableKeysBeforeReturning() {
+        val latch = CountDownLatch(1)
+        val writer = Executors.newSingleThreadExecutor().apply { execute { latch.await() } }
+        val durable = PreferenceStore(preferences, setOf(KEY_TOKEN), writer)
+
+        durable.put(KEY_TOKEN, "session")
+        durable.put("key_0", "queued")
+
+        assertEquals("session", preferences.getString(KEY_TOKEN, null))
+        latch.countDown()
+        durable.flush()
+        assertEquals("queued", preferences.getString("key_0", null))
+        writer.shutdown()
+    }
+
+    @Test
+    fun flushesInBackgroundWithoutWaitingForTheWriter() {
+        val latch = CountDownLatch(1)
+        val writer = Executors.newSingleThreadExecutor().apply { execute { latch.await() } }
+        val queued = PreferenceStore(preferences, emptySet(), writer)
+
+        queued.put("key_0", "queued")
+        queued.flushInBackground()
+
+        assertEquals("value_0".repeat(VALUE_REPEAT), preferences.getString("key_0", null))
+        latch.countDown()
+        writer.submit {}.get()
+        assertEquals("queued", preferences.getString("key_0", null))
+        writer.shutdown()
+    }
+
+    @Test
+    fun concurrentWritesLeaveSnapshotAndFileInStep() {
+        val threads = (0 until THREADS).map { thread ->
+            Thread {
+                repeat(WRITES) { i ->
+                    if (i % 3 == 0) store.remove(KEY_TOKEN) else store.put(KEY_TOKEN, "token_${thread}_$i")
+                }
+            }.apply { start() }
+        }
+        threads.forEach { it.join() }
+        store.flush()
+
+        assertEquals(store.getOrNull(KEY_TOKEN), preferences.all[KEY_TOKEN])
+    }
+
+    private inline fun measure(iterations: Int = READS, block: (Int) -> Unit): Long {
+        repeat(WARM_UP) { block(it) }
+        val start = System.nanoTime()
+        repeat(iterations) { block(it) }
+        return (System.nanoTime() - start) / iterations
+    }
+
+    private fun report(operation: String, legacy: Long, store: Long) {
+        println(
+            String.format(
+                Locale.US, "%s: SharedPreferences %d ns/op, PreferenceStore %d ns/op (%.1fx)",
+                operation, legacy, store, legacy.toDouble() / store.coerceAtLeast(1)
+            )
+        )
+    }
+
+    companion object {
+        private const val FILE = "preference_store_benchmark"
+        private const val KEY_TOKEN = "basic_auth_token"
+        private const val KEYS = 40
+        private const val VALUE_REPEAT = 8
+        private const val WARM_UP = 1_000
+        private const val READS = 100_000
+        private const val WRITES = 2_000
+        private const val THREADS = 4
+    }
+}
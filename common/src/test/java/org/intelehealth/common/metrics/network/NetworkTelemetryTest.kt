@@ -0,0 +1,125 @@
+package org.intelehealth.common.metrics.network
+
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.RequestBody.Companion.toRequestBody
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.SocketPolicy
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+
+/**
+ * Records calls through [NetworkTelemetry] against a [MockWebServer].
+ */
+class NetworkTelemetryTest {
+    private lateinit var server: MockWebServer
+    private lateinit var telemetry: NetworkTelemetry
+    private lateinit var client: OkHttpClient
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+        telemetry = NetworkTelemetry(capacity = 3)
+        client = OkHttpClient.Builder().retryOnConnectionFailure(false)
+            .eventListenerFactory(telemetry.eventListenerFactory(NetworkTelemetry.CLIENT_API)).build()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    @Test
+    fun recordsPhasesAndBytesOfCall() {
+        server.enqueue(
+            MockResponse().setBody("x".repeat(BODY_SIZE)).setHeadersDelay(SERVER_DELAY, TimeUnit.MILLISECONDS)
+        )
+
+        val body = "{\"a\":1}".toRequestBody("application/json".toMediaType())
+        client.newCall(Request.Builder().url(server.url("/sync/push?id=1")).post(body).build()).execute()
+            .use { it.body?.string() }
+
+        val call = telemetry.recentCalls().single()
+        assertEquals(NetworkTelemetry.CLIENT_API, call.client)
+        assertEquals("POST", call.method)
+        assertEquals("/sync/push", call.path)
+        assertEquals(200, call.code)
+        assertEquals(7, call.requestBytes)
+        assertEquals(BODY_SIZE.toLong(), call.responseBytes)
+        assertFalse(call.connectionReused)
+        assertTrue(call.millis(NetworkPhase.TTFB) >= SERVER_DELAY)
+        assertTrue(call.millis(NetworkPhase.TOTAL) >= call.millis(NetworkPhase.TTFB))
+    }
+
+    @Test
+    fun marksReusedConnections() {
+        repeat(2) { server.enqueue(MockResponse().setBody("ok")) }
+
+        repeat(2) {
+            client.newCall(Request.Builder().url(server.url("/a")).build()).execute().use { it.body?.string() }
+        }
+
+        val calls = telemetry.recentCalls()
+        assertFalse(calls[0].connectionReused)
+        assertTrue(calls[1].connectionReused)
+        assertEquals(0, calls[1].millis(NetworkPhase.CONNECT))
+        val connect = telemetry.summary().getValue(NetworkTelemetry.CLIENT_API).phases.getValue(NetworkPhase.CONNECT)
+        assertEquals(1, connect.count)
+    }
+
+    @Test
+    fun recordsFailedCalls() {
+        server.enqueue(MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START))
+
+        try {
+            client.newCall(Request.Builder().url(server.url("/a")).build()).execute()
+        } catch (e: IOException) {
+            // expected
+        }
+
+        val call = telemetry.recentCalls().single()
+        assertEquals(0, call.code)
+        assertNotNull(call.error)
+        assertEquals(1, telemetry.summary().getValue(NetworkTelemetry.CLIENT_API).failures)
+    }
+
+    @Test
+    fun keepsOnlyTheLatestCalls() {
+        repeat(5) { server.enqueue(MockResponse().setBody("ok")) }
+
+        (1..5).forEach { client.newCall(Request.Builder().url(server.url("/p$it")).build()).execute().close() }
+
+        assertEquals(listOf("/p3", "/p4", "/p5"), telemetry.recentCalls().map { it.path })
+        assertEquals(5, telemetry.summary().getValue(NetworkTelemetry.CLIENT_API).calls)
+        assertTrue(telemetry.exportJson().contains("\"/p5\""))
+    }
+
+    @Test
+    fun histogramReportsBucketPercentiles() {
+        val histogram = LatencyHistogram()
+        repeat(90) { histogram.record(20) }
+        repeat(10) { histogram.record(3_000) }
+
+        val summary = histogram.summary()
+        assertEquals(100, summary.count)
+        assertEquals(25, summary.p50Millis)
+        assertEquals(25, summary.p90Millis)
+        assertEquals(3_000, summary.p99Millis)
+        assertEquals(3_000, summary.maxMillis)
+    }
+
+    companion object {
+        private const val BODY_SIZE = 4_096
+        private const val SERVER_DELAY = 100L
+    }
+}
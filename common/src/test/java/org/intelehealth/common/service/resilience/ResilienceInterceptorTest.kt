@@ -0,0 +1,265 @@
+package org.intelehealth.common.service.resilience
+
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.RequestBody.Companion.toRequestBody
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.SocketPolicy
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Before
+import org.junit.Test
+import java.io.IOException
+
+/**
+ * Retries and circuit breaking of [ResilienceInterceptor] against a [MockWebServer].
+ */
+class ResilienceInterceptorTest {
+    private lateinit var server: MockWebServer
+    private val delays = mutableListOf<Long>()
+    private var now = 0L
+    private var online = true
+
+    private val group = EndpointGroup(
+        name = "sync",
+        paths = setOf("/sync/"),
+        retry = RetryPolicy(maxAttempts = 3, baseDelayMillis = 100, maxDelayMillis = 1_000),
+        circuit = CircuitBreakerPolicy(failureThreshold = 3, openMillis = 10_000)
+    )
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    @Test
+    fun retriesRetryableStatusUntilSuccess() {
+        val interceptor = interceptor()
+        server.enqueue(MockResponse().setResponseCode(503))
+        server.enqueue(MockResponse().setResponseCode(502))
+        server.enqueue(MockResponse().setBody("ok"))
+
+        val response = client(interceptor).newCall(get(SYNC_PATH)).execute()
+
+        assertEquals("ok", response.body?.string())
+        assertEquals(3, server.requestCount)
+        assertEquals(2, delays.size)
+        assertTrue(delays.all { it in 0..1_000 })
+        val metrics = interceptor.metrics.snapshot(group.name)!!
+        assertEquals(1, metrics.calls)
+        assertEquals(3, metrics.attempts)
+        assertEquals(2, metrics.retries)
+        assertEquals(0, metrics.failures)
+        assertEquals(CircuitBreaker.State.CLOSED, metrics.circuitState)
+    }
+
+    @Test
+    fun honoursRetryAfter() {
+        val interceptor = interceptor()
+        server.enqueue(MockResponse().setResponseCode(429).setHeader("Retry-After", "1"))
+        server.enqueue(MockResponse().setBody("ok"))
+
+        client(interceptor).newCall(get(SYNC_PATH)).execute().close()
+
+        assertEquals(listOf(1_000L), delays)
+    }
+
+    @Test
+    fun retriesDroppedConnectionsAndRethrowsTheLast() {
+        val interceptor = interceptor()
+        repeat(3) { server.enqueue(MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START)) }
+
+        try {
+            client(interceptor).newCall(get(SYNC_PATH)).execute()
+            fail("Expected IOException")
+        } catch (e: IOException) {
+            assertTrue(e !is CircuitOpenException)
+        }
+
+        val metrics = interceptor.metrics.snapshot(group.name)!!
+        assertEquals(3, metrics.attempts)
+        assertEquals(1, metrics.failures)
+    }
+
+    @Test
+    fun returnsLastRetryableResponse() {
+        val interceptor = interceptor(group.copy(circuit = CircuitBreakerPolicy(failureThreshold = 10)))
+        repeat(3) { server.enqueue(MockResponse().setResponseCode(500).setBody("down")) }
+
+        val response = client(interceptor).newCall(get(SYNC_PATH)).execute()
+
+        assertEquals(500, response.code)
+        assertEquals("down", response.body?.string())
+        assertEquals(3, server.requestCount)
+    }
+
+    @Test
+    fun doesNotRetryPostUnlessAllowed() {
+        val interceptor = interceptor()
+        server.enqueue(MockResponse().setResponseCode(503))
+        val post = Request.Builder().url(server.url(SYNC_PATH))
+            .post("{}".toRequestBody("application/json".toMediaType())).build()
+
+        val response = client(interceptor).newCall(post).execute()
+
+        assertEquals(503, response.code)
+        assertEquals(1, server.requestCount)
+    }
+
+    @Test
+    fun retriesPostWhenGroupAllowsIt() {
+        val interceptor = interceptor(group.copy(retry = group.retry.copy(retryNonIdempotent = true)))
+        server.enqueue(MockResponse().setResponseCode(503))
+        server.enqueue(MockResponse().setBody("ok"))
+        val post = Request.Builder().url(server.url(SYNC_PATH))
+            .post("{}".toRequestBody("application/json".toMediaType())).build()
+
+        val response = client(interceptor).newCall(post).execute()
+
+        assertEquals("ok", response.body?.string())
+        assertEquals(2, server.requestCount)
+    }
+
+    @Test
+    fun syncGroupMakesASingleAttempt() {
+        val interceptor = interceptor(EndpointGroup.SYNC)
+        server.enqueue(MockResponse().setResponseCode(503))
+        server.enqueue(MockResponse().setBody("ok"))
+
+        val response = client(interceptor).newCall(get(MIDDLEWARE_PATH)).execute()
+
+        assertEquals(503, response.code)
+        assertEquals(1, server.requestCount)
+        assertTrue(delays.isEmpty())
+    }
+
+    @Test
+    fun opensCircuitAndShortCircuitsUntilProbeSucceeds() {
+        val interceptor = interceptor()
+        repeat(3) { server.enqueue(MockResponse().setResponseCode(503)) }
+        val client = client(interceptor)
+
+        client.newCall(get(SYNC_PATH)).execute().close()
+        assertEquals(CircuitBreaker.State.OPEN, interceptor.circuitState(group.name))
+
+        try {
+            client.newCall(get(SYNC_PATH)).execute()
+            fail("Expected CircuitOpenException")
+        } catch (e: CircuitOpenException) {
+            assertEquals(3, server.requestCount)
+        }
+
+        now += 10_000
+        assertEquals(CircuitBreaker.State.HALF_OPEN, interceptor.circuitState(group.name))
+        server.enqueue(MockResponse().setBody("ok"))
+        assertEquals("ok", client.newCall(get(SYNC_PATH)).execute().body?.string())
+        assertEquals(CircuitBreaker.State.CLOSED, interceptor.circuitState(group.name))
+
+        val metrics = interceptor.metrics.snapshot(group.name)!!
+        assertEquals(1, metrics.circuitOpened)
+        assertEquals(1, metrics.shortCircuited)
+        assertEquals(3, metrics.calls)
+    }
+
+    @Test
+    fun failedProbeReopensCircuit() {
+        val interceptor = interceptor()
+        repeat(4) { server.enqueue(MockResponse().setResponseCode(503)) }
+        val client = client(interceptor)
+        client.newCall(get(SYNC_PATH)).execute().close()
+
+        now += 10_000
+        try {
+            client.newCall(get(SYNC_PATH)).execute()
+            fail("Expected CircuitOpenException")
+        } catch (e: CircuitOpenException) {
+            // the probe failed and its retry was rejected
+        }
+
+        assertEquals(4, server.requestCount)
+        assertEquals(CircuitBreaker.State.OPEN, interceptor.circuitState(group.name))
+        assertEquals(2, interceptor.metrics.snapshot(group.name)!!.circuitOpened)
+    }
+
+    @Test
+    fun doesNotRetryOrCountFailuresWhileOffline() {
+        val interceptor = interceptor()
+        online = false
+        server.enqueue(MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START))
+
+        try {
+            client(interceptor).newCall(get(SYNC_PATH)).execute()
+            fail("Expected IOException")
+        } catch (e: IOException) {
+            assertTrue(e !is CircuitOpenException)
+        }
+
+        val metrics = interceptor.metrics.snapshot(group.name)!!
+        assertEquals(1, metrics.attempts)
+        assertEquals(1, metrics.offline)
+        assertEquals(0, metrics.failures)
+        assertTrue(delays.isEmpty())
+        assertEquals(CircuitBreaker.State.CLOSED, interceptor.circuitState(group.name))
+    }
+
+    @Test
+    fun closesCircuitsWhenNetworkComesBack() {
+        val interceptor = interceptor()
+        repeat(3) { server.enqueue(MockResponse().setResponseCode(503)) }
+        val client = client(interceptor)
+        client.newCall(get(SYNC_PATH)).execute().close()
+        assertEquals(CircuitBreaker.State.OPEN, interceptor.circuitState(group.name))
+
+        online = false
+        try {
+            client.newCall(get(SYNC_PATH)).execute()
+            fail("Expected CircuitOpenException")
+        } catch (e: CircuitOpenException) {
+            // still open while offline
+        }
+
+        online = true
+        server.enqueue(MockResponse().setBody("ok"))
+        assertEquals("ok", client.newCall(get(SYNC_PATH)).execute().body?.string())
+        assertEquals(CircuitBreaker.State.CLOSED, interceptor.circuitState(group.name))
+    }
+
+    @Test
+    fun ignoresRequestsOutsideItsGroups() {
+        val interceptor = interceptor()
+        server.enqueue(MockResponse().setResponseCode(503))
+
+        val response = client(interceptor).newCall(get("/other")).execute()
+
+        assertEquals(503, response.code)
+        assertEquals(1, server.requestCount)
+        assertTrue(interceptor.metrics.snapshot().isEmpty())
+    }
+
+    private fun interceptor(endpointGroup: EndpointGroup = group) = ResilienceInterceptor(
+        groups = listOf(endpointGroup),
+        sleeper = { delays.add(it) },
+        clock = { now },
+        isOnline = { online }
+    )
+
+    private fun client(interceptor: ResilienceInterceptor) = OkHttpClient.Builder()
+        .retryOnConnectionFailure(false).addInterceptor(interceptor).build()
+
+    private fun get(path: String) = Request.Builder().url(server.url(path)).build()
+
+    companion object {
+        private const val SYNC_PATH = "/sync/pull"
+        private const val MIDDLEWARE_PATH = "/EMR-Middleware/webapi/pull/pulldata"
+    }
+}
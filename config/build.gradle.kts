@@ -1,5 +1,6 @@
 import extensions.androidTestDeps
 import extensions.configModuleDeps
+import extensions.roomMigrationTestDeps
 import extensions.unitTestDeps
 import io.gitlab.arturbosch.detekt.Detekt
 
@@ -38,12 +39,24 @@ android {
     kotlinOptions {
         jvmTarget = AndroidConfig.JVM_TARGET
     }
+
+    testOptions {
+        unitTests.isIncludeAndroidResources = true
+    }
+
+    sourceSets {
+        getByName("test").assets.srcDir("$projectDir/schemas")
+    }
+
     buildFeatures {
         buildConfig = true
     }
 
     kapt {
         correctErrorTypes = true
+        arguments {
+            arg("room.schemaLocation", "$projectDir/schemas")
+        }
 //        arguments {
 //            arg("dagger.hilt.android.internal.disableAndroidSuperclassValidation", "true")
 //            arg("dagger.hilt.android.internal.projectType", "APP")
@@ -55,5 +68,6 @@ android {
 dependencies {
     configModuleDeps()
     unitTestDeps()
+    roomMigrationTestDeps()
     androidTestDeps()
 }
@@ -15,5 +15,11 @@ class ConfigDataSource @Inject constructor(
     private val networkHelper: NetworkHelper
 ) : BaseDataSource(networkHelper = networkHelper) {
 
-    fun getConfig() = getResult { restClient.getPublishedConfig() }
+    fun getConfig() = getSharedResult(KEY_CONFIG, SHORT_TTL_MILLIS, cached = true) {
+        restClient.getPublishedConfig()
+    }
+
+    companion object {
+        private const val KEY_CONFIG = "published_config"
+    }
 }
\ No newline at end of file
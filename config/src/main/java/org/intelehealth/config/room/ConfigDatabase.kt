@@ -33,7 +33,7 @@ import org.intelehealth.config.room.entity.Specialization
         Vital::class
     ],
     version = 1,
-    exportSchema = false
+    exportSchema = true
 )
 abstract class ConfigDatabase : RoomDatabase() {
 
@@ -68,11 +68,14 @@ abstract class ConfigDatabase : RoomDatabase() {
         /**
          * Set up the database configuration.
          * The SQLite database is only created when it's accessed for the first time.
+         * Upgrades run [ConfigMigrations]; only a downgrade, which never reaches the
+         * clinics, recreates the database.
          */
         fun buildDatabase(appContext: Context): ConfigDatabase {
             val databaseName = "${appContext.packageName}.$DATABASE_NAME"
             return Room.databaseBuilder(appContext, ConfigDatabase::class.java, databaseName)
-                .fallbackToDestructiveMigration()
+                .addMigrations(*ConfigMigrations.ALL)
+                .fallbackToDestructiveMigrationOnDowngrade()
                 .build()
         }
 //
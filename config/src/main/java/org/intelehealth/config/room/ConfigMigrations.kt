@@ -0,0 +1,12 @@
+package org.intelehealth.config.room
+
+import androidx.room.migration.Migration
+
+/**
+ * Schema migrations of [ConfigDatabase], one per version bump. Version 1 is the first
+ * exported schema, see `schemas/`; `ConfigMigrationsTest` upgrades a database created
+ * from every exported version, bump its `LATEST_VERSION` with the database.
+ */
+object ConfigMigrations {
+    val ALL: Array<Migration> = emptyArray()
+}
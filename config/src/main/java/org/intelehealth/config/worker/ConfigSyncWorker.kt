@@ -14,9 +14,14 @@ import dagger.assisted.AssistedInject
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.NonCancellable
 import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
+import org.intelehealth.common.metrics.SyncMetricSample
+import org.intelehealth.common.metrics.SyncMetricsRecorder
+import org.intelehealth.common.metrics.SyncMetricsStore
+import org.intelehealth.common.metrics.SyncPhase
 import org.intelehealth.common.utility.API_ERROR
 import org.intelehealth.common.utility.NO_DATA_FOUND
 import org.intelehealth.common.utility.NO_NETWORK
@@ -35,23 +40,45 @@ class ConfigSyncWorker @AssistedInject constructor(
     @Assisted ctx: Context,
     @Assisted params: WorkerParameters,
     private val configRepository: ConfigRepository,
+    private val metricsStore: SyncMetricsStore,
     private val dispatcher: CoroutineDispatcher = Dispatchers.IO
 ) : CoroutineWorker(ctx, params) {
     private var workerResult = Result.failure()
+    private val metrics = SyncMetricsRecorder(SyncMetricsRecorder.TYPE_CONFIG)
+
     override suspend fun doWork(): Result {
-        withContext(dispatcher) {
-            configRepository.suspendFetchAndUpdateConfig().collect { result ->
-                if (result.isSuccess()) {
-                    result.data?.let {
-                        configRepository.saveAllConfig(it, this) { workerResult = Result.success() }
-                    } ?: setFailureResult(result)
-                } else setFailureResult(result)
+        try {
+            withContext(dispatcher) {
+                var requestStart = System.nanoTime()
+                configRepository.suspendFetchAndUpdateConfig().collect { result ->
+                    if (result.isLoading()) {
+                        requestStart = System.nanoTime()
+                        return@collect
+                    }
+                    metrics.record(SyncMetricSample.NO_PAGE, SyncPhase.NETWORK, System.nanoTime() - requestStart)
+                    if (result.isSuccess()) {
+                        result.data?.let { saveConfig(it, this) } ?: setFailureResult(result)
+                    } else setFailureResult(result)
+                }
             }
+        } finally {
+            withContext(NonCancellable) { metricsStore.save(metrics) }
         }
 
         return workerResult
     }
 
+    private fun saveConfig(config: ConfigResponse, scope: CoroutineScope) {
+        val start = System.nanoTime()
+        configRepository.saveAllConfig(config, scope) {
+            metrics.record(SyncMetricSample.NO_PAGE, SyncPhase.DB_WRITE, System.nanoTime() - start, rows = config.rowCount())
+            workerResult = Result.success(metrics.toWorkData())
+        }
+    }
+
+    private fun ConfigResponse.rowCount() = specialization.size + language.size + vitals.size +
+            patientRegFields.personal.size + patientRegFields.address.size + patientRegFields.other.size
+
     private fun setFailureResult(result: APIResult<ConfigResponse>) {
         workerResult = when (result.status) {
             APIResult.State.FAIL -> if (result.message == NO_NETWORK) Result.failure(
@@ -0,0 +1,73 @@
+package org.intelehealth.config.room
+
+import android.content.Context
+import androidx.room.Room
+import androidx.room.testing.MigrationTestHelper
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+/**
+ * Opens databases created from the schemas committed under `schemas/` and upgrades
+ * them through [ConfigMigrations], so a schema change without its export or its
+ * migration fails here.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+class ConfigMigrationsTest {
+    private val context = ApplicationProvider.getApplicationContext<Context>()
+
+    @get:Rule
+    val helper = MigrationTestHelper(InstrumentationRegistry.getInstrumentation(), ConfigDatabase::class.java)
+
+    @After
+    fun tearDown() {
+        context.deleteDatabase(TEST_DB)
+    }
+
+    @Test
+    fun everyVersionMigratesToLatestSchema() {
+        (FIRST_VERSION..LATEST_VERSION).forEach { version ->
+            context.deleteDatabase(TEST_DB)
+            helper.createDatabase(TEST_DB, version).use {
+                it.execSQL("INSERT INTO tbl_specialization (sKey, name) VALUES ('$SPECIALIZATION', 'General')")
+            }
+
+            helper.runMigrationsAndValidate(TEST_DB, LATEST_VERSION, true, *ConfigMigrations.ALL).use { db ->
+                db.query("SELECT sKey FROM tbl_specialization").use {
+                    it.moveToFirst()
+                    assertEquals(SPECIALIZATION, it.getString(0))
+                }
+            }
+        }
+    }
+
+    @Test
+    fun exportedSchemaOpensWithRoom() {
+        helper.createDatabase(TEST_DB, LATEST_VERSION).close()
+
+        val database = Room.databaseBuilder(context, ConfigDatabase::class.java, TEST_DB)
+            .addMigrations(*ConfigMigrations.ALL)
+            .allowMainThreadQueries()
+            .build()
+        assertEquals(LATEST_VERSION, database.openHelper.writableDatabase.version)
+        database.close()
+    }
+
+    companion object {
+        private const val TEST_DB = "config-migration-test.db"
+        private const val SPECIALIZATION = "general"
+        private const val FIRST_VERSION = 1
+
+        /**
+         * Current `ConfigDatabase` version, bump together with it.
+         */
+        private const val LATEST_VERSION = 1
+    }
+}
@@ -1,17 +1,33 @@
 package org.intelehealth.core.di
 
+import android.content.Context
 import com.google.gson.Gson
+import com.google.gson.GsonBuilder
+import com.google.gson.TypeAdapterFactory
 import dagger.Module
 import dagger.Provides
 import dagger.hilt.InstallIn
+import dagger.hilt.android.qualifiers.ApplicationContext
 import dagger.hilt.components.SingletonComponent
+import dagger.multibindings.ElementsIntoSet
+import okhttp3.Cache
 import okhttp3.OkHttpClient
 import okhttp3.logging.HttpLoggingInterceptor
+import org.intelehealth.common.helper.NetworkHelper
+import org.intelehealth.common.metrics.network.NetworkTelemetry
+import org.intelehealth.common.service.resilience.ResilienceInterceptor
 import org.intelehealth.common.utility.CommonConstants.HTTP_REQ_TIMEOUT
 import org.intelehealth.core.BuildConfig
+import org.intelehealth.core.interceptor.CacheControlInterceptor
+import org.intelehealth.core.interceptor.GzipRequestInterceptor
+import org.intelehealth.core.interceptor.HttpCachePolicies
+import org.intelehealth.core.interceptor.HttpCachePolicy
 import org.intelehealth.core.interceptor.LimitedLoggingInterceptor
+import org.intelehealth.core.interceptor.RequestCompressionPolicy
+import org.intelehealth.core.interceptor.StaleWhileRevalidateInterceptor
 import retrofit2.Retrofit
 import retrofit2.converter.gson.GsonConverterFactory
+import java.io.File
 import java.util.concurrent.TimeUnit
 import javax.inject.Singleton
 
@@ -21,10 +37,78 @@ class CoreNetworkModule {
 
     @Singleton
     @Provides
-    fun provideOkHttpClient(interceptor: LimitedLoggingInterceptor) =
-        OkHttpClient.Builder().retryOnConnectionFailure(true).connectTimeout(HTTP_REQ_TIMEOUT, TimeUnit.SECONDS)
-            .readTimeout(HTTP_REQ_TIMEOUT, TimeUnit.SECONDS).writeTimeout(HTTP_REQ_TIMEOUT, TimeUnit.SECONDS)
-            .addInterceptor(interceptor).build()
+    fun provideOkHttpClient(
+        interceptor: LimitedLoggingInterceptor,
+        gzipInterceptor: GzipRequestInterceptor,
+        cache: Cache,
+        staleWhileRevalidateInterceptor: StaleWhileRevalidateInterceptor,
+        cacheControlInterceptor: CacheControlInterceptor,
+        resilienceInterceptor: ResilienceInterceptor,
+        networkTelemetry: NetworkTelemetry
+    ) = OkHttpClient.Builder().retryOnConnectionFailure(true).connectTimeout(HTTP_REQ_TIMEOUT, TimeUnit.SECONDS)
+        .readTimeout(HTTP_REQ_TIMEOUT, TimeUnit.SECONDS).writeTimeout(HTTP_REQ_TIMEOUT, TimeUnit.SECONDS)
+        .cache(cache).addInterceptor(staleWhileRevalidateInterceptor).addInterceptor(resilienceInterceptor)
+        .addInterceptor(gzipInterceptor).addInterceptor(interceptor)
+        .addNetworkInterceptor(cacheControlInterceptor)
+        .eventListenerFactory(networkTelemetry.eventListenerFactory(NetworkTelemetry.CLIENT_API)).build()
+
+    /**
+     * Phase timings of every call of the app's clients, see [NetworkTelemetry].
+     */
+    @Provides
+    fun provideNetworkTelemetry(): NetworkTelemetry = NetworkTelemetry.default
+
+    /**
+     * Retries and circuit breakers of the sync, auth and config endpoints, see
+     * [ResilienceInterceptor.API_GROUPS]. Chat has its own client and group.
+     */
+    @Singleton
+    @Provides
+    fun provideResilienceInterceptor(networkHelper: NetworkHelper) =
+        ResilienceInterceptor(ResilienceInterceptor.API_GROUPS, isOnline = networkHelper::isNetworkConnected)
+
+    @Singleton
+    @Provides
+    fun provideHttpCache(@ApplicationContext context: Context) =
+        Cache(File(context.cacheDir, HTTP_CACHE_DIR), HTTP_CACHE_SIZE)
+
+    /**
+     * Endpoints that rarely change and are needed before the first sync: login locations,
+     * the published config, the protocol download link and the consent pages.
+     */
+    @Singleton
+    @Provides
+    fun provideHttpCachePolicies() = HttpCachePolicies(
+        listOf(
+            HttpCachePolicy(
+                HttpCachePolicy.LOCATIONS, setOf(HttpCachePolicy.LOCATION_LIST),
+                maxAgeSeconds = TimeUnit.HOURS.toSeconds(1), staleSeconds = TimeUnit.DAYS.toSeconds(30)
+            ),
+            HttpCachePolicy(
+                HttpCachePolicy.CONFIG, setOf(HttpCachePolicy.PUBLISHED_CONFIG),
+                maxAgeSeconds = TimeUnit.MINUTES.toSeconds(15), staleSeconds = TimeUnit.DAYS.toSeconds(30)
+            ),
+            HttpCachePolicy(
+                HttpCachePolicy.PROTOCOLS, setOf(HttpCachePolicy.PROTOCOL_DOWNLOAD),
+                maxAgeSeconds = TimeUnit.HOURS.toSeconds(1), staleSeconds = TimeUnit.DAYS.toSeconds(7)
+            ),
+            HttpCachePolicy(
+                HttpCachePolicy.CONSENT,
+                maxAgeSeconds = TimeUnit.DAYS.toSeconds(1), staleSeconds = TimeUnit.DAYS.toSeconds(90)
+            )
+        )
+    )
+
+    /**
+     * Endpoints whose request bodies are gzipped, taken from `GZIP_REQUEST_ENDPOINTS` of
+     * the server in `endpoint.properties`. None are listed until the server is verified
+     * to decode `Content-Encoding: gzip`.
+     */
+    @Singleton
+    @Provides
+    fun provideRequestCompressionPolicy() = RequestCompressionPolicy(
+        endpoints = RequestCompressionPolicy.parseEndpoints(BuildConfig.GZIP_REQUEST_ENDPOINTS)
+    )
 
     @Singleton
     @Provides
@@ -33,9 +117,18 @@ class CoreNetworkModule {
         else HttpLoggingInterceptor.Level.NONE
     }
 
+    /**
+     * Gson with the [TypeAdapterFactory]s contributed by the data modules, e.g. the
+     * reflection-free decoders of the sync entities.
+     */
     @Singleton
     @Provides
-    fun provideGson(): Gson = Gson()
+    fun provideGson(typeAdapterFactories: Set<@JvmSuppressWildcards TypeAdapterFactory>): Gson =
+        GsonBuilder().apply { typeAdapterFactories.forEach { registerTypeAdapterFactory(it) } }.create()
+
+    @Provides
+    @ElementsIntoSet
+    fun provideDefaultTypeAdapterFactories(): Set<TypeAdapterFactory> = emptySet()
 
     @Singleton
     @Provides
@@ -48,4 +141,9 @@ class CoreNetworkModule {
     ): Retrofit.Builder = Retrofit.Builder()
         .client(okhttpClient)
         .addConverterFactory(gsonConverterFactory)
+
+    companion object {
+        private const val HTTP_CACHE_DIR = "http_cache"
+        private const val HTTP_CACHE_SIZE = 10L * 1024L * 1024L // 10 MB
+    }
 }
@@ -0,0 +1,42 @@
+package org.intelehealth.core.interceptor
+
+import okhttp3.CacheControl
+import okhttp3.Interceptor
+import okhttp3.Response
+import java.io.IOException
+import java.net.HttpURLConnection.HTTP_NOT_MODIFIED
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Network interceptor that makes responses of a [HttpCachePolicy] storable in the
+ * OkHttp disk cache. The server's `Cache-Control` and `Pragma` are replaced by the
+ * policy's max-age, while `ETag` and `Last-Modified` are kept, so once the entry
+ * expires the cache revalidates it with `If-None-Match` / `If-Modified-Since` and a
+ * `304` refreshes it without downloading the body again.
+ */
+@Singleton
+class CacheControlInterceptor @Inject constructor(
+    private val policies: HttpCachePolicies
+) : Interceptor {
+
+    @Throws(IOException::class)
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        val policy = policies.find(request)
+        val response = chain.proceed(request)
+        if (policy == null || (response.isSuccessful.not() && response.code != HTTP_NOT_MODIFIED)) return response
+
+        val cacheControl = CacheControl.Builder().maxAge(policy.maxAgeSeconds.toInt(), TimeUnit.SECONDS).build()
+        return response.newBuilder()
+            .removeHeader(HEADER_PRAGMA)
+            .header(HEADER_CACHE_CONTROL, cacheControl.toString())
+            .build()
+    }
+
+    companion object {
+        private const val HEADER_CACHE_CONTROL = "Cache-Control"
+        private const val HEADER_PRAGMA = "Pragma"
+    }
+}
@@ -0,0 +1,72 @@
+package org.intelehealth.core.interceptor
+
+import com.github.ajalt.timberkt.Timber
+import okhttp3.Interceptor
+import okhttp3.RequestBody.Companion.toRequestBody
+import okhttp3.Response
+import okio.Buffer
+import okio.GzipSink
+import okio.buffer
+import java.io.IOException
+import java.util.concurrent.atomic.AtomicLong
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Gzips the bodies of requests selected by [RequestCompressionPolicy] and sets
+ * `Content-Encoding: gzip`. A body that does not get smaller is sent uncompressed.
+ * Requests that already carry a `Content-Encoding`, one-shot and duplex bodies are
+ * left untouched.
+ *
+ * The original and compressed sizes of every compressed body are added to
+ * [originalBytes] and [compressedBytes], see [compressionRatio].
+ */
+@Singleton
+class GzipRequestInterceptor @Inject constructor(
+    private val policy: RequestCompressionPolicy
+) : Interceptor {
+    val originalBytes = AtomicLong()
+    val compressedBytes = AtomicLong()
+
+    /**
+     * Compressed size over original size of everything compressed so far, or 1 when
+     * nothing was compressed yet.
+     */
+    fun compressionRatio(): Double {
+        val original = originalBytes.get()
+        return if (original > 0) compressedBytes.get().toDouble() / original else 1.0
+    }
+
+    @Throws(IOException::class)
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        val body = request.body
+        if (body == null || body.isOneShot() || body.isDuplex() ||
+            request.header(HEADER_CONTENT_ENCODING) != null || policy.matches(request).not()
+        ) return chain.proceed(request)
+
+        val original = Buffer().also { body.writeTo(it) }
+        val compressed = if (original.size >= policy.minBytes) gzip(original) else null
+        if (compressed == null || compressed.size >= original.size) {
+            val payload = original.readByteString().toRequestBody(body.contentType())
+            return chain.proceed(request.newBuilder().method(request.method, payload).build())
+        }
+
+        originalBytes.addAndGet(original.size)
+        compressedBytes.addAndGet(compressed.size)
+        Timber.d { "${request.url.encodedPath} gzip ${original.size} -> ${compressed.size} bytes" }
+        val payload = compressed.readByteString().toRequestBody(body.contentType())
+        return chain.proceed(
+            request.newBuilder().header(HEADER_CONTENT_ENCODING, ENCODING_GZIP).method(request.method, payload).build()
+        )
+    }
+
+    private fun gzip(source: Buffer): Buffer = Buffer().also { sink ->
+        GzipSink(sink).buffer().use { it.write(source.snapshot()) }
+    }
+
+    companion object {
+        const val HEADER_CONTENT_ENCODING = "Content-Encoding"
+        const val ENCODING_GZIP = "gzip"
+    }
+}
@@ -0,0 +1,47 @@
+package org.intelehealth.core.interceptor
+
+import okhttp3.Request
+
+/**
+ * Cache rule of a group of GET endpoints, applied by [CacheControlInterceptor] and
+ * [StaleWhileRevalidateInterceptor]. A request matches when its path ends with one of
+ * [endpoints] or it carries the [HEADER] set to [name], which lets endpoints called with
+ * a dynamic `@Url` opt in.
+ *
+ * @param name Identifies the policy in the [HEADER] of a request.
+ * @param endpoints URL path suffixes the policy applies to.
+ * @param maxAgeSeconds How long a stored response is served without asking the server.
+ * @param staleSeconds How long past [maxAgeSeconds] a stored response is still served,
+ * while it is revalidated in the background or when the device is offline.
+ */
+data class HttpCachePolicy(
+    val name: String,
+    val endpoints: Set<String> = emptySet(),
+    val maxAgeSeconds: Long,
+    val staleSeconds: Long
+) {
+    fun matches(request: Request): Boolean = request.header(HEADER) == name ||
+            endpoints.any { request.url.encodedPath.endsWith(it) }
+
+    companion object {
+        const val HEADER = "X-Cache-Policy"
+
+        const val LOCATIONS = "locations"
+        const val CONFIG = "config"
+        const val PROTOCOLS = "protocols"
+        const val CONSENT = "consent"
+
+        const val LOCATION_LIST = "/ws/rest/v1/location"
+        const val PUBLISHED_CONFIG = "/api/config/getPublishedConfig"
+        const val PROTOCOL_DOWNLOAD = "/api/mindmap/download"
+    }
+}
+
+/**
+ * The [HttpCachePolicy]s of a client; GET requests matching none of them are left to
+ * the server's own cache headers.
+ */
+class HttpCachePolicies(val policies: List<HttpCachePolicy>) {
+    fun find(request: Request): HttpCachePolicy? = request.tag(HttpCachePolicy::class.java)
+        ?: if (request.method == "GET") policies.firstOrNull { it.matches(request) } else null
+}
@@ -1,10 +1,20 @@
 package org.intelehealth.core.interceptor
 
+import okhttp3.Headers
 import okhttp3.Interceptor
+import okhttp3.MediaType
+import okhttp3.Request
 import okhttp3.Response
+import okhttp3.ResponseBody
 import okhttp3.logging.HttpLoggingInterceptor
 import okio.Buffer
+import okio.BufferedSource
+import okio.ForwardingSource
+import okio.Source
+import okio.buffer
 import java.io.IOException
+import java.nio.charset.Charset
+import java.util.concurrent.TimeUnit
 import javax.inject.Inject
 
 /**
@@ -12,32 +22,133 @@ import javax.inject.Inject
  * Email : mithun@intelehealth.org
  * Mob   : +919727206702
  **/
-class LimitedLoggingInterceptor @Inject constructor(
-    private val loggingInterceptor: HttpLoggingInterceptor
+/**
+ * Logs requests and responses without holding bodies in memory.
+ *
+ * The response body is handed to the caller as a stream; the first [maxLogBytes]
+ * bytes are copied aside while the caller reads them and logged once the body is
+ * exhausted or closed. Request bodies are only logged when their length is known
+ * and within [maxLogBytes]. The chain is proceeded exactly once, and with
+ * [HttpLoggingInterceptor.Level.NONE] the interceptor does nothing at all.
+ *
+ * @param level The amount of detail, following [HttpLoggingInterceptor.Level].
+ * @param maxLogBytes The maximum number of body bytes logged per request or response.
+ * @param logger Receives the log lines.
+ */
+class LimitedLoggingInterceptor(
+    private val level: HttpLoggingInterceptor.Level,
+    private val maxLogBytes: Long = MAX_LOG_SIZE,
+    private val logger: HttpLoggingInterceptor.Logger = HttpLoggingInterceptor.Logger.DEFAULT
 ) : Interceptor {
+
+    @Inject
+    constructor(loggingInterceptor: HttpLoggingInterceptor) : this(loggingInterceptor.level)
+
     companion object {
-        const val MAX_LOG_SIZE: Long = 1024L * 1024L // 1 MB
+        const val MAX_LOG_SIZE: Long = 64L * 1024L // 64 KB
     }
 
     @Throws(IOException::class)
     override fun intercept(chain: Interceptor.Chain): Response {
-        val response: Response = chain.proceed(chain.request())
+        val request = chain.request()
+        if (level == HttpLoggingInterceptor.Level.NONE) return chain.proceed(request)
+
+        val logHeaders = level == HttpLoggingInterceptor.Level.HEADERS || level == HttpLoggingInterceptor.Level.BODY
+        val logBody = level == HttpLoggingInterceptor.Level.BODY
+        logRequest(request, logHeaders, logBody)
+
+        val start = System.nanoTime()
+        val response = try {
+            chain.proceed(request)
+        } catch (e: IOException) {
+            logger.log("<-- HTTP FAILED: $e")
+            throw e
+        }
+        val tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        logger.log("<-- ${response.code} ${response.message} ${response.request.url} (${tookMs}ms)")
+        if (logHeaders) logHeaders(response.headers)
 
-        response.body?.let {
-            val source = response.body!!.source()
-            source.request(Long.MAX_VALUE) // Buffer the entire body.
-            val buffer = source.buffer.clone()
+        val body = response.body
+        return if (logBody && body != null) {
+            response.newBuilder().body(TeeResponseBody(body, response.request.url.toString())).build()
+        } else response
+    }
+
+    private fun logRequest(request: Request, logHeaders: Boolean, logBody: Boolean) {
+        val body = request.body
+        val length = body?.contentLength() ?: 0
+        logger.log("--> ${request.method} ${request.url}" + if (body != null) " ($length-byte body)" else "")
+        if (logHeaders) logHeaders(request.headers)
+        if (logBody.not() || body == null) return
+
+        when {
+            request.header(GzipRequestInterceptor.HEADER_CONTENT_ENCODING) != null ->
+                logger.log("--> END ${request.method} (encoded body omitted)")
 
-            val limitedBuffer = if (buffer.size > MAX_LOG_SIZE) {
-                Buffer().apply { write(buffer, MAX_LOG_SIZE) }
-            } else {
-                buffer
+            body.isDuplex() || body.isOneShot() -> logger.log("--> END ${request.method} (streamed body omitted)")
+            length < 0 || length > maxLogBytes -> logger.log("--> END ${request.method} ($length-byte body omitted)")
+            else -> {
+                val buffer = Buffer()
+                body.writeTo(buffer)
+                logger.log(buffer.readString(body.contentType().charsetOrUtf8()))
+                logger.log("--> END ${request.method}")
             }
+        }
+    }
+
+    private fun logHeaders(headers: Headers) {
+        headers.forEach { (name, value) ->
+            logger.log("$name: " + if (name.equals("Authorization", ignoreCase = true)) "██" else value)
+        }
+    }
+
+    private fun MediaType?.charsetOrUtf8(): Charset = this?.charset(Charsets.UTF_8) ?: Charsets.UTF_8
+
+    /**
+     * Streams [delegate] to the caller and keeps a copy of its first [maxLogBytes] bytes.
+     */
+    private inner class TeeResponseBody(
+        private val delegate: ResponseBody,
+        private val url: String
+    ) : ResponseBody() {
+        private val captured = Buffer()
+        private var totalBytes = 0L
+        private var logged = false
+
+        private val source: BufferedSource by lazy { TeeSource(delegate.source()).buffer() }
+
+        override fun contentType(): MediaType? = delegate.contentType()
 
-            it.contentType()?.charset()?.let { it1 -> limitedBuffer.readString(it1) }
-            loggingInterceptor.intercept(chain)
+        override fun contentLength(): Long = delegate.contentLength()
+
+        override fun source(): BufferedSource = source
+
+        private fun logCaptured() {
+            if (logged) return
+            logged = true
+            val text = captured.readString(contentType().charsetOrUtf8())
+            logger.log(text)
+            val truncated = if (totalBytes > maxLogBytes) ", first $maxLogBytes logged" else ""
+            logger.log("<-- END HTTP $url ($totalBytes-byte body$truncated)")
         }
 
-        return response
+        private inner class TeeSource(source: Source) : ForwardingSource(source) {
+            override fun read(sink: Buffer, byteCount: Long): Long {
+                val read = super.read(sink, byteCount)
+                if (read == -1L) {
+                    logCaptured()
+                    return read
+                }
+                val room = maxLogBytes - captured.size
+                if (room > 0) sink.copyTo(captured, sink.size - read, minOf(read, room))
+                totalBytes += read
+                return read
+            }
+
+            override fun close() {
+                logCaptured()
+                super.close()
+            }
+        }
     }
 }
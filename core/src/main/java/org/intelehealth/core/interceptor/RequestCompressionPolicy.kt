@@ -0,0 +1,40 @@
+package org.intelehealth.core.interceptor
+
+import okhttp3.Request
+
+/**
+ * Decides which outgoing requests [GzipRequestInterceptor] compresses. A request is
+ * compressed when its path ends with one of [endpoints] or its body has one of
+ * [contentTypes], and its body is at least [minBytes] long. Nothing is compressed by
+ * default; the server has to accept `Content-Encoding: gzip` on every endpoint listed.
+ *
+ * @param endpoints URL path suffixes whose request bodies are compressed.
+ * @param contentTypes Media types, e.g. `application/json`, whose bodies are compressed.
+ * @param minBytes Bodies smaller than this are sent as they are.
+ */
+data class RequestCompressionPolicy(
+    val endpoints: Set<String> = emptySet(),
+    val contentTypes: Set<String> = emptySet(),
+    val minBytes: Long = DEFAULT_MIN_BYTES
+) {
+    fun matches(request: Request): Boolean {
+        val body = request.body ?: return false
+        val path = request.url.encodedPath
+        val mediaType = body.contentType()?.let { "${it.type}/${it.subtype}" }
+        return endpoints.any { path.endsWith(it) } || (mediaType != null && mediaType in contentTypes)
+    }
+
+    companion object {
+        const val DEFAULT_MIN_BYTES = 1024L
+
+        // the endpoints carrying the largest bodies, to be listed once their server accepts gzip
+        const val PUSH_DATA = "/webapi/push/pushdata"
+        const val PERSON_IMAGE = "/ws/rest/v1/personimage"
+
+        /**
+         * @param endpoints Comma-separated path suffixes, e.g. `/webapi/push/pushdata,/ws/rest/v1/personimage`.
+         */
+        fun parseEndpoints(endpoints: String): Set<String> =
+            endpoints.split(',').map { it.trim() }.filter { it.isNotEmpty() }.toSet()
+    }
+}
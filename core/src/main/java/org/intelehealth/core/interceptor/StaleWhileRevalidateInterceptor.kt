@@ -0,0 +1,95 @@
+package org.intelehealth.core.interceptor
+
+import com.github.ajalt.timberkt.Timber
+import dagger.Lazy
+import okhttp3.Call
+import okhttp3.Callback
+import okhttp3.CacheControl
+import okhttp3.Interceptor
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.Response
+import okio.blackholeSink
+import java.io.IOException
+import java.net.HttpURLConnection.HTTP_GATEWAY_TIMEOUT
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Serves requests of a [HttpCachePolicy] from the disk cache first.
+ *
+ * A fresh entry is returned without touching the network. An entry that expired less
+ * than [HttpCachePolicy.staleSeconds] ago is returned as well, and a conditional
+ * request is sent in the background so the next call gets the new content; this keeps
+ * onboarding screens instant and working offline. Without a usable entry, or when the
+ * caller asks for `no-cache`, the request goes to the network as usual.
+ *
+ * The policy is attached to the request as a tag for [CacheControlInterceptor], and
+ * the [HttpCachePolicy.HEADER] is never sent to the server.
+ *
+ * @param policies The cache policies of the client.
+ * @param client The client this interceptor belongs to, used for the revalidation calls.
+ */
+@Singleton
+class StaleWhileRevalidateInterceptor @Inject constructor(
+    private val policies: HttpCachePolicies,
+    private val client: Lazy<OkHttpClient>
+) : Interceptor {
+    private val revalidating = ConcurrentHashMap.newKeySet<String>()
+
+    @Throws(IOException::class)
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        val policy = policies.find(request) ?: return chain.proceed(request)
+        val tagged = request.newBuilder()
+            .removeHeader(HttpCachePolicy.HEADER)
+            .removeHeader(HEADER_REVALIDATE)
+            .tag(HttpCachePolicy::class.java, policy)
+            .build()
+        if (request.header(HEADER_REVALIDATE) != null || request.cacheControl.noCache) return chain.proceed(tagged)
+
+        val cacheOnly = CacheControl.Builder().onlyIfCached().maxStale(policy.staleSeconds.toInt(), TimeUnit.SECONDS)
+        val cached = chain.proceed(tagged.newBuilder().cacheControl(cacheOnly.build()).build())
+        if (cached.code == HTTP_GATEWAY_TIMEOUT && cached.cacheResponse == null) {
+            cached.close()
+            return chain.proceed(tagged)
+        }
+
+        if (cached.isStale()) revalidate(tagged)
+        return cached
+    }
+
+    /**
+     * Refreshes the cache entry of [request] once at a time per URL. The body is drained
+     * so that a changed response gets written to the cache.
+     */
+    private fun revalidate(request: Request) {
+        val key = request.url.toString()
+        if (revalidating.add(key).not()) return
+        val refresh = request.newBuilder().header(HEADER_REVALIDATE, "true").build()
+        client.get().newCall(refresh).enqueue(object : Callback {
+            override fun onFailure(call: Call, e: IOException) {
+                revalidating.remove(key)
+                Timber.w(e) { "Revalidation of ${request.url.encodedPath} failed" }
+            }
+
+            override fun onResponse(call: Call, response: Response) {
+                try {
+                    response.use { it.body?.source()?.readAll(blackholeSink()) }
+                } finally {
+                    revalidating.remove(key)
+                }
+            }
+        })
+    }
+
+    private fun Response.isStale(): Boolean = headers(HEADER_WARNING).any { it.startsWith(WARNING_STALE) }
+
+    companion object {
+        private const val HEADER_REVALIDATE = "X-Cache-Revalidate"
+        private const val HEADER_WARNING = "Warning"
+        private const val WARNING_STALE = "110"
+    }
+}
@@ -0,0 +1,122 @@
+package org.intelehealth.core.interceptor
+
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.RequestBody.Companion.toRequestBody
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okio.GzipSource
+import okio.buffer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Which request bodies [GzipRequestInterceptor] compresses.
+ */
+class GzipRequestInterceptorTest {
+    private lateinit var server: MockWebServer
+    private val json = "application/json; charset=utf-8".toMediaType()
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    @Test
+    fun compressesLargeBodyOfListedEndpoint() {
+        val interceptor = GzipRequestInterceptor(RequestCompressionPolicy(endpoints = setOf(PUSH_PATH)))
+        val payload = samplePayload(500)
+
+        post(interceptor, PUSH_PATH, payload)
+
+        val recorded = server.takeRequest()
+        assertEquals(
+            GzipRequestInterceptor.ENCODING_GZIP,
+            recorded.getHeader(GzipRequestInterceptor.HEADER_CONTENT_ENCODING)
+        )
+        assertEquals(payload, GzipSource(recorded.body).buffer().readUtf8())
+        assertTrue(interceptor.compressionRatio() < 1.0)
+        assertEquals(payload.length.toLong(), interceptor.originalBytes.get())
+    }
+
+    @Test
+    fun compressesByContentType() {
+        val interceptor = GzipRequestInterceptor(RequestCompressionPolicy(contentTypes = setOf("application/json")))
+
+        post(interceptor, "/any/endpoint", samplePayload(500))
+
+        assertEquals(
+            GzipRequestInterceptor.ENCODING_GZIP,
+            server.takeRequest().getHeader(GzipRequestInterceptor.HEADER_CONTENT_ENCODING)
+        )
+    }
+
+    @Test
+    fun leavesUnlistedEndpointUntouched() {
+        val interceptor = GzipRequestInterceptor(RequestCompressionPolicy(endpoints = setOf(PUSH_PATH)))
+        val payload = samplePayload(500)
+
+        post(interceptor, "/openmrs/ws/rest/v1/session", payload)
+
+        val recorded = server.takeRequest()
+        assertNull(recorded.getHeader(GzipRequestInterceptor.HEADER_CONTENT_ENCODING))
+        assertEquals(payload, recorded.body.readUtf8())
+        assertEquals(1.0, interceptor.compressionRatio(), 0.0)
+    }
+
+    @Test
+    fun sendsSmallBodyUncompressed() {
+        val interceptor = GzipRequestInterceptor(RequestCompressionPolicy(endpoints = setOf(PUSH_PATH)))
+        val payload = samplePayload(1)
+
+        post(interceptor, PUSH_PATH, payload)
+
+        val recorded = server.takeRequest()
+        assertNull(recorded.getHeader(GzipRequestInterceptor.HEADER_CONTENT_ENCODING))
+        assertEquals(payload, recorded.body.readUtf8())
+    }
+
+    @Test
+    fun compressesNothingByDefault() {
+        val policy = RequestCompressionPolicy(endpoints = RequestCompressionPolicy.parseEndpoints(""))
+        val interceptor = GzipRequestInterceptor(policy)
+
+        post(interceptor, PUSH_PATH, samplePayload(500))
+
+        assertNull(server.takeRequest().getHeader(GzipRequestInterceptor.HEADER_CONTENT_ENCODING))
+    }
+
+    @Test
+    fun parsesConfiguredEndpoints() {
+        assertEquals(
+            setOf(RequestCompressionPolicy.PUSH_DATA, RequestCompressionPolicy.PERSON_IMAGE),
+            RequestCompressionPolicy.parseEndpoints(" /webapi/push/pushdata, /ws/rest/v1/personimage ,")
+        )
+    }
+
+    private fun post(interceptor: GzipRequestInterceptor, path: String, payload: String) {
+        server.enqueue(MockResponse().setBody("{}"))
+        val client = OkHttpClient.Builder().addInterceptor(interceptor).build()
+        val request = Request.Builder().url(server.url(path)).post(payload.toRequestBody(json)).build()
+        client.newCall(request).execute().close()
+    }
+
+    private fun samplePayload(observations: Int): String = (1..observations).joinToString(prefix = "[", postfix = "]") {
+        """{"uuid":"obs-$it","conceptuuid":"concept-${it % 7}","value":"$it"}"""
+    }
+
+    companion object {
+        private const val PUSH_PATH = "/EMR-Middleware/webapi/push/pushdata"
+    }
+}
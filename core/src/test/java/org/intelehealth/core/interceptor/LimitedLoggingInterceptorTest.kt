@@ -0,0 +1,92 @@
+package org.intelehealth.core.interceptor
+
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.RequestBody.Companion.toRequestBody
+import okhttp3.logging.HttpLoggingInterceptor
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Body logging of [LimitedLoggingInterceptor] without consuming the streamed body.
+ */
+class LimitedLoggingInterceptorTest {
+    private lateinit var server: MockWebServer
+    private val lines = mutableListOf<String>()
+    private val json = "application/json; charset=utf-8".toMediaType()
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    @Test
+    fun proceedsOnceAndLogsNothingWhenOff() {
+        val body = execute(HttpLoggingInterceptor.Level.NONE, "{\"ok\":true}")
+
+        assertEquals("{\"ok\":true}", body)
+        assertEquals(1, server.requestCount)
+        assertTrue(lines.isEmpty())
+    }
+
+    @Test
+    fun streamsFullBodyAndLogsOnlyPrefix() {
+        val payload = "x".repeat(10_000)
+
+        val body = execute(HttpLoggingInterceptor.Level.BODY, payload, maxLogBytes = 100)
+
+        assertEquals(payload, body)
+        assertEquals(1, server.requestCount)
+        assertTrue(lines.contains("x".repeat(100)))
+        assertTrue(lines.last().contains("10000-byte body, first 100 logged"))
+    }
+
+    @Test
+    fun logsRequestBodyWithinLimit() {
+        execute(HttpLoggingInterceptor.Level.BODY, "{}", requestBody = "{\"uuid\":\"p-1\"}")
+
+        assertEquals("{\"uuid\":\"p-1\"}", server.takeRequest().body.readUtf8())
+        assertTrue(lines.contains("{\"uuid\":\"p-1\"}"))
+    }
+
+    @Test
+    fun logsBodyOfPartiallyReadResponseOnClose() {
+        server.enqueue(MockResponse().setBody("0123456789"))
+        val client = client(HttpLoggingInterceptor.Level.BODY, maxLogBytes = 4)
+        val response = client.newCall(Request.Builder().url(server.url("/")).build()).execute()
+
+        response.body?.source()?.readUtf8(2)
+        response.close()
+
+        assertTrue(lines.any { it.startsWith("<-- END HTTP") })
+    }
+
+    private fun execute(
+        level: HttpLoggingInterceptor.Level,
+        responseBody: String,
+        maxLogBytes: Long = LimitedLoggingInterceptor.MAX_LOG_SIZE,
+        requestBody: String? = null
+    ): String? {
+        server.enqueue(MockResponse().setBody(responseBody))
+        val request = Request.Builder().url(server.url("/")).apply {
+            requestBody?.let { post(it.toRequestBody(json)) }
+        }.build()
+        return client(level, maxLogBytes).newCall(request).execute().use { it.body?.string() }
+    }
+
+    private fun client(level: HttpLoggingInterceptor.Level, maxLogBytes: Long) = OkHttpClient.Builder()
+        .addInterceptor(LimitedLoggingInterceptor(level, maxLogBytes) { lines += it })
+        .build()
+}
@@ -0,0 +1,118 @@
+package org.intelehealth.core.interceptor
+
+import dagger.Lazy
+import okhttp3.Cache
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.util.concurrent.TimeUnit
+
+/**
+ * Cache policies served by [StaleWhileRevalidateInterceptor].
+ */
+class StaleWhileRevalidateInterceptorTest {
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    private lateinit var server: MockWebServer
+    private lateinit var cache: Cache
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+        cache = Cache(folder.newFolder("http"), CACHE_SIZE)
+    }
+
+    @After
+    fun tearDown() {
+        cache.close()
+        server.shutdown()
+    }
+
+    @Test
+    fun servesFreshEntryWithoutNetwork() {
+        val client = client(maxAgeSeconds = 60)
+        server.enqueue(MockResponse().setBody("v1").setHeader("Cache-Control", "no-cache"))
+
+        assertEquals("v1", get(client, LOCATION_PATH))
+        assertEquals("v1", get(client, LOCATION_PATH))
+
+        assertEquals(1, server.requestCount)
+    }
+
+    @Test
+    fun servesStaleEntryAndRevalidatesConditionally() {
+        val client = client(maxAgeSeconds = 0)
+        server.enqueue(MockResponse().setBody("v1").setHeader("ETag", "\"v1\""))
+        server.enqueue(MockResponse().setBody("v2").setHeader("ETag", "\"v2\""))
+
+        assertEquals("v1", get(client, LOCATION_PATH))
+        assertEquals("v1", get(client, LOCATION_PATH))
+
+        server.takeRequest()
+        val revalidation = server.takeRequest(5, TimeUnit.SECONDS)
+        assertEquals("\"v1\"", revalidation?.getHeader("If-None-Match"))
+        assertNull(revalidation?.getHeader(HttpCachePolicy.HEADER))
+        client.dispatcher.executorService.shutdown()
+        client.dispatcher.executorService.awaitTermination(5, TimeUnit.SECONDS)
+    }
+
+    @Test
+    fun selectsPolicyByHeaderAndStripsIt() {
+        val client = client(maxAgeSeconds = 60)
+        server.enqueue(MockResponse().setBody("<html/>"))
+        val request = Request.Builder().url(server.url("/privacy-policy"))
+            .header(HttpCachePolicy.HEADER, HttpCachePolicy.CONSENT).build()
+
+        client.newCall(request).execute().close()
+        client.newCall(request).execute().close()
+
+        assertEquals(1, server.requestCount)
+        assertNull(server.takeRequest().getHeader(HttpCachePolicy.HEADER))
+    }
+
+    @Test
+    fun leavesOtherEndpointsToTheNetwork() {
+        val client = client(maxAgeSeconds = 60)
+        server.enqueue(MockResponse().setBody("a"))
+        server.enqueue(MockResponse().setBody("b"))
+
+        assertEquals("a", get(client, "/openmrs/ws/rest/v1/session"))
+        assertEquals("b", get(client, "/openmrs/ws/rest/v1/session"))
+    }
+
+    private fun get(client: OkHttpClient, path: String): String? =
+        client.newCall(Request.Builder().url(server.url(path)).build()).execute().use { it.body?.string() }
+
+    private fun client(maxAgeSeconds: Long): OkHttpClient {
+        val staleSeconds = TimeUnit.DAYS.toSeconds(1)
+        val policies = HttpCachePolicies(
+            listOf(
+                HttpCachePolicy(
+                    HttpCachePolicy.LOCATIONS, setOf(HttpCachePolicy.LOCATION_LIST), maxAgeSeconds, staleSeconds
+                ),
+                HttpCachePolicy(HttpCachePolicy.CONSENT, maxAgeSeconds = maxAgeSeconds, staleSeconds = staleSeconds)
+            )
+        )
+        lateinit var client: OkHttpClient
+        client = OkHttpClient.Builder().cache(cache)
+            .addInterceptor(StaleWhileRevalidateInterceptor(policies, Lazy { client }))
+            .addNetworkInterceptor(CacheControlInterceptor(policies))
+            .build()
+        return client
+    }
+
+    companion object {
+        private const val CACHE_SIZE = 1024L * 1024L
+        private const val LOCATION_PATH = "/openmrs/ws/rest/v1/location"
+    }
+}
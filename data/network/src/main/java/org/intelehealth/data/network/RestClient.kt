@@ -22,6 +22,7 @@ import retrofit2.http.POST
 import retrofit2.http.PUT
 import retrofit2.http.Path
 import retrofit2.http.Query
+import retrofit2.http.Streaming
 import retrofit2.http.Url
 
 /**
@@ -98,6 +99,30 @@ interface RestClient {
         @Path("pageLimit") pageLimit: Int
     ): Response<BaseResponse<String, PullResponse>>
 
+    /**
+     * Pulls data from the server without materialising the response.
+     *
+     * Same endpoint as [pullData], but the body is handed over as a raw [ResponseBody]
+     * so it can be read token by token and written to the database in bounded chunks.
+     * The caller owns the returned body and must close it.
+     *
+     * @param header The authorization header.
+     * @param locationId The ID of the location.
+     * @param lastPullExecutedTime The timestamp of the last pull execution.
+     * @param pageNo The page number for pagination.
+     * @param pageLimit The maximum number of items per page.
+     * @return A [Response] containing the unread [ResponseBody].
+     */
+    @Streaming
+    @GET("/EMR-Middleware/webapi/pull/pulldata/{locationId}/{lastPullExecutedTime}/{pageNo}/{pageLimit}")
+    suspend fun pullDataStream(
+        @Header("Authorization") header: String,
+        @Path("locationId") locationId: String,
+        @Path("lastPullExecutedTime") lastPullExecutedTime: String,
+        @Path("pageNo") pageNo: Int,
+        @Path("pageLimit") pageLimit: Int
+    ): Response<ResponseBody>
+
     @POST("/EMR-Middleware/webapi/push/pushdata")
     suspend fun pushData(
         @Header("Authorization") header: String,
@@ -129,10 +154,13 @@ interface RestClient {
     /**
      * Retrieves an HTML page from the specified URL.
      *
+     * The page is served from the HTTP cache under the `consent` cache policy.
+     *
      * @param url The URL of the HTML page.
      * @return A [Response] containing a [ResponseBody].
      */
     @GET
+    @Headers("X-Cache-Policy: consent")
     fun getHtmlPage(@Url url: String?): Response<ResponseBody>
 
     /**
@@ -1,5 +1,6 @@
 import extensions.androidTestDeps
 import extensions.offlineModuleDeps
+import extensions.roomMigrationTestDeps
 import extensions.unitTestDeps
 import io.gitlab.arturbosch.detekt.Detekt
 
@@ -42,6 +43,14 @@ android {
         jvmTarget = AndroidConfig.JVM_TARGET
     }
 
+    testOptions {
+        unitTests.isIncludeAndroidResources = true
+    }
+
+    sourceSets {
+        getByName("test").assets.srcDir("$projectDir/schemas")
+    }
+
     buildFeatures {
         buildConfig = true
         viewBinding = true
@@ -50,6 +59,9 @@ android {
 
     kapt {
         correctErrorTypes = true
+        arguments {
+            arg("room.schemaLocation", "$projectDir/schemas")
+        }
 //        arguments {
 //            arg("dagger.hilt.android.internal.disableAndroidSuperclassValidation", "true")
 //            arg("dagger.hilt.android.internal.projectType", "APP")
@@ -61,5 +73,6 @@ android {
 dependencies {
     offlineModuleDeps()
     unitTestDeps()
+    roomMigrationTestDeps()
     androidTestDeps()
 }
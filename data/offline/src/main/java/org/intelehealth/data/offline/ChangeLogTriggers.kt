@@ -0,0 +1,58 @@
+package org.intelehealth.data.offline
+
+import androidx.sqlite.db.SupportSQLiteDatabase
+
+/**
+ * SQLite triggers feeding [org.intelehealth.data.offline.entity.ChangeLog].
+ *
+ * Only the tables a push starts from are tracked; attributes and observations are
+ * still read through their pending parent. A row is logged when it is written with
+ * `synced = 0`, so pulled rows marked synced and the bulk `markSynced` updates do not
+ * create entries. A pending visit attribute logs its visit as well: a visit is only
+ * pushed with attributes, so one without them is pruned from the log until it gets one.
+ */
+object ChangeLogTriggers {
+    const val TABLE_PATIENT = "tbl_patient"
+    const val TABLE_VISIT = "tbl_visit"
+    const val TABLE_ENCOUNTER = "tbl_encounter"
+    const val TABLE_PROVIDER = "tbl_provider"
+    private const val TABLE_VISIT_ATTRIBUTE = "tbl_visit_attribute"
+
+    val TRACKED_TABLES = listOf(TABLE_PATIENT, TABLE_VISIT, TABLE_ENCOUNTER, TABLE_PROVIDER)
+
+    private val OPERATIONS = listOf("INSERT", "UPDATE")
+
+    fun create(db: SupportSQLiteDatabase) {
+        TRACKED_TABLES.forEach { table ->
+            OPERATIONS.forEach { operation -> db.execSQL(triggerSql(table, operation)) }
+        }
+        OPERATIONS.forEach { operation ->
+            db.execSQL(triggerSql(TABLE_VISIT_ATTRIBUTE, operation, TABLE_VISIT, "visit_uuid"))
+        }
+    }
+
+    /**
+     * Logs the rows that were already pending before the triggers existed, so a
+     * database upgraded to the change log still pushes them.
+     */
+    fun backfill(db: SupportSQLiteDatabase) {
+        TRACKED_TABLES.forEach { table ->
+            db.execSQL(
+                "INSERT INTO tbl_change_log (table_name, row_uuid, operation, changed_at) " +
+                        "SELECT '$table', uuid, 'UPDATE', CAST(strftime('%s', 'now') AS INTEGER) * 1000 " +
+                        "FROM $table WHERE synced = 0"
+            )
+        }
+    }
+
+    /**
+     * Logs the row [uuidColumn] of [loggedTable] points to whenever a pending row of
+     * [table] is written.
+     */
+    private fun triggerSql(table: String, operation: String, loggedTable: String = table, uuidColumn: String = "uuid") =
+        "CREATE TRIGGER IF NOT EXISTS trg_${table}_${operation.lowercase()}_log " +
+                "AFTER $operation ON $table WHEN NEW.synced = 0 AND NEW.$uuidColumn IS NOT NULL BEGIN " +
+                "INSERT INTO tbl_change_log (table_name, row_uuid, operation, changed_at) " +
+                "VALUES ('$loggedTable', NEW.$uuidColumn, '$operation', " +
+                "CAST(strftime('%s', 'now') AS INTEGER) * 1000); END"
+}
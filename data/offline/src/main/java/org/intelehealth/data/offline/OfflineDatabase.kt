@@ -8,34 +8,42 @@ import androidx.room.RoomDatabase
 import androidx.sqlite.db.SupportSQLiteDatabase
 import org.intelehealth.common.extensions.appName
 import org.intelehealth.data.offline.dao.AppointmentDao
+import org.intelehealth.data.offline.dao.ChangeLogDao
 import org.intelehealth.data.offline.dao.ConceptDao
 import org.intelehealth.data.offline.dao.EncounterDao
 import org.intelehealth.data.offline.dao.LocalNotificationDao
 import org.intelehealth.data.offline.dao.MediaRecordDao
 import org.intelehealth.data.offline.dao.ObservationDao
+import org.intelehealth.data.offline.dao.OutboxDao
 import org.intelehealth.data.offline.dao.PatientAttributeDao
 import org.intelehealth.data.offline.dao.PatientAttributeTypeMasterDao
 import org.intelehealth.data.offline.dao.PatientDao
 import org.intelehealth.data.offline.dao.PatientLocationDao
 import org.intelehealth.data.offline.dao.ProviderAttributeDao
 import org.intelehealth.data.offline.dao.ProviderDao
+import org.intelehealth.data.offline.dao.SyncCheckpointDao
+import org.intelehealth.data.offline.dao.SyncMetricDao
 import org.intelehealth.data.offline.dao.UserDao
 import org.intelehealth.data.offline.dao.UserSessionDao
 import org.intelehealth.data.offline.dao.VisitAttributeDao
 import org.intelehealth.data.offline.dao.VisitDao
 import org.intelehealth.data.offline.entity.Appointment
+import org.intelehealth.data.offline.entity.ChangeLog
 import org.intelehealth.data.offline.entity.Concept
 import org.intelehealth.data.offline.entity.Encounter
 import org.intelehealth.data.offline.entity.FollowupScheduleNotification
 import org.intelehealth.data.offline.entity.LocalNotification
 import org.intelehealth.data.offline.entity.MediaRecord
 import org.intelehealth.data.offline.entity.Observation
+import org.intelehealth.data.offline.entity.OutboxEntry
 import org.intelehealth.data.offline.entity.Patient
 import org.intelehealth.data.offline.entity.PatientAttribute
 import org.intelehealth.data.offline.entity.PatientAttributeTypeMaster
 import org.intelehealth.data.offline.entity.PatientLocation
 import org.intelehealth.data.offline.entity.Provider
 import org.intelehealth.data.offline.entity.ProviderAttribute
+import org.intelehealth.data.offline.entity.SyncCheckpoint
+import org.intelehealth.data.offline.entity.SyncMetric
 import org.intelehealth.data.offline.entity.User
 import org.intelehealth.data.offline.entity.UserSession
 import org.intelehealth.data.offline.entity.Visit
@@ -53,10 +61,11 @@ import org.intelehealth.data.offline.entity.VisitAttribute
         Appointment::class,Concept::class, Encounter::class,FollowupScheduleNotification::class,
         LocalNotification::class,MediaRecord::class,Observation::class,Patient::class,PatientAttribute::class,
         PatientAttributeTypeMaster::class,PatientLocation::class,Provider::class,ProviderAttribute::class,
-        User::class,UserSession::class,Visit::class,VisitAttribute::class
+        User::class,UserSession::class,Visit::class,VisitAttribute::class,SyncCheckpoint::class,
+        ChangeLog::class,SyncMetric::class,OutboxEntry::class
     ],
-    version = 1,
-    exportSchema = false
+    version = 2,
+    exportSchema = true
 )
 
 abstract class OfflineDatabase : RoomDatabase() {
@@ -76,6 +85,10 @@ abstract class OfflineDatabase : RoomDatabase() {
     abstract fun visitAttributeDao(): VisitAttributeDao
     abstract fun userDao(): UserDao
     abstract fun userSessionDao(): UserSessionDao
+    abstract fun syncCheckpointDao(): SyncCheckpointDao
+    abstract fun changeLogDao(): ChangeLogDao
+    abstract fun syncMetricDao(): SyncMetricDao
+    abstract fun outboxDao(): OutboxDao
 
     companion object {
         private const val DATABASE_NAME = "main.db"
@@ -83,17 +96,30 @@ abstract class OfflineDatabase : RoomDatabase() {
         /**
          * Set up the database configuration.
          * The SQLite database is only created when it's accessed for the first time.
+         * Schema upgrades run [OfflineMigrations]; a missing migration fails the open
+         * instead of dropping the unsynced data.
          */
-        fun buildDatabase(appContext: Context): OfflineDatabase {
-            val databaseName = "${appContext.appName()}.$DATABASE_NAME"
-            return Room.databaseBuilder(appContext, OfflineDatabase::class.java, databaseName)
-                .fallbackToDestructiveMigration()   // on migration if no migration scheme is provided than it will perform destructive migration.
-                .addCallback(object : RoomDatabase.Callback() {
-                    override fun onOpen(db: SupportSQLiteDatabase) {
-                        db.enableWriteAheadLogging()
-                    }
-                })
-                .build()
+        fun buildDatabase(
+            appContext: Context,
+            databaseName: String = "${appContext.appName()}.$DATABASE_NAME"
+        ): OfflineDatabase = Room.databaseBuilder(appContext, OfflineDatabase::class.java, databaseName)
+            .addMigrations(*OfflineMigrations.ALL)
+            .addCallback(CALLBACK)
+            .build()
+
+        /**
+         * Turns the pending indexes into partial ones on a new database, see
+         * [OfflineIndexes], and installs the change log triggers on every open.
+         */
+        internal val CALLBACK = object : RoomDatabase.Callback() {
+            override fun onCreate(db: SupportSQLiteDatabase) {
+                OfflineIndexes.createPartial(db)
+            }
+
+            override fun onOpen(db: SupportSQLiteDatabase) {
+                db.enableWriteAheadLogging()
+                ChangeLogTriggers.create(db)
+            }
         }
     }
 }
@@ -0,0 +1,85 @@
+package org.intelehealth.data.offline
+
+import androidx.sqlite.db.SupportSQLiteDatabase
+
+/**
+ * Secondary indexes of [OfflineDatabase].
+ *
+ * The plain ones serve the lookups and joins of the dashboards, achievements and
+ * detail screens and are declared on the entities like any Room index. The pending
+ * ones only hold rows with `synced = 0 AND voided = 0`, i.e. what the next push reads,
+ * so they stay small however much history was pulled. Room can't declare a `WHERE`
+ * clause; the entities declare them as plain indexes under the same name and
+ * [createPartial] replaces those with the partial ones. Room compares indexes by name
+ * and columns only, so the schema still validates.
+ *
+ * Queries only use a pending index when they spell out `synced = 0 AND voided = 0`;
+ * a bound `synced = :synced` can't be matched against the index condition.
+ */
+object OfflineIndexes {
+    const val PATIENT_PENDING = "index_tbl_patient_pending"
+    const val PATIENT_ATTRIBUTE_PENDING = "index_tbl_patient_attribute_pending"
+    const val VISIT_ATTRIBUTE_PENDING = "index_tbl_visit_attribute_pending"
+    const val OBS_PENDING = "index_tbl_obs_pending"
+
+    private const val PENDING_CONDITION = "synced = 0 AND voided = 0"
+
+    /**
+     * @property partial Holds pending rows only, see [createPartial].
+     */
+    internal class TableIndex(
+        val table: String,
+        val columns: List<String>,
+        val name: String = "index_${table}_${columns.joinToString("_")}",
+        val partial: Boolean = false
+    ) {
+        fun createSql(): String {
+            val columnList = columns.joinToString(", ") { "`$it`" }
+            return if (partial) "CREATE INDEX `$name` ON `$table` ($columnList) WHERE $PENDING_CONDITION"
+            else "CREATE INDEX IF NOT EXISTS `$name` ON `$table` ($columnList)"
+        }
+    }
+
+    private val PARTIAL = listOf(
+        TableIndex("tbl_patient", listOf("uuid"), PATIENT_PENDING, partial = true),
+        TableIndex("tbl_patient_attribute", listOf("patient_uuid"), PATIENT_ATTRIBUTE_PENDING, partial = true),
+        TableIndex("tbl_visit_attribute", listOf("visit_uuid"), VISIT_ATTRIBUTE_PENDING, partial = true),
+        TableIndex("tbl_obs", listOf("encounteruuid"), OBS_PENDING, partial = true)
+    )
+
+    /**
+     * The indexes introduced with schema version 2.
+     */
+    internal val VERSION_2 = listOf(
+        TableIndex("tbl_obs", listOf("encounteruuid")),
+        TableIndex("tbl_obs", listOf("conceptuuid")),
+        TableIndex("tbl_encounter", listOf("visituuid")),
+        TableIndex("tbl_encounter", listOf("provider_uuid", "encounter_type_uuid")),
+        TableIndex("tbl_encounter", listOf("encounter_type_uuid")),
+        TableIndex("tbl_patient", listOf("creatoruuid")),
+        TableIndex("tbl_patient_attribute", listOf("patient_uuid", "person_attribute_type_uuid")),
+        TableIndex("tbl_provider_attribute", listOf("provider_uuid", "provider_attribute_type_uuid")),
+        TableIndex("tbl_user", listOf("provider_uuid")),
+        TableIndex("tbl_visit", listOf("patientuuid")),
+        TableIndex("tbl_visit_attribute", listOf("visit_uuid"))
+    ) + PARTIAL
+
+    /**
+     * Creates the indexes of schema version 2 on a version 1 database.
+     */
+    fun createVersion2(db: SupportSQLiteDatabase) {
+        VERSION_2.filterNot { it.partial }.forEach { db.execSQL(it.createSql()) }
+        createPartial(db)
+    }
+
+    /**
+     * Replaces the pending indexes, as created by Room from the entities, with their
+     * partial form. Rebuilding them scans the table once.
+     */
+    fun createPartial(db: SupportSQLiteDatabase) {
+        PARTIAL.forEach {
+            db.execSQL("DROP INDEX IF EXISTS `${it.name}`")
+            db.execSQL(it.createSql())
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.intelehealth.data.offline
+
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+
+/**
+ * Schema migrations of [OfflineDatabase].
+ *
+ * Every schema change needs one, the database has no destructive fallback: wiping it
+ * would lose the visits not pushed yet and cost a full pull. The statements are the
+ * ones Room generates for the entities, see `schemas/` for the exported schemas.
+ * Version 1 was never exported, `1.json` was rebuilt from the first release's
+ * entities so `OfflineMigrationsTest` can migrate a real version 1 database.
+ */
+object OfflineMigrations {
+    /**
+     * Adds the sync tables, [org.intelehealth.data.offline.entity.SyncCheckpoint],
+     * [org.intelehealth.data.offline.entity.ChangeLog],
+     * [org.intelehealth.data.offline.entity.SyncMetric] and
+     * [org.intelehealth.data.offline.entity.OutboxEntry], and the indexes of
+     * [OfflineIndexes]. The rows still to be pushed are logged, the change log
+     * triggers are installed on open.
+     */
+    val MIGRATION_1_2 = object : Migration(1, 2) {
+        override fun migrate(db: SupportSQLiteDatabase) {
+            db.execSQL(
+                "CREATE TABLE IF NOT EXISTS `tbl_sync_checkpoint` (`name` TEXT NOT NULL, " +
+                        "`next_page` INTEGER NOT NULL, `page_size` INTEGER NOT NULL, `location_id` TEXT NOT NULL, " +
+                        "`last_synced_time` TEXT NOT NULL, `cutoff_time` TEXT, `updated_at` INTEGER NOT NULL, " +
+                        "PRIMARY KEY(`name`))"
+            )
+
+            db.execSQL(
+                "CREATE TABLE IF NOT EXISTS `tbl_change_log` (`seq` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                        "`table_name` TEXT NOT NULL, `row_uuid` TEXT NOT NULL, `operation` TEXT NOT NULL, " +
+                        "`changed_at` INTEGER NOT NULL)"
+            )
+            db.execSQL(
+                "CREATE INDEX IF NOT EXISTS `index_tbl_change_log_table_name_row_uuid` " +
+                        "ON `tbl_change_log` (`table_name`, `row_uuid`)"
+            )
+            ChangeLogTriggers.backfill(db)
+
+            db.execSQL(
+                "CREATE TABLE IF NOT EXISTS `tbl_sync_metric` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                        "`run_id` TEXT NOT NULL, `sync_type` TEXT NOT NULL, `page_no` INTEGER NOT NULL, " +
+                        "`phase` TEXT NOT NULL, `duration_ms` REAL NOT NULL, `bytes` INTEGER NOT NULL, " +
+                        "`row_count` INTEGER NOT NULL, `recorded_at` INTEGER NOT NULL)"
+            )
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_tbl_sync_metric_run_id` ON `tbl_sync_metric` (`run_id`)")
+            db.execSQL(
+                "CREATE INDEX IF NOT EXISTS `index_tbl_sync_metric_recorded_at` ON `tbl_sync_metric` (`recorded_at`)"
+            )
+
+            db.execSQL(
+                "CREATE TABLE IF NOT EXISTS `tbl_outbox` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                        "`operation` TEXT NOT NULL, `coalesce_key` TEXT, `payload` TEXT NOT NULL, " +
+                        "`created_at` INTEGER NOT NULL, `attempts` INTEGER NOT NULL, `last_error` TEXT)"
+            )
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_tbl_outbox_coalesce_key` ON `tbl_outbox` (`coalesce_key`)")
+
+            OfflineIndexes.createVersion2(db)
+        }
+    }
+
+    val ALL: Array<Migration> = arrayOf(MIGRATION_1_2)
+}
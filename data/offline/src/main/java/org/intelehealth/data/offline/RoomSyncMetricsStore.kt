@@ -0,0 +1,39 @@
+package org.intelehealth.data.offline
+
+import androidx.room.withTransaction
+import org.intelehealth.common.metrics.SyncMetricsRecorder
+import org.intelehealth.common.metrics.SyncMetricsStore
+import org.intelehealth.data.offline.entity.SyncMetric
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+
+/**
+ * [SyncMetricsStore] backed by `tbl_sync_metric`. Samples older than
+ * [RETENTION_DAYS] are dropped whenever a run is saved.
+ */
+class RoomSyncMetricsStore @Inject constructor(private val db: OfflineDatabase) : SyncMetricsStore {
+    override suspend fun save(recorder: SyncMetricsRecorder) {
+        val now = System.currentTimeMillis()
+        val metrics = recorder.samples().map {
+            SyncMetric(
+                runId = recorder.runId,
+                syncType = recorder.syncType,
+                pageNo = it.pageNo,
+                phase = it.phase.key,
+                durationMs = it.nanos / NANOS_PER_MILLI,
+                bytes = it.bytes,
+                rows = it.rows,
+                recordedAt = now
+            )
+        }
+        db.withTransaction {
+            db.syncMetricDao().insert(metrics)
+            db.syncMetricDao().deleteOlderThan(now - TimeUnit.DAYS.toMillis(RETENTION_DAYS))
+        }
+    }
+
+    companion object {
+        const val RETENTION_DAYS = 14L
+        private const val NANOS_PER_MILLI = 1_000_000.0
+    }
+}
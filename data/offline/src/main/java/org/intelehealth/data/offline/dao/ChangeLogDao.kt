@@ -0,0 +1,43 @@
+package org.intelehealth.data.offline.dao
+
+import androidx.room.Dao
+import androidx.room.Query
+import kotlinx.coroutines.flow.Flow
+
+/**
+ * Rows changed locally since the last push, filled by the triggers of
+ * [org.intelehealth.data.offline.ChangeLogTriggers].
+ */
+@Dao
+interface ChangeLogDao {
+
+    @Query("SELECT MAX(seq) FROM tbl_change_log")
+    suspend fun getLastSeq(): Long?
+
+    @Query("SELECT COUNT(DISTINCT table_name || row_uuid) FROM tbl_change_log")
+    fun getPendingCount(): Flow<Int>
+
+    @Query("DELETE FROM tbl_change_log WHERE table_name = :tableName AND row_uuid IN (:uuids) AND seq <= :maxSeq")
+    suspend fun acknowledge(tableName: String, uuids: List<String>, maxSeq: Long)
+
+    @Query(
+        "DELETE FROM tbl_change_log WHERE seq <= :maxSeq AND ("
+                + "(table_name = 'tbl_patient' AND row_uuid IN (SELECT uuid FROM tbl_patient WHERE voided != 0)) "
+                + "OR (table_name = 'tbl_visit' AND row_uuid IN (SELECT uuid FROM tbl_visit WHERE voided != 0)) "
+                + "OR (table_name = 'tbl_encounter' "
+                + "AND row_uuid IN (SELECT uuid FROM tbl_encounter WHERE voided != 0)) "
+                + "OR (table_name = 'tbl_provider' AND row_uuid IN (SELECT uuid FROM tbl_provider WHERE voided != 0)))"
+    )
+    suspend fun pruneVoided(maxSeq: Long)
+
+    /**
+     * Drops the visits logged up to [maxSeq] that have no pending attribute: they are
+     * not pushed without one, and the attribute trigger logs them again once they do.
+     */
+    @Query(
+        "DELETE FROM tbl_change_log WHERE seq <= :maxSeq AND table_name = 'tbl_visit' AND row_uuid NOT IN "
+                + "(SELECT visit_uuid FROM tbl_visit_attribute "
+                + "WHERE synced = 0 AND voided = 0 AND visit_uuid IS NOT NULL)"
+    )
+    suspend fun pruneVisitsWithoutAttributes(maxSeq: Long)
+}
@@ -2,7 +2,10 @@ package org.intelehealth.data.offline.dao
 
 import androidx.room.Insert
 import androidx.room.OnConflictStrategy
+import androidx.room.RawQuery
 import androidx.room.Update
+import androidx.sqlite.db.SupportSQLiteQuery
+import org.intelehealth.data.offline.entity.RowVersion
 
 /**
  * Created by Vaghela Mithun R. on 02-04-2024 - 10:26.
@@ -21,4 +24,18 @@ interface CoreDao<T> {
 
     @Update
     suspend fun bulkUpdate(objList: List<T>)
+
+    /**
+     * Inserts the rows whose key is not stored yet.
+     *
+     * @return The row id of every item, -1 for the items that already exist.
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    suspend fun insertOrIgnore(items: List<T>): List<Long>
+
+    /**
+     * Reads [RowVersion]s, see [upsertFromServer] for the expected query.
+     */
+    @RawQuery
+    suspend fun getRowVersions(query: SupportSQLiteQuery): List<RowVersion>
 }
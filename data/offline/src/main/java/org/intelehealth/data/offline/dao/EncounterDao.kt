@@ -77,4 +77,15 @@ interface EncounterDao : CoreDao<Encounter> {
                 + "FROM tbl_encounter E LEFT JOIN tbl_visit V ON V.uuid = E.visituuid WHERE E.synced = :synced AND E.voided = 0"
     )
     fun getAllUnsyncedEncounters(synced: Boolean = false): List<UnSyncedEncounter>?
+
+    @Query(
+        "SELECT E.visituuid, E.encounter_type_uuid, E.encounter_time, E.provider_uuid, E.updated_at, "
+                + "E.uuid, E.created_at, E.synced, E.voided, V.locationuuid as locationId, V.patientuuid as patientId "
+                + "FROM tbl_encounter E LEFT JOIN tbl_visit V ON V.uuid = E.visituuid "
+                + "WHERE E.uuid IN (SELECT row_uuid FROM tbl_change_log WHERE table_name = 'tbl_encounter' AND seq <= :maxSeq) AND E.voided = 0"
+    )
+    suspend fun getPendingEncounters(maxSeq: Long): List<UnSyncedEncounter>
+
+    @Query("UPDATE tbl_encounter SET synced = 1 WHERE uuid IN (:uuids)")
+    suspend fun markSynced(uuids: List<String>)
 }
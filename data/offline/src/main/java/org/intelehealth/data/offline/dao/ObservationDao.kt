@@ -88,4 +88,7 @@ interface ObservationDao : CoreDao<Observation> {
 
     @Query("SELECT * FROM tbl_obs WHERE encounteruuid IN (:encounterIds) AND synced = 0 AND voided = 0")
     fun getAllUnsyncedObservations(encounterIds: List<String>): List<Observation>
+
+    @Query("UPDATE tbl_obs SET synced = 1 WHERE uuid IN (:uuids)")
+    suspend fun markSynced(uuids: List<String>)
 }
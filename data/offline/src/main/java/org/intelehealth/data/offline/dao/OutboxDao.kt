@@ -0,0 +1,51 @@
+package org.intelehealth.data.offline.dao
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.Query
+import kotlinx.coroutines.flow.Flow
+import org.intelehealth.data.offline.entity.OutboxEntry
+
+/**
+ * Queue of writes waiting to be sent to the server, oldest first.
+ */
+@Dao
+interface OutboxDao {
+
+    @Insert
+    suspend fun insert(entry: OutboxEntry): Long
+
+    @Query("SELECT * FROM tbl_outbox WHERE coalesce_key = :coalesceKey ORDER BY id LIMIT 1")
+    suspend fun getByCoalesceKey(coalesceKey: String): OutboxEntry?
+
+    /**
+     * Gives the entry a newer value; its failed attempts were made with the old one
+     * and are reset.
+     */
+    @Query(
+        "UPDATE tbl_outbox SET operation = :operation, payload = :payload, attempts = 0, last_error = NULL "
+                + "WHERE id = :id"
+    )
+    suspend fun replacePayload(id: Long, operation: String, payload: String)
+
+    @Query("SELECT * FROM tbl_outbox ORDER BY id LIMIT :limit")
+    suspend fun getPending(limit: Int): List<OutboxEntry>
+
+    @Query("SELECT COUNT(*) FROM tbl_outbox")
+    fun getPendingCount(): Flow<Int>
+
+    @Query("UPDATE tbl_outbox SET attempts = attempts + 1, last_error = :error WHERE id = :id AND payload = :payload")
+    suspend fun markFailed(id: Long, payload: String, error: String?)
+
+    /**
+     * Deletes the entry only if it still holds the [payload] that was sent; a value
+     * coalesced into it in the meantime stays queued.
+     *
+     * @return 1 when the entry was deleted.
+     */
+    @Query("DELETE FROM tbl_outbox WHERE id = :id AND payload = :payload")
+    suspend fun deleteSent(id: Long, payload: String): Int
+
+    @Query("DELETE FROM tbl_outbox")
+    fun deleteAll()
+}
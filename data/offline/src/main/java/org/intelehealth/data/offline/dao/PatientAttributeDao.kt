@@ -66,4 +66,7 @@ interface PatientAttributeDao : CoreDao<PatientAttribute> {
                 + "WHERE patient_uuid = :patientId GROUP BY patientId"
     )
     suspend fun getAllPatientAttrsData(patientId: String): PatientOtherInfo
+
+    @Query("UPDATE tbl_patient_attribute SET synced = 1 WHERE uuid IN (:uuids)")
+    suspend fun markSynced(uuids: List<String>)
 }
@@ -87,4 +87,10 @@ interface PatientDao : CoreDao<Patient> {
         country: String?,
         addressOfHf: String?
     ): Int
+
+    @Query("SELECT * FROM tbl_patient WHERE uuid IN (SELECT row_uuid FROM tbl_change_log WHERE table_name = 'tbl_patient' AND seq <= :maxSeq) AND voided = 0")
+    suspend fun getPendingPatients(maxSeq: Long): List<Patient>
+
+    @Query("UPDATE tbl_patient SET synced = 1 WHERE uuid IN (:uuids)")
+    suspend fun markSynced(uuids: List<String>)
 }
@@ -47,4 +47,9 @@ interface ProviderDao : CoreDao<Provider> {
     @Query("SELECT * FROM tbl_provider WHERE synced = :synced AND voided = 0")
     fun getAllUnsyncedProviders(synced: Boolean = false): List<Provider>?
 
+    @Query("SELECT * FROM tbl_provider WHERE uuid IN (SELECT row_uuid FROM tbl_change_log WHERE table_name = 'tbl_provider' AND seq <= :maxSeq) AND voided = 0")
+    suspend fun getPendingProviders(maxSeq: Long): List<Provider>
+
+    @Query("UPDATE tbl_provider SET synced = 1 WHERE uuid IN (:uuids)")
+    suspend fun markSynced(uuids: List<String>)
 }
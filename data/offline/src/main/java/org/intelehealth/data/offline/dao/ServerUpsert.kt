@@ -0,0 +1,82 @@
+package org.intelehealth.data.offline.dao
+
+import androidx.sqlite.db.SimpleSQLiteQuery
+import org.intelehealth.data.offline.entity.BaseEntity
+
+/**
+ * Outcome of an [upsertFromServer] call.
+ *
+ * @property inserted Rows that were not stored yet.
+ * @property updated Stored rows updated in place with the server copy.
+ * @property unchanged Stored rows with the same `updated_at` as the server copy.
+ * @property keptLocal Stored rows that are unsynced or newer than the server copy.
+ */
+data class UpsertResult(
+    val inserted: Int = 0,
+    val updated: Int = 0,
+    val unchanged: Int = 0,
+    val keptLocal: Int = 0
+) {
+    val skipped: Int get() = unchanged + keptLocal
+
+    operator fun plus(other: UpsertResult) = UpsertResult(
+        inserted + other.inserted,
+        updated + other.updated,
+        unchanged + other.unchanged,
+        keptLocal + other.keptLocal
+    )
+}
+
+/**
+ * Stores rows received from the server without the DELETE + INSERT of
+ * [CoreDao.insert], so index entries and triggers are only touched for rows that change.
+ *
+ * New rows are inserted. An existing row is
+ * - kept as it is when it has local edits that are not pushed yet (`synced = 0`),
+ * - skipped when its `updated_at` equals the server copy or is newer,
+ * - otherwise updated in place with [CoreDao.bulkUpdate].
+ *
+ * `updated_at` values are compared as strings, which orders the server's
+ * `yyyy-MM-dd HH:mm:ss` timestamps chronologically. Call it inside a transaction
+ * with at most 999 items, the SQLite bound variable limit.
+ *
+ * @param table The table of [T].
+ * @param items The rows received from the server.
+ * @param keyColumn The primary key column of [table].
+ */
+suspend fun <T : BaseEntity> CoreDao<T>.upsertFromServer(
+    table: String,
+    items: List<T>,
+    keyColumn: String = DEFAULT_KEY_COLUMN
+): UpsertResult {
+    if (items.isEmpty()) return UpsertResult()
+    val existing = insertOrIgnore(items).withIndex().filter { it.value == -1L }.map { items[it.index] }
+    if (existing.isEmpty()) return UpsertResult(inserted = items.size)
+
+    val placeholders = existing.joinToString(",") { "?" }
+    val versions = getRowVersions(
+        SimpleSQLiteQuery(
+            "SELECT $keyColumn AS uuid, updated_at, synced FROM $table WHERE $keyColumn IN ($placeholders)",
+            existing.map { it.uuid }.toTypedArray()
+        )
+    ).associateBy { it.uuid }
+
+    var unchanged = 0
+    var keptLocal = 0
+    val changed = existing.filter { item ->
+        val local = versions[item.uuid] ?: return@filter true
+        val incoming = item.updatedAt
+        when {
+            local.synced.not() -> keptLocal++
+            local.updatedAt == null || incoming == null -> return@filter true
+            local.updatedAt == incoming -> unchanged++
+            local.updatedAt > incoming -> keptLocal++
+            else -> return@filter true
+        }
+        false
+    }
+    if (changed.isNotEmpty()) bulkUpdate(changed)
+    return UpsertResult(items.size - existing.size, changed.size, unchanged, keptLocal)
+}
+
+private const val DEFAULT_KEY_COLUMN = "uuid"
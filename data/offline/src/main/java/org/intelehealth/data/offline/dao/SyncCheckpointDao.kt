@@ -0,0 +1,18 @@
+package org.intelehealth.data.offline.dao
+
+import androidx.room.Dao
+import androidx.room.Query
+import org.intelehealth.data.offline.entity.SyncCheckpoint
+
+/**
+ * Resume points of interrupted pulls, one per sync.
+ */
+@Dao
+interface SyncCheckpointDao : CoreDao<SyncCheckpoint> {
+
+    @Query("SELECT * FROM tbl_sync_checkpoint WHERE name = :name")
+    suspend fun getCheckpoint(name: String): SyncCheckpoint?
+
+    @Query("DELETE FROM tbl_sync_checkpoint WHERE name = :name")
+    suspend fun deleteCheckpoint(name: String)
+}
@@ -0,0 +1,32 @@
+package org.intelehealth.data.offline.dao
+
+import androidx.room.Dao
+import androidx.room.Query
+import kotlinx.coroutines.flow.Flow
+import org.intelehealth.data.offline.entity.SyncMetric
+import org.intelehealth.data.offline.entity.SyncPhaseTotal
+
+/**
+ * Timings of the sync phases, kept for the metrics screen and pruned by age.
+ */
+@Dao
+interface SyncMetricDao : CoreDao<SyncMetric> {
+
+    @Query("SELECT * FROM tbl_sync_metric WHERE run_id = :runId ORDER BY id")
+    suspend fun getRunMetrics(runId: String): List<SyncMetric>
+
+    @Query("SELECT * FROM tbl_sync_metric WHERE recorded_at >= :from ORDER BY id")
+    suspend fun getMetricsSince(from: Long): List<SyncMetric>
+
+    @Query(
+        "SELECT run_id, sync_type, phase, COUNT(DISTINCT page_no) AS pages, SUM(duration_ms) AS duration_ms, "
+                + "SUM(bytes) AS bytes, SUM(row_count) AS row_count, MIN(recorded_at) AS recorded_at "
+                + "FROM tbl_sync_metric WHERE run_id IN "
+                + "(SELECT run_id FROM tbl_sync_metric GROUP BY run_id ORDER BY MAX(id) DESC LIMIT :runs) "
+                + "GROUP BY run_id, phase ORDER BY recorded_at DESC, phase"
+    )
+    fun getPhaseTotals(runs: Int): Flow<List<SyncPhaseTotal>>
+
+    @Query("DELETE FROM tbl_sync_metric WHERE recorded_at < :before")
+    suspend fun deleteOlderThan(before: Long)
+}
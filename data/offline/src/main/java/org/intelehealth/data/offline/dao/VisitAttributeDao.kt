@@ -13,4 +13,7 @@ interface VisitAttributeDao : CoreDao<VisitAttribute> {
 
     @Query("SELECT * FROM tbl_visit_attribute WHERE visit_uuid IN ( :visitIds ) AND voided = 0 AND synced = 0")
     suspend fun getVisitAttributes(visitIds: List<String>): List<VisitAttribute>
+
+    @Query("UPDATE tbl_visit_attribute SET synced = 1 WHERE uuid IN (:uuids)")
+    suspend fun markSynced(uuids: List<String>)
 }
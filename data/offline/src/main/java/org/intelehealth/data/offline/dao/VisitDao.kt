@@ -47,4 +47,10 @@ interface VisitDao : CoreDao<Visit> {
 
 
 //    suspend fun getCompletedByUserCount(userId: String, visitSurveyExitId: String): Int
+
+    @Query("SELECT * FROM tbl_visit WHERE uuid IN (SELECT row_uuid FROM tbl_change_log WHERE table_name = 'tbl_visit' AND seq <= :maxSeq) AND voided = 0")
+    suspend fun getPendingVisits(maxSeq: Long): List<Visit>
+
+    @Query("UPDATE tbl_visit SET synced = 1 WHERE uuid IN (:uuids)")
+    suspend fun markSynced(uuids: List<String>)
 }
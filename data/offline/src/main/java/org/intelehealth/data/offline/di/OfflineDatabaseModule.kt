@@ -1,28 +1,37 @@
 package org.intelehealth.data.offline.di
 
 import android.content.Context
+import com.google.gson.TypeAdapterFactory
 import dagger.Module
 import dagger.Provides
 import dagger.hilt.InstallIn
 import dagger.hilt.android.qualifiers.ApplicationContext
 import dagger.hilt.components.SingletonComponent
+import dagger.multibindings.IntoSet
+import org.intelehealth.common.metrics.SyncMetricsStore
 import org.intelehealth.data.offline.OfflineDatabase
+import org.intelehealth.data.offline.RoomSyncMetricsStore
 import org.intelehealth.data.offline.dao.AppointmentDao
+import org.intelehealth.data.offline.dao.ChangeLogDao
 import org.intelehealth.data.offline.dao.ConceptDao
 import org.intelehealth.data.offline.dao.EncounterDao
 import org.intelehealth.data.offline.dao.LocalNotificationDao
 import org.intelehealth.data.offline.dao.MediaRecordDao
 import org.intelehealth.data.offline.dao.ObservationDao
+import org.intelehealth.data.offline.dao.OutboxDao
 import org.intelehealth.data.offline.dao.PatientAttributeDao
 import org.intelehealth.data.offline.dao.PatientAttributeTypeMasterDao
 import org.intelehealth.data.offline.dao.PatientDao
 import org.intelehealth.data.offline.dao.PatientLocationDao
 import org.intelehealth.data.offline.dao.ProviderAttributeDao
 import org.intelehealth.data.offline.dao.ProviderDao
+import org.intelehealth.data.offline.dao.SyncCheckpointDao
+import org.intelehealth.data.offline.dao.SyncMetricDao
 import org.intelehealth.data.offline.dao.UserDao
 import org.intelehealth.data.offline.dao.UserSessionDao
 import org.intelehealth.data.offline.dao.VisitAttributeDao
 import org.intelehealth.data.offline.dao.VisitDao
+import org.intelehealth.data.offline.gson.EntityTypeAdapterFactory
 import javax.inject.Singleton
 
 /**
@@ -107,4 +116,33 @@ object OfflineDatabaseModule {
     @Provides
     @Singleton
     fun provideUserSessionDao(offlineDatabase: OfflineDatabase): UserSessionDao = offlineDatabase.userSessionDao()
+
+    @Provides
+    @Singleton
+    fun provideSyncCheckpointDao(offlineDatabase: OfflineDatabase): SyncCheckpointDao =
+        offlineDatabase.syncCheckpointDao()
+
+    @Provides
+    @Singleton
+    fun provideChangeLogDao(offlineDatabase: OfflineDatabase): ChangeLogDao = offlineDatabase.changeLogDao()
+
+    @Provides
+    @Singleton
+    fun provideSyncMetricDao(offlineDatabase: OfflineDatabase): SyncMetricDao = offlineDatabase.syncMetricDao()
+
+    @Provides
+    @Singleton
+    fun provideOutboxDao(offlineDatabase: OfflineDatabase): OutboxDao = offlineDatabase.outboxDao()
+
+    @Provides
+    @Singleton
+    fun provideSyncMetricsStore(offlineDatabase: OfflineDatabase): SyncMetricsStore =
+        RoomSyncMetricsStore(offlineDatabase)
+
+    /**
+     * Decodes the sync entities on the application Gson without reflection.
+     */
+    @Provides
+    @IntoSet
+    fun provideEntityTypeAdapterFactory(): TypeAdapterFactory = EntityTypeAdapterFactory
 }
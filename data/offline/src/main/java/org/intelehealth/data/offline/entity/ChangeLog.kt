@@ -0,0 +1,31 @@
+package org.intelehealth.data.offline.entity
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+/**
+ * Append-only outbox of local changes waiting to be pushed. Rows are written by the
+ * triggers in [org.intelehealth.data.offline.ChangeLogTriggers] whenever a tracked
+ * record is inserted or updated with `synced = 0`, and deleted once the push that
+ * carried the record is acknowledged.
+ *
+ * @property seq Monotonic sequence number of the change.
+ * @property tableName The table of the changed record.
+ * @property rowUuid The uuid of the changed record.
+ * @property operation `INSERT` or `UPDATE`.
+ * @property changedAt Epoch millis of the change.
+ */
+@Entity(
+    tableName = "tbl_change_log",
+    indices = [Index(value = ["table_name", "row_uuid"])]
+)
+data class ChangeLog(
+    @PrimaryKey(autoGenerate = true)
+    var seq: Long = 0,
+    @ColumnInfo("table_name") var tableName: String,
+    @ColumnInfo("row_uuid") var rowUuid: String,
+    var operation: String,
+    @ColumnInfo("changed_at") var changedAt: Long
+)
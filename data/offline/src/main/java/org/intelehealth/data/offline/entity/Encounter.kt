@@ -4,13 +4,21 @@ import android.os.Parcelable
 import androidx.room.ColumnInfo
 import androidx.room.Entity
 import androidx.room.Ignore
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import com.google.gson.annotations.SerializedName
 import kotlinx.parcelize.IgnoredOnParcel
 import kotlinx.parcelize.Parcelize
 
 @Parcelize
-@Entity(tableName = "tbl_encounter")
+@Entity(
+    tableName = "tbl_encounter",
+    indices = [
+        Index(value = ["visituuid"]),
+        Index(value = ["provider_uuid", "encounter_type_uuid"]),
+        Index(value = ["encounter_type_uuid"])
+    ]
+)
 open class Encounter(
     @ColumnInfo("visituuid") @SerializedName("visituuid") var visitUuid: String? = null,
     @ColumnInfo("encounter_type_uuid") @SerializedName("encounter_type_uuid") var encounterTypeUuid: String? = null,
@@ -4,13 +4,22 @@ import android.os.Parcelable
 import androidx.room.ColumnInfo
 import androidx.room.Entity
 import androidx.room.Ignore
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import com.google.gson.annotations.Expose
 import com.google.gson.annotations.SerializedName
 import kotlinx.parcelize.Parcelize
+import org.intelehealth.data.offline.OfflineIndexes
 
 @Parcelize
-@Entity(tableName = "tbl_obs")
+@Entity(
+    tableName = "tbl_obs",
+    indices = [
+        Index(value = ["encounteruuid"]),
+        Index(value = ["conceptuuid"]),
+        Index(value = ["encounteruuid"], name = OfflineIndexes.OBS_PENDING)
+    ]
+)
 data class Observation(
     @ColumnInfo("encounteruuid") @SerializedName("encounteruuid") var encounterUuid: String? = null,
     @ColumnInfo("conceptuuid") @SerializedName("conceptuuid", alternate = ["concept"]) var conceptUuid: String? = null,
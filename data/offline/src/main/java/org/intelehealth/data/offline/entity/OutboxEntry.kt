@@ -0,0 +1,35 @@
+package org.intelehealth.data.offline.entity
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+/**
+ * A user-initiated request that could not be sent yet, e.g. a profile change made
+ * offline. Entries are replayed in [id] order by the outbox worker and deleted once
+ * the server accepted or finally rejected them.
+ *
+ * @property id Monotonic sequence number, the replay order.
+ * @property operation What to send, see `OutboxOperation` in the provider module.
+ * @property coalesceKey Entries with the same key supersede each other; only the
+ * latest payload is sent. Null for entries that must all be sent.
+ * @property payload The request arguments as JSON.
+ * @property createdAt Epoch millis the entry was first queued.
+ * @property attempts Failed delivery attempts so far.
+ * @property lastError The error of the last failed attempt.
+ */
+@Entity(
+    tableName = "tbl_outbox",
+    indices = [Index(value = ["coalesce_key"])]
+)
+data class OutboxEntry(
+    @PrimaryKey(autoGenerate = true)
+    var id: Long = 0,
+    var operation: String,
+    @ColumnInfo("coalesce_key") var coalesceKey: String? = null,
+    var payload: String,
+    @ColumnInfo("created_at") var createdAt: Long = System.currentTimeMillis(),
+    var attempts: Int = 0,
+    @ColumnInfo("last_error") var lastError: String? = null
+)
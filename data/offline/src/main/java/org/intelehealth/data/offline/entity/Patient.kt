@@ -3,12 +3,20 @@ package org.intelehealth.data.offline.entity
 import android.os.Parcelable
 import androidx.room.ColumnInfo
 import androidx.room.Entity
+import androidx.room.Index
 import com.google.gson.Gson
 import com.google.gson.annotations.SerializedName
 import kotlinx.parcelize.Parcelize
+import org.intelehealth.data.offline.OfflineIndexes
 
 @Parcelize
-@Entity(tableName = "tbl_patient")
+@Entity(
+    tableName = "tbl_patient",
+    indices = [
+        Index(value = ["creatoruuid"]),
+        Index(value = ["uuid"], name = OfflineIndexes.PATIENT_PENDING)
+    ]
+)
 data class Patient(
     @ColumnInfo("openmrs_id") @SerializedName("openmrs_id") val openMrsId: String? = null,
     @ColumnInfo("first_name") @SerializedName("firstname") var firstName: String? = null,
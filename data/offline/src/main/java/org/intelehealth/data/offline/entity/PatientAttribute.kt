@@ -4,12 +4,20 @@ import android.icu.text.UnicodeSet.CASE
 import android.os.Parcelable
 import androidx.room.ColumnInfo
 import androidx.room.Entity
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import com.google.gson.annotations.SerializedName
 import kotlinx.parcelize.Parcelize
+import org.intelehealth.data.offline.OfflineIndexes
 
 @Parcelize
-@Entity(tableName = "tbl_patient_attribute")
+@Entity(
+    tableName = "tbl_patient_attribute",
+    indices = [
+        Index(value = ["patient_uuid", "person_attribute_type_uuid"]),
+        Index(value = ["patient_uuid"], name = OfflineIndexes.PATIENT_ATTRIBUTE_PENDING)
+    ]
+)
 open class PatientAttribute(
     @SerializedName("value") var value: String? = null,
     @ColumnInfo("person_attribute_type_uuid") @SerializedName("person_attribute_type_uuid")
@@ -3,12 +3,16 @@ package org.intelehealth.data.offline.entity
 import android.os.Parcelable
 import androidx.room.ColumnInfo
 import androidx.room.Entity
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import com.google.gson.annotations.SerializedName
 import kotlinx.parcelize.Parcelize
 
 @Parcelize
-@Entity(tableName = "tbl_provider_attribute")
+@Entity(
+    tableName = "tbl_provider_attribute",
+    indices = [Index(value = ["provider_uuid", "provider_attribute_type_uuid"])]
+)
 data class ProviderAttribute(
 
     @ColumnInfo("provider_uuid")
@@ -0,0 +1,14 @@
+package org.intelehealth.data.offline.entity
+
+import androidx.room.ColumnInfo
+
+/**
+ * Version columns of a stored row, used by
+ * [org.intelehealth.data.offline.dao.upsertFromServer] to decide whether an
+ * incoming server row should touch it.
+ */
+data class RowVersion(
+    val uuid: String,
+    @ColumnInfo("updated_at") val updatedAt: String?,
+    val synced: Boolean
+)
@@ -0,0 +1,43 @@
+package org.intelehealth.data.offline.entity
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+
+/**
+ * Progress of a paged sync run, written in the same transaction as the page it
+ * describes so a restarted worker can continue from [nextPage] instead of page 0.
+ *
+ * A checkpoint only applies to the run it was written for: the request window
+ * ([locationId], [lastSyncedTime]) must match, otherwise the page offsets no longer
+ * line up with what is already stored.
+ *
+ * @property name The sync stream this checkpoint belongs to, e.g. [PULL].
+ * @property nextPage The next page to request, or [COMPLETED] after the last page.
+ * @property pageSize The page limit [nextPage] is counted in.
+ * @property locationId The location the run pulls for.
+ * @property lastSyncedTime The `lastPullExecutedTime` sent with every page of the run.
+ * @property cutoffTime The server `pullexecutedtime` of the first page of the run.
+ */
+@Entity(tableName = "tbl_sync_checkpoint")
+data class SyncCheckpoint(
+    @PrimaryKey
+    var name: String,
+    @ColumnInfo("next_page") var nextPage: Int,
+    @ColumnInfo("page_size") var pageSize: Int,
+    @ColumnInfo("location_id") var locationId: String,
+    @ColumnInfo("last_synced_time") var lastSyncedTime: String,
+    @ColumnInfo("cutoff_time") var cutoffTime: String? = null,
+    @ColumnInfo("updated_at") var updatedAt: Long = System.currentTimeMillis()
+) {
+    val isCompleted: Boolean
+        get() = nextPage == COMPLETED
+
+    fun isSameRun(locationId: String, lastSyncedTime: String): Boolean =
+        this.locationId == locationId && this.lastSyncedTime == lastSyncedTime
+
+    companion object {
+        const val PULL = "pull"
+        const val COMPLETED = -1
+    }
+}
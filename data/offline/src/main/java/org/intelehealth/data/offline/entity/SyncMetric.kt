@@ -0,0 +1,41 @@
+package org.intelehealth.data.offline.entity
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+
+/**
+ * One phase of one page of a sync run, see [org.intelehealth.common.metrics.SyncMetricsRecorder].
+ */
+@Entity(
+    tableName = "tbl_sync_metric",
+    indices = [Index(value = ["run_id"]), Index(value = ["recorded_at"])]
+)
+data class SyncMetric(
+    @PrimaryKey(autoGenerate = true)
+    var id: Long = 0,
+    @ColumnInfo("run_id") var runId: String,
+    @ColumnInfo("sync_type") var syncType: String,
+    @ColumnInfo("page_no") var pageNo: Int,
+    var phase: String,
+    @ColumnInfo("duration_ms") var durationMs: Double,
+    var bytes: Long,
+    @ColumnInfo("row_count") var rows: Int,
+    @ColumnInfo("recorded_at") var recordedAt: Long
+)
+
+/**
+ * Per-phase totals of a sync run, returned by
+ * [org.intelehealth.data.offline.dao.SyncMetricDao.getPhaseTotals].
+ */
+data class SyncPhaseTotal(
+    @ColumnInfo("run_id") val runId: String,
+    @ColumnInfo("sync_type") val syncType: String,
+    val phase: String,
+    val pages: Int,
+    @ColumnInfo("duration_ms") val durationMs: Double,
+    val bytes: Long,
+    @ColumnInfo("row_count") val rows: Int,
+    @ColumnInfo("recorded_at") val recordedAt: Long
+)
@@ -3,6 +3,7 @@ package org.intelehealth.data.offline.entity
 import android.os.Parcelable
 import androidx.room.ColumnInfo
 import androidx.room.Entity
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import com.google.gson.annotations.SerializedName
 import kotlinx.parcelize.Parcelize
@@ -15,7 +16,10 @@ import org.intelehealth.common.utility.DateTimeUtils
  **/
 
 @Parcelize
-@Entity(tableName = "tbl_user")
+@Entity(
+    tableName = "tbl_user",
+    indices = [Index(value = ["provider_uuid"])]
+)
 data class User(
     @PrimaryKey @ColumnInfo("uuid") @SerializedName("uuid") var userId: String,
     @ColumnInfo("display_name") @SerializedName("display") var displayName: String,
@@ -4,6 +4,7 @@ import android.os.Parcelable
 import androidx.room.ColumnInfo
 import androidx.room.Entity
 import androidx.room.Ignore
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import com.google.gson.Gson
 import com.google.gson.annotations.SerializedName
@@ -11,7 +12,10 @@ import kotlinx.parcelize.IgnoredOnParcel
 import kotlinx.parcelize.Parcelize
 
 @Parcelize
-@Entity(tableName = "tbl_visit")
+@Entity(
+    tableName = "tbl_visit",
+    indices = [Index(value = ["patientuuid"])]
+)
 data class Visit(
     @ColumnInfo("patientuuid") @SerializedName("patientuuid") var patientUuid: String? = null,
     @ColumnInfo("visit_type_uuid") @SerializedName("visit_type_uuid") var visitTypeUuid: String? = null,
@@ -3,13 +3,21 @@ package org.intelehealth.data.offline.entity
 import android.os.Parcelable
 import androidx.room.ColumnInfo
 import androidx.room.Entity
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import com.google.gson.annotations.Expose
 import com.google.gson.annotations.SerializedName
 import kotlinx.parcelize.Parcelize
+import org.intelehealth.data.offline.OfflineIndexes
 
 @Parcelize
-@Entity(tableName = "tbl_visit_attribute")
+@Entity(
+    tableName = "tbl_visit_attribute",
+    indices = [
+        Index(value = ["visit_uuid"]),
+        Index(value = ["visit_uuid"], name = OfflineIndexes.VISIT_ATTRIBUTE_PENDING)
+    ]
+)
 data class VisitAttribute(
     @ColumnInfo("visit_uuid") @SerializedName("visit_uuid") var visitUuid: String? = null,
 
@@ -0,0 +1,36 @@
+package org.intelehealth.data.offline.gson
+
+import com.google.gson.TypeAdapter
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import com.google.gson.stream.JsonWriter
+
+/**
+ * Decodes an entity by switching on the field names instead of binding them through
+ * reflection. Writing is left to [delegate], the reflective adapter Gson would have
+ * used, so serialised entities such as push payloads don't change.
+ *
+ * Only the JSON names the reflective adapter maps to a visible property are read; a
+ * base class field shadowed by an override in the entity is skipped, as it was never
+ * readable through the entity anyway.
+ */
+internal abstract class EntityTypeAdapter<T>(private val delegate: TypeAdapter<T>) : TypeAdapter<T>() {
+
+    override fun write(out: JsonWriter, value: T?) = delegate.write(out, value)
+
+    override fun read(reader: JsonReader): T? {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull()
+            return null
+        }
+        reader.beginObject()
+        val entity = readFields(reader)
+        reader.endObject()
+        return entity
+    }
+
+    /**
+     * Reads every name/value pair of the current object and builds the entity.
+     */
+    protected abstract fun readFields(reader: JsonReader): T
+}
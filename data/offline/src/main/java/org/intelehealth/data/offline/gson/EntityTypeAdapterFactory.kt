@@ -0,0 +1,54 @@
+package org.intelehealth.data.offline.gson
+
+import com.google.gson.Gson
+import com.google.gson.TypeAdapter
+import com.google.gson.TypeAdapterFactory
+import com.google.gson.reflect.TypeToken
+import org.intelehealth.data.offline.entity.Encounter
+import org.intelehealth.data.offline.entity.Observation
+import org.intelehealth.data.offline.entity.Patient
+import org.intelehealth.data.offline.entity.PatientAttribute
+import org.intelehealth.data.offline.entity.PatientAttributeTypeMaster
+import org.intelehealth.data.offline.entity.PatientLocation
+import org.intelehealth.data.offline.entity.Provider
+import org.intelehealth.data.offline.entity.ProviderAttribute
+import org.intelehealth.data.offline.entity.Visit
+import org.intelehealth.data.offline.entity.VisitAttribute
+
+/**
+ * Supplies the hand-written [EntityTypeAdapter]s of the sync entities, so a pull page
+ * is decoded without reflective field binding. Only the exact entity classes are
+ * handled; subclasses keep the reflective adapter.
+ *
+ * Registered on the application [Gson] through
+ * [org.intelehealth.data.offline.di.OfflineDatabaseModule].
+ */
+object EntityTypeAdapterFactory : TypeAdapterFactory {
+
+    @Suppress("UNCHECKED_CAST")
+    override fun <T> create(gson: Gson, type: TypeToken<T>): TypeAdapter<T>? {
+        val adapter: TypeAdapter<*> = when (type.rawType) {
+            Patient::class.java -> PatientAdapter(gson.delegate(Patient::class.java))
+            PatientAttribute::class.java -> PatientAttributeAdapter(gson.delegate(PatientAttribute::class.java))
+            PatientAttributeTypeMaster::class.java ->
+                PatientAttributeTypeMasterAdapter(gson.delegate(PatientAttributeTypeMaster::class.java))
+
+            Visit::class.java -> VisitAdapter(
+                gson.delegate(Visit::class.java),
+                gson.getAdapter(object : TypeToken<List<VisitAttribute>>() {})
+            )
+
+            VisitAttribute::class.java -> VisitAttributeAdapter(gson.delegate(VisitAttribute::class.java))
+            Encounter::class.java -> EncounterAdapter(gson.delegate(Encounter::class.java))
+            Observation::class.java -> ObservationAdapter(gson.delegate(Observation::class.java))
+            PatientLocation::class.java -> PatientLocationAdapter(gson.delegate(PatientLocation::class.java))
+            Provider::class.java -> ProviderAdapter(gson.delegate(Provider::class.java))
+            ProviderAttribute::class.java -> ProviderAttributeAdapter(gson.delegate(ProviderAttribute::class.java))
+            else -> return null
+        }
+        return adapter as TypeAdapter<T>
+    }
+
+    private fun <E> Gson.delegate(type: Class<E>): TypeAdapter<E> =
+        getDelegateAdapter(this@EntityTypeAdapterFactory, TypeToken.get(type))
+}
@@ -0,0 +1,352 @@
+package org.intelehealth.data.offline.gson
+
+import com.google.gson.TypeAdapter
+import com.google.gson.stream.JsonReader
+import org.intelehealth.data.offline.entity.Encounter
+import org.intelehealth.data.offline.entity.Observation
+import org.intelehealth.data.offline.entity.Patient
+import org.intelehealth.data.offline.entity.PatientAttribute
+import org.intelehealth.data.offline.entity.PatientAttributeTypeMaster
+import org.intelehealth.data.offline.entity.PatientLocation
+import org.intelehealth.data.offline.entity.Provider
+import org.intelehealth.data.offline.entity.ProviderAttribute
+import org.intelehealth.data.offline.entity.Visit
+import org.intelehealth.data.offline.entity.VisitAttribute
+
+/**
+ * Streaming decoders of the entities carried by a `pulldata` page. The JSON names
+ * mirror the `@SerializedName`s of each entity and of its base classes.
+ */
+internal class PatientAdapter(delegate: TypeAdapter<Patient>) : EntityTypeAdapter<Patient>(delegate) {
+    override fun readFields(reader: JsonReader): Patient {
+        var uuid = ""
+        var voided = 0
+        var openMrsId: String? = null
+        var firstName: String? = null
+        var middleName: String? = null
+        var lastName: String? = null
+        var dateOfBirth: String? = null
+        var gender: String? = null
+        var creatorUuid: String? = null
+        var updatedAt: String? = null
+        var createdAt: String? = null
+        var abhaNumber: String? = null
+        var abhaAddress: String? = null
+        var profileVersion: Long? = null
+        var guardianName: String? = null
+        var guardianType: String? = null
+        var synced = false
+        var address1: String? = null
+        var address2: String? = null
+        var address3: String? = null
+        var address4: String? = null
+        var address5: String? = null
+        var address6: String? = null
+        var cityVillage: String? = null
+        var district: String? = null
+        var state: String? = null
+        var postalCode: String? = null
+        var country: String? = null
+        var addressOfHf: String? = null
+
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "uuid" -> uuid = reader.nextStringOr(uuid)
+                "voided" -> voided = reader.nextIntOr(voided)
+                "openmrs_id" -> openMrsId = reader.nextStringOrNull()
+                "firstname" -> firstName = reader.nextStringOrNull()
+                "middlename" -> middleName = reader.nextStringOrNull()
+                "lastname" -> lastName = reader.nextStringOrNull()
+                "dateofbirth" -> dateOfBirth = reader.nextStringOrNull()
+                "gender" -> gender = reader.nextStringOrNull()
+                "creatoruuid" -> creatorUuid = reader.nextStringOrNull()
+                "modified_date" -> updatedAt = reader.nextStringOrNull()
+                "dateCreated" -> createdAt = reader.nextStringOrNull()
+                "abha_number" -> abhaNumber = reader.nextStringOrNull()
+                "abha_address" -> abhaAddress = reader.nextStringOrNull()
+                "profile_version" -> profileVersion = reader.nextLongOrNull()
+                "guardianName" -> guardianName = reader.nextStringOrNull()
+                "guardianType" -> guardianType = reader.nextStringOrNull()
+                "syncd" -> synced = reader.nextBooleanOr(synced)
+                "address1" -> address1 = reader.nextStringOrNull()
+                "address2" -> address2 = reader.nextStringOrNull()
+                "address3" -> address3 = reader.nextStringOrNull()
+                "address4" -> address4 = reader.nextStringOrNull()
+                "address5" -> address5 = reader.nextStringOrNull()
+                "address6" -> address6 = reader.nextStringOrNull()
+                "cityvillage" -> cityVillage = reader.nextStringOrNull()
+                "countyDistrict" -> district = reader.nextStringOrNull()
+                "stateprovince" -> state = reader.nextStringOrNull()
+                "postal_code" -> postalCode = reader.nextStringOrNull()
+                "country" -> country = reader.nextStringOrNull()
+                "address_of_hf" -> addressOfHf = reader.nextStringOrNull()
+                else -> reader.skipValue()
+            }
+        }
+
+        return Patient(
+            openMrsId = openMrsId, firstName = firstName, middleName = middleName, lastName = lastName,
+            dateOfBirth = dateOfBirth, gender = gender, creatorUuid = creatorUuid, updatedAt = updatedAt,
+            createdAt = createdAt, abhaNumber = abhaNumber, abhaAddress = abhaAddress,
+            profileVersion = profileVersion, guardianName = guardianName, guardianType = guardianType,
+            synced = synced
+        ).also {
+            it.uuid = uuid
+            it.voided = voided
+            it.address1 = address1
+            it.address2 = address2
+            it.address3 = address3
+            it.address4 = address4
+            it.address5 = address5
+            it.address6 = address6
+            it.cityVillage = cityVillage
+            it.district = district
+            it.state = state
+            it.postalCode = postalCode
+            it.country = country
+            it.addressOfHf = addressOfHf
+        }
+    }
+}
+
+internal class PatientAttributeAdapter(
+    delegate: TypeAdapter<PatientAttribute>
+) : EntityTypeAdapter<PatientAttribute>(delegate) {
+    override fun readFields(reader: JsonReader): PatientAttribute {
+        val attribute = PatientAttribute()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "uuid" -> attribute.uuid = reader.nextStringOr(attribute.uuid)
+                "createdAt" -> attribute.createdAt = reader.nextStringOrNull()
+                "synced" -> attribute.synced = reader.nextBooleanOr(attribute.synced)
+                "voided" -> attribute.voided = reader.nextIntOr(attribute.voided)
+                "value" -> attribute.value = reader.nextStringOrNull()
+                "person_attribute_type_uuid" -> attribute.personAttributeTypeUuid = reader.nextStringOrNull()
+                "patientuuid" -> attribute.patientUuid = reader.nextStringOrNull()
+                "modified_date" -> attribute.updatedAt = reader.nextStringOrNull()
+                else -> reader.skipValue()
+            }
+        }
+        return attribute
+    }
+}
+
+internal class PatientAttributeTypeMasterAdapter(
+    delegate: TypeAdapter<PatientAttributeTypeMaster>
+) : EntityTypeAdapter<PatientAttributeTypeMaster>(delegate) {
+    override fun readFields(reader: JsonReader): PatientAttributeTypeMaster {
+        val master = PatientAttributeTypeMaster()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "uuid" -> master.uuid = reader.nextStringOr(master.uuid)
+                "createdAt" -> master.createdAt = reader.nextStringOrNull()
+                "synced" -> master.synced = reader.nextBooleanOr(master.synced)
+                "voided" -> master.voided = reader.nextIntOr(master.voided)
+                "name" -> master.name = reader.nextStringOrNull()
+                "modified_date" -> master.updatedAt = reader.nextStringOrNull()
+                else -> reader.skipValue()
+            }
+        }
+        return master
+    }
+}
+
+/**
+ * @param attributesAdapter Decodes the nested `attributes` list.
+ */
+internal class VisitAdapter(
+    delegate: TypeAdapter<Visit>,
+    private val attributesAdapter: TypeAdapter<List<VisitAttribute>>
+) : EntityTypeAdapter<Visit>(delegate) {
+    override fun readFields(reader: JsonReader): Visit {
+        val visit = Visit()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "uuid" -> visit.uuid = reader.nextStringOr(visit.uuid)
+                "createdAt" -> visit.createdAt = reader.nextStringOrNull()
+                "voided" -> visit.voided = reader.nextIntOr(visit.voided)
+                "patientuuid" -> visit.patientUuid = reader.nextStringOrNull()
+                "visit_type_uuid" -> visit.visitTypeUuid = reader.nextStringOrNull()
+                "startdate" -> visit.startDate = reader.nextStringOrNull()
+                "enddate" -> visit.endDate = reader.nextStringOrNull()
+                "locationuuid" -> visit.locationUuid = reader.nextStringOrNull()
+                "creator_uuid" -> visit.creatorUuid = reader.nextStringOrNull()
+                "syncd" -> visit.synced = reader.nextBooleanOr(visit.synced)
+                "modified_date" -> visit.updatedAt = reader.nextStringOrNull()
+                "isdownloaded" -> visit.downloaded = reader.nextBooleanOr(visit.downloaded)
+                "issubmitted" -> visit.submitted = reader.nextIntOr(visit.submitted)
+                "attributes" -> visit.visitAttrs = attributesAdapter.read(reader)
+                else -> reader.skipValue()
+            }
+        }
+        return visit
+    }
+}
+
+internal class VisitAttributeAdapter(
+    delegate: TypeAdapter<VisitAttribute>
+) : EntityTypeAdapter<VisitAttribute>(delegate) {
+    override fun readFields(reader: JsonReader): VisitAttribute {
+        val attribute = VisitAttribute()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "uuid" -> attribute.uuid = reader.nextStringOr(attribute.uuid)
+                "createdAt" -> attribute.createdAt = reader.nextStringOrNull()
+                "updatedAt" -> attribute.updatedAt = reader.nextStringOrNull()
+                "synced" -> attribute.synced = reader.nextBooleanOr(attribute.synced)
+                "voided" -> attribute.voided = reader.nextIntOr(attribute.voided)
+                "visit_uuid" -> attribute.visitUuid = reader.nextStringOrNull()
+                "value" -> attribute.value = reader.nextStringOrNull()
+                "name" -> attribute.name = reader.nextStringOr(attribute.name)
+                "retired" -> attribute.retired = reader.nextIntOr(attribute.retired)
+                "visit_attribute_type_uuid" -> attribute.visitAttributeTypeUuid = reader.nextStringOrNull()
+                else -> reader.skipValue()
+            }
+        }
+        return attribute
+    }
+}
+
+internal class EncounterAdapter(delegate: TypeAdapter<Encounter>) : EntityTypeAdapter<Encounter>(delegate) {
+    override fun readFields(reader: JsonReader): Encounter {
+        val encounter = Encounter()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "uuid" -> encounter.uuid = reader.nextStringOr(encounter.uuid)
+                "createdAt" -> encounter.createdAt = reader.nextStringOrNull()
+                "voided" -> encounter.voided = reader.nextIntOr(encounter.voided)
+                "visituuid" -> encounter.visitUuid = reader.nextStringOrNull()
+                "encounter_type_uuid" -> encounter.encounterTypeUuid = reader.nextStringOrNull()
+                "encounter_time" -> encounter.encounterTime = reader.nextStringOrNull()
+                "provider_uuid" -> encounter.providerUuid = reader.nextStringOrNull()
+                "modified_date" -> encounter.updatedAt = reader.nextStringOrNull()
+                "syncd" -> encounter.synced = reader.nextBooleanOr(encounter.synced)
+                else -> reader.skipValue()
+            }
+        }
+        return encounter
+    }
+}
+
+internal class ObservationAdapter(delegate: TypeAdapter<Observation>) : EntityTypeAdapter<Observation>(delegate) {
+    override fun readFields(reader: JsonReader): Observation {
+        val observation = Observation()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "uuid" -> observation.uuid = reader.nextStringOr(observation.uuid)
+                "synced" -> observation.synced = reader.nextBooleanOr(observation.synced)
+                "voided" -> observation.voided = reader.nextIntOr(observation.voided)
+                "encounteruuid" -> observation.encounterUuid = reader.nextStringOrNull()
+                "conceptuuid", "concept" -> observation.conceptUuid = reader.nextStringOrNull()
+                "value" -> observation.value = reader.nextStringOrNull()
+                "obsServerModifiedDate" -> observation.obsServerModifiedDate = reader.nextStringOrNull()
+                "obsDatetime" -> observation.obsDatetime = reader.nextStringOr(observation.obsDatetime)
+                "encounter" -> observation.encounter = reader.nextStringOr(observation.encounter)
+                "creator", "person" -> observation.creator = reader.nextStringOrNull()
+                "comment" -> observation.comment = reader.nextStringOrNull()
+                "modified_date" -> observation.updatedAt = reader.nextStringOrNull()
+                "created_date" -> observation.createdAt = reader.nextStringOrNull()
+                "conceptsetuuid" -> observation.conceptSetUuid = reader.nextStringOrNull()
+                else -> reader.skipValue()
+            }
+        }
+        return observation
+    }
+}
+
+internal class PatientLocationAdapter(
+    delegate: TypeAdapter<PatientLocation>
+) : EntityTypeAdapter<PatientLocation>(delegate) {
+    override fun readFields(reader: JsonReader): PatientLocation {
+        var name = ""
+        var uuid = ""
+        var retired: Int? = null
+        var updatedAt: String? = null
+        var synced = false
+        var createdAt: String? = null
+        var voided = 0
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "name" -> name = reader.nextStringOr(name)
+                "locationuuid" -> uuid = reader.nextStringOr(uuid)
+                "retired" -> retired = reader.nextIntOrNull()
+                "modified_date" -> updatedAt = reader.nextStringOrNull()
+                "syncd" -> synced = reader.nextBooleanOr(synced)
+                "createdAt" -> createdAt = reader.nextStringOrNull()
+                "voided" -> voided = reader.nextIntOr(voided)
+                else -> reader.skipValue()
+            }
+        }
+        return PatientLocation(name = name, uuid = uuid, retired = retired, updatedAt = updatedAt, synced = synced)
+            .also {
+                it.createdAt = createdAt
+                it.voided = voided
+            }
+    }
+}
+
+internal class ProviderAdapter(delegate: TypeAdapter<Provider>) : EntityTypeAdapter<Provider>(delegate) {
+    override fun readFields(reader: JsonReader): Provider {
+        val provider = Provider(emailId = "")
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "uuid" -> provider.uuid = reader.nextStringOr(provider.uuid)
+                "createdAt" -> provider.createdAt = reader.nextStringOrNull()
+                "voided" -> provider.voided = reader.nextIntOr(provider.voided)
+                "identifier" -> provider.identifier = reader.nextStringOrNull()
+                "given_name" -> provider.givenName = reader.nextStringOrNull()
+                "family_name" -> provider.familyName = reader.nextStringOrNull()
+                "middle_name" -> provider.middleName = reader.nextStringOrNull()
+                "emailId" -> provider.emailId = reader.nextStringOr(provider.emailId)
+                "telephoneNumber" -> provider.telephoneNumber = reader.nextStringOrNull()
+                "dateofbirth" -> provider.dateOfBirth = reader.nextStringOrNull()
+                "gender" -> provider.gender = reader.nextStringOrNull()
+                "imagePath" -> provider.imagePath = reader.nextStringOrNull()
+                "countryCode" -> provider.countryCode = reader.nextStringOrNull()
+                "role" -> provider.role = reader.nextStringOrNull()
+                "providerId" -> provider.providerId = reader.nextIntOrNull()
+                "useruuid" -> provider.userUuid = reader.nextStringOrNull()
+                "modified_date" -> provider.updatedAt = reader.nextStringOrNull()
+                "syncd" -> provider.synced = reader.nextBooleanOr(provider.synced)
+                else -> reader.skipValue()
+            }
+        }
+        return provider
+    }
+}
+
+internal class ProviderAttributeAdapter(
+    delegate: TypeAdapter<ProviderAttribute>
+) : EntityTypeAdapter<ProviderAttribute>(delegate) {
+    override fun readFields(reader: JsonReader): ProviderAttribute {
+        var uuid = ""
+        var createdAt: String? = null
+        var updatedAt: String? = null
+        var voided = 0
+        var providerUuid: String? = null
+        var providerAttrTypeUuid: String? = null
+        var value: String? = null
+        var synced = false
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "uuid" -> uuid = reader.nextStringOr(uuid)
+                "createdAt" -> createdAt = reader.nextStringOrNull()
+                "updatedAt" -> updatedAt = reader.nextStringOrNull()
+                "voided" -> voided = reader.nextIntOr(voided)
+                "provideruuid", "provider_uuid" -> providerUuid = reader.nextStringOrNull()
+                "attributetypeuuid", "provider_attribute_type_uuid" -> providerAttrTypeUuid = reader.nextStringOrNull()
+                "value" -> value = reader.nextStringOrNull()
+                "syncd" -> synced = reader.nextBooleanOr(synced)
+                else -> reader.skipValue()
+            }
+        }
+        return ProviderAttribute(
+            providerUuid = providerUuid, providerAttrTypeUuid = providerAttrTypeUuid, value = value, synced = synced
+        ).also {
+            it.uuid = uuid
+            it.createdAt = createdAt
+            it.updatedAt = updatedAt
+            it.voided = voided
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.intelehealth.data.offline.gson
+
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+
+/**
+ * Value readers shared by the entity adapters. They accept the same token shapes as
+ * Gson's built-in adapters, e.g. quoted numbers and booleans, and a JSON `null` leaves
+ * a non-null property at its default like the reflective adapter does for primitives.
+ */
+internal fun JsonReader.nextStringOrNull(): String? = when (peek()) {
+    JsonToken.NULL -> {
+        nextNull()
+        null
+    }
+
+    JsonToken.BOOLEAN -> nextBoolean().toString()
+    else -> nextString()
+}
+
+internal fun JsonReader.nextStringOr(default: String): String = nextStringOrNull() ?: default
+
+internal fun JsonReader.nextBooleanOr(default: Boolean): Boolean = when (peek()) {
+    JsonToken.NULL -> {
+        nextNull()
+        default
+    }
+
+    JsonToken.STRING -> nextString().toBoolean()
+    else -> nextBoolean()
+}
+
+internal fun JsonReader.nextIntOrNull(): Int? = if (peek() == JsonToken.NULL) {
+    nextNull()
+    null
+} else nextInt()
+
+internal fun JsonReader.nextIntOr(default: Int): Int = nextIntOrNull() ?: default
+
+internal fun JsonReader.nextLongOrNull(): Long? = if (peek() == JsonToken.NULL) {
+    nextNull()
+    null
+} else nextLong()
@@ -0,0 +1,143 @@
+package org.intelehealth.data.offline
+
+import android.content.Context
+import androidx.room.Room
+import androidx.sqlite.db.SupportSQLiteDatabase
+import androidx.test.core.app.ApplicationProvider
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+/**
+ * Checks with `EXPLAIN QUERY PLAN` that the push, dashboard and achievement queries
+ * search through [OfflineIndexes] instead of scanning their tables.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+class OfflineIndexesTest {
+    private lateinit var database: OfflineDatabase
+    private lateinit var db: SupportSQLiteDatabase
+
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        database = Room.inMemoryDatabaseBuilder(context, OfflineDatabase::class.java)
+            .addCallback(OfflineDatabase.CALLBACK)
+            .allowMainThreadQueries()
+            .build()
+        db = database.openHelper.writableDatabase
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+    }
+
+    @Test
+    fun pendingObservationsUsePartialIndex() {
+        assertUses(
+            OfflineIndexes.OBS_PENDING,
+            "SELECT * FROM tbl_obs WHERE encounteruuid IN ('a', 'b') AND synced = 0 AND voided = 0"
+        )
+    }
+
+    @Test
+    fun pendingAttributesUsePartialIndexes() {
+        assertUses(
+            OfflineIndexes.PATIENT_ATTRIBUTE_PENDING,
+            "SELECT * FROM tbl_patient_attribute WHERE patient_uuid IN ('a') AND voided = 0 AND synced = 0"
+        )
+        assertUses(
+            OfflineIndexes.VISIT_ATTRIBUTE_PENDING,
+            "SELECT * FROM tbl_visit_attribute WHERE visit_uuid IN ('a') AND voided = 0 AND synced = 0"
+        )
+    }
+
+    @Test
+    fun lookupsUseIndexes() {
+        assertUses("index_tbl_obs_conceptuuid", "SELECT * FROM tbl_obs WHERE conceptuuid = ?")
+        assertUses("index_tbl_encounter_visituuid", "SELECT * FROM tbl_encounter WHERE visituuid = ?")
+        assertUses("index_tbl_patient_creatoruuid", "SELECT COUNT(uuid) FROM tbl_patient WHERE creatoruuid = ?")
+        assertUses(
+            "index_tbl_patient_attribute_patient_uuid_person_attribute_type_uuid",
+            "SELECT * FROM tbl_patient_attribute WHERE patient_uuid = ? AND person_attribute_type_uuid = ?"
+        )
+        assertUses(
+            "index_tbl_provider_attribute_provider_uuid_provider_attribute_type_uuid",
+            "SELECT * FROM tbl_provider_attribute WHERE provider_uuid = ? AND provider_attribute_type_uuid = ?"
+        )
+        assertUses("index_tbl_visit_patientuuid", "SELECT uuid FROM tbl_visit WHERE patientUuid = ?")
+    }
+
+    @Test
+    fun achievementJoinsUseIndexes() {
+        val plan = assertUses(
+            "index_tbl_encounter_provider_uuid_encounter_type_uuid",
+            "SELECT COUNT(DISTINCT E.visituuid) FROM tbl_encounter E " +
+                "INNER JOIN tbl_user U ON U.provider_uuid = E.provider_uuid " +
+                "WHERE E.encounter_type_uuid = ? AND U.uuid = ?"
+        )
+        assertTrue(plan.toString(), plan.none { it.startsWith("SCAN") })
+
+        assertUses(
+            "index_tbl_user_provider_uuid",
+            "SELECT O.uuid FROM tbl_obs O INNER JOIN tbl_encounter E ON E.uuid = O.encounteruuid " +
+                "INNER JOIN tbl_user U ON U.provider_uuid = E.provider_uuid WHERE O.conceptuuid = ?"
+        )
+    }
+
+    @Test
+    fun pendingIndexesArePartial() {
+        val partial = indexes().partialNames()
+        assertEquals(
+            setOf(
+                OfflineIndexes.PATIENT_PENDING,
+                OfflineIndexes.PATIENT_ATTRIBUTE_PENDING,
+                OfflineIndexes.VISIT_ATTRIBUTE_PENDING,
+                OfflineIndexes.OBS_PENDING
+            ),
+            partial
+        )
+    }
+
+    @Test
+    fun migrationCreatesTheSameIndexes() {
+        val created = indexes()
+        OfflineIndexes.VERSION_2.forEach { db.execSQL("DROP INDEX `${it.name}`") }
+
+        OfflineMigrations.MIGRATION_1_2.migrate(db)
+
+        val migrated = indexes()
+        assertEquals(created.keys, migrated.keys)
+        assertEquals(created.partialNames(), migrated.partialNames())
+    }
+
+    private fun assertUses(index: String, sql: String): List<String> {
+        val plan = explain(sql)
+        assertTrue("$index not in $plan", plan.any { it.contains("INDEX $index ") || it.endsWith("INDEX $index") })
+        return plan
+    }
+
+    private fun explain(sql: String): List<String> {
+        val args = arrayOfNulls<Any>(sql.count { it == '?' }).apply { fill("x") }
+        return db.query("EXPLAIN QUERY PLAN $sql", args).use { cursor ->
+            val detail = cursor.getColumnIndexOrThrow("detail")
+            generateSequence { if (cursor.moveToNext()) cursor.getString(detail) else null }.toList()
+        }.map { it.replace("SCAN TABLE", "SCAN").replace("SEARCH TABLE", "SEARCH") }
+    }
+
+    private fun Map<String, String>.partialNames() = filterValues { it.contains("WHERE") }.keys
+
+    /**
+     * Name to `CREATE INDEX` statement of the explicitly created indexes.
+     */
+    private fun indexes(): Map<String, String> =
+        db.query("SELECT name, sql FROM sqlite_master WHERE type = 'index' AND sql IS NOT NULL").use { cursor ->
+            generateSequence { if (cursor.moveToNext()) cursor.getString(0) to cursor.getString(1) else null }.toMap()
+        }
+}
@@ -0,0 +1,88 @@
+package org.intelehealth.data.offline
+
+import android.content.Context
+import androidx.room.testing.MigrationTestHelper
+import androidx.sqlite.db.SupportSQLiteDatabase
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+/**
+ * Upgrades [OfflineDatabase] through [OfflineMigrations], starting from the schemas
+ * committed under `schemas/`. Version 1 is the schema the first release shipped with,
+ * rebuilt from its entities since it was never exported.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+class OfflineMigrationsTest {
+    private val context = ApplicationProvider.getApplicationContext<Context>()
+
+    @get:Rule
+    val helper = MigrationTestHelper(InstrumentationRegistry.getInstrumentation(), OfflineDatabase::class.java)
+
+    @After
+    fun tearDown() {
+        context.deleteDatabase(TEST_DB)
+    }
+
+    @Test
+    fun migratesFromFirstVersionToLatestSchema() {
+        helper.createDatabase(TEST_DB, FIRST_VERSION).use { insertPatients(it) }
+
+        helper.runMigrationsAndValidate(TEST_DB, LATEST_VERSION, true, *OfflineMigrations.ALL).use { db ->
+            assertEquals(2L, db.count("SELECT COUNT(*) FROM tbl_patient"))
+            assertEquals(listOf(PENDING_PATIENT), db.strings("SELECT row_uuid FROM tbl_change_log"))
+        }
+    }
+
+    @Test
+    fun firstVersionOpensWithRoom() {
+        helper.createDatabase(TEST_DB, FIRST_VERSION).use { insertPatients(it) }
+
+        val database = OfflineDatabase.buildDatabase(context, TEST_DB)
+        val db = database.openHelper.writableDatabase
+        assertEquals(LATEST_VERSION, db.version)
+        assertEquals(
+            listOf(
+                OfflineIndexes.OBS_PENDING,
+                OfflineIndexes.PATIENT_ATTRIBUTE_PENDING,
+                OfflineIndexes.PATIENT_PENDING,
+                OfflineIndexes.VISIT_ATTRIBUTE_PENDING
+            ),
+            db.strings("SELECT name FROM sqlite_master WHERE type = 'index' AND sql LIKE '% WHERE %' ORDER BY name")
+        )
+        database.close()
+    }
+
+    private fun insertPatients(db: SupportSQLiteDatabase) {
+        db.execSQL("INSERT INTO tbl_patient (uuid, synced, voided) VALUES ('$PENDING_PATIENT', 0, 0)")
+        db.execSQL("INSERT INTO tbl_patient (uuid, synced, voided) VALUES ('$SYNCED_PATIENT', 1, 0)")
+    }
+
+    private fun SupportSQLiteDatabase.count(sql: String): Long = query(sql).use {
+        it.moveToFirst()
+        it.getLong(0)
+    }
+
+    private fun SupportSQLiteDatabase.strings(sql: String): List<String> = query(sql).use { cursor ->
+        generateSequence { if (cursor.moveToNext()) cursor.getString(0) else null }.toList()
+    }
+
+    companion object {
+        private const val TEST_DB = "migration-test.db"
+        private const val PENDING_PATIENT = "patient-pending"
+        private const val SYNCED_PATIENT = "patient-synced"
+        private const val FIRST_VERSION = 1
+
+        /**
+         * Current `OfflineDatabase` version, bump together with it.
+         */
+        private const val LATEST_VERSION = 2
+    }
+}
@@ -0,0 +1,129 @@
+package org.intelehealth.data.offline.dao
+
+import android.content.Context
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import kotlinx.coroutines.runBlocking
+import org.intelehealth.data.offline.OfflineDatabase
+import org.intelehealth.data.offline.entity.Patient
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+/**
+ * Checks the conflict rule of [upsertFromServer] on `tbl_patient`: what a server
+ * copy does to the row stored under the same uuid.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+class ServerUpsertTest {
+    private lateinit var db: OfflineDatabase
+    private val dao get() = db.patientDao()
+
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        db = Room.inMemoryDatabaseBuilder(context, OfflineDatabase::class.java).build()
+    }
+
+    @After
+    fun tearDown() {
+        db.close()
+    }
+
+    @Test
+    fun insertsNewRow() = runBlocking {
+        val result = upsert(patient("Server", OLDER))
+
+        assertEquals(UpsertResult(inserted = 1), result)
+        assertEquals(Stored("Server", OLDER, true), stored())
+    }
+
+    @Test
+    fun keepsUnsyncedLocalRow() = runBlocking {
+        dao.insert(listOf(patient("Local", OLDER, synced = false)))
+
+        val result = upsert(patient("Server", NEWER))
+
+        assertEquals(UpsertResult(keptLocal = 1), result)
+        assertEquals(Stored("Local", OLDER, false), stored())
+    }
+
+    @Test
+    fun keepsNewerLocalRow() = runBlocking {
+        dao.insert(listOf(patient("Local", NEWER)))
+
+        val result = upsert(patient("Server", OLDER))
+
+        assertEquals(UpsertResult(keptLocal = 1), result)
+        assertEquals(Stored("Local", NEWER, true), stored())
+    }
+
+    @Test
+    fun updatesOlderLocalRow() = runBlocking {
+        dao.insert(listOf(patient("Local", OLDER)))
+
+        val result = upsert(patient("Server", NEWER))
+
+        assertEquals(UpsertResult(updated = 1), result)
+        assertEquals(Stored("Server", NEWER, true), stored())
+    }
+
+    @Test
+    fun skipsUnchangedRow() = runBlocking {
+        dao.insert(listOf(patient("Local", OLDER)))
+
+        val result = upsert(patient("Server", OLDER))
+
+        assertEquals(UpsertResult(unchanged = 1), result)
+        assertEquals(Stored("Local", OLDER, true), stored())
+    }
+
+    @Test
+    fun appliesTheRulePerRow() = runBlocking {
+        dao.insert(
+            listOf(
+                patient("Local", OLDER, synced = false, uuid = "unsynced"),
+                patient("Local", NEWER, uuid = "newer"),
+                patient("Local", OLDER, uuid = "older")
+            )
+        )
+
+        val result = upsert(
+            patient("Server", NEWER, uuid = "unsynced"),
+            patient("Server", OLDER, uuid = "newer"),
+            patient("Server", NEWER, uuid = "older"),
+            patient("Server", NEWER, uuid = "new")
+        )
+
+        assertEquals(UpsertResult(inserted = 1, updated = 1, keptLocal = 2), result)
+        assertEquals(Stored("Local", OLDER, false), stored("unsynced"))
+        assertEquals(Stored("Local", NEWER, true), stored("newer"))
+        assertEquals(Stored("Server", NEWER, true), stored("older"))
+        assertEquals(Stored("Server", NEWER, true), stored("new"))
+    }
+
+    private suspend fun upsert(vararg patients: Patient) = dao.upsertFromServer(TABLE, patients.toList())
+
+    private fun patient(firstName: String, updatedAt: String, synced: Boolean = true, uuid: String = UUID) =
+        Patient(firstName = firstName, updatedAt = updatedAt, synced = synced).apply { this.uuid = uuid }
+
+    private data class Stored(val firstName: String?, val updatedAt: String?, val synced: Boolean)
+
+    private fun stored(uuid: String = UUID): Stored = db.openHelper.readableDatabase
+        .query("SELECT first_name, updated_at, synced FROM $TABLE WHERE uuid = ?", arrayOf(uuid)).use {
+            it.moveToFirst()
+            Stored(it.getString(0), it.getString(1), it.getInt(2) != 0)
+        }
+
+    companion object {
+        private const val TABLE = "tbl_patient"
+        private const val UUID = "patient-1"
+        private const val OLDER = "2026-10-01 09:00:00"
+        private const val NEWER = "2026-10-02 09:00:00"
+    }
+}
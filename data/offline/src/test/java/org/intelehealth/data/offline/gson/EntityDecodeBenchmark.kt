@@ -0,0 +1,155 @@
+package org.intelehealth.data.offline.gson
+
+import com.google.gson.Gson
+import com.google.gson.GsonBuilder
+import com.google.gson.reflect.TypeToken
+import org.intelehealth.data.offline.entity.Encounter
+import org.intelehealth.data.offline.entity.Observation
+import org.intelehealth.data.offline.entity.Patient
+import org.intelehealth.data.offline.entity.PatientAttribute
+import org.intelehealth.data.offline.entity.PatientLocation
+import org.intelehealth.data.offline.entity.Provider
+import org.intelehealth.data.offline.entity.ProviderAttribute
+import org.intelehealth.data.offline.entity.Visit
+import org.intelehealth.data.offline.entity.VisitAttribute
+import org.junit.Test
+import java.lang.management.ManagementFactory
+import java.lang.reflect.Type
+import java.util.Locale
+
+/**
+ * JMH-style microbenchmark of decoding 1k records per entity with the reflective Gson
+ * adapters against [EntityTypeAdapterFactory]. Each case runs warm-up iterations
+ * before the measured ones and reports the average decode time and the bytes
+ * allocated by the decoding thread per 1k records.
+ *
+ * That both decoders produce the same entities is checked by [EntityTypeAdaptersTest].
+ * Iterations are set with `-Dentity.benchmark.warmup=` and `-Dentity.benchmark.iterations=`.
+ */
+class EntityDecodeBenchmark {
+    private val reflective = Gson()
+    private val streaming = GsonBuilder().registerTypeAdapterFactory(EntityTypeAdapterFactory).create()
+
+    private val warmup = Integer.getInteger(PROP_WARMUP, DEFAULT_WARMUP)
+    private val iterations = Integer.getInteger(PROP_ITERATIONS, DEFAULT_ITERATIONS)
+
+    @Test
+    fun patients() = compare("Patient", records { patient(it) })
+
+    @Test
+    fun patientAttributes() = compare("PatientAttribute", records { patientAttribute(it) })
+
+    @Test
+    fun visits() = compare("Visit", records { visit(it) })
+
+    @Test
+    fun encounters() = compare("Encounter", records { encounter(it) })
+
+    @Test
+    fun observations() = compare("Observation", records { observation(it) })
+
+    @Test
+    fun locations() = compare("PatientLocation", records { PatientLocation("Location $it", "location-$it") })
+
+    @Test
+    fun providers() = compare("Provider", records { provider(it) })
+
+    @Test
+    fun providerAttributes() = compare("ProviderAttribute", records { providerAttribute(it) })
+
+    private inline fun <reified T> records(noinline factory: (Int) -> T): Fixture {
+        val type = object : TypeToken<List<T>>() {}.type
+        return Fixture(type, reflective.toJson((0 until RECORDS).map(factory), type))
+    }
+
+    private fun compare(name: String, fixture: Fixture) {
+        val before = measure(reflective, fixture)
+        val after = measure(streaming, fixture)
+        println(
+            String.format(
+                Locale.US,
+                "%-18s reflective %8.3f ms %10d B | adapters %8.3f ms %10d B | %.2fx faster, %.2fx less allocation",
+                name, before.millis, before.bytes, after.millis, after.bytes,
+                before.millis / after.millis, before.bytes.toDouble() / after.bytes.coerceAtLeast(1)
+            )
+        )
+    }
+
+    /**
+     * Average time and allocation of decoding [RECORDS] records once.
+     */
+    private fun measure(gson: Gson, fixture: Fixture): Score {
+        repeat(warmup) { gson.fromJson<List<Any>>(fixture.json, fixture.type) }
+        val threadId = Thread.currentThread().id
+        val allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId)
+        val start = System.nanoTime()
+        repeat(iterations) { gson.fromJson<List<Any>>(fixture.json, fixture.type) }
+        val nanos = System.nanoTime() - start
+        val allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore
+        return Score(nanos / iterations / NANOS_PER_MILLI, allocated / iterations)
+    }
+
+    private fun patient(i: Int) = Patient(
+        openMrsId = "1000$i-$i", firstName = "First$i", middleName = "M", lastName = "Last$i",
+        dateOfBirth = "1990-01-01", gender = if (i % 2 == 0) "F" else "M", creatorUuid = "creator-1",
+        updatedAt = UPDATED_AT, createdAt = UPDATED_AT, profileVersion = i.toLong(), guardianName = "Guardian $i",
+        synced = true
+    ).apply {
+        uuid = "patient-$i"
+        address1 = "House $i"
+        cityVillage = "Village:District"
+        district = "District"
+        state = "State"
+        postalCode = "40000$i"
+        country = "India"
+    }
+
+    private fun patientAttribute(i: Int) = PatientAttribute(
+        value = "98765$i", personAttributeTypeUuid = "attr-type-${i % 5}", patientUuid = "patient-$i",
+        updatedAt = UPDATED_AT
+    ).apply { uuid = "patient-attr-$i" }
+
+    private fun visit(i: Int) = Visit(
+        patientUuid = "patient-$i", visitTypeUuid = "visit-type", startDate = UPDATED_AT,
+        locationUuid = "location-1", creatorUuid = "creator-1", synced = true, updatedAt = UPDATED_AT
+    ).apply {
+        uuid = "visit-$i"
+        visitAttrs = listOf(VisitAttribute(visitUuid = uuid, value = "Speciality", visitAttributeTypeUuid = "va-1"))
+    }
+
+    private fun encounter(i: Int) = Encounter(
+        visitUuid = "visit-$i", encounterTypeUuid = "encounter-type", encounterTime = UPDATED_AT,
+        providerUuid = "provider-1", updatedAt = UPDATED_AT, synced = true
+    ).apply { uuid = "encounter-$i" }
+
+    private fun observation(i: Int) = Observation(
+        encounterUuid = "encounter-${i / 10}", conceptUuid = "concept-${i % 20}", value = "Value of observation $i",
+        creator = "creator-1", updatedAt = UPDATED_AT, createdAt = UPDATED_AT, conceptSetUuid = "set-1"
+    ).apply { uuid = "obs-$i" }
+
+    private fun provider(i: Int) = Provider(
+        identifier = "P$i", givenName = "Given$i", familyName = "Family$i", emailId = "p$i@example.org",
+        telephoneNumber = "99999$i", gender = "F", role = "Nurse", providerId = i, userUuid = "user-$i",
+        updatedAt = UPDATED_AT
+    ).apply { uuid = "provider-$i" }
+
+    private fun providerAttribute(i: Int) = ProviderAttribute(
+        providerUuid = "provider-$i", providerAttrTypeUuid = "pat-${i % 3}", value = "value-$i"
+    ).apply { uuid = "provider-attr-$i" }
+
+    private class Fixture(val type: Type, val json: String)
+
+    private class Score(val millis: Double, val bytes: Long)
+
+    companion object {
+        private const val RECORDS = 1000
+        private const val PROP_WARMUP = "entity.benchmark.warmup"
+        private const val PROP_ITERATIONS = "entity.benchmark.iterations"
+        private const val DEFAULT_WARMUP = 20
+        private const val DEFAULT_ITERATIONS = 20
+        private const val NANOS_PER_MILLI = 1_000_000.0
+        private const val UPDATED_AT = "2026-10-18 10:00:00"
+
+        private val threadMXBean = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+    }
+}
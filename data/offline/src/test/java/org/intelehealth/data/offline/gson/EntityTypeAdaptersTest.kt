@@ -0,0 +1,119 @@
+package org.intelehealth.data.offline.gson
+
+import com.google.gson.Gson
+import com.google.gson.GsonBuilder
+import org.intelehealth.data.offline.entity.Encounter
+import org.intelehealth.data.offline.entity.Observation
+import org.intelehealth.data.offline.entity.Patient
+import org.intelehealth.data.offline.entity.PatientAttribute
+import org.intelehealth.data.offline.entity.PatientAttributeTypeMaster
+import org.intelehealth.data.offline.entity.PatientLocation
+import org.intelehealth.data.offline.entity.Provider
+import org.intelehealth.data.offline.entity.ProviderAttribute
+import org.intelehealth.data.offline.entity.Visit
+import org.intelehealth.data.offline.entity.VisitAttribute
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.lang.reflect.Field
+import java.lang.reflect.Modifier
+
+/**
+ * Checks that [EntityTypeAdapterFactory] decodes every entity exactly like the
+ * reflective Gson adapter. Fixtures set every field the entity exposes to a value
+ * other than its default, so a JSON name missing from an adapter shows up as a
+ * difference; results are compared by serialising them with the reflective adapter.
+ */
+class EntityTypeAdaptersTest {
+    private val reflective = Gson()
+    private val streaming = GsonBuilder().registerTypeAdapterFactory(EntityTypeAdapterFactory).create()
+
+    @Test
+    fun decodesEveryFieldOfEachEntity() {
+        ENTITIES.forEach { type -> assertSameDecoding(type, reflective.toJson(filled(type))) }
+    }
+
+    @Test
+    fun decodesQuotedNumbersAndBooleans() {
+        assertSameDecoding(
+            Patient::class.java,
+            """{"uuid":"patient-1","voided":"1","syncd":"true","profile_version":"7","guardianType":"Father"}"""
+        )
+        assertSameDecoding(
+            Visit::class.java,
+            """{"uuid":"visit-1","voided":"1","syncd":"true","isdownloaded":"true","issubmitted":"1"}"""
+        )
+        assertSameDecoding(
+            Provider::class.java,
+            """{"uuid":"provider-1","emailId":"p@example.org","providerId":"12","voided":"1","syncd":"true"}"""
+        )
+        assertSameDecoding(VisitAttribute::class.java, """{"uuid":"va-1","retired":"1","synced":"true","voided":"1"}""")
+    }
+
+    @Test
+    fun nullLeavesPrimitivesAtDefault() {
+        assertSameDecoding(
+            Patient::class.java,
+            """{"uuid":"patient-1","voided":null,"syncd":null,"profile_version":null,"firstname":null}"""
+        )
+        assertSameDecoding(VisitAttribute::class.java, """{"uuid":"va-1","retired":null,"synced":null}""")
+        assertSameDecoding(Provider::class.java, """{"uuid":"provider-1","emailId":"p","providerId":null}""")
+    }
+
+    @Test
+    fun skipsUnknownNames() {
+        assertSameDecoding(
+            Observation::class.java,
+            """{"uuid":"obs-1","unknown":{"nested":[1,2]},"concept":"c-1","person":"creator-1"}"""
+        )
+    }
+
+    private fun assertSameDecoding(type: Class<*>, json: String) {
+        val expected = reflective.toJson(reflective.fromJson(json, type))
+        val actual = reflective.toJson(streaming.fromJson(json, type))
+        assertEquals("${type.simpleName} decoded differently from $json", expected, actual)
+    }
+
+    /**
+     * Creates [type] through its adapter, then sets every field visible to the
+     * entity; a base class field shadowed by an override keeps its default.
+     */
+    private fun filled(type: Class<*>): Any {
+        val entity = streaming.fromJson("{}", type)
+        var next = 1
+        val seen = mutableSetOf<String>()
+        generateSequence<Class<*>>(type) { it.superclass }.takeWhile { it != Any::class.java }.forEach { owner ->
+            owner.declaredFields
+                .filter { !Modifier.isStatic(it.modifiers) && !Modifier.isTransient(it.modifiers) }
+                .filter { seen.add(it.name) }
+                .forEach { field ->
+                    field.isAccessible = true
+                    field.set(entity, sample(field, next++))
+                }
+        }
+        return entity
+    }
+
+    private fun sample(field: Field, n: Int): Any = when (field.type) {
+        String::class.java -> "${field.name}-$n"
+        Int::class.javaPrimitiveType, Int::class.javaObjectType -> n
+        Long::class.javaPrimitiveType, Long::class.javaObjectType -> n.toLong()
+        Boolean::class.javaPrimitiveType, Boolean::class.javaObjectType -> true
+        List::class.java -> listOf(filled(VisitAttribute::class.java))
+        else -> throw AssertionError("No sample for ${field.declaringClass.simpleName}.${field.name}: ${field.type}")
+    }
+
+    companion object {
+        private val ENTITIES = listOf(
+            Patient::class.java,
+            PatientAttribute::class.java,
+            PatientAttributeTypeMaster::class.java,
+            Visit::class.java,
+            VisitAttribute::class.java,
+            Encounter::class.java,
+            Observation::class.java,
+            PatientLocation::class.java,
+            Provider::class.java,
+            ProviderAttribute::class.java
+        )
+    }
+}
@@ -1,6 +1,7 @@
 import extensions.androidTestDeps
 import extensions.providerModuleDeps
 import extensions.unitTestDeps
+import extensions.workManagerTestDeps
 import io.gitlab.arturbosch.detekt.Detekt
 
 plugins {
@@ -15,6 +16,9 @@ plugins {
 apply("${rootProject.projectDir}/whitelabel.gradle")
 apply("${rootProject.projectDir}/variants.gradle")
 
+val SYNC_BENCHMARK_CATEGORY = "org.intelehealth.data.provider.sync.benchmark.SyncBenchmark"
+val runSyncBenchmark = gradle.startParameter.taskNames.any { it.substringAfterLast(':') == "syncBenchmark" }
+
 android {
     namespace = "org.intelehealth.data.provider"
     compileSdk = AndroidConfig.COMPILE_SDK
@@ -46,6 +50,24 @@ android {
         buildConfig = true
     }
 
+    testOptions {
+        unitTests {
+            isIncludeAndroidResources = true
+            all { test ->
+                // The sync benchmark only runs through the syncBenchmark task, which enforces its baseline
+                test.useJUnit {
+                    if (runSyncBenchmark) includeCategories(SYNC_BENCHMARK_CATEGORY)
+                    else excludeCategories(SYNC_BENCHMARK_CATEGORY)
+                }
+                if (runSyncBenchmark) test.systemProperty("sync.benchmark.enforce", "true")
+                // Forward -Psync.benchmark.* to the sync benchmark, e.g. -Psync.benchmark.patients=100000
+                project.properties.filterKeys { it.startsWith("sync.benchmark.") }.forEach { (key, value) ->
+                    test.systemProperty(key, value.toString())
+                }
+            }
+        }
+    }
+
     kapt {
         correctErrorTypes = true
 //        arguments {
@@ -60,5 +82,12 @@ dependencies {
 
     providerModuleDeps()
     unitTestDeps()
+    workManagerTestDeps()
     androidTestDeps()
 }
+
+tasks.register("syncBenchmark") {
+    group = "verification"
+    description = "Runs the sync throughput benchmark and fails when it falls below its baseline."
+    dependsOn("testIdaDevDebugUnitTest")
+}
@@ -40,5 +40,5 @@ class ConsentDataSource @Inject constructor(
      * @param url The URL of the consent page to fetch.
      * @return A flow that emits the result of the network request.
      */
-    fun getConsent(url: String) = getResult { restClient.getHtmlPage(url) }
+    fun getConsent(url: String) = getResult(cached = true) { restClient.getHtmlPage(url) }
 }
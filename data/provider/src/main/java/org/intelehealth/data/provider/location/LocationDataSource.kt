@@ -14,5 +14,11 @@ class LocationDataSource @Inject constructor(
     private val restClient: RestClient,
     private val networkHelper: NetworkHelper,
 ) : BaseDataSource(networkHelper = networkHelper) {
-    fun getLocation() = getResult { restClient.fetchLocationList() }
+    fun getLocation() = getSharedResult(KEY_LOCATIONS, SHORT_TTL_MILLIS, cached = true) {
+        restClient.fetchLocationList()
+    }
+
+    companion object {
+        private const val KEY_LOCATIONS = "locations"
+    }
 }
@@ -0,0 +1,109 @@
+package org.intelehealth.data.provider.outbox
+
+import com.github.ajalt.timberkt.Timber
+import com.google.gson.Gson
+import com.google.gson.JsonParseException
+import org.intelehealth.common.extensions.toBase64
+import org.intelehealth.common.service.HttpStatusCode
+import org.intelehealth.data.network.model.request.DeviceTokenReq
+import org.intelehealth.data.offline.dao.OutboxDao
+import org.intelehealth.data.offline.entity.OutboxEntry
+import org.intelehealth.data.provider.session.SessionContext
+import org.intelehealth.data.provider.user.UserDataSource
+import retrofit2.Response
+import java.io.IOException
+import javax.inject.Inject
+
+/**
+ * Replays the queued [OutboxEntry]s in order.
+ *
+ * Entries are read a page at a time and sent one after the other within the same run.
+ * An entry is deleted once the server accepted it, or rejected it for good (4xx other
+ * than 401, 408 and 429). Any other failure stops the drain, so that later entries
+ * never overtake an earlier one, unless the entry already failed [MAX_ATTEMPTS] times.
+ */
+class OutboxDispatcher @Inject constructor(
+    private val outboxDao: OutboxDao,
+    private val dataSource: UserDataSource,
+    private val sessionContext: SessionContext,
+    private val gson: Gson
+) {
+    /**
+     * @return true when the outbox is empty, false when entries are left for a retry.
+     */
+    suspend fun drain(): Boolean {
+        while (true) {
+            val page = outboxDao.getPending(PAGE_SIZE)
+            if (page.isEmpty()) return true
+            for (entry in page) {
+                val error = deliver(entry) ?: continue
+                outboxDao.markFailed(entry.id, entry.payload, error)
+                if (entry.attempts + 1 < MAX_ATTEMPTS) return false
+                Timber.w { "Dropping ${entry.operation} #${entry.id} after $MAX_ATTEMPTS attempts: $error" }
+                outboxDao.deleteSent(entry.id, entry.payload)
+            }
+        }
+    }
+
+    /**
+     * Sends [entry] and deletes it unless it should be retried. A newer value coalesced
+     * into the entry while it was being sent keeps it queued for the next round.
+     *
+     * @return The error to retry on, or null when the entry is done with.
+     */
+    private suspend fun deliver(entry: OutboxEntry): String? {
+        val response = try {
+            send(entry)
+        } catch (e: IOException) {
+            return e.message ?: e.javaClass.simpleName
+        } catch (e: JsonParseException) {
+            Timber.e(e) { "Unreadable ${entry.operation} #${entry.id}" }
+            null
+        }
+
+        when {
+            response == null -> Timber.w { "${entry.operation} #${entry.id} can't be sent, dropped" }
+            response.isSuccessful -> Timber.d { "${entry.operation} #${entry.id} sent" }
+            response.code().isRetryable() -> return "HTTP ${response.code()}"
+            else -> Timber.w { "${entry.operation} #${entry.id} rejected with HTTP ${response.code()}" }
+        }
+        if (outboxDao.deleteSent(entry.id, entry.payload) == 0) {
+            Timber.d { "${entry.operation} #${entry.id} changed while sending, kept" }
+        }
+        return null
+    }
+
+    private suspend fun send(entry: OutboxEntry): Response<*>? {
+        val basicAuth = sessionContext.current.basicToken
+        return when (OutboxOperation.of(entry)) {
+            OutboxOperation.CREATE_PROVIDER_ATTRIBUTE -> entry.payload<ProviderAttributePayload>().let {
+                dataSource.createUserProfileAttribute(basicAuth, it.providerId, it.attributeTypeUuid, it.value)
+            }
+
+            OutboxOperation.UPDATE_PROVIDER_ATTRIBUTE -> entry.payload<ProviderAttributePayload>().let {
+                dataSource.updateUserProfileAttribute(basicAuth, it.providerId, it.attributeTypeUuid, it.value)
+            }
+
+            OutboxOperation.UPLOAD_PROFILE_PICTURE -> entry.payload<ProfilePicturePayload>().let { picture ->
+                val image = picture.imagePath.toBase64() ?: return null
+                dataSource.updateUserProfilePicture(basicAuth, picture.personId, image)
+            }
+
+            OutboxOperation.SEND_DEVICE_TOKEN -> dataSource.putUserDeviceToken(entry.payload<DeviceTokenReq>())
+
+            null -> null
+        }
+    }
+
+    private inline fun <reified T> OutboxEntry.payload(): T = gson.fromJson(payload, T::class.java)
+
+    private fun Int.isRetryable() = this == HttpStatusCode.UNAUTHORIZED || this == HTTP_REQUEST_TIMEOUT ||
+            this == HTTP_TOO_MANY_REQUESTS || this >= HttpStatusCode.INTERNAL_SERVER_ERROR
+
+    companion object {
+        private const val PAGE_SIZE = 20
+        private const val MAX_ATTEMPTS = 10
+        private const val HTTP_REQUEST_TIMEOUT = 408
+        private const val HTTP_TOO_MANY_REQUESTS = 429
+    }
+}
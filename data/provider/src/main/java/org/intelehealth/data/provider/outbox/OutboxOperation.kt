@@ -0,0 +1,36 @@
+package org.intelehealth.data.provider.outbox
+
+import org.intelehealth.data.offline.entity.OutboxEntry
+
+/**
+ * The requests an [OutboxEntry] can hold, stored by name in [OutboxEntry.operation].
+ */
+enum class OutboxOperation {
+    CREATE_PROVIDER_ATTRIBUTE,
+    UPDATE_PROVIDER_ATTRIBUTE,
+    UPLOAD_PROFILE_PICTURE,
+    SEND_DEVICE_TOKEN;
+
+    companion object {
+        fun of(entry: OutboxEntry): OutboxOperation? = entries.firstOrNull { it.name == entry.operation }
+    }
+}
+
+/**
+ * Payload of [OutboxOperation.CREATE_PROVIDER_ATTRIBUTE] and
+ * [OutboxOperation.UPDATE_PROVIDER_ATTRIBUTE].
+ */
+data class ProviderAttributePayload(
+    val providerId: String,
+    val attributeTypeUuid: String,
+    val value: String
+)
+
+/**
+ * Payload of [OutboxOperation.UPLOAD_PROFILE_PICTURE]. The image is kept as a file
+ * path and only encoded when it is sent, so large pictures stay out of the database.
+ */
+data class ProfilePicturePayload(
+    val personId: String,
+    val imagePath: String
+)
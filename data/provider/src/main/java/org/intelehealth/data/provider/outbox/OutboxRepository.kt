@@ -0,0 +1,72 @@
+package org.intelehealth.data.provider.outbox
+
+import android.content.Context
+import androidx.room.withTransaction
+import com.google.gson.Gson
+import dagger.hilt.android.qualifiers.ApplicationContext
+import org.intelehealth.data.network.model.request.DeviceTokenReq
+import org.intelehealth.data.offline.OfflineDatabase
+import org.intelehealth.data.offline.dao.OutboxDao
+import org.intelehealth.data.offline.entity.OutboxEntry
+import org.intelehealth.data.provider.outbox.worker.OutboxWorker
+import javax.inject.Inject
+
+/**
+ * Queues user-initiated requests that could not be sent, and schedules the
+ * [OutboxWorker] that replays them once the device is online.
+ *
+ * Requests for the same target coalesce: a newer value replaces the queued one in
+ * place, so only the latest profile attribute, picture or device token is sent. An
+ * attribute whose create is still queued stays a create with the newer value.
+ */
+class OutboxRepository @Inject constructor(
+    @ApplicationContext private val context: Context,
+    private val db: OfflineDatabase,
+    private val outboxDao: OutboxDao,
+    private val gson: Gson
+) {
+    fun getPendingCount() = outboxDao.getPendingCount()
+
+    suspend fun enqueueProviderAttribute(payload: ProviderAttributePayload, isNew: Boolean) {
+        val operation = if (isNew) OutboxOperation.CREATE_PROVIDER_ATTRIBUTE
+        else OutboxOperation.UPDATE_PROVIDER_ATTRIBUTE
+        enqueue(operation, "$KEY_PROVIDER_ATTRIBUTE${payload.providerId}:${payload.attributeTypeUuid}", payload)
+    }
+
+    suspend fun enqueueProfilePicture(payload: ProfilePicturePayload) =
+        enqueue(OutboxOperation.UPLOAD_PROFILE_PICTURE, "$KEY_PROFILE_PICTURE${payload.personId}", payload)
+
+    suspend fun enqueueDeviceToken(deviceToken: DeviceTokenReq) =
+        enqueue(OutboxOperation.SEND_DEVICE_TOKEN, KEY_DEVICE_TOKEN, deviceToken)
+
+    private suspend fun enqueue(operation: OutboxOperation, coalesceKey: String, payload: Any) {
+        val json = gson.toJson(payload)
+        db.withTransaction {
+            val queued = outboxDao.getByCoalesceKey(coalesceKey)
+            if (queued == null) {
+                outboxDao.insert(OutboxEntry(operation = operation.name, coalesceKey = coalesceKey, payload = json))
+            } else {
+                val merged = if (queued.operation == OutboxOperation.CREATE_PROVIDER_ATTRIBUTE.name) {
+                    OutboxOperation.CREATE_PROVIDER_ATTRIBUTE
+                } else operation
+                outboxDao.replacePayload(queued.id, merged.name, json)
+            }
+        }
+        OutboxWorker.enqueue(context)
+    }
+
+    /**
+     * Drops what the signed-out user queued. The entries are sent with the credentials
+     * of whoever is signed in at drain time, so they must not outlive the session.
+     */
+    fun clear() {
+        OutboxWorker.cancel(context)
+        db.queryExecutor.execute { outboxDao.deleteAll() }
+    }
+
+    companion object {
+        private const val KEY_PROVIDER_ATTRIBUTE = "provider_attribute:"
+        private const val KEY_PROFILE_PICTURE = "profile_picture:"
+        private const val KEY_DEVICE_TOKEN = "device_token"
+    }
+}
@@ -0,0 +1,56 @@
+package org.intelehealth.data.provider.outbox.worker
+
+import android.content.Context
+import androidx.hilt.work.HiltWorker
+import androidx.work.BackoffPolicy
+import androidx.work.Constraints
+import androidx.work.CoroutineWorker
+import androidx.work.ExistingWorkPolicy
+import androidx.work.NetworkType
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.WorkManager
+import androidx.work.WorkerParameters
+import dagger.assisted.Assisted
+import dagger.assisted.AssistedInject
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import org.intelehealth.data.provider.outbox.OutboxDispatcher
+import java.util.concurrent.TimeUnit
+
+/**
+ * Drains the outbox through [OutboxDispatcher] whenever the device is online, and
+ * retries with exponential backoff while entries are left.
+ */
+@HiltWorker
+class OutboxWorker @AssistedInject constructor(
+    @Assisted ctx: Context,
+    @Assisted params: WorkerParameters,
+    private val dispatcher: OutboxDispatcher
+) : CoroutineWorker(ctx, params) {
+
+    override suspend fun doWork(): Result = withContext(Dispatchers.IO) {
+        if (dispatcher.drain()) Result.success() else Result.retry()
+    }
+
+    companion object {
+        private const val WORK_NAME = "user_outbox"
+        private const val BACKOFF_SECONDS = 30L
+
+        /**
+         * Schedules a drain. A drain that is already queued or running is kept, and
+         * this one runs after it, so entries queued during a drain are not missed.
+         */
+        fun enqueue(context: Context) {
+            val request = OneTimeWorkRequestBuilder<OutboxWorker>()
+                .setConstraints(Constraints.Builder().setRequiredNetworkType(NetworkType.CONNECTED).build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build()
+            WorkManager.getInstance(context.applicationContext)
+                .enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, request)
+        }
+
+        fun cancel(context: Context) {
+            WorkManager.getInstance(context.applicationContext).cancelUniqueWork(WORK_NAME)
+        }
+    }
+}
@@ -38,7 +38,7 @@ class ProtocolsDataSource @Inject constructor(
      * @param jwtToken The JWT token for authentication.
      * @return A [Result] object containing the response from the server.
      */
-    fun getDownloadProtocolsUrl(licenseKey: String, jwtToken: String) = getResult {
+    fun getDownloadProtocolsUrl(licenseKey: String, jwtToken: String) = getResult(cached = true) {
         restClient.downloadMindMapProtocols(licenseKey = licenseKey, jwtToken = jwtToken)
     }
 }
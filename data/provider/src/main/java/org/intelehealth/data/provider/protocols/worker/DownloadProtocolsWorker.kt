@@ -11,6 +11,8 @@ import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
 import okhttp3.OkHttpClient
 import okhttp3.Request
+import org.intelehealth.common.helper.BandwidthProfile
+import org.intelehealth.common.helper.BandwidthProfiler
 import org.intelehealth.common.service.BaseResponse
 import org.intelehealth.common.service.HttpStatusCode.HTTP_SUCCESS
 import org.intelehealth.common.state.StateWorker
@@ -47,7 +49,8 @@ class DownloadProtocolsWorker @AssistedInject constructor(
     @Assisted private val ctx: Context,
     @Assisted private val params: WorkerParameters,
     private val protocolsRepository: ProtocolsRepository,
-    private val okHttpClient: OkHttpClient
+    private val okHttpClient: OkHttpClient,
+    private val bandwidthProfiler: BandwidthProfiler
 ) : StateWorker(ctx, params) {
     private var progress = 0
 
@@ -102,7 +105,7 @@ class DownloadProtocolsWorker @AssistedInject constructor(
         contentLength: Long
     ) = withContext(Dispatchers.IO) {
         setProgress(workDataOf(WORK_PROGRESS to progress))
-        val buffer = ByteArray(1024)
+        val buffer = ByteArray(readBufferSize(bandwidthProfiler.current()))
         val zis = ZipInputStream(inputStream)
         var zipEntry: ZipEntry? = zis.nextEntry
         var totalRead = 0L
@@ -132,6 +135,12 @@ class DownloadProtocolsWorker @AssistedInject constructor(
         workerResult = Result.success()
     }
 
+    /**
+     * The archive is served as is, so only the reads can follow the [BandwidthProfile]:
+     * larger ones on a fast network, where a small buffer costs a call per packet.
+     */
+    private fun readBufferSize(profile: BandwidthProfile) = profile.scale(DEFAULT_BUFFER_SIZE * 2)
+
     companion object {
         const val PROTOCOL_LICENSE_KEY = "protocol_license_key"
         const val PROTOCOL_LICENSE_KEY_VALIDATED = "protocol_license_key_validated"
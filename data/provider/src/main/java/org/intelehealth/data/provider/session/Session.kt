@@ -0,0 +1,24 @@
+package org.intelehealth.data.provider.session
+
+import org.intelehealth.data.network.model.SetupLocation
+
+/**
+ * Typed snapshot of the signed-in user's session, published by [SessionContext].
+ *
+ * @property location The location selected during setup, or null before setup.
+ * @property userId The uuid of the signed-in user, empty when nobody signed in yet.
+ * @property providerId The provider uuid of [userId], or null until it is resolved.
+ * @property basicToken The `Authorization` header used for the EMR middleware.
+ * @property jwtToken The JWT used for the other services.
+ * @property loggedIn Whether the user is currently signed in.
+ */
+data class Session(
+    val location: SetupLocation? = null,
+    val userId: String = "",
+    val providerId: String? = null,
+    val basicToken: String = "",
+    val jwtToken: String = "",
+    val loggedIn: Boolean = false
+) {
+    val locationId: String? get() = location?.uuid
+}
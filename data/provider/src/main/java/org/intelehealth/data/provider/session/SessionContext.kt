@@ -0,0 +1,104 @@
+package org.intelehealth.data.provider.session
+
+import android.content.res.Resources.NotFoundException
+import com.github.ajalt.timberkt.Timber
+import com.google.gson.Gson
+import com.google.gson.JsonSyntaxException
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.update
+import org.intelehealth.common.helper.PreferenceHelper
+import org.intelehealth.common.helper.PreferenceStore
+import org.intelehealth.common.utility.PreferenceUtils
+import org.intelehealth.data.network.model.SetupLocation
+import org.intelehealth.data.offline.dao.UserDao
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Holds the parsed [Session] so that callers read typed fields instead of parsing
+ * [PreferenceUtils.location] and reading the token preferences on every use.
+ *
+ * The session is rebuilt whenever one of its preferences changes, so writes through
+ * [PreferenceUtils] from any module are picked up.
+ */
+@Singleton
+class SessionContext @Inject constructor(
+    private val preferenceUtils: PreferenceUtils,
+    private val userDao: UserDao,
+    private val gson: Gson,
+    preferenceHelper: PreferenceHelper
+) {
+    private val state = MutableStateFlow(read(Session()))
+
+    private val preferenceListener = PreferenceStore.OnChangeListener { key ->
+        if (key in sessionKeys) invalidate()
+    }
+
+    init {
+        preferenceHelper.registerChangeListener(preferenceListener)
+    }
+
+    /**
+     * The current session, updated on location change, sign in and logout.
+     */
+    val session: StateFlow<Session> = state.asStateFlow()
+
+    val current: Session get() = state.value
+
+    /**
+     * The uuid of the setup location.
+     *
+     * @throws NotFoundException when no location was selected yet.
+     */
+    val locationId: String get() = current.locationId ?: throw NotFoundException("Location not found")
+
+    /**
+     * Re-reads the session from the preferences. The provider id is kept while the
+     * user stays the same.
+     */
+    fun invalidate() {
+        state.update { read(it) }
+    }
+
+    /**
+     * Returns the provider uuid of the signed-in user, loading it once per user.
+     */
+    suspend fun providerId(): String? {
+        current.providerId?.let { return it }
+        val userId = current.userId.ifEmpty { return null }
+        val providerId = userDao.getUserProviderId(userId)
+        state.update { if (it.userId == userId) it.copy(providerId = providerId) else it }
+        return providerId
+    }
+
+    private fun read(previous: Session): Session {
+        val userId = preferenceUtils.userId
+        return Session(
+            location = parseLocation(preferenceUtils.location),
+            userId = userId,
+            providerId = previous.providerId.takeIf { previous.userId == userId },
+            basicToken = preferenceUtils.basicToken,
+            jwtToken = preferenceUtils.jwtToken,
+            loggedIn = preferenceUtils.userLoggedInStatus
+        )
+    }
+
+    private fun parseLocation(json: String): SetupLocation? = if (json.isEmpty()) null else try {
+        gson.fromJson(json, SetupLocation::class.java)
+    } catch (e: JsonSyntaxException) {
+        Timber.e(e) { "Stored location is not valid" }
+        null
+    }
+
+    companion object {
+        private val sessionKeys = setOf(
+            PreferenceHelper.KEY_PREF_LOCATION_UUID,
+            PreferenceHelper.USER_ID,
+            PreferenceHelper.AUTH_BASIC_TOKEN,
+            PreferenceHelper.JWT_AUTH_TOKEN,
+            PreferenceHelper.USER_LOGGED_IN_STATUS
+        )
+    }
+}
@@ -0,0 +1,14 @@
+package org.intelehealth.data.provider.sync.data
+
+/**
+ * A `pulldata` page addressed by page number and page limit. The server skips
+ * `pageNo * pageSize` records, so two requests with different sizes refer to the
+ * same position only when their [offset]s are equal.
+ */
+data class PullPageRequest(val pageNo: Int, val pageSize: Int) {
+    val offset: Long
+        get() = pageNo.toLong() * pageSize
+
+    val nextOffset: Long
+        get() = offset + pageSize
+}
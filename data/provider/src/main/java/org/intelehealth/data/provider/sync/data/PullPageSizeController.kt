@@ -0,0 +1,101 @@
+package org.intelehealth.data.provider.sync.data
+
+import com.github.ajalt.timberkt.Timber
+import java.util.concurrent.TimeUnit
+
+/**
+ * Chooses the `pulldata` page limit between requests from the measurements of the
+ * pages already pulled: request latency and payload bytes reported by the producer,
+ * and database write time reported by the writer.
+ *
+ * Page sizes are restricted to [minPageSize] times a power of two, up to
+ * [maxPageSize]. Every offset reached during a run is then a multiple of
+ * [minPageSize], so the size can always shrink, and it grows only when the current
+ * offset is a multiple of the larger size. This keeps `pageNo * pageSize` pointing at
+ * the record the previous page stopped at.
+ *
+ * A page shrinks the size when it was slower than [targetLatencyMillis], larger than
+ * [maxPageBytes] or held the write transaction longer than [maxWriteMillis]. It grows
+ * the size when all three stayed well under their limits.
+ *
+ * @param minPageSize The smallest page limit ever requested.
+ * @param maxPageSize The largest page limit ever requested.
+ * @param initialPageSize The page limit of the first request.
+ */
+class PullPageSizeController(
+    private val minPageSize: Int = MIN_PAGE_SIZE,
+    maxPageSize: Int = MAX_PAGE_SIZE,
+    initialPageSize: Int = SyncDataRepository.DEFAULT_PAGE_SIZE,
+    private val targetLatencyMillis: Long = TARGET_LATENCY_MILLIS,
+    private val maxPageBytes: Long = MAX_PAGE_BYTES,
+    private val maxWriteMillis: Long = MAX_WRITE_MILLIS
+) {
+    private val sizes: List<Int> = generateSequence(minPageSize) { it * 2 }.takeWhile { it <= maxPageSize }.toList()
+    private var level = sizes.indexOfLast { it <= initialPageSize }.coerceAtLeast(0)
+    private var writeHeadroom = true
+
+    val pageSize: Int
+        @Synchronized get() = sizes[level]
+
+    /**
+     * Records the download of a page of [pageSize] records that took [nanos] and
+     * carried [bytes] bytes.
+     */
+    @Synchronized
+    fun onFetched(pageSize: Int, nanos: Long, bytes: Long) {
+        val millis = TimeUnit.NANOSECONDS.toMillis(nanos)
+        when {
+            millis > targetLatencyMillis || bytes > maxPageBytes -> shrink(pageSize)
+            millis < targetLatencyMillis / GROW_DIVISOR && bytes < maxPageBytes / GROW_DIVISOR -> grow(pageSize)
+        }
+    }
+
+    /**
+     * Records the write of a page of [pageSize] records that held the transaction
+     * for [nanos].
+     */
+    @Synchronized
+    fun onWritten(pageSize: Int, nanos: Long) {
+        val millis = TimeUnit.NANOSECONDS.toMillis(nanos)
+        writeHeadroom = millis < maxWriteMillis / GROW_DIVISOR
+        if (millis > maxWriteMillis) shrink(pageSize)
+    }
+
+    /**
+     * Returns the request for the page starting at [offset], using the largest
+     * allowed size that is not above the current one and is aligned to [offset].
+     * When no allowed size fits, [fallback] keeps the page size of the previous run.
+     */
+    @Synchronized
+    fun requestAt(offset: Long, fallback: Int = pageSize): PullPageRequest {
+        val size = sizes.subList(0, level + 1).lastOrNull { offset % it == 0L } ?: fallback
+        return PullPageRequest((offset / size).toInt(), size)
+    }
+
+    private fun shrink(pageSize: Int) {
+        val next = (levelOf(pageSize) - 1).coerceAtLeast(0)
+        if (next < level) {
+            level = next
+            Timber.d { "Pull page size reduced to ${sizes[level]}" }
+        }
+    }
+
+    private fun grow(pageSize: Int) {
+        val next = (levelOf(pageSize) + 1).coerceAtMost(sizes.lastIndex)
+        if (writeHeadroom && next > level && levelOf(pageSize) == level) {
+            level = next
+            Timber.d { "Pull page size increased to ${sizes[level]}" }
+        }
+    }
+
+    private fun levelOf(pageSize: Int): Int = sizes.indexOfLast { it <= pageSize }.coerceAtLeast(0)
+
+    companion object {
+        const val MIN_PAGE_SIZE = 25
+        const val MAX_PAGE_SIZE = 400
+        const val TARGET_LATENCY_MILLIS = 10_000L
+        const val MAX_PAGE_BYTES = 4L * 1024 * 1024
+        const val MAX_WRITE_MILLIS = 2_000L
+        private const val GROW_DIVISOR = 4
+    }
+}
@@ -0,0 +1,135 @@
+package org.intelehealth.data.provider.sync.data
+
+import com.google.gson.Gson
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import okhttp3.ResponseBody
+import java.io.Reader
+
+/**
+ * Reads a `pulldata` response token by token instead of binding the whole
+ * [org.intelehealth.data.network.model.response.PullResponse] in memory.
+ *
+ * Each entity list is decoded one element at a time and handed to the sink in
+ * chunks of at most [chunkSize] rows, so the peak heap used by a page depends on
+ * the chunk size rather than on the number of records the server returns.
+ *
+ * @param gson The [Gson] instance used to decode single entities.
+ * @param chunkSize The maximum number of entities buffered before the sink is called.
+ */
+class PullPageStreamReader(
+    private val gson: Gson,
+    private val chunkSize: Int = DEFAULT_CHUNK_SIZE
+) {
+
+    /**
+     * Receives decoded entities while the page is being read.
+     */
+    fun interface Sink {
+        suspend fun onChunk(section: PullSection, chunk: List<Any>)
+    }
+
+    /**
+     * Reads the given response body and closes it once the page is consumed.
+     *
+     * @param body The raw `pulldata` response body.
+     * @param summary The [PullPageSummary] filled while reading.
+     * @param sink The [Sink] receiving the decoded entity chunks.
+     * @return The [PullPageSummary] of the page.
+     */
+    suspend fun read(
+        body: ResponseBody,
+        summary: PullPageSummary = PullPageSummary(),
+        sink: Sink
+    ): PullPageSummary = body.use { read(it.charStream(), summary, sink) }
+
+    /**
+     * Reads a `pulldata` response from the given reader. The reader is closed
+     * once the page is consumed.
+     */
+    suspend fun read(
+        source: Reader,
+        summary: PullPageSummary = PullPageSummary(),
+        sink: Sink
+    ): PullPageSummary {
+        JsonReader(source).use { reader ->
+            reader.beginObject()
+            while (reader.hasNext()) {
+                when (reader.nextName()) {
+                    KEY_STATUS -> summary.status = reader.nextStringOrNull()
+                    KEY_DATA -> readData(reader, sink, summary)
+                    else -> reader.skipValue()
+                }
+            }
+            reader.endObject()
+        }
+        return summary
+    }
+
+    private suspend fun readData(reader: JsonReader, sink: Sink, summary: PullPageSummary) {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull()
+            return
+        }
+
+        reader.beginObject()
+        while (reader.hasNext()) {
+            val name = reader.nextName()
+            when (name) {
+                KEY_PULL_EXECUTED_TIME -> summary.pullExecutedTime = reader.nextStringOrNull()
+                KEY_PAGE_NO -> summary.pageNo = reader.nextIntOrZero()
+                KEY_TOTAL_COUNT -> summary.totalCount = reader.nextIntOrZero()
+                else -> PullSection.fromKey(name)?.let {
+                    summary.rowCounts[it] = readSection(reader, it, sink)
+                } ?: reader.skipValue()
+            }
+        }
+        reader.endObject()
+        summary.hasData = true
+    }
+
+    private suspend fun readSection(reader: JsonReader, section: PullSection, sink: Sink): Int {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull()
+            return 0
+        }
+
+        var count = 0
+        val buffer = ArrayList<Any>(chunkSize)
+        reader.beginArray()
+        while (reader.hasNext()) {
+            gson.fromJson<Any>(reader, section.type)?.let { buffer.add(it) }
+            if (buffer.size >= chunkSize) {
+                count += buffer.size
+                sink.onChunk(section, ArrayList(buffer))
+                buffer.clear()
+            }
+        }
+        reader.endArray()
+
+        if (buffer.isNotEmpty()) {
+            count += buffer.size
+            sink.onChunk(section, buffer)
+        }
+        return count
+    }
+
+    private fun JsonReader.nextStringOrNull(): String? = if (peek() == JsonToken.NULL) {
+        nextNull()
+        null
+    } else nextString()
+
+    private fun JsonReader.nextIntOrZero(): Int = if (peek() == JsonToken.NULL) {
+        nextNull()
+        0
+    } else nextInt()
+
+    companion object {
+        const val DEFAULT_CHUNK_SIZE = 200
+        private const val KEY_STATUS = "status"
+        private const val KEY_DATA = "data"
+        private const val KEY_PULL_EXECUTED_TIME = "pullexecutedtime"
+        private const val KEY_PAGE_NO = "pageNo"
+        private const val KEY_TOTAL_COUNT = "totalCount"
+    }
+}
@@ -0,0 +1,65 @@
+package org.intelehealth.data.provider.sync.data
+
+/**
+ * Scalar fields of a `pulldata` page plus the number of rows decoded and written
+ * per [PullSection], collected while the page is saved into the database.
+ *
+ * @property requestedPage The page number the page was requested with; [pageNo] is the next one.
+ * @property fetchNanos Time spent waiting for and downloading the body.
+ * @property bytes Size of the downloaded body.
+ * @property readNanos Time spent reading the body, including the writes of [writeNanos].
+ * @property skippedRows Rows left untouched because they were unchanged or edited locally.
+ */
+data class PullPageSummary(
+    var requestedPage: Int = 0,
+    var status: String? = null,
+    var pullExecutedTime: String? = null,
+    var pageNo: Int = 0,
+    var totalCount: Int = 0,
+    var hasData: Boolean = false,
+    val rowCounts: MutableMap<PullSection, Int> = mutableMapOf(),
+    val writtenRows: MutableMap<PullSection, Int> = mutableMapOf(),
+    val writeNanos: MutableMap<PullSection, Long> = mutableMapOf(),
+    val skippedRows: MutableMap<PullSection, Int> = mutableMapOf(),
+    var fetchNanos: Long = 0,
+    var bytes: Long = 0,
+    var readNanos: Long = 0
+) {
+    fun rowCount(section: PullSection): Int = rowCounts[section] ?: writtenRows[section] ?: 0
+
+    fun totalRows(): Int = PullSection.entries.sumOf { rowCount(it) }
+
+    fun totalWriteNanos(): Long = writeNanos.values.sum()
+
+    /**
+     * Time spent parsing JSON, i.e. reading the body minus writing the rows.
+     */
+    fun decodeNanos(): Long = (readNanos - totalWriteNanos()).coerceAtLeast(0)
+
+    fun recordWrite(section: PullSection, rows: Int, nanos: Long) {
+        writtenRows[section] = (writtenRows[section] ?: 0) + rows
+        writeNanos[section] = (writeNanos[section] ?: 0L) + nanos
+    }
+
+    fun recordSkipped(section: PullSection, rows: Int) {
+        if (rows > 0) skippedRows[section] = (skippedRows[section] ?: 0) + rows
+    }
+
+    /**
+     * Insert throughput of a section in rows per second, or 0 when nothing was written.
+     */
+    fun rowsPerSecond(section: PullSection): Double {
+        val rows = writtenRows[section] ?: return 0.0
+        val nanos = writeNanos[section] ?: return 0.0
+        return if (nanos > 0) rows * NANOS_PER_SECOND / nanos else 0.0
+    }
+
+    fun writeReport(): String = writtenRows.keys.joinToString { section ->
+        val skipped = skippedRows[section] ?: 0
+        "$section ${writtenRows[section]} rows ($skipped skipped) @ ${rowsPerSecond(section).toLong()} rows/s"
+    }
+
+    companion object {
+        private const val NANOS_PER_SECOND = 1_000_000_000.0
+    }
+}
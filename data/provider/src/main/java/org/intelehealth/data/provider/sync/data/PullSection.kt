@@ -0,0 +1,50 @@
+package org.intelehealth.data.provider.sync.data
+
+import org.intelehealth.data.offline.entity.Encounter
+import org.intelehealth.data.offline.entity.Observation
+import org.intelehealth.data.offline.entity.Patient
+import org.intelehealth.data.offline.entity.PatientAttribute
+import org.intelehealth.data.offline.entity.PatientAttributeTypeMaster
+import org.intelehealth.data.offline.entity.PatientLocation
+import org.intelehealth.data.offline.entity.Provider
+import org.intelehealth.data.offline.entity.ProviderAttribute
+import org.intelehealth.data.offline.entity.Visit
+import org.intelehealth.data.offline.entity.VisitAttribute
+
+/**
+ * Entity lists carried by a `pulldata` page, keyed by the JSON field name used in
+ * [org.intelehealth.data.network.model.response.PullResponse].
+ *
+ * @property key The JSON key of the list inside the response `data` object.
+ * @property type The entity class each list element is decoded into.
+ * @property table The table the entities are stored in.
+ * @property keyColumn The primary key column of [table].
+ * @property marksSynced Whether the rows are stored as synced whatever the page says.
+ * Patients, visits and encounters keep the synced flag sent by the server.
+ */
+enum class PullSection(
+    val key: String,
+    val type: Class<*>,
+    val table: String,
+    val keyColumn: String = "uuid",
+    val marksSynced: Boolean = true
+) {
+    PATIENT("patientlist", Patient::class.java, "tbl_patient", marksSynced = false),
+    PATIENT_ATTRIBUTE_MASTER(
+        "patientAttributeTypeListMaster", PatientAttributeTypeMaster::class.java, "tbl_patient_attribute_master"
+    ),
+    PATIENT_ATTRIBUTE("patientAttributesList", PatientAttribute::class.java, "tbl_patient_attribute"),
+    VISIT("visitlist", Visit::class.java, "tbl_visit", marksSynced = false),
+    VISIT_ATTRIBUTE("visitAttributeList", VisitAttribute::class.java, "tbl_visit_attribute"),
+    ENCOUNTER("encounterlist", Encounter::class.java, "tbl_encounter", marksSynced = false),
+    OBSERVATION("obslist", Observation::class.java, "tbl_obs"),
+    LOCATION("locationlist", PatientLocation::class.java, "tbl_location", "locationuuid"),
+    PROVIDER("providerlist", Provider::class.java, "tbl_provider"),
+    PROVIDER_ATTRIBUTE("providerAttributeList", ProviderAttribute::class.java, "tbl_provider_attribute");
+
+    companion object {
+        private val keys = entries.associateBy { it.key }
+
+        fun fromKey(key: String): PullSection? = keys[key]
+    }
+}
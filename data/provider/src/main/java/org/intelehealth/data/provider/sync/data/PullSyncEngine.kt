@@ -0,0 +1,204 @@
+package org.intelehealth.data.provider.sync.data
+
+import android.content.Context
+import androidx.annotation.VisibleForTesting
+import com.github.ajalt.timberkt.Timber
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.NonCancellable
+import kotlinx.coroutines.cancelAndJoin
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.channels.ReceiveChannel
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import okio.buffer
+import okio.sink
+import org.intelehealth.common.helper.NetworkHelper
+import org.intelehealth.common.service.HttpStatusCode.HTTP_OK
+import org.intelehealth.common.state.Result
+import org.intelehealth.common.utility.API_ERROR
+import org.intelehealth.data.provider.sync.data.SyncDataRepository.Companion.DEFAULT_PAGE_SIZE
+import org.intelehealth.data.provider.sync.data.SyncDataRepository.Companion.FIRST_PAGE
+import java.io.File
+import java.io.IOException
+import javax.inject.Inject
+
+/**
+ * Producer/consumer pull engine.
+ *
+ * A producer coroutine downloads `pulldata` pages one after another and spools each
+ * body to a cache file, while a single consumer streams the spooled pages into the
+ * database through [SyncDataRepository.saveDataFile]. The two sides are connected by
+ * a bounded channel, so the network is fetching page N+1 while page N is written,
+ * and the producer suspends once [DEFAULT_PREFETCH] pages are waiting on disk.
+ *
+ * The producer asks for the page that follows the previous one ahead of the
+ * server's answer, sized by a [PullPageSizeController] fed with the latency, bytes
+ * and write time of the pages already pulled. If a saved page reports a different
+ * next page, the producer is cancelled and restarted from that position once it has
+ * stopped, so no spool file is still being written when the new producer reuses its
+ * name; the speculative pages are discarded. Cancelling the caller cancels both
+ * sides and removes every spooled file.
+ *
+ * When a page fails because the network went away, the producer waits up to
+ * [RECONNECT_WAIT_MILLIS] for it to come back and asks for the same page again, at
+ * most [MAX_RECONNECTS] times, so a short drop pauses the run instead of ending it.
+ */
+class PullSyncEngine @Inject constructor(
+    @ApplicationContext private val context: Context,
+    private val syncDataRepository: SyncDataRepository,
+    private val networkHelper: NetworkHelper
+) {
+    private val spoolDir: File by lazy { File(context.cacheDir, SPOOL_DIR) }
+
+    /**
+     * @return true when the network was lost and came back within [RECONNECT_WAIT_MILLIS].
+     */
+    @VisibleForTesting
+    internal var awaitReconnect: suspend () -> Boolean = {
+        networkHelper.isNetworkConnected().not() && networkHelper.awaitConnected(RECONNECT_WAIT_MILLIS)
+    }
+
+    /**
+     * Pulls and saves pages until the server reports the last one.
+     *
+     * @param start The first page to request, see [SyncDataRepository.resumePullCheckpoint].
+     * @param sizeController Picks the page limit of every following request.
+     * @param prefetch The number of downloaded pages allowed to wait for the writer.
+     * @param onPageSaved Invoked on the writer after each page is committed.
+     * @return The [PullSyncOutcome] of the run.
+     */
+    suspend fun run(
+        start: PullPageRequest = PullPageRequest(FIRST_PAGE, DEFAULT_PAGE_SIZE),
+        sizeController: PullPageSizeController = PullPageSizeController(initialPageSize = start.pageSize),
+        prefetch: Int = DEFAULT_PREFETCH,
+        onPageSaved: suspend (PullPageSummary) -> Unit
+    ): PullSyncOutcome = coroutineScope {
+        prepareSpoolDir()
+        var next = start
+        var outcome: PullSyncOutcome? = null
+        while (outcome == null) {
+            val pages = Channel<FetchedPage>(prefetch) { it.discard() }
+            val producer = fetchPages(next, sizeController, pages)
+            try {
+                when (val step = writePages(pages, sizeController, onPageSaved)) {
+                    is WriteStep.Done -> outcome = step.outcome
+                    is WriteStep.Restart -> next = sizeController.requestAt(step.offset, next.pageSize)
+                }
+            } finally {
+                withContext(NonCancellable) { producer.cancelAndJoin() }
+                pages.cancel()
+            }
+        }
+        outcome
+    }
+
+    private fun CoroutineScope.fetchPages(
+        start: PullPageRequest,
+        sizeController: PullPageSizeController,
+        pages: Channel<FetchedPage>
+    ): Job = launch(Dispatchers.IO) {
+        var request = start
+        var reconnects = 0
+        while (true) {
+            val page = fetchPage(request)
+            if (page is FetchedPage.Failed && reconnects < MAX_RECONNECTS && awaitReconnect()) {
+                reconnects++
+                Timber.d { "Network is back, pulling page ${request.pageNo} again" }
+                continue
+            }
+            pages.send(page)
+            if (page !is FetchedPage.Spooled) break
+            sizeController.onFetched(request.pageSize, page.fetchNanos, page.bytes)
+            request = sizeController.requestAt(request.nextOffset, request.pageSize)
+        }
+    }
+
+    private suspend fun fetchPage(request: PullPageRequest): FetchedPage {
+        val start = System.nanoTime()
+        val result = syncDataRepository.pullDataStream(request.pageNo, request.pageSize).first { it.isLoading().not() }
+        val body = result.data
+        if (result.isSuccess().not() || body == null) return FetchedPage.Failed(result)
+
+        val file = File(spoolDir, "${request.offset}$SPOOL_EXTENSION")
+        return try {
+            body.use { file.sink().buffer().use { sink -> sink.writeAll(it.source()) } }
+            val fetchNanos = System.nanoTime() - start
+            FetchedPage.Spooled(request, file, file.length(), fetchNanos)
+        } catch (e: IOException) {
+            Timber.e(e) { "Pull page ${request.pageNo} download interrupted" }
+            file.delete()
+            FetchedPage.Failed(Result.Error<Any>(e.message ?: API_ERROR))
+        }
+    }
+
+    private suspend fun writePages(
+        pages: ReceiveChannel<FetchedPage>,
+        sizeController: PullPageSizeController,
+        onPageSaved: suspend (PullPageSummary) -> Unit
+    ): WriteStep {
+        for (page in pages) {
+            if (page is FetchedPage.Failed) return WriteStep.Done(PullSyncOutcome.Failed(page.result))
+
+            val spooled = page as FetchedPage.Spooled
+            val request = spooled.request
+            val summary = try {
+                syncDataRepository.saveDataFile(spooled.file, request.pageNo, request.pageSize)
+            } finally {
+                spooled.discard()
+            }
+            summary.fetchNanos = spooled.fetchNanos
+            summary.bytes = spooled.bytes
+
+            if (summary.status != HTTP_OK || summary.hasData.not()) return WriteStep.Done(PullSyncOutcome.Invalid)
+            sizeController.onWritten(request.pageSize, summary.totalWriteNanos())
+            onPageSaved(summary)
+
+            if (summary.pageNo <= 0 || summary.totalCount <= 0) {
+                return WriteStep.Done(PullSyncOutcome.Completed(summary))
+            }
+            val nextOffset = summary.pageNo.toLong() * request.pageSize
+            if (nextOffset != request.nextOffset) return WriteStep.Restart(nextOffset)
+        }
+        return WriteStep.Done(PullSyncOutcome.Invalid)
+    }
+
+    private fun prepareSpoolDir() {
+        spoolDir.listFiles()?.forEach { it.delete() }
+        spoolDir.mkdirs()
+    }
+
+    private sealed class FetchedPage {
+        open fun discard() = Unit
+
+        class Spooled(
+            val request: PullPageRequest,
+            val file: File,
+            val bytes: Long,
+            val fetchNanos: Long
+        ) : FetchedPage() {
+            override fun discard() {
+                file.delete()
+            }
+        }
+
+        class Failed(val result: Result<*>) : FetchedPage()
+    }
+
+    private sealed class WriteStep {
+        class Done(val outcome: PullSyncOutcome) : WriteStep()
+        class Restart(val offset: Long) : WriteStep()
+    }
+
+    companion object {
+        const val DEFAULT_PREFETCH = 1
+        const val RECONNECT_WAIT_MILLIS = 60_000L
+        const val MAX_RECONNECTS = 3
+        private const val SPOOL_DIR = "pull_pages"
+        private const val SPOOL_EXTENSION = ".json"
+    }
+}
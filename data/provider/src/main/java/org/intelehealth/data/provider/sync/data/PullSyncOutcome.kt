@@ -0,0 +1,23 @@
+package org.intelehealth.data.provider.sync.data
+
+import org.intelehealth.common.state.Result
+
+/**
+ * Final state of a [PullSyncEngine] run.
+ */
+sealed class PullSyncOutcome {
+    /**
+     * Every page was written. [lastPage] is the summary of the final page.
+     */
+    data class Completed(val lastPage: PullPageSummary) : PullSyncOutcome()
+
+    /**
+     * A page request did not succeed; [result] is the failed network state.
+     */
+    data class Failed(val result: Result<*>) : PullSyncOutcome()
+
+    /**
+     * The server answered, but the page was not a valid `pulldata` response.
+     */
+    object Invalid : PullSyncOutcome()
+}
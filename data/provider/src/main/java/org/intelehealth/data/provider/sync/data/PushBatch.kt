@@ -0,0 +1,73 @@
+package org.intelehealth.data.provider.sync.data
+
+import org.intelehealth.data.network.model.request.PushRequest
+import org.intelehealth.data.network.model.response.Person
+import org.intelehealth.data.offline.entity.Provider
+import org.intelehealth.data.offline.entity.UnSyncedEncounter
+import org.intelehealth.data.offline.entity.Visit
+
+/**
+ * One `pushdata` request together with the uuids of every row it carries, which
+ * are marked synced once the server accepts the request.
+ */
+class PushBatch {
+    val patients = mutableListOf<HashMap<String, Any>>()
+    val persons = mutableListOf<Person>()
+    val visits = mutableListOf<Visit>()
+    val encounters = mutableListOf<UnSyncedEncounter>()
+    val providers = mutableListOf<Provider>()
+
+    val patientIds = mutableListOf<String>()
+    val patientAttributeIds = mutableListOf<String>()
+    val visitIds = mutableListOf<String>()
+    val visitAttributeIds = mutableListOf<String>()
+    val encounterIds = mutableListOf<String>()
+    val observationIds = mutableListOf<String>()
+    val providerIds = mutableListOf<String>()
+
+    /**
+     * Number of table rows in this batch, parents and children alike.
+     */
+    var rows = 0
+        internal set
+
+    fun toRequest() = PushRequest(
+        patients = patients.ifEmpty { null },
+        persons = persons.ifEmpty { null },
+        visits = visits.ifEmpty { null },
+        encounters = encounters.ifEmpty { null },
+        providers = providers.ifEmpty { null }
+    )
+}
+
+/**
+ * Splits push records into [PushBatch]es of at most [maxRows] rows. A record is
+ * never split from its children, so a single record larger than [maxRows] gets a
+ * batch of its own.
+ *
+ * Records must be added parents first (patients, visits, encounters). Batches are
+ * sent in order and the next one only after the previous was accepted, so a visit
+ * or encounter always reaches the server after the record it references.
+ */
+class PushBatchBuilder(private val maxRows: Int = MAX_BATCH_ROWS) {
+    private val batches = mutableListOf<PushBatch>()
+
+    /**
+     * Adds a record of [rows] rows to the current batch, or to a new one when it
+     * would not fit.
+     */
+    fun add(rows: Int, record: PushBatch.() -> Unit) {
+        val current = batches.lastOrNull()
+        val batch = if (current == null || (current.rows > 0 && current.rows + rows > maxRows)) {
+            PushBatch().also { batches.add(it) }
+        } else current
+        batch.record()
+        batch.rows += rows
+    }
+
+    fun build(): List<PushBatch> = batches.filter { it.rows > 0 }
+
+    companion object {
+        const val MAX_BATCH_ROWS = 200
+    }
+}
@@ -0,0 +1,21 @@
+package org.intelehealth.data.provider.sync.data
+
+import org.intelehealth.common.state.Result
+
+/**
+ * Result of [SyncDataRepository.pushData].
+ *
+ * @property batches The number of batches the pending records were split into.
+ * @property acceptedBatches The number of batches the server accepted.
+ * @property syncedRows The number of rows marked synced.
+ * @property failure The state of the first rejected batch; `null` when all were accepted.
+ */
+data class PushSyncSummary(
+    val batches: Int,
+    val acceptedBatches: Int,
+    val syncedRows: Int,
+    val failure: Result<*>? = null
+) {
+    val isSuccess: Boolean
+        get() = failure == null
+}
@@ -1,13 +1,19 @@
 package org.intelehealth.data.provider.sync.data
 
-import android.content.res.Resources.NotFoundException
+import androidx.room.withTransaction
 import com.github.ajalt.timberkt.Timber
 import com.google.gson.Gson
 import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.async
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.withContext
+import okhttp3.ResponseBody
+import org.intelehealth.common.helper.BandwidthProfile
+import org.intelehealth.common.helper.BandwidthProfiler
+import org.intelehealth.common.metrics.SyncMetricsRecorder
+import org.intelehealth.common.metrics.SyncPhase
 import org.intelehealth.common.service.BaseResponse
+import org.intelehealth.common.service.HttpStatusCode.HTTP_OK
 import org.intelehealth.common.state.Result
 import org.intelehealth.common.utility.PreferenceUtils
 import org.intelehealth.data.network.KEY_ATTRIBUTE_TYPE_ID
@@ -17,22 +23,35 @@ import org.intelehealth.data.network.KEY_PERSON_ID
 import org.intelehealth.data.network.KEY_PROVIDER
 import org.intelehealth.data.network.KEY_VALUE
 import org.intelehealth.data.network.model.PatientIdentifier
-import org.intelehealth.data.network.model.SetupLocation
-import org.intelehealth.data.network.model.request.PushRequest
 import org.intelehealth.data.network.model.response.Person
 import org.intelehealth.data.network.model.response.PreferredName
 import org.intelehealth.data.network.model.response.PullResponse
+import org.intelehealth.data.offline.ChangeLogTriggers
 import org.intelehealth.data.offline.OfflineDatabase
+import org.intelehealth.data.offline.dao.CoreDao
+import org.intelehealth.data.offline.dao.UpsertResult
+import org.intelehealth.data.offline.dao.upsertFromServer
+import org.intelehealth.data.offline.entity.BaseEntity
+import org.intelehealth.data.offline.entity.ChangeLog
+import org.intelehealth.data.offline.entity.Encounter
 import org.intelehealth.data.offline.entity.Observation
 import org.intelehealth.data.offline.entity.Patient
 import org.intelehealth.data.offline.entity.PatientAttribute
+import org.intelehealth.data.offline.entity.PatientAttributeTypeMaster
+import org.intelehealth.data.offline.entity.PatientLocation
 import org.intelehealth.data.offline.entity.PersonAddress
+import org.intelehealth.data.offline.entity.Provider
+import org.intelehealth.data.offline.entity.ProviderAttribute
+import org.intelehealth.data.offline.entity.SyncCheckpoint
 import org.intelehealth.data.offline.entity.UnSyncedEncounter
 import org.intelehealth.data.offline.entity.Visit
 import org.intelehealth.data.offline.entity.VisitAttribute
+import org.intelehealth.data.provider.session.SessionContext
 import org.intelehealth.data.provider.utils.EncounterType
 import org.intelehealth.data.provider.utils.PersonIdentifier
 import org.intelehealth.data.provider.utils.ProviderRole
+import java.io.File
+import java.io.Reader
 import javax.inject.Inject
 
 /**
@@ -44,30 +63,199 @@ import javax.inject.Inject
 class SyncDataRepository @Inject constructor(
     private val db: OfflineDatabase,
     private val dataSource: SyncDataSource,
-    val preferenceUtils: PreferenceUtils
+    private val gson: Gson,
+    val preferenceUtils: PreferenceUtils,
+    private val sessionContext: SessionContext,
+    private val bandwidthProfiler: BandwidthProfiler
 ) {
-    fun pullData(pageNo: Int, pageLimit: Int = 50): Flow<Result<BaseResponse<String, PullResponse>>> {
-        val locationStr = preferenceUtils.location
-        val location = Gson().fromJson(locationStr, SetupLocation::class.java)
-        location?.uuid ?: throw NotFoundException("Location not found")
-        return dataSource.pullData(
-            preferenceUtils.basicToken, location.uuid!!, preferenceUtils.lastSyncedTime, pageNo, pageLimit
+    /**
+     * Number of pulled pages the [PullSyncEngine] may download ahead of the writer
+     * on the current network, see [BandwidthProfile.concurrency].
+     */
+    fun pullPrefetch(): Int = bandwidthProfiler.current().concurrency
+
+    fun pullData(pageNo: Int, pageLimit: Int = DEFAULT_PAGE_SIZE): Flow<Result<BaseResponse<String, PullResponse>>> =
+        dataSource.pullData(
+            sessionContext.current.basicToken,
+            sessionContext.locationId,
+            preferenceUtils.lastSyncedTime,
+            pageNo,
+            pageLimit
+        )
+
+    /**
+     * Requests a `pulldata` page whose body is left unread, see [saveDataStream].
+     */
+    fun pullDataStream(pageNo: Int, pageLimit: Int = DEFAULT_PAGE_SIZE): Flow<Result<ResponseBody>> =
+        dataSource.pullDataStream(
+            sessionContext.current.basicToken,
+            sessionContext.locationId,
+            preferenceUtils.lastSyncedTime,
+            pageNo,
+            pageLimit
+        )
+
+    /**
+     * Streams a `pulldata` body straight into the DAOs in bounded chunks. The whole
+     * page is written in a single database transaction, so a killed worker never
+     * leaves it half applied.
+     *
+     * The pull [SyncCheckpoint] is advanced inside the same transaction.
+     *
+     * @param body The unread response body returned by [pullDataStream]; it is closed here.
+     * @param pageNo The page number that was requested.
+     * @param pageSize The page limit the page was requested with.
+     * @return The [PullPageSummary] of the saved page.
+     */
+    suspend fun saveDataStream(body: ResponseBody, pageNo: Int, pageSize: Int = DEFAULT_PAGE_SIZE): PullPageSummary =
+        body.use { savePage(it.charStream(), pageNo, pageSize) }
+
+    /**
+     * Same as [saveDataStream] for a page body that was spooled to [file] by the
+     * [PullSyncEngine]. The file is left in place for the caller to delete.
+     */
+    suspend fun saveDataFile(file: File, pageNo: Int, pageSize: Int = DEFAULT_PAGE_SIZE): PullPageSummary =
+        savePage(file.bufferedReader(), pageNo, pageSize)
+
+    private suspend fun savePage(source: Reader, pageNo: Int, pageSize: Int): PullPageSummary {
+        val summary = PullPageSummary(requestedPage = pageNo)
+        val start = System.nanoTime()
+        db.withTransaction {
+            PullPageStreamReader(gson).read(source, summary) { section, chunk ->
+                saveChunk(section, chunk, pageNo, summary)
+            }
+            if (summary.status == HTTP_OK && summary.hasData) saveCheckpoint(summary, pageNo, pageSize)
+        }
+        summary.readNanos = System.nanoTime() - start
+        Timber.d { "Pull page $pageNo saved => ${summary.writeReport()}" }
+        return summary
+    }
+
+    /**
+     * Returns the page a pull run should start from. An unfinished checkpoint of the
+     * same run resumes at its next page and page size; a checkpoint whose last page
+     * was saved but whose cutoff never reached [PreferenceUtils.lastSyncedTime] is
+     * completed first. Anything else is discarded and the run starts at [FIRST_PAGE]
+     * with [DEFAULT_PAGE_SIZE] scaled to the current [BandwidthProfile].
+     */
+    suspend fun resumePullCheckpoint(): PullPageRequest {
+        val pageSize = bandwidthProfiler.current().scale(DEFAULT_PAGE_SIZE, PullPageSizeController.MIN_PAGE_SIZE)
+        val firstPage = PullPageRequest(FIRST_PAGE, pageSize)
+        val checkpoint = db.syncCheckpointDao().getCheckpoint(SyncCheckpoint.PULL) ?: return firstPage
+        val sameRun = checkpoint.isSameRun(sessionContext.locationId, preferenceUtils.lastSyncedTime)
+        return if (sameRun && checkpoint.isCompleted.not()) {
+            Timber.d { "Resuming pull from page ${checkpoint.nextPage} of ${checkpoint.pageSize}" }
+            PullPageRequest(checkpoint.nextPage, checkpoint.pageSize)
+        } else {
+            if (sameRun) completePullCheckpoint()
+            else db.syncCheckpointDao().deleteCheckpoint(SyncCheckpoint.PULL)
+            firstPage
+        }
+    }
+
+    /**
+     * Moves [PreferenceUtils.lastSyncedTime] to the cutoff of the finished run and
+     * drops its checkpoint.
+     *
+     * @param fallbackCutoff Used when no checkpoint carries a cutoff time.
+     */
+    suspend fun completePullCheckpoint(fallbackCutoff: String? = null) {
+        val checkpoint = db.syncCheckpointDao().getCheckpoint(SyncCheckpoint.PULL)
+        (checkpoint?.cutoffTime ?: fallbackCutoff)?.let { preferenceUtils.lastSyncedTime = it }
+        db.syncCheckpointDao().deleteCheckpoint(SyncCheckpoint.PULL)
+    }
+
+    private suspend fun saveCheckpoint(summary: PullPageSummary, pageNo: Int, pageSize: Int) {
+        val locationId = sessionContext.locationId
+        val lastSyncedTime = preferenceUtils.lastSyncedTime
+        val previous = db.syncCheckpointDao().getCheckpoint(SyncCheckpoint.PULL)
+            ?.takeIf { pageNo != FIRST_PAGE && it.isSameRun(locationId, lastSyncedTime) }
+        val lastPage = summary.pageNo <= 0 || summary.totalCount <= 0
+        db.syncCheckpointDao().add(
+            SyncCheckpoint(
+                name = SyncCheckpoint.PULL,
+                nextPage = if (lastPage) SyncCheckpoint.COMPLETED else summary.pageNo,
+                pageSize = pageSize,
+                locationId = locationId,
+                lastSyncedTime = lastSyncedTime,
+                cutoffTime = previous?.cutoffTime ?: summary.pullExecutedTime
+            )
         )
     }
 
-    private fun getLocationId(): String {
-        val locationStr = preferenceUtils.location
-        val location = Gson().fromJson(locationStr, SetupLocation::class.java)
-        return location?.uuid ?: throw NotFoundException("Location not found")
+    @Suppress("UNCHECKED_CAST")
+    private suspend fun saveChunk(section: PullSection, chunk: List<Any>, pageNo: Int, summary: PullPageSummary) {
+        when (section) {
+            PullSection.PATIENT -> upsertChunked(section, chunk as List<Patient>, summary, db.patientDao())
+
+            PullSection.PATIENT_ATTRIBUTE_MASTER -> if (pageNo == FIRST_PAGE) {
+                upsertChunked(section, chunk as List<PatientAttributeTypeMaster>, summary, db.patientAttrMasterDao())
+            }
+
+            PullSection.PATIENT_ATTRIBUTE -> upsertChunked(
+                section, chunk as List<PatientAttribute>, summary, db.patientAttrDao()
+            )
+
+            PullSection.VISIT -> upsertChunked(section, chunk as List<Visit>, summary, db.visitDao())
+
+            PullSection.VISIT_ATTRIBUTE -> upsertChunked(
+                section, chunk as List<VisitAttribute>, summary, db.visitAttributeDao()
+            )
+
+            PullSection.ENCOUNTER -> upsertChunked(section, chunk as List<Encounter>, summary, db.encounterDao())
+
+            PullSection.OBSERVATION -> upsertChunked(section, chunk as List<Observation>, summary, db.observationDao())
+
+            PullSection.LOCATION -> upsertChunked(
+                section, chunk as List<PatientLocation>, summary, db.patientLocationDao()
+            )
+
+            PullSection.PROVIDER -> upsertChunked(section, chunk as List<Provider>, summary, db.providerDao())
+
+            PullSection.PROVIDER_ATTRIBUTE -> upsertChunked(
+                section, chunk as List<ProviderAttribute>, summary, db.providerAttributeDao()
+            )
+        }
+    }
+
+    /**
+     * Marks [items] synced when [PullSection.marksSynced] is set and stores them with
+     * [upsertFromServer] in batches of [INSERT_BATCH_SIZE]. Unchanged rows and rows with
+     * pending local edits are left untouched; the elapsed time and the skipped rows are
+     * recorded against [section].
+     */
+    private suspend fun <T : BaseEntity> upsertChunked(
+        section: PullSection,
+        items: List<T>,
+        summary: PullPageSummary,
+        dao: CoreDao<T>
+    ) {
+        if (items.isEmpty()) return
+        val start = System.nanoTime()
+        if (section.marksSynced) items.forEach { it.synced = true }
+        val result = items.chunked(INSERT_BATCH_SIZE).fold(UpsertResult()) { total, batch ->
+            total + dao.upsertFromServer(section.table, batch, section.keyColumn)
+        }
+        summary.recordWrite(section, items.size, System.nanoTime() - start)
+        summary.recordSkipped(section, result.skipped)
     }
 
     suspend fun saveData(pullResponse: PullResponse, onSaved: suspend (Int, Int) -> Unit) {
-        savePatientData(pullResponse)
-        saveVisitData(pullResponse)
-        saveEncounterData(pullResponse)
-        saveObservationData(pullResponse)
-        saveLocationData(pullResponse)
-        saveProviderData(pullResponse)
+        val summary = PullPageSummary(
+            pullExecutedTime = pullResponse.pullExecutedTime,
+            pageNo = pullResponse.pageNo,
+            totalCount = pullResponse.totalCount,
+            hasData = true
+        )
+        db.withTransaction {
+            savePatientData(pullResponse, summary)
+            saveVisitData(pullResponse, summary)
+            saveEncounterData(pullResponse, summary)
+            saveObservationData(pullResponse, summary)
+            saveLocationData(pullResponse, summary)
+            saveProviderData(pullResponse, summary)
+        }
+        Timber.d { "Pull page ${pullResponse.pageNo} saved => ${summary.writeReport()}" }
 //        if (pullResponse.providerAttributeTypeList.isNotEmpty()) ihDb.providerAttributeDao()
 //            .insert(pullResponse.providerAttributeTypeList)
 //        if (pullResponse.visitAttributeTypeList.isNotEmpty()) ihDb.visitAttributeDao()
@@ -76,145 +264,189 @@ class SyncDataRepository @Inject constructor(
         onSaved(pullResponse.totalCount, pullResponse.pageNo)
     }
 
-    private suspend fun saveLocationData(pullResponse: PullResponse) {
-        if (pullResponse.locationlist.isNotEmpty()) {
-            pullResponse.locationlist.map { it.synced = true }.apply {
-                db.patientLocationDao().insert(pullResponse.locationlist)
-            }
-        }
+    private suspend fun saveLocationData(pullResponse: PullResponse, summary: PullPageSummary) {
+        upsertChunked(PullSection.LOCATION, pullResponse.locationlist, summary, db.patientLocationDao())
     }
 
-    private suspend fun saveVisitData(pullResponse: PullResponse) {
-        if (pullResponse.visitlist.isNotEmpty()) db.visitDao().insert(pullResponse.visitlist)
-        if (pullResponse.visitAttributeList.isNotEmpty()) {
-            pullResponse.visitAttributeList.map { it.synced = true }.apply {
-                db.visitAttributeDao().insert(pullResponse.visitAttributeList)
-            }
-        }
+    private suspend fun saveVisitData(pullResponse: PullResponse, summary: PullPageSummary) {
+        upsertChunked(PullSection.VISIT, pullResponse.visitlist, summary, db.visitDao())
+        upsertChunked(PullSection.VISIT_ATTRIBUTE, pullResponse.visitAttributeList, summary, db.visitAttributeDao())
     }
 
-    private suspend fun saveEncounterData(pullResponse: PullResponse) {
-        if (pullResponse.encounterlist.isNotEmpty()) db.encounterDao().insert(pullResponse.encounterlist)
+    private suspend fun saveEncounterData(pullResponse: PullResponse, summary: PullPageSummary) {
+        upsertChunked(PullSection.ENCOUNTER, pullResponse.encounterlist, summary, db.encounterDao())
     }
 
-    private suspend fun saveObservationData(pullResponse: PullResponse) {
-        if (pullResponse.obslist.isNotEmpty()) {
-            pullResponse.obslist.map { it.synced = true }.apply {
-                db.observationDao().insert(pullResponse.obslist)
-            }
+    private suspend fun saveObservationData(pullResponse: PullResponse, summary: PullPageSummary) {
+        upsertChunked(PullSection.OBSERVATION, pullResponse.obslist, summary, db.observationDao())
+    }
+
+    private suspend fun savePatientData(pullResponse: PullResponse, summary: PullPageSummary) {
+        upsertChunked(PullSection.PATIENT, pullResponse.patients, summary, db.patientDao())
+        if (pullResponse.pageNo == 1) {
+            upsertChunked(
+                PullSection.PATIENT_ATTRIBUTE_MASTER,
+                pullResponse.patientAttributeTypeListMaster,
+                summary,
+                db.patientAttrMasterDao()
+            )
         }
+        upsertChunked(PullSection.PATIENT_ATTRIBUTE, pullResponse.patientAttributesList, summary, db.patientAttrDao())
+    }
+
+    private suspend fun saveProviderData(pullResponse: PullResponse, summary: PullPageSummary) {
+        upsertChunked(PullSection.PROVIDER, pullResponse.providerlist, summary, db.providerDao())
+        upsertChunked(
+            PullSection.PROVIDER_ATTRIBUTE, pullResponse.providerAttributeList, summary, db.providerAttributeDao()
+        )
     }
 
-    private suspend fun savePatientData(pullResponse: PullResponse) {
-        if (pullResponse.patients.isNotEmpty()) db.patientDao().insert(pullResponse.patients)
-        if (pullResponse.patientAttributeTypeListMaster.isNotEmpty() && pullResponse.pageNo == 1) {
-            pullResponse.patientAttributeTypeListMaster.map { it.synced = true }.apply {
-                db.patientAttrMasterDao().insert(pullResponse.patientAttributeTypeListMaster)
+    /**
+     * Pushes every record logged in [ChangeLog] in batches of at most
+     * [PushBatchBuilder.MAX_BATCH_ROWS] rows, halved on a [BandwidthProfile.LOW]
+     * network so a dropped request costs less to resend. Each accepted batch is marked synced and
+     * acknowledged in the change log before the next one is sent; the first rejected
+     * batch stops the push and its rows stay pending for the next run.
+     *
+     * @param metrics Receives the prepare, network and write time of every batch.
+     */
+    suspend fun pushData(
+        metrics: SyncMetricsRecorder = SyncMetricsRecorder(SyncMetricsRecorder.TYPE_PUSH)
+    ): PushSyncSummary = withContext(Dispatchers.IO) {
+        val maxSeq = db.changeLogDao().getLastSeq() ?: return@withContext PushSyncSummary(0, 0, 0)
+        val maxRows = bandwidthProfiler.current().scale(PushBatchBuilder.MAX_BATCH_ROWS)
+            .coerceAtMost(PushBatchBuilder.MAX_BATCH_ROWS)
+        val batches = metrics.measure(SyncPhase.PREPARE) {
+            buildPushBatches(sessionContext.locationId, maxSeq, maxRows).also {
+                db.changeLogDao().pruneVisitsWithoutAttributes(maxSeq)
             }
         }
-        if (pullResponse.patientAttributesList.isNotEmpty()) {
-            pullResponse.patientAttributesList.map { it.synced = true }.apply {
-                db.patientAttrDao().insert(pullResponse.patientAttributesList)
+        var syncedRows = 0
+        batches.forEachIndexed { index, batch ->
+            val result = metrics.measure(SyncPhase.NETWORK, index) {
+                dataSource.pushData(sessionContext.current.basicToken, batch.toRequest()).first { it.isLoading().not() }
+            }
+            if (result.isSuccess().not()) {
+                Timber.d { "Push batch ${index + 1}/${batches.size} rejected: ${result.message}" }
+                return@withContext PushSyncSummary(batches.size, index, syncedRows, result)
             }
+            val start = System.nanoTime()
+            markSynced(batch, maxSeq)
+            metrics.record(index, SyncPhase.DB_WRITE, System.nanoTime() - start, rows = batch.rows)
+            syncedRows += batch.rows
         }
+        db.changeLogDao().pruneVoided(maxSeq)
+        Timber.d { "Pushed $syncedRows rows in ${batches.size} batches" }
+        PushSyncSummary(batches.size, batches.size, syncedRows)
     }
 
-    private suspend fun saveProviderData(pullResponse: PullResponse) {
-        if (pullResponse.providerlist.isNotEmpty()) {
-            pullResponse.providerlist.map { it.synced = true }.apply {
-                db.providerDao().insert(pullResponse.providerlist)
+    /**
+     * Reads the records changed up to [maxSeq]. Only parents are tracked in the change
+     * log, so the cost depends on the number of pending changes; children are looked
+     * up by their pending parents. Visits without a pending attribute are left out, as
+     * before the change log, and [pushData] prunes them from it.
+     */
+    private suspend fun buildPushBatches(locationId: String, maxSeq: Long, maxRows: Int): List<PushBatch> {
+        val patients = db.patientDao().getPendingPatients(maxSeq)
+        val attrsByPatient = patients.map { it.uuid }.chunked(SQL_IN_BATCH_SIZE).flatMap {
+            db.patientAttrDao().getPatientAttributes(it)
+        }.groupBy { it.patientUuid }
+        val visits = db.visitDao().getPendingVisits(maxSeq)
+        val attrsByVisit = visits.map { it.uuid }.chunked(SQL_IN_BATCH_SIZE).flatMap {
+            db.visitAttributeDao().getVisitAttributes(it)
+        }.groupBy { it.visitUuid }
+        val encounters = db.encounterDao().getPendingEncounters(maxSeq)
+        val obsByEncounter = encounters.filter { it.encounterTypeUuid != EncounterType.EMERGENCY.value }
+            .map { it.uuid }.chunked(SQL_IN_BATCH_SIZE)
+            .flatMap { db.observationDao().getAllUnsyncedObservations(it) }
+            .groupBy { it.encounterUuid }
+        val providers = db.providerDao().getPendingProviders(maxSeq)
+
+        val identifiers = getPatientIdentifier(locationId)
+        val builder = PushBatchBuilder(maxRows)
+        patients.forEach { patient ->
+            val attrs = attrsByPatient[patient.uuid].orEmpty()
+            builder.add(1 + attrs.size) {
+                this.patients.add(mappingPersonIdentifier(person = patient.uuid, identifiers = identifiers))
+                persons.add(getPerson(patient, attrs))
+                patientIds.add(patient.uuid)
+                patientAttributeIds.addAll(attrs.map { it.uuid })
+            }
+        }
+        visits.forEach { visit ->
+            val attrs = attrsByVisit[visit.uuid]
+            if (attrs.isNullOrEmpty()) return@forEach
+            builder.add(1 + attrs.size) {
+                this.visits.add(visit.apply { visitAttrs = attrs })
+                visitIds.add(visit.uuid)
+                visitAttributeIds.addAll(attrs.map { it.uuid })
+            }
+        }
+        encounters.forEach { encounter ->
+            val observations = obsByEncounter[encounter.uuid]
+            builder.add(1 + (observations?.size ?: 0)) {
+                this.encounters.add(getEncounterWithObservation(encounter, observations, locationId))
+                encounterIds.add(encounter.uuid)
+                observations?.let { obs -> observationIds.addAll(obs.map { it.uuid }) }
             }
         }
-        if (pullResponse.providerAttributeList.isNotEmpty()) {
-            pullResponse.providerAttributeList.map { it.synced = true }.apply {
-                db.providerAttributeDao().insert(pullResponse.providerAttributeList)
+        providers.forEach { provider ->
+            builder.add(1) {
+                this.providers.add(provider)
+                providerIds.add(provider.uuid)
             }
         }
+        return builder.build()
     }
 
-    suspend fun pushData() = withContext(Dispatchers.IO) {
-        val patients = async { db.patientDao().getAllUnsyncedPatients() }.await()
-        val patientAttrs = async { db.patientAttrDao().getPatientAttributes(patients.map { it.uuid }) }.await()
-        val visits = async { db.visitDao().getAllUnsyncedVisits() }.await()
-        val visitAttrs = async { db.visitAttributeDao().getVisitAttributes(visits.map { it.uuid }) }.await()
-        val encounters = async { db.encounterDao().getAllUnsyncedEncounters() }.await()
-        val normalEncounter = encounters?.filter { it.encounterTypeUuid != EncounterType.EMERGENCY.value }
-        val observations: List<Observation>? = normalEncounter?.let {
-            return@let async {
-                db.observationDao().getAllUnsyncedObservations(it.map { it.uuid })
-            }.await()
-        }
-        val providers = async { db.providerDao().getAllUnsyncedProviders() }.await()
-
-        val pushRequest = PushRequest(
-            patients = mappingPatientsList(patients),
-            persons = getPersonWithAttributes(patients, patientAttrs),
-            visits = getVisitWithAttributes(visits, visitAttrs),
-            encounters = getEncounterWithObservation(encounters, observations),
-            providers = providers
-        )
+    private suspend fun markSynced(batch: PushBatch, maxSeq: Long) = db.withTransaction {
+        batch.patientIds.chunked(SQL_IN_BATCH_SIZE).forEach { db.patientDao().markSynced(it) }
+        batch.patientAttributeIds.chunked(SQL_IN_BATCH_SIZE).forEach { db.patientAttrDao().markSynced(it) }
+        batch.visitIds.chunked(SQL_IN_BATCH_SIZE).forEach { db.visitDao().markSynced(it) }
+        batch.visitAttributeIds.chunked(SQL_IN_BATCH_SIZE).forEach { db.visitAttributeDao().markSynced(it) }
+        batch.encounterIds.chunked(SQL_IN_BATCH_SIZE).forEach { db.encounterDao().markSynced(it) }
+        batch.observationIds.chunked(SQL_IN_BATCH_SIZE).forEach { db.observationDao().markSynced(it) }
+        batch.providerIds.chunked(SQL_IN_BATCH_SIZE).forEach { db.providerDao().markSynced(it) }
+        acknowledge(ChangeLogTriggers.TABLE_PATIENT, batch.patientIds, maxSeq)
+        acknowledge(ChangeLogTriggers.TABLE_VISIT, batch.visitIds, maxSeq)
+        acknowledge(ChangeLogTriggers.TABLE_ENCOUNTER, batch.encounterIds, maxSeq)
+        acknowledge(ChangeLogTriggers.TABLE_PROVIDER, batch.providerIds, maxSeq)
+    }
 
-        Timber.d { "Encounter: $pushRequest" }
-//        return@withContext dataSource.pushData(preferenceUtils.basicToken, pushRequest)
+    private suspend fun acknowledge(table: String, uuids: List<String>, maxSeq: Long) {
+        uuids.chunked(SQL_IN_BATCH_SIZE).forEach { db.changeLogDao().acknowledge(table, it, maxSeq) }
     }
 
     private fun getEncounterWithObservation(
-        encounters: List<UnSyncedEncounter>?,
-        observations: List<Observation>?
-    ): List<UnSyncedEncounter>? = encounters?.map { encounter ->
-        encounter.apply {
-            this.observations = observations?.filter { it.encounterUuid == encounter.uuid }
-            this.encounterProviders = listOf(
-                hashMapOf(
-                    KEY_ENCOUNTER_ROLE to ProviderRole.NURSE.value,
-                    KEY_PROVIDER to encounter.providerUuid!!
-                )
+        encounter: UnSyncedEncounter,
+        observations: List<Observation>?,
+        locationId: String
+    ): UnSyncedEncounter = encounter.apply {
+        this.observations = observations
+        this.encounterProviders = listOf(
+            hashMapOf(
+                KEY_ENCOUNTER_ROLE to ProviderRole.NURSE.value,
+                KEY_PROVIDER to encounter.providerUuid!!
             )
-            this.locationId = getLocationId()
-        }
-    }
-
-    private fun getVisitWithAttributes(
-        visits: List<Visit>,
-        visitAttrs: List<VisitAttribute>
-    ): List<Visit> = visits.map { visit ->
-        visit.apply { this.visitAttrs = visitAttrs.filter { it.visitUuid == visit.uuid } }
-    }.filter { it.visitAttrs.isNullOrEmpty().not() }
-
-    private fun mappingPatientsList(patients: List<Patient>): List<HashMap<String, Any>>? {
-        if (patients.isEmpty()) return null
-        return patients.map { patient ->
-            mappingPersonIdentifier(person = patient.uuid, identifiers = getPatientIdentifier())
-        }
+        )
+        this.locationId = locationId
     }
 
-    private fun getPatientIdentifier(): List<PatientIdentifier> = listOf(
+    private fun getPatientIdentifier(locationId: String): List<PatientIdentifier> = listOf(
         PatientIdentifier(
-            locationId = getLocationId(),
+            locationId = locationId,
             identifierType = PersonIdentifier.IDENTIFIER_OPENMRS_ID.value,
             preferred = true
         )
     )
 
-    private suspend fun getPersonWithAttributes(
-        patients: List<Patient>, patientAttrs: List<PatientAttribute>
-    ): List<Person> {
-        val personList = mutableListOf<Person>()
-        return withContext(Dispatchers.IO) {
-            patients.forEach { patient -> getPerson(patient, patientAttrs).also { personList.add(it) } }
-            return@withContext personList
-        }
-    }
-
     private fun getPerson(patient: Patient, patientAttrs: List<PatientAttribute>) = Person(
         dateOfBirth = patient.dateOfBirth,
         gender = patient.gender,
         uuid = patient.uuid,
         names = getListOfName(patient),
         addresses = getAddresses(patient),
-        attributes = patientAttrs.filter {
-            it.patientUuid == patient.uuid
-        }.map { mappingPatentAttributes(it.value, it.personAttributeTypeUuid) },
+        attributes = patientAttrs.map { mappingPatentAttributes(it.value, it.personAttributeTypeUuid) },
     )
 
     private fun getListOfName(patient: Patient) = listOf(
@@ -256,4 +488,13 @@ class SyncDataRepository @Inject constructor(
             KEY_PERSON_ID to person, KEY_IDENTIFIER to identifiers
         )
     }
+
+    companion object {
+        const val FIRST_PAGE = 0
+        const val INSERT_BATCH_SIZE = 500
+        const val DEFAULT_PAGE_SIZE = 50
+
+        // Stays below SQLite's default limit of 999 bound variables per statement.
+        private const val SQL_IN_BATCH_SIZE = 500
+    }
 }
@@ -31,6 +31,16 @@ class SyncDataSource @Inject constructor(
         apiClient.pullData(basicToken, locationId, lastSyncedTime, pageNo, pageLimit)
     }
 
+    fun pullDataStream(
+        basicToken: String,
+        locationId: String,
+        lastSyncedTime: String,
+        pageNo: Int,
+        pageLimit: Int
+    ) = getResult {
+        apiClient.pullDataStream(basicToken, locationId, lastSyncedTime, pageNo, pageLimit)
+    }
+
     fun pushData(basicToken: String, pushRequest: PushRequest) = getResult {
         apiClient.pushData(basicToken, pushRequest)
     }
@@ -0,0 +1,37 @@
+package org.intelehealth.data.provider.sync.data
+
+import com.google.gson.Gson
+import kotlinx.coroutines.flow.Flow
+import org.intelehealth.data.offline.dao.SyncMetricDao
+import org.intelehealth.data.offline.entity.SyncMetric
+import org.intelehealth.data.offline.entity.SyncPhaseTotal
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+
+/**
+ * Read side of the sync metrics recorded by the sync workers.
+ */
+class SyncMetricsRepository @Inject constructor(
+    private val syncMetricDao: SyncMetricDao,
+    private val gson: Gson
+) {
+    /**
+     * Per-phase totals of the latest [runs] sync runs, newest first.
+     */
+    fun getRecentRuns(runs: Int = DEFAULT_RUNS): Flow<List<SyncPhaseTotal>> = syncMetricDao.getPhaseTotals(runs)
+
+    suspend fun getRunMetrics(runId: String): List<SyncMetric> = syncMetricDao.getRunMetrics(runId)
+
+    /**
+     * Every sample of the last [days] days as JSON, for sharing a sync profile of a device.
+     */
+    suspend fun exportProfile(days: Long = DEFAULT_EXPORT_DAYS): String {
+        val from = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days)
+        return gson.toJson(syncMetricDao.getMetricsSince(from))
+    }
+
+    companion object {
+        const val DEFAULT_RUNS = 10
+        const val DEFAULT_EXPORT_DAYS = 1L
+    }
+}
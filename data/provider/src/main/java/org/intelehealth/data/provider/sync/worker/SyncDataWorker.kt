@@ -2,17 +2,22 @@ package org.intelehealth.data.provider.sync.worker
 
 import android.content.Context
 import androidx.hilt.work.HiltWorker
+import androidx.work.Data
 import androidx.work.WorkerParameters
 import androidx.work.workDataOf
 import dagger.assisted.Assisted
 import dagger.assisted.AssistedInject
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.NonCancellable
 import kotlinx.coroutines.withContext
-import org.intelehealth.common.service.BaseResponse
-import org.intelehealth.common.service.HttpStatusCode.HTTP_OK
-import org.intelehealth.common.service.HttpStatusCode.HTTP_SUCCESS
+import org.intelehealth.common.metrics.SyncMetricsRecorder
+import org.intelehealth.common.metrics.SyncMetricsStore
+import org.intelehealth.common.metrics.SyncPhase
 import org.intelehealth.common.state.StateWorker
-import org.intelehealth.data.network.model.response.PullResponse
+import org.intelehealth.data.provider.sync.data.PullPageSummary
+import org.intelehealth.data.provider.sync.data.PullSection
+import org.intelehealth.data.provider.sync.data.PullSyncEngine
+import org.intelehealth.data.provider.sync.data.PullSyncOutcome
 import org.intelehealth.data.provider.sync.data.SyncDataRepository
 
 /**
@@ -24,42 +29,47 @@ import org.intelehealth.data.provider.sync.data.SyncDataRepository
 class SyncDataWorker @AssistedInject constructor(
     @Assisted private val ctx: Context,
     @Assisted private val params: WorkerParameters,
-    private val syncDataRepository: SyncDataRepository
+    private val syncDataRepository: SyncDataRepository,
+    private val pullSyncEngine: PullSyncEngine,
+    private val metricsStore: SyncMetricsStore
 ) : StateWorker(ctx, params) {
     private var progress = 0
+    private val metrics = SyncMetricsRecorder(SyncMetricsRecorder.TYPE_PULL)
 
     override suspend fun doWork(): Result = withContext(Dispatchers.IO) {
         setProgress(workDataOf(WORK_PROGRESS to progress))
-        pullData(0)
-        workerResult
-    }
+        try {
+            val start = syncDataRepository.resumePullCheckpoint()
+            val prefetch = syncDataRepository.pullPrefetch()
+            when (val outcome = pullSyncEngine.run(start, prefetch = prefetch) { summary -> onPageSaved(summary) }) {
+                is PullSyncOutcome.Completed -> {
+                    syncDataRepository.completePullCheckpoint(outcome.lastPage.pullExecutedTime)
+                    workerResult = Result.success(workData())
+                }
 
-    private suspend fun pullData(pageNo: Int) {
-        syncDataRepository.pullData(pageNo).collect {
-            handleState(it) { response -> withContext(Dispatchers.IO) { handleSuccessState(response) } }
+                is PullSyncOutcome.Failed -> handleState(outcome.result) { }
+                PullSyncOutcome.Invalid -> setFailResult()
+            }
+        } finally {
+            withContext(NonCancellable) { metricsStore.save(metrics) }
         }
+        workerResult
     }
 
-    private suspend fun handleSuccessState(response: BaseResponse<String, PullResponse>) {
-        if (response.status == HTTP_OK) {
-            response.data?.let { saveData(it) } ?: setFailResult()
-        } else setFailResult()
-    }
+    private suspend fun onPageSaved(summary: PullPageSummary) {
+        val page = summary.requestedPage
+        metrics.record(page, SyncPhase.NETWORK, summary.fetchNanos, bytes = summary.bytes)
+        metrics.record(page, SyncPhase.DECODE, summary.decodeNanos(), rows = summary.totalRows())
+        metrics.record(page, SyncPhase.DB_WRITE, summary.totalWriteNanos(), rows = summary.writtenRows.values.sum())
 
-    private suspend fun saveData(data: PullResponse) {
-        syncDataRepository.saveData(data) { totalCount, page ->
-            if (page > 0 && totalCount > 0) {
-                val percentage = (data.patients.size * 100) / totalCount
-                progress += percentage
-                setProgress(workDataOf(WORK_PROGRESS to progress))
-                withContext(Dispatchers.IO) { pullData(page) }
-            } else {
-                syncDataRepository.preferenceUtils.lastSyncedTime = data.pullExecutedTime
-                workerResult = Result.success()
-            }
+        if (summary.pageNo > 0 && summary.totalCount > 0) {
+            progress += (summary.rowCount(PullSection.PATIENT) * 100) / summary.totalCount
         }
+        setProgress(Data.Builder().putAll(workData()).putInt(WORK_PROGRESS, progress).build())
     }
 
+    private fun workData(): Data = Data.Builder().putAll(metrics.toWorkData()).build()
+
 //    companion object {
 //        const val WORK_PROGRESS = "work_progress"
 //        const val WORK_STATUS = "work_status"
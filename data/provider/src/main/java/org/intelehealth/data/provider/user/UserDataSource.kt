@@ -28,11 +28,11 @@ class UserDataSource @Inject constructor(
 
     fun login(basicAuth: String) = getResult { restClient.login(basicAuth) }
 
-    fun sendUserDeviceToken(deviceToken: DeviceTokenReq) = getResult {
-        restClient.sendUserDeviceToken(
-            deviceTokenReq = deviceToken
-        )
-    }
+    fun sendUserDeviceToken(deviceToken: DeviceTokenReq) = getResult { putUserDeviceToken(deviceToken) }
+
+    suspend fun putUserDeviceToken(deviceToken: DeviceTokenReq) = restClient.sendUserDeviceToken(
+        deviceTokenReq = deviceToken
+    )
 
     fun changePassword(bearerToken: String, oldPassword: String, newPassword: String) = getResult {
         restClient.changePassword(
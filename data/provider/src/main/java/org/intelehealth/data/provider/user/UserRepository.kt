@@ -2,12 +2,17 @@ package org.intelehealth.data.provider.user
 
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.async
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.onEach
 import kotlinx.coroutines.withContext
 import okhttp3.Credentials
+import okhttp3.ResponseBody
 import org.intelehealth.common.extensions.milliToLogTime
 import org.intelehealth.common.extensions.toDate
+import org.intelehealth.common.state.Result
 import org.intelehealth.common.utility.DateTimeUtils.LAST_SYNC_DB_FORMAT
 import org.intelehealth.common.utility.DateTimeUtils.LAST_SYNC_DISPLAY_FORMAT
+import org.intelehealth.common.utility.NO_NETWORK
 import org.intelehealth.common.utility.PreferenceUtils
 import org.intelehealth.data.network.KEY_RESULT
 import org.intelehealth.data.network.model.request.DeviceTokenReq
@@ -17,6 +22,10 @@ import org.intelehealth.data.network.model.request.UserProfileEditableDetails
 import org.intelehealth.data.network.model.response.Profile
 import org.intelehealth.data.offline.dao.UserDao
 import org.intelehealth.data.offline.entity.User
+import org.intelehealth.data.provider.outbox.OutboxRepository
+import org.intelehealth.data.provider.outbox.ProfilePicturePayload
+import org.intelehealth.data.provider.outbox.ProviderAttributePayload
+import org.intelehealth.data.provider.session.SessionContext
 import org.intelehealth.data.provider.utils.PersonAttributeType
 import javax.inject.Inject
 
@@ -37,11 +46,15 @@ import javax.inject.Inject
  * @property dataSource The [UserDataSource] instance for interacting with the network.
  * @property preferenceUtils The [PreferenceUtils] instance for interacting with shared preferences.
  * @property userDao The [UserDao] instance for interacting with the local database.
+ * @property sessionContext The [SessionContext] holding the signed-in user's ids and tokens.
+ * @property outboxRepository The [OutboxRepository] keeping changes made offline until they are sent.
  */
 class UserRepository @Inject constructor(
     private val dataSource: UserDataSource,
     private val preferenceUtils: PreferenceUtils,
-    private val userDao: UserDao
+    private val userDao: UserDao,
+    private val sessionContext: SessionContext,
+    private val outboxRepository: OutboxRepository
 ) {
     /**
      * Retrieves the application's last sync time and formats it for display.
@@ -74,7 +87,7 @@ class UserRepository @Inject constructor(
      */
     fun login(username: String, password: String) = Credentials.basic(username, password).let {
         preferenceUtils.basicToken = it
-        dataSource.login(preferenceUtils.basicToken)
+        dataSource.login(it)
     }
 
     /**
@@ -110,30 +123,36 @@ class UserRepository @Inject constructor(
      *
      * @return The live user data.
      */
-    fun getLiveUser() = userDao.getLiveUser(preferenceUtils.userId)
+    fun getLiveUser() = userDao.getLiveUser(sessionContext.current.userId)
 
     /**
      * Retrieves the live user data from the local database.
      *
      * @return The user data.
      */
-    suspend fun getUser() = userDao.getUser(preferenceUtils.userId)
+    suspend fun getUser() = userDao.getUser(sessionContext.current.userId)
 
     /**
      * Retrieves the user's name from the local database.
      *
      * @return The user's name.
      */
-    suspend fun getUserName() = userDao.getUserName(preferenceUtils.userId)
+    suspend fun getUserName() = userDao.getUserName(sessionContext.current.userId)
 
     /**
-     * Sends the user's device token to the server.
+     * Sends the user's device token to the server. Without network the token is
+     * queued in the outbox and sent once the device is online.
      *
      * @return The result of the network call to send the device token.
      */
-    fun sendUserDeviceToken() = dataSource.sendUserDeviceToken(
-        DeviceTokenReq(preferenceUtils.userId, preferenceUtils.currentLanguage, preferenceUtils.fcmToken)
-    )
+    fun sendUserDeviceToken(): Flow<Result<ResponseBody>> {
+        val deviceToken = DeviceTokenReq(
+            sessionContext.current.userId, preferenceUtils.currentLanguage, preferenceUtils.fcmToken
+        )
+        return dataSource.sendUserDeviceToken(deviceToken).onEach {
+            if (it.isFail() && it.message == NO_NETWORK) outboxRepository.enqueueDeviceToken(deviceToken)
+        }
+    }
 
     /**
      * Updates the user data in the local database.
@@ -145,9 +164,11 @@ class UserRepository @Inject constructor(
     /**
      * Logs out the current user.
      *
-     * This function updates the user's logged-in status to `false`.
+     * This function drops the changes still queued in the outbox and updates the
+     * user's logged-in status to `false`.
      */
     fun logout() {
+        outboxRepository.clear()
         updateUserLoggedInStatus(false)
     }
 
@@ -159,7 +180,7 @@ class UserRepository @Inject constructor(
      * @return The result of the network call to change the password.
      */
     fun changePassword(oldPassword: String, newPassword: String) = dataSource.changePassword(
-        preferenceUtils.basicToken.let {
+        sessionContext.current.basicToken.let {
             val token = it.split(" ")[1]
             return@let "Bearer $token"
         }, oldPassword, newPassword
@@ -191,8 +212,8 @@ class UserRepository @Inject constructor(
     suspend fun resetPassword(userUuid: String, newPassword: String) = dataSource.resetPassword(userUuid, newPassword)
 
     suspend fun fetchUserProfile() = dataSource.fetchUserProfile(
-        preferenceUtils.basicToken,
-        preferenceUtils.userId
+        sessionContext.current.basicToken,
+        sessionContext.current.userId
     )
 
     suspend fun saveProfileData(data: HashMap<String, List<Profile>>?) {
@@ -222,7 +243,7 @@ class UserRepository @Inject constructor(
         personId: String,
         editableDetails: UserProfileEditableDetails
     ) = dataSource.updateUserProfileEditableDetails(
-        basicAuth = preferenceUtils.basicToken,
+        basicAuth = sessionContext.current.basicToken,
         personId = personId,
         editableDetails = editableDetails
     )
@@ -232,7 +253,7 @@ class UserRepository @Inject constructor(
         attributeUuid: String,
         value: String
     ) = dataSource.createUserProfileAttribute(
-        basicAuth = preferenceUtils.basicToken,
+        basicAuth = sessionContext.current.basicToken,
         providerId = providerId,
         attributeUuid = attributeUuid,
         value = value
@@ -244,7 +265,7 @@ class UserRepository @Inject constructor(
         attributeUuid: String,
         value: String
     ) = dataSource.updateUserProfileAttribute(
-        basicAuth = preferenceUtils.basicToken,
+        basicAuth = sessionContext.current.basicToken,
         providerId = providerId,
         attributeUuid = attributeUuid,
         value = value
@@ -254,16 +275,36 @@ class UserRepository @Inject constructor(
         personId: String,
         image: String
     ) = dataSource.updateUserProfilePicture(
-        basicAuth = preferenceUtils.basicToken,
+        basicAuth = sessionContext.current.basicToken,
         personId = personId,
         image = image
     )
 
+    /**
+     * Queues a profile attribute change made offline, see [OutboxRepository].
+     *
+     * @param isNew The user has no value for the attribute yet, so it is created.
+     */
+    suspend fun queueUserProfileAttribute(
+        providerId: String,
+        attributeUuid: String,
+        value: String,
+        isNew: Boolean
+    ) = outboxRepository.enqueueProviderAttribute(ProviderAttributePayload(providerId, attributeUuid, value), isNew)
+
+    /**
+     * Queues a profile picture change made offline, see [OutboxRepository].
+     *
+     * @param imagePath The picture file; it is read when the upload is sent.
+     */
+    suspend fun queueUserProfilePicture(personId: String, imagePath: String) =
+        outboxRepository.enqueueProfilePicture(ProfilePicturePayload(personId, imagePath))
+
     fun fingerprintAppLock() = preferenceUtils.fingerprintAppLock
 
     fun changeFingerprintAppLockState(state: Boolean) {
         preferenceUtils.fingerprintAppLock = state
     }
 
-    suspend fun getProviderId(): String = userDao.getUserProviderId(preferenceUtils.userId)
+    suspend fun getProviderId(): String? = sessionContext.providerId()
 }
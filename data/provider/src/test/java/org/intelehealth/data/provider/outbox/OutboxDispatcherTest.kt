@@ -0,0 +1,125 @@
+package org.intelehealth.data.provider.outbox
+
+import android.content.Context
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import androidx.work.testing.WorkManagerTestInitHelper
+import com.google.gson.Gson
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import okhttp3.OkHttpClient
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.intelehealth.common.helper.NetworkHelper
+import org.intelehealth.common.helper.PreferenceHelper
+import org.intelehealth.common.utility.PreferenceUtils
+import org.intelehealth.data.network.RestClient
+import org.intelehealth.data.offline.OfflineDatabase
+import org.intelehealth.data.provider.session.SessionContext
+import org.intelehealth.data.provider.user.UserDataSource
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import retrofit2.Retrofit
+import retrofit2.converter.gson.GsonConverterFactory
+
+/**
+ * Drains the outbox against a [MockWebServer] while the user keeps editing.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+class OutboxDispatcherTest {
+    private val context = ApplicationProvider.getApplicationContext<Context>()
+    private val gson = Gson()
+    private val sentValues = mutableListOf<String>()
+    private var onRequest: () -> Unit = {}
+
+    private lateinit var server: MockWebServer
+    private lateinit var db: OfflineDatabase
+    private lateinit var repository: OutboxRepository
+    private lateinit var dispatcher: OutboxDispatcher
+
+    @Before
+    fun setUp() {
+        WorkManagerTestInitHelper.initializeTestWorkManager(context)
+        server = MockWebServer()
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                val body = gson.fromJson(request.body.readUtf8(), Map::class.java)
+                sentValues.add(body["value"].toString())
+                onRequest().also { onRequest = {} }
+                return MockResponse().setBody("{}")
+            }
+        }
+        server.start()
+
+        db = Room.inMemoryDatabaseBuilder(context, OfflineDatabase::class.java)
+            .setQueryExecutor { it.run() }
+            .build()
+        val preferenceHelper = PreferenceHelper(context)
+        val preferenceUtils = PreferenceUtils(preferenceHelper).apply { basicToken = "Basic outbox" }
+        val restClient = Retrofit.Builder()
+            .baseUrl(server.url("/"))
+            .client(OkHttpClient())
+            .addConverterFactory(GsonConverterFactory.create(gson))
+            .build()
+            .create(RestClient::class.java)
+        val sessionContext = SessionContext(preferenceUtils, db.userDao(), gson, preferenceHelper)
+
+        repository = OutboxRepository(context, db, db.outboxDao(), gson)
+        val dataSource = UserDataSource(restClient, NetworkHelper(context))
+        dispatcher = OutboxDispatcher(db.outboxDao(), dataSource, sessionContext, gson)
+    }
+
+    @After
+    fun tearDown() {
+        db.close()
+        server.shutdown()
+    }
+
+    @Test
+    fun editWhileSendingIsSentAfterwards() = runBlocking {
+        repository.enqueueProviderAttribute(attribute("old"), isNew = false)
+        onRequest = { runBlocking { repository.enqueueProviderAttribute(attribute("new"), isNew = false) } }
+
+        assertTrue(dispatcher.drain())
+
+        assertEquals(listOf("old", "new"), sentValues)
+        assertEquals(0, repository.getPendingCount().first())
+    }
+
+    @Test
+    fun editBeforeSendingIsCoalesced() = runBlocking {
+        repository.enqueueProviderAttribute(attribute("old"), isNew = false)
+        repository.enqueueProviderAttribute(attribute("new"), isNew = false)
+
+        assertTrue(dispatcher.drain())
+
+        assertEquals(listOf("new"), sentValues)
+    }
+
+    @Test
+    fun clearDropsQueuedEntries() = runBlocking {
+        repository.enqueueProviderAttribute(attribute("old"), isNew = false)
+
+        repository.clear()
+
+        assertEquals(0, repository.getPendingCount().first())
+        assertTrue(dispatcher.drain())
+        assertTrue(sentValues.isEmpty())
+    }
+
+    private fun attribute(value: String) = ProviderAttributePayload(PROVIDER, ATTRIBUTE_TYPE, value)
+
+    companion object {
+        private const val PROVIDER = "provider-1"
+        private const val ATTRIBUTE_TYPE = "attribute-type-1"
+    }
+}
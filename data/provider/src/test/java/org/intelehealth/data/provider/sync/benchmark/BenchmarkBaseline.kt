@@ -0,0 +1,69 @@
+package org.intelehealth.data.provider.sync.benchmark
+
+import java.io.File
+import java.util.Properties
+
+/**
+ * Throughput floor and allocation ceiling of every scenario, read from
+ * `sync_benchmark_baseline.properties` on the test classpath.
+ *
+ * A scenario regresses when its rows/s falls, or its allocated bytes per row
+ * grows, by more than [tolerance] relative to the baseline. Checked by the
+ * `syncBenchmark` task, see `SyncThroughputBenchmark`.
+ *
+ * @param tolerance The accepted relative deviation, e.g. 0.25 for 25%.
+ */
+class BenchmarkBaseline(
+    private val properties: Properties,
+    private val tolerance: Double
+) {
+
+    /**
+     * Returns a description of every regression of [result], empty when it is within bounds.
+     */
+    fun regressions(result: BenchmarkResult): List<String> {
+        val failures = mutableListOf<String>()
+        baseline(result.name, BenchmarkResult.KEY_ROWS_PER_SECOND)?.let { expected ->
+            val floor = expected * (1 - tolerance)
+            if (result.rowsPerSecond() < floor) {
+                failures += "${result.name} throughput ${result.rowsPerSecond().toLong()} rows/s < ${floor.toLong()}"
+            }
+        }
+        baseline(result.name, BenchmarkResult.KEY_BYTES_PER_ROW)?.let { expected ->
+            val ceiling = expected * (1 + tolerance)
+            if (result.allocatedBytesPerRow() > ceiling) {
+                failures += "${result.name} allocations ${result.allocatedBytesPerRow()} B/row > ${ceiling.toLong()}"
+            }
+        }
+        return failures
+    }
+
+    /**
+     * Whether a throughput floor was recorded for the scenario [name].
+     */
+    fun covers(name: String): Boolean = baseline(name, BenchmarkResult.KEY_ROWS_PER_SECOND) != null
+
+    private fun baseline(name: String, key: String): Double? = properties.getProperty("$name.$key")?.toDoubleOrNull()
+
+    companion object {
+        private const val RESOURCE = "/sync_benchmark_baseline.properties"
+
+        fun load(tolerance: Double): BenchmarkBaseline {
+            val properties = Properties()
+            BenchmarkBaseline::class.java.getResourceAsStream(RESOURCE)?.use { properties.load(it) }
+            return BenchmarkBaseline(properties, tolerance)
+        }
+
+        /**
+         * Writes the measured values so that they can be reviewed and copied into the
+         * baseline, with the report of every scenario as the header.
+         */
+        fun write(results: List<BenchmarkResult>, file: File) {
+            val properties = Properties()
+            results.forEach { result -> result.toProperties().forEach { (key, value) -> properties[key] = value } }
+            val header = (listOf("Sync benchmark results") + results.map { it.report() }).joinToString("\n")
+            file.parentFile?.mkdirs()
+            file.outputStream().use { properties.store(it, header) }
+        }
+    }
+}
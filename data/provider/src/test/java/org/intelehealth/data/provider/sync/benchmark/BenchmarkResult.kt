@@ -0,0 +1,83 @@
+package org.intelehealth.data.provider.sync.benchmark
+
+import java.lang.management.ManagementFactory
+import java.util.Locale
+import java.util.concurrent.TimeUnit
+
+/**
+ * Outcome of one benchmark scenario.
+ *
+ * @property name The scenario name, also the key prefix in the baseline file.
+ * @property rows The number of rows written or pushed.
+ * @property totalNanos Wall time of the whole scenario.
+ * @property latencies Wall time of every page or batch in the scenario.
+ * @property allocatedBytes Bytes allocated by all live threads while the scenario ran.
+ */
+data class BenchmarkResult(
+    val name: String,
+    val rows: Int,
+    val totalNanos: Long,
+    val latencies: List<Long>,
+    val allocatedBytes: Long
+) {
+    private val sorted = latencies.sorted()
+
+    fun rowsPerSecond(): Double = if (totalNanos > 0) rows * NANOS_PER_SECOND / totalNanos else 0.0
+
+    fun allocatedBytesPerRow(): Long = if (rows > 0) allocatedBytes / rows else 0
+
+    /**
+     * Nearest-rank percentile of [latencies] in milliseconds.
+     */
+    fun percentileMillis(percentile: Int): Double {
+        if (sorted.isEmpty()) return 0.0
+        val rank = (percentile / 100.0 * sorted.size).toInt().coerceIn(0, sorted.size - 1)
+        return sorted[rank] / NANOS_PER_MILLI
+    }
+
+    fun report(): String = String.format(
+        Locale.US,
+        "%s: %d rows in %d ms => %.0f rows/s, p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, %d B/row",
+        name, rows, TimeUnit.NANOSECONDS.toMillis(totalNanos), rowsPerSecond(),
+        percentileMillis(50), percentileMillis(90), percentileMillis(99), allocatedBytesPerRow()
+    )
+
+    fun toProperties(): Map<String, String> = mapOf(
+        "$name.$KEY_ROWS_PER_SECOND" to rowsPerSecond().toLong().toString(),
+        "$name.p50_ms" to percentileMillis(50).toString(),
+        "$name.p90_ms" to percentileMillis(90).toString(),
+        "$name.p99_ms" to percentileMillis(99).toString(),
+        "$name.$KEY_BYTES_PER_ROW" to allocatedBytesPerRow().toString()
+    )
+
+    companion object {
+        const val KEY_ROWS_PER_SECOND = "rows_per_second"
+        const val KEY_BYTES_PER_ROW = "bytes_per_row"
+        private const val NANOS_PER_SECOND = 1_000_000_000.0
+        private const val NANOS_PER_MILLI = 1_000_000.0
+
+        /**
+         * Runs [block] and measures its wall time and allocations. [block] reports
+         * the latency of every page or batch it processes through the given callback.
+         */
+        inline fun measure(name: String, rows: Int, block: (onStep: (Long) -> Unit) -> Unit): BenchmarkResult {
+            val latencies = mutableListOf<Long>()
+            val allocatedBefore = allocatedBytes()
+            val start = System.nanoTime()
+            block { latencies.add(it) }
+            val total = System.nanoTime() - start
+            return BenchmarkResult(name, rows, total, latencies, allocatedBytes() - allocatedBefore)
+        }
+
+        /**
+         * Bytes allocated so far by all live threads, or 0 when the JVM can't tell.
+         * Threads that died during a scenario are not counted, so this is a lower bound.
+         */
+        fun allocatedBytes(): Long {
+            val threads = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean ?: return 0
+            if (threads.isThreadAllocatedMemorySupported.not()) return 0
+            threads.isThreadAllocatedMemoryEnabled = true
+            return threads.getThreadAllocatedBytes(threads.allThreadIds).filter { it > 0 }.sum()
+        }
+    }
+}
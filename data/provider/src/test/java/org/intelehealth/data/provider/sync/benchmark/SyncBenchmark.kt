@@ -0,0 +1,7 @@
+package org.intelehealth.data.provider.sync.benchmark
+
+/**
+ * JUnit category of the sync benchmarks. The regular unit test run excludes it, the
+ * `syncBenchmark` task of `:data:provider` runs only it and enforces the baseline.
+ */
+interface SyncBenchmark
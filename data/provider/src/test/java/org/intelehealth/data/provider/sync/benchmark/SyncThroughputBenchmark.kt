@@ -0,0 +1,232 @@
+package org.intelehealth.data.provider.sync.benchmark
+
+import android.content.Context
+import android.net.ConnectivityManager
+import android.net.NetworkCapabilities
+import androidx.room.Room
+import androidx.room.RoomDatabase
+import androidx.sqlite.db.SupportSQLiteDatabase
+import androidx.test.core.app.ApplicationProvider
+import com.google.gson.GsonBuilder
+import kotlinx.coroutines.runBlocking
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.OkHttpClient
+import okhttp3.ResponseBody.Companion.toResponseBody
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.intelehealth.common.helper.BandwidthProfiler
+import org.intelehealth.common.helper.NetworkHelper
+import org.intelehealth.common.helper.PreferenceHelper
+import org.intelehealth.common.metrics.SyncMetricsRecorder
+import org.intelehealth.common.metrics.SyncPhase
+import org.intelehealth.common.metrics.network.NetworkTelemetry
+import org.intelehealth.common.service.BaseResponse
+import org.intelehealth.common.utility.PreferenceUtils
+import org.intelehealth.data.network.RestClient
+import org.intelehealth.data.network.model.SetupLocation
+import org.intelehealth.data.offline.ChangeLogTriggers
+import org.intelehealth.data.offline.OfflineDatabase
+import org.intelehealth.data.offline.gson.EntityTypeAdapterFactory
+import org.intelehealth.data.provider.session.SessionContext
+import org.intelehealth.data.provider.sync.data.PushSyncSummary
+import org.intelehealth.data.provider.sync.data.SyncDataRepository
+import org.intelehealth.data.provider.sync.data.SyncDataSource
+import org.junit.After
+import org.junit.AfterClass
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.experimental.categories.Category
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.annotation.Config
+import org.robolectric.shadows.ShadowNetworkCapabilities
+import retrofit2.Retrofit
+import retrofit2.converter.gson.GsonConverterFactory
+import java.io.File
+
+/**
+ * End-to-end throughput benchmark of the sync path on the JVM.
+ *
+ * Runs [SyncDataRepository] against an in-memory [OfflineDatabase] and a
+ * [MockWebServer] standing in for the EMR middleware, with pages produced by
+ * [SyntheticPullData]. It is left out of the regular unit tests and run by
+ * `./gradlew :data:provider:syncBenchmark`, which fails when a scenario falls below
+ * [BenchmarkBaseline]. The measured values, with a readable summary in the header,
+ * are written to `build/sync-benchmark/results.properties`.
+ *
+ * The size is set through Gradle properties, e.g.
+ * `./gradlew :data:provider:syncBenchmark -Psync.benchmark.patients=100000 -Psync.benchmark.obs=20`;
+ * `-Psync.benchmark.enforce=false` only measures, as the baseline holds for the default size.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+@Category(SyncBenchmark::class)
+class SyncThroughputBenchmark {
+    private lateinit var server: MockWebServer
+    private lateinit var db: OfflineDatabase
+    private lateinit var repository: SyncDataRepository
+    private val gson = GsonBuilder().registerTypeAdapterFactory(EntityTypeAdapterFactory).create()
+
+    private val patients = Integer.getInteger(PROP_PATIENTS, DEFAULT_PATIENTS)
+    private val pageSize = Integer.getInteger(PROP_PAGE_SIZE, DEFAULT_PAGE_SIZE)
+    private val generator = SyntheticPullData(obsPerPatient = Integer.getInteger(PROP_OBS, DEFAULT_OBS))
+
+    @Before
+    fun setUp() {
+        val context = ApplicationProvider.getApplicationContext<Context>()
+        server = MockWebServer()
+        server.start()
+
+        db = Room.inMemoryDatabaseBuilder(context, OfflineDatabase::class.java)
+            .addCallback(object : RoomDatabase.Callback() {
+                override fun onOpen(db: SupportSQLiteDatabase) {
+                    ChangeLogTriggers.create(db)
+                }
+            })
+            .build()
+
+        val preferenceHelper = PreferenceHelper(context)
+        val preferenceUtils = PreferenceUtils(preferenceHelper).apply {
+            location = gson.toJson(SetupLocation(uuid = SyntheticPullData.LOCATION_UUID))
+            basicToken = "Basic benchmark"
+        }
+        val restClient = Retrofit.Builder()
+            .baseUrl(server.url("/"))
+            .client(OkHttpClient())
+            .addConverterFactory(GsonConverterFactory.create(gson))
+            .build()
+            .create(RestClient::class.java)
+
+        enableWifi(context)
+        val networkHelper = NetworkHelper(context)
+        val dataSource = SyncDataSource(restClient, preferenceUtils, networkHelper)
+        val sessionContext = SessionContext(preferenceUtils, db.userDao(), gson, preferenceHelper)
+        val bandwidthProfiler = BandwidthProfiler(networkHelper, NetworkTelemetry())
+        repository = SyncDataRepository(db, dataSource, gson, preferenceUtils, sessionContext, bandwidthProfiler)
+    }
+
+    @After
+    fun tearDown() {
+        db.close()
+        server.shutdown()
+    }
+
+    @Test
+    fun saveData() = runBlocking {
+        val result = BenchmarkResult.measure("saveData", generator.rowsPerPage(patients)) { onStep ->
+            forEachPage { from, count, nextPage ->
+                val page = generator.page(from, count, nextPage, patients)
+                val start = System.nanoTime()
+                repository.saveData(page) { _, _ -> }
+                onStep(System.nanoTime() - start)
+            }
+        }
+        assertEquals(patients, db.patientDao().getAllUnsyncedPatients(true).size)
+        check(result)
+    }
+
+    @Test
+    fun saveDataStream() = runBlocking {
+        val result = BenchmarkResult.measure("saveDataStream", generator.rowsPerPage(patients)) { onStep ->
+            forEachPage { from, count, nextPage ->
+                val page = generator.page(from, count, nextPage, patients)
+                val json = gson.toJson(BaseResponse(STATUS_OK, HTTP_OK, page))
+                val start = System.nanoTime()
+                repository.saveDataStream(json.toResponseBody(JSON), from / pageSize, pageSize)
+                onStep(System.nanoTime() - start)
+            }
+        }
+        assertEquals(patients, db.patientDao().getAllUnsyncedPatients(true).size)
+        check(result)
+    }
+
+    @Test
+    fun pushData() = runBlocking {
+        val pending = SyntheticPullData(obsPerPatient = Integer.getInteger(PROP_OBS, DEFAULT_OBS), synced = false)
+        forEachPage { from, count, _ ->
+            val page = pending.page(from, count)
+            db.patientDao().insert(page.patients)
+            db.patientAttrDao().insert(page.patientAttributesList)
+            db.visitDao().insert(page.visitlist)
+            db.encounterDao().insert(page.encounterlist)
+            db.observationDao().insert(page.obslist)
+        }
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest) = MockResponse().setBody(PUSH_RESPONSE)
+        }
+
+        val metrics = SyncMetricsRecorder(SyncMetricsRecorder.TYPE_PUSH)
+        var summary: PushSyncSummary? = null
+        val result = BenchmarkResult.measure("pushData", pending.rowsPerPage(patients)) { onStep ->
+            summary = repository.pushData(metrics)
+            // one step per batch: its request plus marking its rows synced
+            metrics.samples().filter { it.phase != SyncPhase.PREPARE }
+                .groupBy { it.pageNo }.values.forEach { batch -> onStep(batch.sumOf { it.nanos }) }
+        }
+        assertEquals(summary?.batches, summary?.acceptedBatches)
+        assertTrue(db.patientDao().getAllUnsyncedPatients().isEmpty())
+        check(result)
+    }
+
+    private suspend fun forEachPage(block: suspend (from: Int, count: Int, nextPage: Int) -> Unit) {
+        var from = 0
+        while (from < patients) {
+            val count = minOf(pageSize, patients - from)
+            val nextPage = if (from + count >= patients) 0 else (from + count) / pageSize
+            block(from, count, nextPage)
+            from += count
+        }
+    }
+
+    private fun check(result: BenchmarkResult) {
+        results += result
+        if (!enforce) return
+        assertTrue("no baseline recorded for ${result.name}", baseline.covers(result.name))
+        val regressions = baseline.regressions(result)
+        assertTrue(regressions.joinToString(separator = "\n"), regressions.isEmpty())
+    }
+
+    private fun enableWifi(context: Context) {
+        val connectivityManager = context.getSystemService(Context.CONNECTIVITY_SERVICE) as ConnectivityManager
+        val capabilities = ShadowNetworkCapabilities.newInstance()
+        shadowOf(capabilities).addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+        shadowOf(connectivityManager).setNetworkCapabilities(connectivityManager.activeNetwork, capabilities)
+    }
+
+    companion object {
+        private const val PROP_PATIENTS = "sync.benchmark.patients"
+        private const val PROP_OBS = "sync.benchmark.obs"
+        private const val PROP_PAGE_SIZE = "sync.benchmark.pageSize"
+        private const val PROP_TOLERANCE = "sync.benchmark.tolerance"
+        private const val PROP_ENFORCE = "sync.benchmark.enforce"
+        private const val PROP_OUTPUT = "sync.benchmark.output"
+
+        private const val DEFAULT_PATIENTS = 1000
+        private const val DEFAULT_OBS = SyntheticPullData.DEFAULT_OBS_PER_PATIENT
+        private const val DEFAULT_PAGE_SIZE = 100
+        private const val DEFAULT_TOLERANCE = 0.25
+        private const val DEFAULT_OUTPUT = "build/sync-benchmark/results.properties"
+
+        private const val STATUS_OK = "OK"
+        private const val HTTP_OK = 200
+        private const val PUSH_RESPONSE = """{"status":"$STATUS_OK","statusCode":$HTTP_OK}"""
+        private val JSON = "application/json; charset=utf-8".toMediaType()
+
+        private val baseline = BenchmarkBaseline.load(
+            System.getProperty(PROP_TOLERANCE)?.toDoubleOrNull() ?: DEFAULT_TOLERANCE
+        )
+        private val enforce = System.getProperty(PROP_ENFORCE).toBoolean()
+        private val results = mutableListOf<BenchmarkResult>()
+
+        @JvmStatic
+        @AfterClass
+        fun writeResults() {
+            BenchmarkBaseline.write(results, File(System.getProperty(PROP_OUTPUT) ?: DEFAULT_OUTPUT))
+        }
+    }
+}
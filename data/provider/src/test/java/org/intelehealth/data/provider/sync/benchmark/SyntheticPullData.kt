@@ -0,0 +1,141 @@
+package org.intelehealth.data.provider.sync.benchmark
+
+import org.intelehealth.data.network.model.response.PullResponse
+import org.intelehealth.data.offline.entity.Encounter
+import org.intelehealth.data.offline.entity.Observation
+import org.intelehealth.data.offline.entity.Patient
+import org.intelehealth.data.offline.entity.PatientAttribute
+import org.intelehealth.data.offline.entity.Visit
+
+/**
+ * Generates deterministic `pulldata` pages for the sync benchmark.
+ *
+ * Every patient gets [attributesPerPatient] attributes and one visit with a single
+ * encounter carrying [obsPerPatient] observations, which is roughly the shape of a
+ * facility pull. The uuids only depend on the patient index, so the same index
+ * always produces the same rows.
+ *
+ * @param obsPerPatient The number of observations generated for every patient.
+ * @param attributesPerPatient The number of attributes generated for every patient.
+ * @param synced The synced flag of the generated rows; `false` makes them pending for push.
+ */
+class SyntheticPullData(
+    private val obsPerPatient: Int = DEFAULT_OBS_PER_PATIENT,
+    private val attributesPerPatient: Int = DEFAULT_ATTRIBUTES_PER_PATIENT,
+    private val synced: Boolean = true
+) {
+
+    /**
+     * Number of rows a page of [patients] patients writes across all tables.
+     */
+    fun rowsPerPage(patients: Int): Int = patients * (ROWS_PER_PATIENT + attributesPerPatient + obsPerPatient)
+
+    /**
+     * Builds the page covering patients `[from, from + count)`.
+     *
+     * @param nextPage The `pageNo` reported to the client, 0 for the last page.
+     * @param totalCount The `totalCount` reported to the client.
+     */
+    fun page(from: Int, count: Int, nextPage: Int = 0, totalCount: Int = from + count): PullResponse {
+        val indexes = from until from + count
+        return PullResponse(
+            patients = indexes.map { patient(it) },
+            pullExecutedTime = PULL_EXECUTED_TIME,
+            patientAttributeTypeListMaster = emptyList(),
+            patientAttributesList = indexes.flatMap { attributes(it) },
+            visitlist = indexes.map { visit(it) },
+            encounterlist = indexes.map { encounter(it) },
+            obslist = indexes.flatMap { observations(it) },
+            locationlist = emptyList(),
+            providerlist = emptyList(),
+            providerAttributeTypeList = emptyList(),
+            providerAttributeList = emptyList(),
+            visitAttributeTypeList = emptyList(),
+            visitAttributeList = emptyList(),
+            pageNo = nextPage,
+            totalCount = totalCount
+        )
+    }
+
+    fun patient(index: Int) = Patient(
+        openMrsId = "OMRS-$index",
+        firstName = "First$index",
+        middleName = "Middle",
+        lastName = "Last$index",
+        dateOfBirth = "1990-01-01",
+        gender = if (index % 2 == 0) "F" else "M",
+        creatorUuid = CREATOR_UUID,
+        updatedAt = MODIFIED_DATE,
+        createdAt = MODIFIED_DATE,
+        synced = synced
+    ).apply {
+        uuid = patientUuid(index)
+        address1 = "House $index"
+        cityVillage = "Village ${index % 100}"
+        state = "State"
+        country = "India"
+        postalCode = "400001"
+    }
+
+    fun attributes(index: Int) = List(attributesPerPatient) { attr ->
+        PatientAttribute(
+            value = "value-$index-$attr",
+            personAttributeTypeUuid = "attr-type-$attr",
+            patientUuid = patientUuid(index),
+            updatedAt = MODIFIED_DATE
+        ).apply { uuid = "pa-$index-$attr" }
+    }
+
+    fun visit(index: Int) = Visit(
+        patientUuid = patientUuid(index),
+        visitTypeUuid = VISIT_TYPE_UUID,
+        startDate = MODIFIED_DATE,
+        locationUuid = LOCATION_UUID,
+        creatorUuid = CREATOR_UUID,
+        synced = synced,
+        updatedAt = MODIFIED_DATE
+    ).apply { uuid = visitUuid(index) }
+
+    fun encounter(index: Int) = Encounter(
+        visitUuid = visitUuid(index),
+        encounterTypeUuid = ENCOUNTER_TYPE_UUID,
+        encounterTime = MODIFIED_DATE,
+        providerUuid = CREATOR_UUID,
+        updatedAt = MODIFIED_DATE,
+        synced = synced
+    ).apply { uuid = encounterUuid(index) }
+
+    fun observations(index: Int) = List(obsPerPatient) { obs ->
+        Observation(
+            encounterUuid = encounterUuid(index),
+            conceptUuid = "concept-$obs",
+            value = "Observation value $obs of patient $index",
+            creator = CREATOR_UUID,
+            updatedAt = MODIFIED_DATE,
+            createdAt = MODIFIED_DATE
+        ).apply {
+            uuid = "obs-$index-$obs"
+            synced = this@SyntheticPullData.synced
+        }
+    }
+
+    private fun patientUuid(index: Int) = "patient-$index"
+
+    private fun visitUuid(index: Int) = "visit-$index"
+
+    private fun encounterUuid(index: Int) = "encounter-$index"
+
+    companion object {
+        const val DEFAULT_OBS_PER_PATIENT = 10
+        const val DEFAULT_ATTRIBUTES_PER_PATIENT = 3
+        const val LOCATION_UUID = "benchmark-location"
+        const val PULL_EXECUTED_TIME = "2026-10-18 10:00:00"
+
+        // patient, visit and encounter
+        private const val ROWS_PER_PATIENT = 3
+        private const val MODIFIED_DATE = "2026-10-18 09:30:00"
+        private const val CREATOR_UUID = "benchmark-provider"
+        private const val VISIT_TYPE_UUID = "visit-type"
+        private const val ENCOUNTER_TYPE_UUID = "encounter-type"
+    }
+}
@@ -0,0 +1,53 @@
+package org.intelehealth.data.provider.sync.data
+
+import com.google.gson.Gson
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.RecordedRequest
+import org.intelehealth.common.service.BaseResponse
+import org.intelehealth.common.service.HttpStatusCode.HTTP_OK
+import org.intelehealth.data.provider.sync.benchmark.SyntheticPullData
+import java.util.concurrent.CopyOnWriteArrayList
+
+/**
+ * Serves the `pulldata` pages of [patients] synthetic patients, one visit and
+ * encounter each, addressed by page number and page limit like the middleware does.
+ *
+ * @param nextPage The page number reported for a request that is not the last one.
+ */
+class PullDataDispatcher(
+    private val gson: Gson,
+    private val patients: Int,
+    private val nextPage: (PullPageRequest) -> Int = { it.pageNo + 1 }
+) : Dispatcher() {
+    private val data = SyntheticPullData(obsPerPatient = 1, attributesPerPatient = 1)
+
+    /**
+     * Every page requested so far, in order.
+     */
+    val requests: MutableList<PullPageRequest> = CopyOnWriteArrayList()
+
+    /**
+     * Answers every request with an HTTP 500 while set.
+     */
+    @Volatile
+    var failing = false
+
+    override fun dispatch(request: RecordedRequest): MockResponse {
+        val segments = request.requestUrl?.pathSegments.orEmpty()
+        val page = PullPageRequest(segments[segments.size - 2].toInt(), segments.last().toInt())
+        requests.add(page)
+        if (failing) return MockResponse().setResponseCode(HTTP_INTERNAL_ERROR)
+
+        val from = page.offset.toInt().coerceAtMost(patients)
+        val count = minOf(page.pageSize, patients - from)
+        val next = if (from + count >= patients) 0 else nextPage(page)
+        val body = BaseResponse(HTTP_OK, HTTP_STATUS_OK, data.page(from, count, next, patients))
+        return MockResponse().setBody(gson.toJson(body))
+    }
+
+    companion object {
+        private const val HTTP_STATUS_OK = 200
+        private const val HTTP_INTERNAL_ERROR = 500
+    }
+}
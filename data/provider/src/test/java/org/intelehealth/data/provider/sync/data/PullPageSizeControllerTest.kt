@@ -0,0 +1,97 @@
+package org.intelehealth.data.provider.sync.data
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.concurrent.TimeUnit
+
+/**
+ * Table-driven checks of the page sizes [PullPageSizeController] picks between
+ * 25 and 400 records, and of the requests it aligns to the reached offset.
+ */
+class PullPageSizeControllerTest {
+
+    /**
+     * @param steps Measurements fed to the controller, in order.
+     */
+    private data class SizeCase(
+        val name: String,
+        val initialPageSize: Int,
+        val steps: List<PullPageSizeController.() -> Unit>,
+        val expected: Int
+    )
+
+    private data class RequestCase(val name: String, val offset: Long, val fallback: Int, val expected: PullPageRequest)
+
+    @Test
+    fun picksPageSize() {
+        listOf(
+            SizeCase("initial size is a power of two step", 60, emptyList(), 50),
+            SizeCase("initial size below the minimum", 10, emptyList(), 25),
+            SizeCase("initial size above the maximum", 1000, emptyList(), 400),
+            SizeCase("fast small page grows", 50, listOf(fetched(50, FAST, SMALL)), 100),
+            SizeCase("grows one size per page", 50, listOf(fetched(50, FAST, SMALL), fetched(100, FAST, SMALL)), 200),
+            SizeCase("slow page shrinks", 100, listOf(fetched(100, SLOW, SMALL)), 50),
+            SizeCase("large page shrinks", 100, listOf(fetched(100, FAST, LARGE)), 50),
+            SizeCase("long write shrinks", 100, listOf(written(100, LONG_WRITE)), 50),
+            SizeCase("measurement between the bounds", 100, listOf(fetched(100, MODERATE, SMALL)), 100),
+            SizeCase("busy write blocks growth", 50, listOf(written(50, BUSY_WRITE), fetched(50, FAST, SMALL)), 50),
+            SizeCase("quick write allows growth", 50, listOf(written(50, QUICK_WRITE), fetched(50, FAST, SMALL)), 100),
+            SizeCase("stale page size no growth", 50, listOf(fetched(50, FAST, SMALL), fetched(50, FAST, SMALL)), 100),
+            SizeCase("grows no further than 400", 400, listOf(fetched(400, FAST, SMALL)), 400),
+            SizeCase("shrinks no further than 25", 25, listOf(fetched(25, SLOW, LARGE), written(25, LONG_WRITE)), 25)
+        ).forEach { case ->
+            val controller = PullPageSizeController(initialPageSize = case.initialPageSize)
+            case.steps.forEach { controller.it() }
+            assertEquals(case.name, case.expected, controller.pageSize)
+        }
+    }
+
+    @Test
+    fun alignsRequestsToOffset() {
+        val controller = PullPageSizeController(initialPageSize = 400)
+        listOf(
+            RequestCase("first page", 0, 400, PullPageRequest(0, 400)),
+            RequestCase("offset of the current size", 800, 400, PullPageRequest(2, 400)),
+            RequestCase("largest size dividing the offset", 100, 400, PullPageRequest(1, 100)),
+            RequestCase("odd multiple of the minimum", 75, 400, PullPageRequest(3, 25)),
+            RequestCase("offset of an older run keeps its size", 30, 30, PullPageRequest(1, 30))
+        ).forEach { case ->
+            assertEquals(case.name, case.expected, controller.requestAt(case.offset, case.fallback))
+        }
+    }
+
+    @Test
+    fun requestsStayContiguousWhileTheSizeChanges() {
+        val controller = PullPageSizeController(initialPageSize = 50)
+        val latencies = listOf(FAST, FAST, FAST, SLOW, SLOW, FAST, MODERATE, FAST)
+        var request = controller.requestAt(0)
+        val requests = mutableListOf(request)
+        latencies.forEach { latency ->
+            controller.onFetched(request.pageSize, TimeUnit.MILLISECONDS.toNanos(latency), SMALL)
+            val next = controller.requestAt(request.nextOffset)
+            assertEquals("$request -> $next", request.nextOffset, next.offset)
+            assertEquals("$next is not aligned", 0L, next.offset % next.pageSize)
+            request = next
+            requests += next
+        }
+        assertTrue(requests.toString(), requests.map { it.pageSize }.distinct().size > 2)
+    }
+
+    private fun fetched(pageSize: Int, millis: Long, bytes: Long): PullPageSizeController.() -> Unit =
+        { onFetched(pageSize, TimeUnit.MILLISECONDS.toNanos(millis), bytes) }
+
+    private fun written(pageSize: Int, millis: Long): PullPageSizeController.() -> Unit =
+        { onWritten(pageSize, TimeUnit.MILLISECONDS.toNanos(millis)) }
+
+    companion object {
+        private const val FAST = 100L
+        private const val MODERATE = 5_000L
+        private const val SLOW = 15_000L
+        private const val SMALL = 64L * 1024
+        private const val LARGE = 8L * 1024 * 1024
+        private const val QUICK_WRITE = 100L
+        private const val BUSY_WRITE = 1_000L
+        private const val LONG_WRITE = 3_000L
+    }
+}
@@ -0,0 +1,154 @@
+package org.intelehealth.data.provider.sync.data
+
+import com.google.gson.GsonBuilder
+import com.google.gson.JsonObject
+import com.google.gson.JsonParser
+import com.google.gson.reflect.TypeToken
+import kotlinx.coroutines.runBlocking
+import org.intelehealth.common.service.BaseResponse
+import org.intelehealth.common.service.HttpStatusCode.HTTP_OK
+import org.intelehealth.data.network.model.response.PullResponse
+import org.intelehealth.data.offline.gson.EntityTypeAdapterFactory
+import org.intelehealth.data.provider.sync.benchmark.SyntheticPullData
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertThrows
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.StringReader
+
+/**
+ * Checks that [PullPageStreamReader] hands out the same entities as binding the
+ * whole page with `Gson.fromJson`, and how it treats sections it does not expect.
+ */
+class PullPageStreamReaderTest {
+    private val gson = GsonBuilder().registerTypeAdapterFactory(EntityTypeAdapterFactory).create()
+    private val data = SyntheticPullData(obsPerPatient = 2, attributesPerPatient = 2)
+
+    @Test
+    fun decodesLikeWholePageBinding() = runBlocking {
+        val json = pageJson(
+            5,
+            "locationlist" to """[{"locationuuid":"location-1","name":"Village"}]""",
+            "providerlist" to """[{"uuid":"provider-1","given_name":"Asha","voided":"0"}]""",
+            "providerAttributeList" to """[{"uuid":"pa-1","provideruuid":"provider-1","value":"x"}]""",
+            "visitAttributeList" to """[{"uuid":"va-1","visit_uuid":"visit-0","value":"y"}]""",
+            "patientAttributeTypeListMaster" to """[{"uuid":"type-1","name":"Telephone Number"}]"""
+        )
+        val bound = gson.fromJson<BaseResponse<String, PullResponse>>(json, PAGE_TYPE)
+
+        val (summary, sections) = read(json, chunkSize = 2)
+
+        val page = requireNotNull(bound.data)
+        val expected = mapOf(
+            PullSection.PATIENT to page.patients,
+            PullSection.PATIENT_ATTRIBUTE_MASTER to page.patientAttributeTypeListMaster,
+            PullSection.PATIENT_ATTRIBUTE to page.patientAttributesList,
+            PullSection.VISIT to page.visitlist,
+            PullSection.VISIT_ATTRIBUTE to page.visitAttributeList,
+            PullSection.ENCOUNTER to page.encounterlist,
+            PullSection.OBSERVATION to page.obslist,
+            PullSection.LOCATION to page.locationlist,
+            PullSection.PROVIDER to page.providerlist,
+            PullSection.PROVIDER_ATTRIBUTE to page.providerAttributeList
+        )
+        PullSection.entries.forEach { section ->
+            val rows = expected.getValue(section)
+            assertTrue("$section is empty", rows.isNotEmpty())
+            assertEquals(section.name, gson.toJson(rows), gson.toJson(sections[section]))
+            assertEquals(section.name, rows.size, summary.rowCounts[section])
+        }
+        assertEquals(bound.status, summary.status)
+        assertEquals(page.pullExecutedTime, summary.pullExecutedTime)
+        assertEquals(page.pageNo, summary.pageNo)
+        assertEquals(page.totalCount, summary.totalCount)
+        assertTrue(summary.hasData)
+    }
+
+    @Test
+    fun skipsUnknownSectionsAndFields() = runBlocking {
+        val json = pageJson(
+            2,
+            "providerAttributeTypeList" to """[{"uuid":"pat-1"}]""",
+            "unknownList" to """[{"uuid":"u-1","nested":{"list":[1,2]}}]""",
+            "unknownScalar" to "42"
+        ).replaceFirst("{", """{"message":"ignored","extra":{"a":[true]},""")
+
+        val (summary, sections) = read(json)
+
+        assertEquals(setOf("patient-0", "patient-1"), sections[PullSection.PATIENT].orEmpty().map { uuid(it) }.toSet())
+        assertEquals(summary.rowCounts.keys, sections.keys)
+        assertEquals(HTTP_OK, summary.status)
+        assertTrue(summary.hasData)
+    }
+
+    @Test
+    fun missingSectionsAreNotReported() = runBlocking {
+        val json = """{"status":"OK","data":{"patientlist":[{"uuid":"patient-1"}],"pageNo":0,"totalCount":1}}"""
+
+        val (summary, sections) = read(json)
+
+        assertEquals(setOf(PullSection.PATIENT), sections.keys)
+        assertEquals(mapOf(PullSection.PATIENT to 1), summary.rowCounts)
+        assertEquals(null, summary.pullExecutedTime)
+    }
+
+    @Test
+    fun emptyAndNullSectionsCountZeroRows() = runBlocking {
+        val json = """{"status":"OK","data":{"patientlist":[],"visitlist":null,"pageNo":0,"totalCount":0}}"""
+
+        val (summary, sections) = read(json)
+
+        assertTrue(sections.isEmpty())
+        assertEquals(mapOf(PullSection.PATIENT to 0, PullSection.VISIT to 0), summary.rowCounts)
+        assertTrue(summary.hasData)
+    }
+
+    @Test
+    fun nullDataHasNoData() = runBlocking {
+        val (summary, sections) = read("""{"status":"FAIL","data":null}""")
+
+        assertTrue(sections.isEmpty())
+        assertFalse(summary.hasData)
+        assertEquals("FAIL", summary.status)
+    }
+
+    @Test
+    fun truncatedPageFails() {
+        val json = pageJson(5)
+
+        listOf(json.length / 3, json.length / 2, json.length - 1).forEach { length ->
+            assertThrows(Exception::class.java) { runBlocking { read(json.substring(0, length)) } }
+        }
+    }
+
+    private suspend fun read(json: String, chunkSize: Int = PullPageStreamReader.DEFAULT_CHUNK_SIZE) =
+        mutableMapOf<PullSection, MutableList<Any>>().let { sections ->
+            val summary = PullPageStreamReader(gson, chunkSize).read(StringReader(json)) { section, chunk ->
+                assertTrue("chunk of ${chunk.size} > $chunkSize", chunk.size <= chunkSize)
+                sections.getOrPut(section) { mutableListOf() }.addAll(chunk)
+            }
+            summary to sections
+        }
+
+    /**
+     * A page of [patients] synthetic patients with [extra] sections added as raw JSON.
+     */
+    private fun pageJson(patients: Int, vararg extra: Pair<String, String>): String {
+        val page = gson.toJsonTree(data.page(0, patients, nextPage = 1, totalCount = patients * 2)) as JsonObject
+        extra.forEach { (key, value) -> page.add(key, JsonParser.parseString(value)) }
+        val response = JsonObject().apply {
+            addProperty("status", HTTP_OK)
+            addProperty("statusCode", HTTP_STATUS_OK)
+            add("data", page)
+        }
+        return gson.toJson(response)
+    }
+
+    private fun uuid(entity: Any): String = gson.toJsonTree(entity).asJsonObject.get("uuid").asString
+
+    companion object {
+        private const val HTTP_STATUS_OK = 200
+        private val PAGE_TYPE = object : TypeToken<BaseResponse<String, PullResponse>>() {}.type
+    }
+}
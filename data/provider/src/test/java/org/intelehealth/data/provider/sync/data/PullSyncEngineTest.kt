@@ -0,0 +1,151 @@
+package org.intelehealth.data.provider.sync.data
+
+import androidx.test.core.app.ApplicationProvider
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import java.io.File
+
+/**
+ * Runs [PullSyncEngine] against a [PullDataDispatcher] with a fixed page size.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+class PullSyncEngineTest {
+    private lateinit var env: SyncTestEnvironment
+    private lateinit var engine: PullSyncEngine
+
+    private val spoolDir get() = File(env.context.cacheDir, "pull_pages")
+
+    @Before
+    fun setUp() {
+        env = SyncTestEnvironment(ApplicationProvider.getApplicationContext())
+        engine = PullSyncEngine(env.context, env.repository, env.networkHelper)
+    }
+
+    @After
+    fun tearDown() {
+        env.close()
+    }
+
+    @Test
+    fun pullsEveryPage() = runBlocking {
+        val server = serve(PullDataDispatcher(env.gson, PATIENTS))
+
+        val outcome = run()
+
+        assertTrue(outcome.toString(), outcome is PullSyncOutcome.Completed)
+        assertEquals(patients(0 until PATIENTS), env.uuids("tbl_patient"))
+        // the producer may already ask for the page after the last one before it is stopped
+        assertEquals(listOf(0L, 25L, 50L, 75L), server.requests.map { it.offset }.take(4))
+        assertSpoolDirEmpty()
+    }
+
+    @Test
+    fun restartsFromTheOffsetTheServerReports() = runBlocking {
+        // the first page points two pages ahead, so the prefetched second page is discarded
+        val server = serve(PullDataDispatcher(env.gson, PATIENTS) { if (it.pageNo == 0) 2 else it.pageNo + 1 })
+
+        val outcome = run()
+
+        assertTrue(outcome.toString(), outcome is PullSyncOutcome.Completed)
+        assertEquals(patients(0 until PAGE_SIZE) + patients(2 * PAGE_SIZE until PATIENTS), env.uuids("tbl_patient"))
+        assertTrue(server.requests.map { it.offset }.containsAll(listOf(0L, 50L, 75L)))
+        assertSpoolDirEmpty()
+    }
+
+    @Test
+    fun givesUpAfterMaxReconnects() = runBlocking {
+        val server = serve(PullDataDispatcher(env.gson, PATIENTS).apply { failing = true })
+        var reconnects = 0
+        engine.awaitReconnect = {
+            reconnects++
+            true
+        }
+
+        val outcome = run()
+
+        assertTrue(outcome.toString(), outcome is PullSyncOutcome.Failed)
+        assertEquals(PullSyncEngine.MAX_RECONNECTS, reconnects)
+        assertEquals(List(PullSyncEngine.MAX_RECONNECTS + 1) { 0L }, server.requests.map { it.offset })
+        assertTrue(env.uuids("tbl_patient").isEmpty())
+    }
+
+    @Test
+    fun reconnectRetriesTheSamePage() = runBlocking {
+        val server = serve(PullDataDispatcher(env.gson, PATIENTS).apply { failing = true })
+        engine.awaitReconnect = {
+            server.failing = false
+            true
+        }
+
+        val outcome = run()
+
+        assertTrue(outcome.toString(), outcome is PullSyncOutcome.Completed)
+        assertEquals(listOf(0L, 0L, 25L, 50L, 75L), server.requests.map { it.offset }.take(5))
+        assertEquals(patients(0 until PATIENTS), env.uuids("tbl_patient"))
+    }
+
+    @Test
+    fun cancellingRemovesSpooledPages() = runBlocking {
+        serve(PullDataDispatcher(env.gson, PATIENTS))
+
+        launch { engine.run(START, fixedSize(), onPageSaved = { cancel() }) }.join()
+
+        assertEquals(patients(0 until PAGE_SIZE), env.uuids("tbl_patient"))
+        assertSpoolDirEmpty()
+    }
+
+    @Test
+    fun resumesAfterTheLastSavedPage() = runBlocking {
+        val server = serve(PullDataDispatcher(env.gson, PATIENTS))
+        launch {
+            engine.run(START, fixedSize(), onPageSaved = { if (it.requestedPage == KILLED_AFTER_PAGE) cancel() })
+        }.join()
+        val killedRequests = server.requests.size
+
+        val resume = env.repository.resumePullCheckpoint()
+        val outcome = PullSyncEngine(env.context, env.repository, env.networkHelper).run(resume, fixedSize()) {}
+
+        assertEquals(PullPageRequest(KILLED_AFTER_PAGE + 1, PAGE_SIZE), resume)
+        assertTrue(outcome.toString(), outcome is PullSyncOutcome.Completed)
+        val resumedPages = server.requests.drop(killedRequests).map { it.pageNo }
+        assertTrue(resumedPages.toString(), resumedPages.all { it > KILLED_AFTER_PAGE })
+        assertEquals(patients(0 until PATIENTS), env.uuids("tbl_patient"))
+        assertEquals(PATIENTS, rowCount("tbl_patient"))
+        assertEquals(PATIENTS, rowCount("tbl_visit"))
+        assertSpoolDirEmpty()
+    }
+
+    private suspend fun run() = engine.run(START, fixedSize()) {}
+
+    private fun serve(dispatcher: PullDataDispatcher) = dispatcher.also { env.server.dispatcher = it }
+
+    private fun fixedSize() = PullPageSizeController(PAGE_SIZE, PAGE_SIZE, PAGE_SIZE)
+
+    private fun patients(indexes: IntRange) = indexes.map { "patient-$it" }.toSet()
+
+    private fun rowCount(table: String) = env.db.openHelper.readableDatabase.query("SELECT COUNT(*) FROM $table").use {
+        it.moveToFirst()
+        it.getInt(0)
+    }
+
+    private fun assertSpoolDirEmpty() {
+        assertEquals(emptyList<String>(), spoolDir.list().orEmpty().toList())
+    }
+
+    companion object {
+        private const val PAGE_SIZE = 25
+        private const val PATIENTS = 100
+        private const val KILLED_AFTER_PAGE = 1
+        private val START = PullPageRequest(SyncDataRepository.FIRST_PAGE, PAGE_SIZE)
+    }
+}
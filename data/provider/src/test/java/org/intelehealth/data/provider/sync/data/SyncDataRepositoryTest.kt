@@ -0,0 +1,126 @@
+package org.intelehealth.data.provider.sync.data
+
+import androidx.test.core.app.ApplicationProvider
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import okhttp3.ResponseBody.Companion.toResponseBody
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.RecordedRequest
+import org.intelehealth.common.service.BaseResponse
+import org.intelehealth.common.service.HttpStatusCode.HTTP_OK
+import org.intelehealth.data.offline.entity.SyncCheckpoint
+import org.intelehealth.data.offline.entity.Visit
+import org.intelehealth.data.offline.entity.VisitAttribute
+import org.intelehealth.data.provider.sync.benchmark.SyntheticPullData
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+/**
+ * Runs [SyncDataRepository] against a [SyncTestEnvironment].
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+class SyncDataRepositoryTest {
+    private val pushRequests = mutableListOf<RecordedRequest>()
+
+    private lateinit var env: SyncTestEnvironment
+    private val db get() = env.db
+    private val repository get() = env.repository
+
+    @Before
+    fun setUp() {
+        env = SyncTestEnvironment(ApplicationProvider.getApplicationContext())
+        env.server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                pushRequests.add(request)
+                return MockResponse().setBody(PUSH_RESPONSE)
+            }
+        }
+    }
+
+    @After
+    fun tearDown() {
+        env.close()
+    }
+
+    @Test
+    fun visitWithoutAttributesLeavesChangeLogEmpty() = runBlocking {
+        db.visitDao().insert(listOf(visit()))
+
+        val summary = repository.pushData()
+
+        assertEquals(0, summary.batches)
+        assertTrue(pushRequests.isEmpty())
+        assertEquals(0, db.changeLogDao().getPendingCount().first())
+    }
+
+    @Test
+    fun pendingAttributeLogsItsVisitAgain() = runBlocking {
+        db.visitDao().insert(listOf(visit()))
+        repository.pushData()
+
+        db.visitAttributeDao().insert(listOf(VisitAttribute(visitUuid = VISIT_UUID).apply { uuid = "va-1" }))
+        assertEquals(1, db.changeLogDao().getPendingCount().first())
+
+        val summary = repository.pushData()
+
+        assertEquals(1, summary.acceptedBatches)
+        assertEquals(1, pushRequests.size)
+        assertEquals(0, db.changeLogDao().getPendingCount().first())
+    }
+
+    @Test
+    fun truncatedPageCommitsNothing() = runBlocking {
+        // more patients than a chunk, so some are written before the body breaks off
+        val patients = PullPageStreamReader.DEFAULT_CHUNK_SIZE + PAGE_PATIENTS_OVER_CHUNK
+        val page = SyntheticPullData().page(0, patients, nextPage = 1, totalCount = patients * 2)
+        val json = env.gson.toJson(BaseResponse(HTTP_OK, HTTP_STATUS_OK, page))
+        val truncated = json.substring(0, json.length * 9 / 10)
+
+        val failure = runCatching { repository.saveDataStream(truncated.toResponseBody(), 0, patients) }
+
+        assertTrue(failure.isFailure)
+        assertTrue(env.uuids("tbl_patient").isEmpty())
+        assertNull(db.syncCheckpointDao().getCheckpoint(SyncCheckpoint.PULL))
+    }
+
+    @Test
+    fun pulledPatientsVisitsAndEncountersKeepTheServerSyncedFlag() = runBlocking {
+        val page = SyntheticPullData(synced = false).page(0, PULLED_PATIENTS)
+        val json = env.gson.toJson(BaseResponse(HTTP_OK, HTTP_STATUS_OK, page))
+
+        repository.saveDataStream(json.toResponseBody(), 0, PULLED_PATIENTS)
+
+        listOf("tbl_patient", "tbl_visit", "tbl_encounter").forEach { assertEquals(it, 0, syncedRows(it)) }
+        listOf("tbl_patient_attribute", "tbl_obs").forEach { table ->
+            assertEquals(table, rowCount(table), syncedRows(table))
+        }
+    }
+
+    private fun rowCount(table: String) = count("SELECT COUNT(*) FROM $table")
+
+    private fun syncedRows(table: String) = count("SELECT COUNT(*) FROM $table WHERE synced = 1")
+
+    private fun count(sql: String) = db.openHelper.readableDatabase.query(sql).use {
+        it.moveToFirst()
+        it.getInt(0)
+    }
+
+    private fun visit() = Visit(patientUuid = "patient-1", synced = false).apply { uuid = VISIT_UUID }
+
+    companion object {
+        private const val VISIT_UUID = "visit-1"
+        private const val HTTP_STATUS_OK = 200
+        private const val PAGE_PATIENTS_OVER_CHUNK = 50
+        private const val PULLED_PATIENTS = 3
+        private const val PUSH_RESPONSE = """{"status":"OK","statusCode":200}"""
+    }
+}
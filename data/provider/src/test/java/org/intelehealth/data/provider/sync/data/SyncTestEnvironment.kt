@@ -0,0 +1,85 @@
+package org.intelehealth.data.provider.sync.data
+
+import android.content.Context
+import android.net.ConnectivityManager
+import android.net.NetworkCapabilities
+import androidx.room.Room
+import com.google.gson.Gson
+import com.google.gson.GsonBuilder
+import okhttp3.OkHttpClient
+import okhttp3.mockwebserver.MockWebServer
+import org.intelehealth.common.helper.BandwidthProfiler
+import org.intelehealth.common.helper.NetworkHelper
+import org.intelehealth.common.helper.PreferenceHelper
+import org.intelehealth.common.metrics.network.NetworkTelemetry
+import org.intelehealth.common.utility.PreferenceUtils
+import org.intelehealth.data.network.RestClient
+import org.intelehealth.data.network.model.SetupLocation
+import org.intelehealth.data.offline.OfflineDatabase
+import org.intelehealth.data.offline.gson.EntityTypeAdapterFactory
+import org.intelehealth.data.provider.session.SessionContext
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.shadows.ShadowNetworkCapabilities
+import retrofit2.Retrofit
+import retrofit2.converter.gson.GsonConverterFactory
+
+/**
+ * [SyncDataRepository] wired like the Hilt graph does, on an in-memory
+ * [OfflineDatabase] and a [MockWebServer] standing in for the EMR middleware.
+ * Tests set [MockWebServer.setDispatcher] and call [close] when done.
+ */
+class SyncTestEnvironment(val context: Context) {
+    val gson: Gson = GsonBuilder().registerTypeAdapterFactory(EntityTypeAdapterFactory).create()
+    val server = MockWebServer().apply { start() }
+
+    val db: OfflineDatabase = Room.inMemoryDatabaseBuilder(context, OfflineDatabase::class.java)
+        .addCallback(OfflineDatabase.CALLBACK)
+        .build()
+
+    private val preferenceHelper = PreferenceHelper(context)
+    val preferenceUtils = PreferenceUtils(preferenceHelper).apply {
+        location = gson.toJson(SetupLocation(uuid = LOCATION_UUID))
+        basicToken = "Basic sync"
+    }
+
+    val networkHelper: NetworkHelper
+    val repository: SyncDataRepository
+
+    init {
+        enableWifi()
+        networkHelper = NetworkHelper(context)
+        val restClient = Retrofit.Builder()
+            .baseUrl(server.url("/"))
+            .client(OkHttpClient())
+            .addConverterFactory(GsonConverterFactory.create(gson))
+            .build()
+            .create(RestClient::class.java)
+        val dataSource = SyncDataSource(restClient, preferenceUtils, networkHelper)
+        val sessionContext = SessionContext(preferenceUtils, db.userDao(), gson, preferenceHelper)
+        val bandwidthProfiler = BandwidthProfiler(networkHelper, NetworkTelemetry())
+        repository = SyncDataRepository(db, dataSource, gson, preferenceUtils, sessionContext, bandwidthProfiler)
+    }
+
+    /**
+     * The uuids stored in [table].
+     */
+    fun uuids(table: String): Set<String> = db.openHelper.readableDatabase.query("SELECT uuid FROM $table").use {
+        generateSequence { if (it.moveToNext()) it.getString(0) else null }.toSet()
+    }
+
+    fun close() {
+        db.close()
+        server.shutdown()
+    }
+
+    private fun enableWifi() {
+        val connectivityManager = context.getSystemService(Context.CONNECTIVITY_SERVICE) as ConnectivityManager
+        val capabilities = ShadowNetworkCapabilities.newInstance()
+        shadowOf(capabilities).addTransportType(NetworkCapabilities.TRANSPORT_WIFI)
+        shadowOf(connectivityManager).setNetworkCapabilities(connectivityManager.activeNetwork, capabilities)
+    }
+
+    companion object {
+        const val LOCATION_UUID = "location-1"
+    }
+}
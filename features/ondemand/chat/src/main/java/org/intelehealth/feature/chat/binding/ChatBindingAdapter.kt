@@ -32,7 +32,7 @@ fun setMessageStatusIcon(textView: TextView, messageStatus: Int) {
             statusLbl = R.string.sent
         }
 
-        MessageStatus.SENDING.value -> {
+        MessageStatus.SENDING.value, MessageStatus.QUEUED.value -> {
             drawable = R.drawable.ic_status_msg_sending
             statusLbl = R.string.sending
         }
@@ -34,6 +34,8 @@ class ChatRepository(
 
     suspend fun sendMessage(message: ChatMessage) = dataSource.sendMessage(message)
 
+    suspend fun getQueuedMessages(limit: Int) = chatDao.getMessagesByStatus(MessageStatus.QUEUED.value, limit)
+
     suspend fun ackMessageRead(messageId: Int) = dataSource.ackMessageRead(messageId)
 
     suspend fun getMessages(
@@ -10,8 +10,12 @@ import dagger.hilt.components.SingletonComponent
 import okhttp3.OkHttpClient
 import okhttp3.logging.HttpLoggingInterceptor
 import org.intelehealth.app.BuildConfig
+import org.intelehealth.common.helper.NetworkHelper
 import org.intelehealth.common.helper.PreferenceHelper
+import org.intelehealth.common.metrics.network.NetworkTelemetry
 import org.intelehealth.common.service.AuthInterceptor
+import org.intelehealth.common.service.resilience.EndpointGroup
+import org.intelehealth.common.service.resilience.ResilienceInterceptor
 import org.intelehealth.common.socket.SocketManager
 import org.intelehealth.common.utility.CommonConstants.HTTP_REQ_TIMEOUT
 import org.intelehealth.feature.chat.restapi.ChatRestClient
@@ -48,12 +52,19 @@ class NetworkModule {
 
     @Singleton
     @Provides
-    fun provideOkHttpBuilder(interceptor: HttpLoggingInterceptor) =
+    fun provideOkHttpBuilder(interceptor: HttpLoggingInterceptor, resilienceInterceptor: ResilienceInterceptor) =
         OkHttpClient.Builder().retryOnConnectionFailure(true)
             .connectTimeout(HTTP_REQ_TIMEOUT, TimeUnit.SECONDS)
             .readTimeout(HTTP_REQ_TIMEOUT, TimeUnit.SECONDS)
             .writeTimeout(HTTP_REQ_TIMEOUT, TimeUnit.SECONDS)
+            .addInterceptor(resilienceInterceptor)
             .addInterceptor(interceptor)
+            .eventListenerFactory(NetworkTelemetry.default.eventListenerFactory(NetworkTelemetry.CLIENT_CHAT))
+
+    @Singleton
+    @Provides
+    fun provideResilienceInterceptor(networkHelper: NetworkHelper) =
+        ResilienceInterceptor(listOf(EndpointGroup.CHAT), isOnline = networkHelper::isNetworkConnected)
 
     @Singleton
     @Provides
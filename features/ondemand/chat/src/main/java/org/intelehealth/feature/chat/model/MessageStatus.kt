@@ -8,7 +8,12 @@ package org.intelehealth.feature.chat.model
  */
 enum class MessageStatus(val value: Int) {
 
-    RECEIVED(4), CMD_RECEIVED(5), READ(3), DELIVERED(2), SENT(1), SENDING(0), FAIL(-1);
+    RECEIVED(4), CMD_RECEIVED(5), READ(3), DELIVERED(2), SENT(1), SENDING(0), FAIL(-1),
+
+    /**
+     * Written locally and waiting in the outbox for [org.intelehealth.feature.chat.worker.ChatOutboxWorker].
+     */
+    QUEUED(-2);
 
     fun isReceived() = this == RECEIVED
 
@@ -24,11 +29,14 @@ enum class MessageStatus(val value: Int) {
 
     fun isFail() = this == FAIL
 
+    fun isQueued() = this == QUEUED
+
     companion object {
         @JvmStatic
         fun getStatus(value: Int) = when (value) {
             READ.value -> READ
             SENDING.value -> SENDING
+            QUEUED.value -> QUEUED
             SENT.value -> SENT
             DELIVERED.value -> DELIVERED
             else -> SENT
@@ -6,7 +6,10 @@ import okhttp3.OkHttpClient
 import okhttp3.logging.HttpLoggingInterceptor
 import org.intelehealth.app.BuildConfig
 import org.intelehealth.common.helper.PreferenceHelper
+import org.intelehealth.common.metrics.network.NetworkTelemetry
 import org.intelehealth.common.service.AuthInterceptor
+import org.intelehealth.common.service.resilience.EndpointGroup
+import org.intelehealth.common.service.resilience.ResilienceInterceptor
 import org.intelehealth.common.utility.CommonConstants.HTTP_REQ_TIMEOUT
 import org.intelehealth.feature.chat.restapi.ChatRestClient
 import retrofit2.Retrofit
@@ -21,6 +24,11 @@ import java.util.concurrent.TimeUnit
 object RetrofitProvider {
     private var apiClient: ChatRestClient? = null
 
+    /**
+     * Shared by every client built here, so they all see the same chat circuit.
+     */
+    private val resilienceInterceptor by lazy { ResilienceInterceptor(listOf(EndpointGroup.CHAT)) }
+
     fun getApiClient(context: Context): ChatRestClient = apiClient ?: synchronized(this) {
         apiClient ?: buildChatRestClient(context).also {
             apiClient = it
@@ -49,7 +57,9 @@ object RetrofitProvider {
 
     private fun provideOkHttpBuilder(interceptor: HttpLoggingInterceptor) =
         OkHttpClient.Builder().retryOnConnectionFailure(true).connectTimeout(HTTP_REQ_TIMEOUT, TimeUnit.SECONDS)
-            .readTimeout(HTTP_REQ_TIMEOUT, TimeUnit.SECONDS).writeTimeout(HTTP_REQ_TIMEOUT, TimeUnit.SECONDS).addInterceptor(interceptor)
+            .readTimeout(HTTP_REQ_TIMEOUT, TimeUnit.SECONDS).writeTimeout(HTTP_REQ_TIMEOUT, TimeUnit.SECONDS)
+            .addInterceptor(resilienceInterceptor).addInterceptor(interceptor)
+            .eventListenerFactory(NetworkTelemetry.default.eventListenerFactory(NetworkTelemetry.CLIENT_CHAT))
 
     private fun provideHttpLoggingInterceptor() = HttpLoggingInterceptor().apply {
         level = if (BuildConfig.DEBUG) HttpLoggingInterceptor.Level.BODY
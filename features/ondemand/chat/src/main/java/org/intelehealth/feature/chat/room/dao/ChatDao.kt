@@ -41,6 +41,9 @@ interface ChatDao {
     @Query("UPDATE tbl_chat_message SET message_status= :status where message_id IN (:messageIds)")
     suspend fun changeMessageStatus(messageIds: List<Int>, status: Int)
 
+    @Query("SELECT * FROM tbl_chat_message WHERE message_status = :status ORDER BY created_at, message_id LIMIT :limit")
+    suspend fun getMessagesByStatus(status: Int, limit: Int): List<ChatMessage>
+
     @Query("DELETE FROM tbl_chat_message")
     suspend fun deleteAll()
 
@@ -11,8 +11,8 @@ import org.intelehealth.feature.chat.ChatClient
 import org.intelehealth.feature.chat.data.ChatRepository
 import org.intelehealth.feature.chat.model.MessageStatus
 import org.intelehealth.feature.chat.room.entity.ChatMessage
+import org.intelehealth.feature.chat.worker.ChatOutboxWorker
 import org.intelehealth.features.ondemand.mediator.model.ChatRoomConfig
-import org.intelehealth.common.state.Result
 /**
  * Created by Vaghela Mithun R. on 18-07-2023 - 23:43.
  * Email : mithun@intelehealth.org
@@ -20,7 +20,7 @@ import org.intelehealth.common.state.Result
  **/
 
 class ChatViewModel(
-    context: Context,
+    private val context: Context,
     private val chatClient: ChatClient = ChatClient.getInstance(context),
     private val repository: ChatRepository
 ) : BaseViewModel() {
@@ -37,9 +37,12 @@ class ChatViewModel(
         chatClient.updateActiveChatRoomDetails(null, null)
     }
 
+    /**
+     * Stores the message as [MessageStatus.QUEUED] and hands it to the
+     * [ChatOutboxWorker], which sends it as soon as the device is online.
+     */
     fun sendMessage(text: String, messageId: Int) {
         viewModelScope.launch {
-            var status = MessageStatus.SENDING
             val message = roomConfig.let {
                 return@let ChatMessage(
                     messageId = messageId,
@@ -51,31 +54,15 @@ class ChatViewModel(
                     roomName = it.patientName,
                     openMrsId = it.openMrsId,
                     patientId = it.patientId,
-                    messageStatus = status.value,
+                    messageStatus = MessageStatus.QUEUED.value,
                     type = "text",
                     createdAt = DateTimeUtils.getCurrentDateWithDBFormat(),
                     updatedAt = DateTimeUtils.getCurrentDateWithDBFormat()
                 )
             }
             repository.addMessage(message)
-            Timber.d { "sendMessage started" }
-            executeNetworkCall {
-                Timber.d { "sendMessage executeNetworkCall" }
-                repository.sendMessage(message)
-            }.collect {
-                Timber.e { "Send Message status => ${it.status}" }
-                status = when (it.status) {
-                    Result.State.FAIL, Result.State.ERROR -> MessageStatus.FAIL
-                    Result.State.SUCCESS -> MessageStatus.SENT
-                    else -> MessageStatus.FAIL
-                }
-                Timber.e { "it.data => ${it.data?.toJson()}" }
-                it.data?.messageId?.let { it1 ->
-                    if (it1 == messageId) repository.changeMessageStatus(messageId, status)
-                    else repository.updateMessageIdAndStatus(it1, status.value, message.message)
-                    Timber.e { "updating local message " }
-                }
-            }
+            Timber.d { "sendMessage queued" }
+            ChatOutboxWorker.enqueue(context)
         }
     }
 
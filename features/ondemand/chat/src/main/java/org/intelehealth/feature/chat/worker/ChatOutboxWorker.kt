@@ -0,0 +1,101 @@
+package org.intelehealth.feature.chat.worker
+
+import android.content.Context
+import androidx.work.BackoffPolicy
+import androidx.work.Constraints
+import androidx.work.CoroutineWorker
+import androidx.work.ExistingWorkPolicy
+import androidx.work.NetworkType
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.WorkManager
+import androidx.work.WorkerParameters
+import com.github.ajalt.timberkt.Timber
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import org.intelehealth.common.service.HttpStatusCode
+import org.intelehealth.feature.chat.data.ChatDataSource
+import org.intelehealth.feature.chat.data.ChatRepository
+import org.intelehealth.feature.chat.model.MessageStatus
+import org.intelehealth.feature.chat.provider.RetrofitProvider
+import org.intelehealth.feature.chat.room.ChatDatabase
+import org.intelehealth.feature.chat.room.entity.ChatMessage
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+
+/**
+ * Sends the chat messages waiting with [MessageStatus.QUEUED], oldest first.
+ *
+ * The message table is the outbox: a message is written as queued before anything is
+ * sent, so it survives the app being closed offline. Messages the server rejects are
+ * marked [MessageStatus.FAIL]; a network or server error stops the run and it is
+ * retried with backoff, so messages are never sent out of order.
+ *
+ * The chat module is installed on demand and has no Hilt graph, so the worker builds
+ * its repository the same way the chat screens do.
+ */
+class ChatOutboxWorker(ctx: Context, params: WorkerParameters) : CoroutineWorker(ctx, params) {
+
+    private val repository: ChatRepository by lazy {
+        val database = ChatDatabase.getInstance(applicationContext)
+        ChatRepository(
+            database.chatDao(),
+            database.chatRoomDao(),
+            ChatDataSource(RetrofitProvider.getApiClient(applicationContext))
+        )
+    }
+
+    override suspend fun doWork(): Result = withContext(Dispatchers.IO) {
+        var messages = repository.getQueuedMessages(PAGE_SIZE)
+        while (messages.isNotEmpty()) {
+            if (messages.all { send(it) }.not()) return@withContext Result.retry()
+            messages = repository.getQueuedMessages(PAGE_SIZE)
+        }
+        Result.success()
+    }
+
+    /**
+     * @return false when the message is still queued and should be retried.
+     */
+    private suspend fun send(message: ChatMessage): Boolean {
+        val response = try {
+            // the server keeps the status it receives, which is "sending" for a new message
+            repository.sendMessage(message.copy(messageStatus = MessageStatus.SENDING.value))
+        } catch (e: IOException) {
+            Timber.w { "Queued message ${message.messageId} not sent: ${e.message}" }
+            return false
+        }
+
+        if (response.isSuccessful.not()) {
+            if (response.code().isRetryable()) return false
+            Timber.w { "Queued message ${message.messageId} rejected with HTTP ${response.code()}" }
+            repository.changeMessageStatus(message.messageId, MessageStatus.FAIL)
+            return true
+        }
+
+        val sentId = response.body()?.data?.messageId
+        if (sentId == null || sentId == message.messageId) {
+            repository.changeMessageStatus(message.messageId, MessageStatus.SENT)
+        } else repository.updateMessageIdAndStatus(sentId, MessageStatus.SENT.value, message.message)
+        return true
+    }
+
+    private fun Int.isRetryable() = this == HttpStatusCode.UNAUTHORIZED || this == HTTP_REQUEST_TIMEOUT ||
+            this == HTTP_TOO_MANY_REQUESTS || this >= HttpStatusCode.INTERNAL_SERVER_ERROR
+
+    companion object {
+        private const val HTTP_REQUEST_TIMEOUT = 408
+        private const val HTTP_TOO_MANY_REQUESTS = 429
+        private const val WORK_NAME = "chat_outbox"
+        private const val PAGE_SIZE = 20
+        private const val BACKOFF_SECONDS = 10L
+
+        fun enqueue(context: Context) {
+            val request = OneTimeWorkRequestBuilder<ChatOutboxWorker>()
+                .setConstraints(Constraints.Builder().setRequiredNetworkType(NetworkType.CONNECTED).build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build()
+            WorkManager.getInstance(context.applicationContext)
+                .enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, request)
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.intelehealth.app.feature.video.httpclient
 import okhttp3.OkHttpClient
 import okhttp3.logging.HttpLoggingInterceptor
 import org.intelehealth.app.BuildConfig
+import org.intelehealth.common.metrics.network.NetworkTelemetry
 import java.util.concurrent.TimeUnit
 
 /**
@@ -17,6 +18,7 @@ class OkHttpClientProvider {
         OkHttpClient.Builder().retryOnConnectionFailure(true).connectTimeout(TIMEOUT_SECOND, TimeUnit.SECONDS)
             .readTimeout(TIMEOUT_SECOND, TimeUnit.SECONDS).writeTimeout(TIMEOUT_SECOND, TimeUnit.SECONDS)
             .addInterceptor(interceptor)
+            .eventListenerFactory(NetworkTelemetry.default.eventListenerFactory(NetworkTelemetry.CLIENT_VIDEO))
 
     private fun provideHttpLoggingInterceptor() = HttpLoggingInterceptor().apply {
         level = if (BuildConfig.DEBUG) HttpLoggingInterceptor.Level.BODY
@@ -17,6 +17,8 @@ import io.livekit.android.room.track.VideoPreset43
 import livekit.org.webrtc.EglBase
 import livekit.org.webrtc.HardwareVideoEncoderFactory
 import org.intelehealth.app.feature.video.httpclient.OkHttpClientProvider
+import org.intelehealth.common.helper.BandwidthProfile
+import org.intelehealth.common.helper.BandwidthProfiler
 
 /**
  * Created by Vaghela Mithun R. on 16-09-2023 - 20:32.
@@ -25,16 +27,24 @@ import org.intelehealth.app.feature.video.httpclient.OkHttpClientProvider
  **/
 object LiveKitProvider {
 
-    fun createRoom(@ApplicationContext context: Context) = provideLiveKitRoom(
-        context = context,
-        options = provideRoomOptions(
-            provideLocalAudioTrackOptions(),
-            provideLocalVideoTrackOptions(),
-            provideAudioPublishDefault(),
-            provideVideoPublishTrack()
-        ),
-        audioSwitchHandler = provideAudioSwitchHandler(context)
-    )
+    /**
+     * Creates the room with capture and publish settings for the [BandwidthProfile] of
+     * the network the call starts on; LiveKit's adaptive stream and dynacast take care
+     * of changes during the call.
+     */
+    fun createRoom(@ApplicationContext context: Context): Room {
+        val profile = BandwidthProfiler.getInstance(context).current()
+        return provideLiveKitRoom(
+            context = context,
+            options = provideRoomOptions(
+                provideLocalAudioTrackOptions(),
+                provideLocalVideoTrackOptions(profile),
+                provideAudioPublishDefault(profile),
+                provideVideoPublishTrack(profile)
+            ),
+            audioSwitchHandler = provideAudioSwitchHandler(context)
+        )
+    }
 
     private fun provideLocalAudioTrackOptions() = LocalAudioTrackOptions(
         noiseSuppression = true,
@@ -44,24 +54,35 @@ object LiveKitProvider {
         typingNoiseDetection = true,
     )
 
-    private fun provideLocalVideoTrackOptions() = LocalVideoTrackOptions(
+    private fun provideLocalVideoTrackOptions(profile: BandwidthProfile) = LocalVideoTrackOptions(
         deviceId = "",
         position = CameraPosition.FRONT,
-        captureParams = VideoPreset43.H480.capture,
+        captureParams = when (profile) {
+            BandwidthProfile.LOW -> VideoPreset43.H240.capture
+            BandwidthProfile.MEDIUM -> VideoPreset43.H360.capture
+            BandwidthProfile.HIGH -> VideoPreset43.H480.capture
+        },
     )
 
-    private fun provideAudioPublishDefault() = AudioTrackPublishDefaults(
-        audioBitrate = 20_000,
+    private fun provideAudioPublishDefault(profile: BandwidthProfile) = AudioTrackPublishDefaults(
+        audioBitrate = if (profile == BandwidthProfile.LOW) LOW_AUDIO_BITRATE else AUDIO_BITRATE,
         dtx = true,
     )
 
-    private fun provideVideoPublishTrack() = VideoTrackPublishDefaults(
-        videoEncoding = VideoPreset43.H120.encoding
+    /**
+     * Simulcast sends every layer from the device, which a 2G uplink can't carry.
+     */
+    private fun provideVideoPublishTrack(profile: BandwidthProfile) = VideoTrackPublishDefaults(
+        videoEncoding = when (profile) {
+            BandwidthProfile.LOW -> VideoPreset43.H120.encoding
+            BandwidthProfile.MEDIUM -> VideoPreset43.H240.encoding
+            BandwidthProfile.HIGH -> VideoPreset43.H360.encoding
+        },
+        simulcast = profile != BandwidthProfile.LOW
 //        videoEncoding = VideoPreset169.VGA.encoding,
 //            videoCodec = VideoCodec.VP8.codecName
     )
 
-    @Suppress("unused")
     private fun provideRoomOptions(
         localAudioTrackOptions: LocalAudioTrackOptions,
         localVideoTrackOptions: LocalVideoTrackOptions,
@@ -70,8 +91,11 @@ object LiveKitProvider {
     ): RoomOptions {
         return RoomOptions(
             audioTrackCaptureDefaults = localAudioTrackOptions,
+            videoTrackCaptureDefaults = localVideoTrackOptions,
             audioTrackPublishDefaults = audioTrackPublishDefaults,
-            adaptiveStream = true
+            videoTrackPublishDefaults = videoTrackPublishDefaults,
+            adaptiveStream = true,
+            dynacast = true
         )
     }
 
@@ -98,4 +122,6 @@ object LiveKitProvider {
         )
     )
 
+    private const val AUDIO_BITRATE = 20_000
+    private const val LOW_AUDIO_BITRATE = 16_000
 }